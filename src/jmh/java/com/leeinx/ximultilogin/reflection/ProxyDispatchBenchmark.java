@@ -0,0 +1,171 @@
+package com.Leeinx.ximultilogin.reflection;
+
+import com.Leeinx.ximultilogin.TestServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.InetAddress;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 会话服务代理的调用开销：XiReflection.createDispatchProxy 与改造前逐次反射查找的处理器对比
+ * 运行：mvn -Pjmh test-compile exec:exec
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProxyDispatchBenchmark {
+
+    private static final Logger LEGACY_LOGGER = Logger.getLogger("XiMultiLogin-Bench");
+
+    /**
+     * 模拟服务端的 GameProfile
+     */
+    public static final class Profile {
+        private final String name;
+
+        public Profile(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    /**
+     * 模拟 Record 要求的会话服务接口：hasJoinedServer 需要适配，getSecure 参数类型直接匹配
+     */
+    public interface SessionService {
+        Object hasJoinedServer(Profile profile, String serverId, InetAddress address);
+
+        String getSecure(String value);
+    }
+
+    /**
+     * 模拟 XiSessionService：hasJoinedServer 接受用户名
+     */
+    public static final class Target {
+        public Object hasJoinedServer(String username, String serverId, InetAddress address) {
+            return username;
+        }
+
+        public String getSecure(String value) {
+            return value;
+        }
+    }
+
+    private SessionService legacy;
+    private SessionService dispatch;
+    private Profile profile;
+    private InetAddress address;
+
+    @Setup
+    public void setup() {
+        TestServer.install();
+        LEGACY_LOGGER.setLevel(Level.WARNING);
+        Target target = new Target();
+        legacy = legacyProxy(target);
+        dispatch = (SessionService) XiReflection.createDispatchProxy(SessionService.class, target);
+        profile = new Profile("Steve");
+        address = InetAddress.getLoopbackAddress();
+    }
+
+    @Benchmark
+    public Object legacyAdaptedHasJoinedServer() {
+        return legacy.hasJoinedServer(profile, "server", address);
+    }
+
+    @Benchmark
+    public Object dispatchAdaptedHasJoinedServer() {
+        return dispatch.hasJoinedServer(profile, "server", address);
+    }
+
+    @Benchmark
+    public Object legacyExactMatch() {
+        return legacy.getSecure("value");
+    }
+
+    @Benchmark
+    public Object dispatchExactMatch() {
+        return dispatch.getSecure("value");
+    }
+
+    /**
+     * 改造前的代理处理器：每次调用都查找方法并反射调用，参数类型不匹配时捕获异常再适配
+     * 适配时的 INFO 日志被 LEGACY_LOGGER 的级别过滤，只保留判断开销
+     */
+    private static SessionService legacyProxy(Object target) {
+        return (SessionService) Proxy.newProxyInstance(
+            SessionService.class.getClassLoader(),
+            new Class<?>[]{ SessionService.class },
+            (proxyObj, method, args) -> {
+                try {
+                    Method targetMethod = findMethodLoose(target.getClass(), method.getName(), args == null ? 0 : args.length);
+                    if (targetMethod != null) {
+                        targetMethod.setAccessible(true);
+                        try {
+                            return targetMethod.invoke(target, args);
+                        } catch (IllegalArgumentException e) {
+                            LEGACY_LOGGER.info("XiReflection: Parameter type mismatch, trying smart adaptation...");
+                            if (method.getName().equals("hasJoinedServer") && args != null && args.length == 3) {
+                                try {
+                                    Object firstArg = args[0];
+                                    Method getNameMethod = firstArg.getClass().getMethod("getName");
+                                    String username = (String) getNameMethod.invoke(firstArg);
+                                    Object[] adaptedArgs = new Object[]{username, args[1], args[2]};
+                                    Method stringVersionMethod = findMethodLoose(target.getClass(), "hasJoinedServer", 3);
+                                    if (stringVersionMethod != null) {
+                                        stringVersionMethod.setAccessible(true);
+                                        return stringVersionMethod.invoke(target, adaptedArgs);
+                                    }
+                                } catch (Exception ex) {
+                                    LEGACY_LOGGER.warning("XiReflection: Smart adaptation failed: " + ex.getMessage());
+                                }
+                            }
+                            throw e;
+                        }
+                    } else {
+                        throw new NoSuchMethodException(method.getName());
+                    }
+                } catch (Exception e) {
+                    LEGACY_LOGGER.severe("XiReflection: Proxy invocation failed: " + e.getMessage());
+                    throw e;
+                }
+            }
+        );
+    }
+
+    private static Method findMethodLoose(Class<?> clazz, String methodName, int paramCount) {
+        for (Method m : clazz.getMethods()) {
+            if (m.getName().equals(methodName) && m.getParameterCount() == paramCount) {
+                return m;
+            }
+        }
+        Class<?> current = clazz;
+        while (current != null && current != Object.class) {
+            for (Method m : current.getDeclaredMethods()) {
+                if (m.getName().equals(methodName) && m.getParameterCount() == paramCount) {
+                    return m;
+                }
+            }
+            current = current.getSuperclass();
+        }
+        return null;
+    }
+}
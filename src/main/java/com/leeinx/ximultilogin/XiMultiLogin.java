@@ -2,7 +2,12 @@ package com.Leeinx.ximultilogin;
 
 import com.Leeinx.ximultilogin.auth.XiSessionService;
 import com.Leeinx.ximultilogin.config.ConfigManager;
+import com.Leeinx.ximultilogin.config.ConfigWatcher;
+import com.Leeinx.ximultilogin.http.HttpClients;
+import com.Leeinx.ximultilogin.injector.InjectionWatchdog;
+import com.Leeinx.ximultilogin.injector.LoginStartPrefetcher;
 import com.Leeinx.ximultilogin.config.MessageManager;
+import com.Leeinx.ximultilogin.guard.FloodGuard;
 import com.Leeinx.ximultilogin.guard.IdentityGuard;
 import com.Leeinx.ximultilogin.command.XiCommandExecutor;
 import com.Leeinx.ximultilogin.command.XiTabCompleter;
@@ -30,6 +35,10 @@ public class XiMultiLogin extends JavaPlugin {
     private Object originalSessionService;
     private XiSessionService xiSessionService;
     private PlayerLoginListener loginListener;
+    private ConfigWatcher configWatcher;
+    private InjectionWatchdog injectionWatchdog;
+    private LoginStartPrefetcher loginStartPrefetcher;
+    private FloodGuard floodGuard;
 
     /**
      * 插件加载时调用
@@ -59,7 +68,7 @@ public class XiMultiLogin extends JavaPlugin {
         XiReflection.init();
         
         // 初始化注入器
-        xiInjector = new XiInjector();
+        xiInjector = new XiInjector(dataFolder);
         
         LOGGER.info("XiMultiLogin: Plugin loaded successfully");
     }
@@ -87,9 +96,19 @@ public class XiMultiLogin extends JavaPlugin {
             LOGGER.info("XiMultiLogin: Debug mode enabled - verbose logging will be used");
         }
         
+        // 初始化登录洪泛防护
+        ConfigManager.FloodProtectionConfig floodConfig = configManager.getFloodProtectionConfig();
+        if (floodConfig.isEnabled()) {
+            floodGuard = new FloodGuard(floodConfig.getIpPerMinute(), floodConfig.getIpBurst(),
+                    floodConfig.getNamePerMinute(), floodConfig.getNameBurst(),
+                    floodConfig.getDenyAfterFailures(), floodConfig.getDenySeconds());
+        }
+        
         // 注册登录监听器
         loginListener = new PlayerLoginListener(this);
         getServer().getPluginManager().registerEvents(loginListener, this);
+        // 每秒推进一次登录上下文的过期时间轮
+        getServer().getScheduler().runTaskTimerAsynchronously(this, loginListener::cleanupOldRecords, 20L, 20L);
         LOGGER.info("XiMultiLogin: Player login listener registered");
         
         // 注入会话服务
@@ -102,7 +121,7 @@ public class XiMultiLogin extends JavaPlugin {
             }
             
             // 创建自定义会话服务
-            xiSessionService = new XiSessionService(originalSessionService, configManager, identityGuard, loginListener);
+            xiSessionService = new XiSessionService(originalSessionService, configManager, identityGuard, loginListener, floodGuard, getDataFolder());
             
             // 注入自定义会话服务
             boolean injected = xiInjector.inject(xiSessionService);
@@ -113,6 +132,25 @@ public class XiMultiLogin extends JavaPlugin {
             }
             
             LOGGER.info("XiMultiLogin: Session service injected successfully");
+            
+            // 启动注入守护
+            if (configManager.isInjectionWatchdogEnabled()) {
+                injectionWatchdog = new InjectionWatchdog(this, configManager.getInjectionWatchdogIntervalSeconds(),
+                        configManager.isInjectionWatchdogReinject());
+                if (!injectionWatchdog.start()) {
+                    injectionWatchdog = null;
+                }
+            }
+            
+            // 安装登录预取处理器（可选）
+            if (configManager.isLoginPrefetchEnabled()) {
+                loginStartPrefetcher = new LoginStartPrefetcher(identityGuard, floodGuard);
+                if (!loginStartPrefetcher.install()) {
+                    loginStartPrefetcher = null;
+                } else if (floodGuard != null) {
+                    floodGuard.setConnectionLayerActive(true);
+                }
+            }
         } catch (Exception e) {
             LOGGER.severe("XiMultiLogin: Exception during injection: " + e.getMessage());
             e.printStackTrace();
@@ -132,6 +170,17 @@ public class XiMultiLogin extends JavaPlugin {
         // 注册 PAPI 扩展
         registerPlaceholderExpansion();
         
+        // 启动配置文件监视（可选）
+        if (configManager.isConfigWatcherEnabled()) {
+            try {
+                configWatcher = new ConfigWatcher(this, configManager.getConfigWatcherDebounceMillis());
+                configWatcher.start();
+            } catch (Exception e) {
+                LOGGER.warning("XiMultiLogin: Failed to start config watcher: " + e.getMessage());
+                configWatcher = null;
+            }
+        }
+        
         LOGGER.info("XiMultiLogin: Plugin enabled successfully");
     }
     
@@ -161,6 +210,21 @@ public class XiMultiLogin extends JavaPlugin {
     public void onDisable() {
         LOGGER.info("XiMultiLogin: Disabling plugin...");
         
+        // 停止配置文件监视
+        if (configWatcher != null) {
+            configWatcher.stop();
+        }
+        
+        // 卸载登录预取处理器
+        if (loginStartPrefetcher != null) {
+            loginStartPrefetcher.uninstall();
+        }
+        
+        // 停止注入守护（必须在恢复之前，否则恢复会被当作替换）
+        if (injectionWatchdog != null) {
+            injectionWatchdog.stop();
+        }
+        
         // 恢复原始会话服务
         if (originalSessionService != null && xiInjector != null) {
             try {
@@ -176,6 +240,14 @@ public class XiMultiLogin extends JavaPlugin {
             }
         }
         
+        // 退役验证链，释放认证线程池
+        if (xiSessionService != null) {
+            xiSessionService.shutdown();
+        }
+        
+        // 关闭 HTTP 连接池
+        HttpClients.shutdown();
+        
         // 关闭数据库连接
         if (identityGuard != null) {
             identityGuard.close();
@@ -211,6 +283,54 @@ public class XiMultiLogin extends JavaPlugin {
         return xiInjector;
     }
 
+    /**
+     * 获取登录洪泛防护
+     * 
+     * @return 登录洪泛防护实例，未启用时返回 null
+     */
+    public FloodGuard getFloodGuard() {
+        return floodGuard;
+    }
+
+    /**
+     * 获取注入守护
+     * 
+     * @return 注入守护实例，未启用时返回 null
+     */
+    public InjectionWatchdog getInjectionWatchdog() {
+        return injectionWatchdog;
+    }
+
+    /**
+     * 按新的设置重启注入守护
+     * 配置文件监视在注入守护配置变化时调用（主线程）
+     * 
+     * @param enabled         是否启用
+     * @param intervalSeconds 检查间隔（秒）
+     * @param reinject        发现替换时是否重新注入
+     */
+    public void reconfigureInjectionWatchdog(boolean enabled, int intervalSeconds, boolean reinject) {
+        if (injectionWatchdog != null) {
+            injectionWatchdog.stop();
+            injectionWatchdog = null;
+        }
+        if (enabled && xiSessionService != null) {
+            InjectionWatchdog next = new InjectionWatchdog(this, intervalSeconds, reinject);
+            if (next.start()) {
+                injectionWatchdog = next;
+            }
+        }
+    }
+
+    /**
+     * 获取配置文件监视器
+     * 
+     * @return 配置文件监视器实例，未启用时返回 null
+     */
+    public ConfigWatcher getConfigWatcher() {
+        return configWatcher;
+    }
+
     /**
      * 获取原始会话服务
      * 
@@ -0,0 +1,170 @@
+package com.Leeinx.ximultilogin.auth;
+
+import com.Leeinx.ximultilogin.config.ConfigManager;
+import org.bukkit.Bukkit;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * 验证链快照
+ * 不可变地保存一次配置加载得到的提供者顺序、名称映射、提供者配置和认证线程池。
+ * XiSessionService 通过单个 volatile 引用持有当前快照，重载时整体替换；
+ * 已经开始的登录在其开始时获取的快照上完成，旧快照在最后一个登录结束后关闭线程池。
+ */
+public final class AuthPipeline {
+
+    private static final Logger LOGGER = Bukkit.getLogger();
+    private static final AtomicInteger GENERATION = new AtomicInteger();
+
+    private final int generation;
+    private final List<AuthProvider> providers;
+    private final Map<String, AuthProvider> providerMap;
+    private final Map<String, ConfigManager.ProviderConfig> providerConfigs;
+    private final ExecutorService authExecutor;
+    private final int authTimeoutSeconds;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicBoolean shutdown = new AtomicBoolean(false);
+    private volatile boolean retired;
+
+    /**
+     * 构造 AuthPipeline
+     *
+     * @param providers          按验证顺序排列的提供者
+     * @param providerConfigs    提供者名称到配置的映射
+     * @param authExecutor       该快照专用的认证线程池
+     * @param authTimeoutSeconds 整体认证超时（秒）
+     */
+    AuthPipeline(List<AuthProvider> providers, Map<String, ConfigManager.ProviderConfig> providerConfigs,
+                 ExecutorService authExecutor, int authTimeoutSeconds) {
+        this.generation = GENERATION.incrementAndGet();
+        this.providers = Collections.unmodifiableList(providers);
+        Map<String, AuthProvider> map = new LinkedHashMap<>();
+        for (AuthProvider provider : providers) {
+            map.put(provider.getName(), provider);
+        }
+        this.providerMap = Collections.unmodifiableMap(map);
+        this.providerConfigs = Collections.unmodifiableMap(new LinkedHashMap<>(providerConfigs));
+        this.authExecutor = authExecutor;
+        this.authTimeoutSeconds = authTimeoutSeconds;
+    }
+
+    /**
+     * 预热快照
+     * 在切换前提前启动认证线程，避免切换后第一批登录承担线程创建开销
+     */
+    void warm() {
+        if (authExecutor instanceof ThreadPoolExecutor) {
+            ((ThreadPoolExecutor) authExecutor).prestartAllCoreThreads();
+        }
+    }
+
+    /**
+     * 预热所有提供者的网络连接（DNS 解析、预建连接、元数据请求）
+     * 在认证线程池中并行执行，各提供者自行记录耗时
+     *
+     * @param deadline 截止时间
+     * @return 全部完成时完成的 CompletableFuture，不会异常完成
+     */
+    CompletableFuture<Void> warmUpProviders(long deadline) {
+        long start = System.currentTimeMillis();
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[providers.size()];
+        for (int i = 0; i < futures.length; i++) {
+            futures[i] = providers.get(i).warmUp(deadline, authExecutor);
+        }
+        return CompletableFuture.allOf(futures).handle((ignored, ex) -> {
+            LOGGER.info("AuthPipeline: Warm-up of pipeline #" + generation + " finished in "
+                    + (System.currentTimeMillis() - start) + "ms");
+            return null;
+        });
+    }
+
+    /**
+     * 尝试登记一次使用该快照的登录
+     * 快照已退役时返回 false，调用方应重新读取当前快照
+     *
+     * @return 是否登记成功
+     */
+    boolean tryAcquire() {
+        inFlight.incrementAndGet();
+        if (retired) {
+            release();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 结束一次登录对该快照的使用
+     */
+    void release() {
+        if (inFlight.decrementAndGet() == 0 && retired) {
+            shutdownExecutor();
+        }
+    }
+
+    /**
+     * 退役该快照
+     * 不再接受新的登录，所有进行中的登录结束后关闭线程池
+     */
+    void retire() {
+        retired = true;
+        if (inFlight.get() == 0) {
+            shutdownExecutor();
+        }
+    }
+
+    private void shutdownExecutor() {
+        if (shutdown.compareAndSet(false, true)) {
+            authExecutor.shutdown();
+            LOGGER.info("AuthPipeline: Pipeline #" + generation + " drained and shut down");
+        }
+    }
+
+    /**
+     * 该快照是否比另一个快照更新（构建得更晚）
+     *
+     * @param other 另一个快照
+     * @return 代数更大时返回 true
+     */
+    boolean supersedes(AuthPipeline other) {
+        return generation > other.generation;
+    }
+
+    public int getGeneration() {
+        return generation;
+    }
+
+    public List<AuthProvider> getProviders() {
+        return providers;
+    }
+
+    public AuthProvider getProvider(String name) {
+        return providerMap.get(name);
+    }
+
+    public Map<String, ConfigManager.ProviderConfig> getProviderConfigs() {
+        return providerConfigs;
+    }
+
+    public ExecutorService getAuthExecutor() {
+        return authExecutor;
+    }
+
+    public int getAuthTimeoutSeconds() {
+        return authTimeoutSeconds;
+    }
+
+    public boolean isEmpty() {
+        return providers.isEmpty();
+    }
+}
@@ -1,5 +1,8 @@
 package com.Leeinx.ximultilogin.auth;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 /**
  * 认证提供者接口
  * 定义认证提供者的通用方法
@@ -15,6 +18,35 @@ public interface AuthProvider {
      */
     Object authenticate(String username, String serverId);
 
+    /**
+     * 异步执行认证
+     * 默认实现把同步的 authenticate 放到给定线程池中执行（兼容只实现了同步方法的提供者），每个进行中的调用占用一个线程；
+     * 提供者可以用非阻塞 I/O 覆盖此方法（如 YggdrasilAuthProvider），此时线程池只用于收到响应后的处理，
+     * 但必须在截止时间之前结束所有 I/O
+     *
+     * @param username 玩家名称
+     * @param serverId 服务器唯一标识符
+     * @param deadline 截止时间（System.currentTimeMillis() 时间戳），超过后结果视为失败
+     * @param executor 执行阻塞操作和后续处理的线程池
+     * @return 认证结果的 CompletableFuture，认证失败或超时为 null
+     */
+    default CompletableFuture<Object> authenticateAsync(String username, String serverId, long deadline, Executor executor) {
+        return CompletableFuture.supplyAsync(
+                () -> System.currentTimeMillis() < deadline ? authenticate(username, serverId) : null, executor);
+    }
+
+    /**
+     * 预热：提前解析主机地址、建立连接，使启动后的第一批登录不用等待 DNS 和握手
+     * 默认不做任何事
+     *
+     * @param deadline 截止时间（System.currentTimeMillis() 时间戳）
+     * @param executor 执行网络操作的线程池
+     * @return 预热完成时完成的 CompletableFuture，不会异常完成
+     */
+    default CompletableFuture<Void> warmUp(long deadline, Executor executor) {
+        return CompletableFuture.completedFuture(null);
+    }
+
     /**
      * 获取提供者名称
      * 
@@ -1,15 +1,30 @@
 package com.Leeinx.ximultilogin.auth;
 
 import com.Leeinx.ximultilogin.auth.providers.MojangAuthProvider;
+import com.Leeinx.ximultilogin.auth.providers.ProviderLimiter;
 import com.Leeinx.ximultilogin.auth.providers.YggdrasilAuthProvider;
+import com.Leeinx.ximultilogin.auth.providers.YggdrasilEndpoint;
+import com.Leeinx.ximultilogin.cache.SkinCache;
 import com.Leeinx.ximultilogin.config.ConfigManager;
+import com.Leeinx.ximultilogin.guard.FloodGuard;
 import com.Leeinx.ximultilogin.guard.IdentityGuard;
+import com.Leeinx.ximultilogin.http.HostConnectionPool;
+import com.Leeinx.ximultilogin.http.HttpClients;
 import com.Leeinx.ximultilogin.listener.PlayerLoginListener;
+import com.Leeinx.ximultilogin.reflection.AuthlibBridge;
 import org.bukkit.Bukkit;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 /**
@@ -19,12 +34,17 @@ import java.util.logging.Logger;
 public class XiSessionService {
 
     private static final Logger LOGGER = Bukkit.getLogger();
-    private final List<AuthProvider> providers;
-    private final java.util.Map<String, AuthProvider> providerMap; // 提供者名称到实例的映射
+    private static final long PROVIDER_TIMEOUT_MILLIS = 5000;
+    private volatile AuthPipeline pipeline; // 当前验证链快照，整体替换
+    private volatile boolean closed; // 关闭后不再替换快照，新的登录直接失败
     private final Object originalSessionService;
     private final IdentityGuard identityGuard;
     private final ConfigManager configManager;
     private final PlayerLoginListener loginListener;
+    private final FloodGuard floodGuard;
+    private final ScheduledThreadPoolExecutor timer;
+    private final SkinCache skinCache; // 所有提供者共享，重载验证链时保留
+    private final Map<String, ProviderLimiter> limiters = new ConcurrentHashMap<>(); // 按提供者名称和地址保存，重载验证链时沿用
 
     /**
      * 构造 XiSessionService
@@ -33,28 +53,204 @@ public class XiSessionService {
      * @param configManager          配置管理器
      * @param identityGuard          身份守护者
      * @param loginListener          登录监听器
+     * @param floodGuard             登录洪泛防护（可为 null）
+     * @param dataFolder             插件数据目录，用于皮肤磁盘缓存
      */
-    public XiSessionService(Object originalSessionService, ConfigManager configManager, IdentityGuard identityGuard, PlayerLoginListener loginListener) {
+    public XiSessionService(Object originalSessionService, ConfigManager configManager, IdentityGuard identityGuard,
+                            PlayerLoginListener loginListener, FloodGuard floodGuard, File dataFolder) {
         this.originalSessionService = originalSessionService;
         this.identityGuard = identityGuard;
         this.configManager = configManager;
         this.loginListener = loginListener;
-        this.providers = new ArrayList<>();
-        this.providerMap = new java.util.HashMap<>();
-        initializeProviders(configManager);
+        this.floodGuard = floodGuard;
+        // 所有登录共用一个定时线程处理认证截止时间，同时负责清除过期的皮肤缓存
+        this.timer = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "XiMultiLogin-AuthTimer");
+            t.setDaemon(true);
+            return t;
+        });
+        this.timer.setRemoveOnCancelPolicy(true);
+        ConfigManager.PerformanceConfig performanceConfig = configManager.getPerformanceConfig();
+        this.skinCache = new SkinCache(performanceConfig.getSkinCacheSize(), performanceConfig.getSkinCacheExpiryMinutes(),
+                performanceConfig.getSkinRefreshAhead());
+        if (performanceConfig.isSkinDiskCache()) {
+            // 磁盘层在自己的写入线程上加载，加载完成前只使用内存缓存
+            skinCache.attachDiskTier(new File(dataFolder, "skin-cache"), performanceConfig.getSkinDiskCacheMaxMb() * 1024L * 1024L);
+            skinCache.loadDiskTier();
+        }
+        this.timer.scheduleWithFixedDelay(skinCache::cleanUp, 1, 1, TimeUnit.MINUTES);
+        this.pipeline = buildPipeline(configManager.getPipelineConfig(), performanceConfig);
+        this.pipeline.warm();
+        // 网络预热在后台进行，不阻塞插件启动
+        this.pipeline.warmUpProviders(warmUpDeadline(performanceConfig));
+    }
+
+    /**
+     * 热重载验证链
+     * 在调用线程读取配置，在会话服务的定时线程上构建新快照，网络预热完成（或到截止时间）后原子替换；
+     * 等待预热不占用任何线程。进行中的登录继续使用旧快照，旧快照在它们结束后释放线程池。
+     * 多次重载的预热完成顺序可能与发起顺序不同，只有比当前快照更新的快照才会被替换，过时的快照直接退役
+     * 
+     * @return 替换后当前快照的 CompletableFuture，会话服务已关闭时异常完成
+     */
+    public CompletableFuture<AuthPipeline> reloadPipeline() {
+        return reloadPipeline(configManager.getPipelineConfig(), configManager.getPerformanceConfig());
+    }
+
+    /**
+     * 按指定配置热重载验证链
+     * 用于先构建验证链、成功后再提交配置的场景（配置文件监视），配置管理器中的当前配置不受影响
+     *
+     * @param pipelineConfig    验证链配置
+     * @param performanceConfig 性能配置
+     * @return 替换后当前快照的 CompletableFuture，会话服务已关闭或构建失败时异常完成
+     */
+    public CompletableFuture<AuthPipeline> reloadPipeline(List<ConfigManager.ProviderConfig> pipelineConfig,
+                                                          ConfigManager.PerformanceConfig performanceConfig) {
+        CompletableFuture<AuthPipeline> built;
+        try {
+            built = CompletableFuture.supplyAsync(() -> {
+                AuthPipeline next = buildPipeline(pipelineConfig, performanceConfig);
+                next.warm();
+                return next;
+            }, timer);
+        } catch (java.util.concurrent.RejectedExecutionException e) {
+            CompletableFuture<AuthPipeline> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new IllegalStateException("Session service is shut down"));
+            return failed;
+        }
+        return built.thenCompose(next -> {
+            // 新快照预热完成（或到截止时间）后再替换，重载后的第一批登录同样不等待握手
+            long deadline = warmUpDeadline(performanceConfig);
+            CompletableFuture<AuthPipeline> ready = new CompletableFuture<>();
+            next.warmUpProviders(deadline).whenComplete((ignored, ex) -> ready.complete(next));
+            ScheduledFuture<?> timeout;
+            try {
+                timeout = timer.schedule(() -> {
+                    if (ready.complete(next)) {
+                        LOGGER.warning("XiSessionService: Warm-up of pipeline #" + next.getGeneration() + " did not finish in time");
+                    }
+                }, Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            } catch (java.util.concurrent.RejectedExecutionException e) {
+                // 预热期间会话服务已关闭，新快照不会被使用
+                next.retire();
+                throw new IllegalStateException("Session service is shut down");
+            }
+            ready.whenComplete((ignored, ex) -> timeout.cancel(false));
+            return ready;
+        }).thenApply(next -> {
+            AuthPipeline previous;
+            synchronized (this) {
+                if (closed) {
+                    next.retire();
+                    throw new IllegalStateException("Session service is shut down");
+                }
+                previous = pipeline;
+                if (!next.supersedes(previous)) {
+                    // 较晚发起的重载已经先完成，过时的快照不能覆盖它
+                    next.retire();
+                    LOGGER.info("XiSessionService: Pipeline #" + next.getGeneration() + " discarded, #"
+                            + previous.getGeneration() + " is newer");
+                    return previous;
+                }
+                pipeline = next;
+            }
+            previous.retire();
+            HttpClients.retain(referencedPools(next));
+            limiters.values().retainAll(referencedLimiters(next));
+            LOGGER.info("XiSessionService: Pipeline #" + previous.getGeneration() + " replaced by #" + next.getGeneration()
+                    + " (" + next.getProviders().size() + " providers)");
+            return next;
+        });
+    }
+
+    /**
+     * 获取验证链中所有镜像使用的连接池
+     *
+     * @param pipeline 验证链快照
+     * @return 连接池集合
+     */
+    private static Set<HostConnectionPool> referencedPools(AuthPipeline pipeline) {
+        Set<HostConnectionPool> pools = new HashSet<>();
+        for (AuthProvider provider : pipeline.getProviders()) {
+            if (provider instanceof YggdrasilAuthProvider) {
+                for (YggdrasilEndpoint endpoint : ((YggdrasilAuthProvider) provider).getEndpoints()) {
+                    pools.add(endpoint.getPool());
+                }
+            }
+        }
+        return pools;
+    }
+
+    /**
+     * 获取验证链中所有提供者使用的并发限制器
+     *
+     * @param pipeline 验证链快照
+     * @return 限制器集合
+     */
+    private static Set<ProviderLimiter> referencedLimiters(AuthPipeline pipeline) {
+        Set<ProviderLimiter> referenced = new HashSet<>();
+        for (AuthProvider provider : pipeline.getProviders()) {
+            if (provider instanceof YggdrasilAuthProvider) {
+                referenced.add(((YggdrasilAuthProvider) provider).getLimiter());
+            }
+        }
+        return referenced;
+    }
+
+    /**
+     * 关闭会话服务，退役当前验证链并停止定时器
+     * 关闭后的登录直接失败，不会再等待快照
+     */
+    public void shutdown() {
+        AuthPipeline current;
+        synchronized (this) {
+            closed = true;
+            current = pipeline;
+        }
+        current.retire();
+        timer.shutdownNow();
+        skinCache.close();
+    }
+
+    /**
+     * 获取共享的皮肤缓存
+     *
+     * @return 皮肤缓存
+     */
+    public SkinCache getSkinCache() {
+        return skinCache;
+    }
+
+    /**
+     * 预热截止时间：一次连接加一次读取的超时
+     */
+    private static long warmUpDeadline(ConfigManager.PerformanceConfig performanceConfig) {
+        return System.currentTimeMillis() + performanceConfig.getHttpConnectTimeoutMillis() + performanceConfig.getHttpReadTimeoutMillis();
     }
 
     /**
-     * 初始化验证提供者列表
+     * 构建验证链快照
      * 
-     * @param configManager 配置管理器
+     * @param pipelineConfig    验证链配置
+     * @param performanceConfig 性能配置
+     * @return 新的验证链快照
      */
-    private void initializeProviders(ConfigManager configManager) {
+    private AuthPipeline buildPipeline(List<ConfigManager.ProviderConfig> pipelineConfig, ConfigManager.PerformanceConfig performanceConfig) {
         LOGGER.info("XiSessionService: Initializing providers...");
-        List<ConfigManager.ProviderConfig> pipelineConfig = configManager.getPipelineConfig();
+        List<AuthProvider> providers = new ArrayList<>();
+        java.util.Map<String, ConfigManager.ProviderConfig> providerConfigs = new java.util.LinkedHashMap<>();
         
         LOGGER.info("XiSessionService: Pipeline config size: " + pipelineConfig.size());
 
+        // 共享 HTTP 连接池的上限和超时，对已有连接池同样生效
+        HttpClients.configure(performanceConfig.getHttpMaxConnectionsPerHost(), performanceConfig.getHttpConnectTimeoutMillis(),
+                performanceConfig.getHttpReadTimeoutMillis(), performanceConfig.getHttpIdleTimeoutSeconds(),
+                performanceConfig.getHttpWarmConnectionsPerHost());
+        // 皮肤缓存跨验证链共享，只更新容量和有效期
+        skinCache.configure(performanceConfig.getSkinCacheSize(), performanceConfig.getSkinCacheExpiryMinutes(),
+                performanceConfig.getSkinRefreshAhead());
+
         for (ConfigManager.ProviderConfig providerConfig : pipelineConfig) {
             LOGGER.info("XiSessionService: Processing provider config: " + providerConfig.getName() + 
                         " (type: " + providerConfig.getType() + ", enabled: " + providerConfig.isEnabled() + ")");
@@ -64,10 +260,10 @@ public class XiSessionService {
                 continue;
             }
 
-            AuthProvider provider = createProvider(providerConfig);
+            AuthProvider provider = createProvider(providerConfig, performanceConfig);
             if (provider != null) {
                 providers.add(provider);
-                providerMap.put(provider.getName(), provider);
+                providerConfigs.put(provider.getName(), providerConfig);
                 LOGGER.info("XiSessionService: Added provider to pipeline: " + provider.getName());
             } else {
                 LOGGER.warning("XiSessionService: Failed to create provider: " + providerConfig.getName());
@@ -78,15 +274,27 @@ public class XiSessionService {
         if (providers.isEmpty()) {
             LOGGER.warning("XiSessionService: WARNING - No providers available in pipeline!");
         }
+
+        // 认证线程池
+        java.util.concurrent.ExecutorService authExecutor = java.util.concurrent.Executors.newFixedThreadPool(
+                performanceConfig.getAuthThreadPoolSize(),
+                r -> {
+                    Thread t = new Thread(r, "XiMultiLogin-Auth-Thread");
+                    t.setDaemon(true);
+                    return t;
+                }
+        );
+        return new AuthPipeline(providers, providerConfigs, authExecutor, performanceConfig.getAuthTimeoutSeconds());
     }
 
     /**
      * 根据配置创建验证提供者
      * 
-     * @param providerConfig 提供者配置
+     * @param providerConfig    提供者配置
+     * @param performanceConfig 性能配置
      * @return 创建的验证提供者
      */
-    private AuthProvider createProvider(ConfigManager.ProviderConfig providerConfig) {
+    private AuthProvider createProvider(ConfigManager.ProviderConfig providerConfig, ConfigManager.PerformanceConfig performanceConfig) {
         String type = providerConfig.getType().toUpperCase();
 
         switch (type) {
@@ -95,8 +303,12 @@ public class XiSessionService {
             case "YGGDRASIL":
                 return new YggdrasilAuthProvider(
                         providerConfig.getName(),
-                        providerConfig.getApiUrl(),
-                        providerConfig.isEnabled()
+                        providerConfig.getApiUrls(),
+                        providerConfig.isEnabled(),
+                        skinCache,
+                        performanceConfig.getHttpMaxResponseKb() * 1024L,
+                        performanceConfig.getSkinRefreshPerSecond(),
+                        limiterFor(providerConfig, performanceConfig)
                 );
             default:
                 LOGGER.warning("XiSessionService: Unknown provider type: " + type);
@@ -104,6 +316,26 @@ public class XiSessionService {
         }
     }
 
+    /**
+     * 获取提供者的并发限制器
+     * 名称和地址都没有变化的提供者沿用原来的限制器并应用新配置，自适应的限制、进行中的请求和退避在重载后保持有效
+     *
+     * @param providerConfig    提供者配置
+     * @param performanceConfig 性能配置
+     * @return 并发限制器
+     */
+    private ProviderLimiter limiterFor(ConfigManager.ProviderConfig providerConfig, ConfigManager.PerformanceConfig performanceConfig) {
+        int maxConcurrency = providerConfig.getMaxConcurrency() > 0
+                ? providerConfig.getMaxConcurrency()
+                : performanceConfig.getProviderMaxConcurrency();
+        boolean adaptive = performanceConfig.isProviderAdaptiveConcurrency();
+        int maxBackoffSeconds = performanceConfig.getProviderMaxBackoffSeconds();
+        String key = providerConfig.getName() + "|" + String.join(",", providerConfig.getApiUrls());
+        ProviderLimiter limiter = limiters.computeIfAbsent(key, k -> new ProviderLimiter(maxConcurrency, adaptive, maxBackoffSeconds));
+        limiter.configure(maxConcurrency, adaptive, maxBackoffSeconds);
+        return limiter;
+    }
+
     /**
      * 验证玩家是否已加入服务器
      * 这是核心验证方法，严格使用玩家的历史登录方式
@@ -133,82 +365,121 @@ public class XiSessionService {
      * @return 验证结果的 CompletableFuture
      */
     public CompletableFuture<Object> hasJoinedServerAsync(String username, String serverId, java.net.InetAddress ipAddress) {
+        // 洪泛防护：在任何提供者或数据库操作之前拒绝
+        if (floodGuard != null && !floodGuard.admitSession(username, ipAddress)) {
+            LOGGER.warning("XiSessionService: Rejected " + username + " by flood protection");
+            return CompletableFuture.completedFuture(null);
+        }
+
+        // 获取当前快照；无锁，若恰好读到刚退役的快照则重读。重载先替换再退役，重读一定能读到新快照；
+        // 关闭后快照不再被替换，直接失败
+        AuthPipeline current;
+        while (true) {
+            if (closed) {
+                LOGGER.warning("XiSessionService: Rejected " + username + ", session service is shut down");
+                return CompletableFuture.completedFuture(null);
+            }
+            current = pipeline;
+            if (current.tryAcquire()) {
+                break;
+            }
+        }
+
+        AuthPipeline acquired = current;
+        CompletableFuture<Object> result;
+        try {
+            result = hasJoinedServerAsync(acquired, username, serverId, ipAddress);
+        } catch (RuntimeException e) {
+            acquired.release();
+            throw e;
+        }
+        result.whenComplete((profile, ex) -> acquired.release());
+        return result;
+    }
+
+    /**
+     * 在指定验证链快照上异步验证玩家
+     * 
+     * @param pipeline  验证链快照
+     * @param username  玩家名称
+     * @param serverId  服务器唯一标识符
+     * @param ipAddress IP地址（可为null）
+     * @return 验证结果的 CompletableFuture
+     */
+    private CompletableFuture<Object> hasJoinedServerAsync(AuthPipeline pipeline, String username, String serverId, java.net.InetAddress ipAddress) {
         long startTime = System.currentTimeMillis();
         LOGGER.info("XiSessionService: Authenticating player " + username + " (async)");
 
-        if (providers.isEmpty()) {
+        if (pipeline.isEmpty()) {
             long endTime = System.currentTimeMillis();
             LOGGER.info("XiSessionService: Authentication completed in " + (endTime - startTime) + "ms (no providers)");
             return CompletableFuture.completedFuture(null);
         }
 
         // 1. 检查历史记录 (Strict Mode)
+        // 认证方式和UUID并行查询一次，之后的临时身份、盗版身份和UUID接管都复用这条记录
         return identityGuard.getAuthProviderAsync(username)
-                .thenCompose(storedAuthProvider -> {
+                .thenCombine(identityGuard.getUUIDAsync(username), StoredRecord::new)
+                .thenCompose(record -> {
+                    String storedAuthProvider = record.authProvider;
                     if (storedAuthProvider != null) {
                         // ★★★ 严格锁定逻辑 ★★★
                         // 如果有记录，只尝试这一个。成功就进，失败就踢，绝不尝试其他。
                         LOGGER.info("XiSessionService: Player " + username + " is LOCKED to provider: " + storedAuthProvider);
                         
-                        AuthProvider provider = providerMap.get(storedAuthProvider);
+                        AuthProvider provider = pipeline.getProvider(storedAuthProvider);
                         if (provider != null) {
-                            try {
-                                long providerStartTime = System.currentTimeMillis();
-                                Object profile = provider.authenticate(username, serverId);
-                                long providerEndTime = System.currentTimeMillis();
-                                LOGGER.info("XiSessionService: Provider " + provider.getName() + " took " + (providerEndTime - providerStartTime) + "ms");
-                                
-                                if (profile != null) {
-                                    // 验证成功，记录成功的提供者
-                                    if (loginListener != null) {
-                                        loginListener.clearAuthFailure(username);
-                                        loginListener.recordAuthSuccess(username, provider.getName());
-                                    }
-                                    
-                                    // 验证成功，接管 UUID
-                                    LOGGER.info("XiSessionService: Strict auth successful via " + storedAuthProvider);
-                                    return takeOverUUIDAsync(profile, provider.getName())
-                                            .thenApply(result -> {
-                                                long endTime = System.currentTimeMillis();
-                                                LOGGER.info("XiSessionService: Authentication completed in " + (endTime - startTime) + "ms (strict mode)");
-                                                return result;
-                                            });
-                                } else {
-                                    // 验证失败 -> 延迟拒绝（返回临时Profile）
-                                    LOGGER.warning("XiSessionService: Strict auth FAILED. Player locked to " + storedAuthProvider + " but verification failed.");
-                                    LOGGER.warning("XiSessionService: Deferring rejection to show custom kick message.");
-                                    
-                                    // 记录认证失败原因，用于显示自定义消息
-                                    if (loginListener != null) {
-                                        loginListener.recordAuthFailure(username, "strict_auth_failed", storedAuthProvider);
-                                    }
-                                    
-                                    // 返回临时Profile，诱导NMS放行，然后在AsyncPlayerPreLoginEvent中踢出
-                                    Object tempProfile = createTemporaryProfile(username);
-                                    long endTime = System.currentTimeMillis();
-                                    LOGGER.info("XiSessionService: Authentication completed in " + (endTime - startTime) + "ms (strict mode failed)");
-                                    return CompletableFuture.completedFuture(tempProfile);
-                                }
-                            } catch (Exception e) {
-                                LOGGER.severe("XiSessionService: Provider error: " + e.getMessage());
-                                
-                                // 记录认证失败原因
-                                if (loginListener != null) {
-                                    loginListener.recordAuthFailure(username, "strict_auth_failed", storedAuthProvider);
-                                }
-                                
-                                // 返回临时Profile，诱导NMS放行，然后在AsyncPlayerPreLoginEvent中踢出
-                                Object tempProfile = createTemporaryProfile(username);
-                                long endTime = System.currentTimeMillis();
-                                LOGGER.info("XiSessionService: Authentication completed in " + (endTime - startTime) + "ms (strict mode error)");
-                                return CompletableFuture.completedFuture(tempProfile);
-                            }
+                            long providerStartTime = System.currentTimeMillis();
+                            long deadline = providerStartTime + pipeline.getAuthTimeoutSeconds() * 1000L;
+                            return authenticateWithDeadline(pipeline, provider, username, serverId, deadline)
+                                    .thenCompose(profile -> {
+                                        long providerEndTime = System.currentTimeMillis();
+                                        LOGGER.info("XiSessionService: Provider " + provider.getName() + " took " + (providerEndTime - providerStartTime) + "ms");
+
+                                        if (profile != null) {
+                                            // 验证成功，记录成功的提供者
+                                            if (loginListener != null) {
+                                                loginListener.clearAuthFailure(username);
+                                                loginListener.recordAuthSuccess(username, provider.getName(), System.currentTimeMillis() - startTime);
+                                            }
+                                            if (floodGuard != null) {
+                                                floodGuard.clearFailures(username, ipAddress);
+                                            }
+
+                                            // 验证成功，接管 UUID
+                                            LOGGER.info("XiSessionService: Strict auth successful via " + storedAuthProvider);
+                                            return takeOverUUIDAsync(profile, provider.getName(), record.uuid)
+                                                    .thenApply(result -> {
+                                                        long endTime = System.currentTimeMillis();
+                                                        LOGGER.info("XiSessionService: Authentication completed in " + (endTime - startTime) + "ms (strict mode)");
+                                                        return result;
+                                                    });
+                                        }
+
+                                        // 验证失败 -> 延迟拒绝（返回临时Profile）
+                                        LOGGER.warning("XiSessionService: Strict auth FAILED. Player locked to " + storedAuthProvider + " but verification failed.");
+                                        LOGGER.warning("XiSessionService: Deferring rejection to show custom kick message.");
+
+                                        // 记录认证失败原因，用于显示自定义消息
+                                        if (loginListener != null) {
+                                            loginListener.recordAuthFailure(username, "strict_auth_failed", storedAuthProvider, System.currentTimeMillis() - startTime);
+                                        }
+                                        if (floodGuard != null) {
+                                            floodGuard.recordFailure(username, ipAddress);
+                                        }
+
+                                        // 返回临时Profile，诱导NMS放行，然后在AsyncPlayerPreLoginEvent中踢出
+                                        Object tempProfile = createTemporaryProfile(username, record.uuid);
+                                        long endTime = System.currentTimeMillis();
+                                        LOGGER.info("XiSessionService: Authentication completed in " + (endTime - startTime) + "ms (strict mode failed)");
+                                        return CompletableFuture.completedFuture(tempProfile);
+                                    });
                         } else {
                             // 如果锁定的 Provider 被删了或者改名了
                             LOGGER.warning("XiSessionService: Player locked to " + storedAuthProvider + " but that provider is missing from config!");
                             LOGGER.warning("XiSessionService: Falling back to full pipeline (Safety Mechanism).");
                             // 只有这种极端配置错误情况，才允许回退，否则死循环进不去
-                            return tryAllProvidersAsync(username, serverId)
+                            return tryAllProvidersAsync(pipeline, username, serverId, record.uuid, ipAddress, startTime)
                                     .thenApply(result -> {
                                         long endTime = System.currentTimeMillis();
                                         LOGGER.info("XiSessionService: Authentication completed in " + (endTime - startTime) + "ms (fallback to pipeline)");
@@ -217,7 +488,7 @@ public class XiSessionService {
                         }
                     } else {
                         // 2. 新玩家逻辑 (遍历尝试)
-                        return tryAllProvidersAsync(username, serverId)
+                        return tryAllProvidersAsync(pipeline, username, serverId, record.uuid, ipAddress, startTime)
                                 .thenApply(result -> {
                                     long endTime = System.currentTimeMillis();
                                     LOGGER.info("XiSessionService: Authentication completed in " + (endTime - startTime) + "ms (pipeline mode)");
@@ -227,108 +498,53 @@ public class XiSessionService {
                 });
     }
     
-    // 认证线程池
-    private static final java.util.concurrent.ExecutorService AUTH_EXECUTOR = java.util.concurrent.Executors.newFixedThreadPool(
-            Math.max(4, Runtime.getRuntime().availableProcessors()),
-            r -> {
-                Thread t = new Thread(r, "XiMultiLogin-Auth-Thread");
-                t.setDaemon(true);
-                return t;
-            }
-    );
-    
     /**
      * 尝试所有认证提供者（异步）
      * 
+     * @param pipeline 验证链快照
      * @param username 玩家名称
      * @param serverId 服务器唯一标识符
+     * @param storedUuid 登录开始时查询到的存储 UUID，不存在为 null
+     * @param ipAddress IP地址（可为null）
+     * @param startTime 认证开始时间，用于记录认证耗时
      * @return 验证结果的 CompletableFuture
      */
-    private CompletableFuture<Object> tryAllProvidersAsync(String username, String serverId) {
+    private CompletableFuture<Object> tryAllProvidersAsync(AuthPipeline pipeline, String username, String serverId,
+                                                           java.util.UUID storedUuid, java.net.InetAddress ipAddress,
+                                                           long startTime) {
         LOGGER.info("XiSessionService: New player detected. Trying all providers...");
+        List<AuthProvider> providers = pipeline.getProviders();
         
-        // 并行尝试所有认证提供者
+        // 并行尝试所有认证提供者；每个提供者都有截止时间，不需要额外的等待线程
+        long now = System.currentTimeMillis();
+        long deadline = now + pipeline.getAuthTimeoutSeconds() * 1000L;
+        long providerDeadline = Math.min(deadline, now + PROVIDER_TIMEOUT_MILLIS);
         List<CompletableFuture<Object>> providerFutures = new ArrayList<>();
-        
         for (AuthProvider provider : providers) {
-            CompletableFuture<Object> future = CompletableFuture.supplyAsync(() -> {
-                try {
-                    // 设置5秒超时（Java 8 兼容方式）
-                    CompletableFuture<Object> providerFuture = CompletableFuture.supplyAsync(() -> {
-                        try {
-                            return provider.authenticate(username, serverId);
-                        } catch (Exception e) {
-                            LOGGER.warning("XiSessionService: Exception in provider " + provider.getName() + ": " + e.getMessage());
-                            return null;
-                        }
-                    });
-                    
-                    // 实现超时逻辑
-                    CompletableFuture<Object> timeoutFuture = new CompletableFuture<>();
-                    new Thread(() -> {
-                        try {
-                            Thread.sleep(5000);
-                            if (!providerFuture.isDone()) {
-                                timeoutFuture.complete(null);
-                                LOGGER.warning("XiSessionService: Provider " + provider.getName() + " timed out");
-                            }
-                        } catch (InterruptedException e) {
-                            Thread.currentThread().interrupt();
-                        }
-                    }).start();
-                    
-                    return providerFuture.applyToEither(timeoutFuture, result -> result).join();
-                } catch (Exception e) {
-                    LOGGER.warning("XiSessionService: Exception in provider " + provider.getName() + ": " + e.getMessage());
-                    return null;
-                }
-            }, AUTH_EXECUTOR);
-            providerFutures.add(future);
+            providerFutures.add(authenticateWithDeadline(pipeline, provider, username, serverId, providerDeadline));
         }
         
-        // 等待所有结果完成，最多等待8秒（Java 8 兼容方式）
-        CompletableFuture<Void> allOf = CompletableFuture.allOf(providerFutures.toArray(new CompletableFuture[0]));
-        CompletableFuture<Void> allOfWithTimeout = new CompletableFuture<>();
-        
-        // 实现超时逻辑
-        new Thread(() -> {
-            try {
-                Thread.sleep(8000);
-                if (!allOf.isDone()) {
-                    allOfWithTimeout.complete(null);
-                    LOGGER.warning("XiSessionService: Authentication process timed out");
-                }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-        }).start();
-        
-        allOf.thenAccept(v -> {
-            if (!allOfWithTimeout.isDone()) {
-                allOfWithTimeout.complete(null);
-            }
-        }).exceptionally(ex -> {
-            if (!allOfWithTimeout.isDone()) {
-                allOfWithTimeout.complete(null);
-            }
-            return null;
-        });
+        // 所有提供者都会在截止时间之前完成（成功、失败或超时）
+        CompletableFuture<Void> allOf = CompletableFuture.allOf(providerFutures.toArray(new CompletableFuture<?>[0]));
         
-        return allOfWithTimeout.thenCompose(v -> {
-            // 找到第一个成功的认证提供者
+        return allOf.thenCompose(v -> {
+            // 按验证链顺序找到第一个成功的认证提供者
             for (int i = 0; i < providerFutures.size(); i++) {
                 try {
-                    Object profile = providerFutures.get(i).get();
+                    Object profile = providerFutures.get(i).getNow(null);
                     if (profile != null) {
                         AuthProvider provider = providers.get(i);
                         // 验证成功，记录成功的提供者
                         if (loginListener != null) {
                             loginListener.clearAuthFailure(username);
-                            loginListener.recordAuthSuccess(username, provider.getName());
+                            loginListener.recordAuthSuccess(username, provider.getName(), System.currentTimeMillis() - startTime);
+                        }
+                        if (floodGuard != null) {
+                            floodGuard.clearFailures(username, ipAddress);
                         }
                         
                         LOGGER.info("XiSessionService: First-time auth successful via " + provider.getName());
-                        return takeOverUUIDAsync(profile, provider.getName());
+                        return takeOverUUIDAsync(profile, provider.getName(), storedUuid);
                     }
                 } catch (Exception e) {
                     // 忽略异常
@@ -340,43 +556,85 @@ public class XiSessionService {
             
             // 记录所有认证方式都失败
             if (loginListener != null) {
-                loginListener.recordAuthFailure(username, "all_providers_failed", null);
+                loginListener.recordAuthFailure(username, "all_providers_failed", null, System.currentTimeMillis() - startTime);
             }
             
             // 检查是否允许盗版玩家
             if (configManager.isAllowCracked()) {
                 LOGGER.info("XiSessionService: Allowing cracked player " + username + " to join");
                 // 为盗版玩家创建临时身份
-                Object temporaryProfile = createTemporaryProfile(username);
+                Object temporaryProfile = createTemporaryProfile(username, storedUuid);
                 if (temporaryProfile != null) {
-                    // 验证临时身份
-                    boolean identityVerified = verifyIdentityWithReflection(temporaryProfile, "CRACKED");
-                    if (identityVerified) {
-                        LOGGER.info("XiSessionService: Temporary identity created for cracked player " + username);
-                        return CompletableFuture.completedFuture(temporaryProfile);
-                    }
+                    // 异步登记临时身份；无论登记结果如何都返回临时Profile
+                    return verifyCrackedIdentityAsync(temporaryProfile, storedUuid)
+                            .thenApply(identityVerified -> {
+                                if (identityVerified) {
+                                    LOGGER.info("XiSessionService: Temporary identity created for cracked player " + username);
+                                }
+                                return temporaryProfile;
+                            });
                 }
             }
             
             // 所有认证方式都失败，返回临时Profile，诱导NMS放行，然后在AsyncPlayerPreLoginEvent中踢出
+            // 只有真正被拒绝的登录才计入洪泛防护的失败次数，允许进入的盗版登录不计数
             LOGGER.info("XiSessionService: Deferring rejection for all providers failed case.");
-            return CompletableFuture.completedFuture(createTemporaryProfile(username));
+            if (floodGuard != null) {
+                floodGuard.recordFailure(username, ipAddress);
+            }
+            return CompletableFuture.completedFuture(createTemporaryProfile(username, storedUuid));
         });
     }
     
+    /**
+     * 在截止时间之前异步调用提供者
+     * 超过截止时间仍未完成的调用视为失败（结果为 null），异常同样视为失败
+     * 
+     * @param pipeline 验证链快照（提供阻塞提供者使用的线程池）
+     * @param provider 认证提供者
+     * @param username 玩家名称
+     * @param serverId 服务器唯一标识符
+     * @param deadline 截止时间（System.currentTimeMillis() 时间戳）
+     * @return 认证结果的 CompletableFuture，不会异常完成
+     */
+    private CompletableFuture<Object> authenticateWithDeadline(AuthPipeline pipeline, AuthProvider provider,
+                                                               String username, String serverId, long deadline) {
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        try {
+            provider.authenticateAsync(username, serverId, deadline, pipeline.getAuthExecutor())
+                    .whenComplete((profile, ex) -> {
+                        if (ex != null) {
+                            LOGGER.warning("XiSessionService: Exception in provider " + provider.getName() + ": " + ex.getMessage());
+                        }
+                        result.complete(ex == null ? profile : null);
+                    });
+        } catch (RuntimeException e) {
+            // 包括验证链已退役后线程池拒绝任务
+            LOGGER.warning("XiSessionService: Exception in provider " + provider.getName() + ": " + e.getMessage());
+            result.complete(null);
+        }
+        if (!result.isDone()) {
+            ScheduledFuture<?> timeout = timer.schedule(() -> {
+                if (result.complete(null)) {
+                    LOGGER.warning("XiSessionService: Provider " + provider.getName() + " timed out");
+                }
+            }, Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            result.whenComplete((profile, ex) -> timeout.cancel(false));
+        }
+        return result;
+    }
+
     /**
      * 为盗版玩家创建临时GameProfile
+     * 不访问数据库，直接使用登录开始时查询到的UUID
      * 
      * @param username 玩家名称
+     * @param storedUuid 存储的UUID，不存在为 null
      * @return 临时GameProfile，创建失败返回 null
      */
-    private Object createTemporaryProfile(String username) {
+    private Object createTemporaryProfile(String username, java.util.UUID storedUuid) {
         try {
-            // 使用反射创建临时GameProfile
-            Class<?> gameProfileClass = Class.forName("com.mojang.authlib.GameProfile");
-            
-            // 尝试获取真实UUID（如果存在）
-            java.util.UUID uuid = identityGuard.getUUID(username);
+            java.util.UUID uuid = storedUuid;
             
             // 如果没有真实UUID，使用基于用户名的UUID
             if (uuid == null) {
@@ -384,8 +642,10 @@ public class XiSessionService {
             }
             
             // 创建GameProfile实例
-            java.lang.reflect.Constructor<?> constructor = gameProfileClass.getConstructor(java.util.UUID.class, String.class);
-            Object gameProfile = constructor.newInstance(uuid, username);
+            Object gameProfile = AuthlibBridge.createProfile(uuid, username);
+            if (gameProfile == null) {
+                return null;
+            }
             
             LOGGER.info("XiSessionService: Created temporary profile for " + username + " with UUID " + uuid);
             return gameProfile;
@@ -406,7 +666,7 @@ public class XiSessionService {
     public Object hasJoinedServer(Object profile, String serverId, java.net.InetAddress ipAddress) {
         try {
             // 从GameProfile中获取用户名
-            String username = getProfileNameWithReflection(profile);
+            String username = getProfileName(profile);
             LOGGER.info("XiSessionService: Authenticating player " + username + " (with GameProfile) with serverId " + serverId);
             
             // 调用原始的验证方法
@@ -418,63 +678,23 @@ public class XiSessionService {
     }
 
     /**
-     * 使用反射验证身份并接管UUID
+     * 异步登记盗版玩家的临时身份
      * 
-     * @param profile  GameProfile 对象
-     * @param providerName 提供者名称
-     * @return 验证是否成功
+     * @param profile  临时 GameProfile 对象
+     * @param storedUuid 存储的UUID，不存在为 null
+     * @return 登记是否成功的 CompletableFuture，异常时为 false
      */
-    private boolean verifyIdentityWithReflection(Object profile, String providerName) {
-        try {
-            // 使用反射获取名称和ID
-            String name = (String) profile.getClass().getMethod("getName").invoke(profile);
-            Object idObj = profile.getClass().getMethod("getId").invoke(profile);
-            // 将Object转换为UUID
-            java.util.UUID incomingUuid = (java.util.UUID) idObj;
-            
-            // 验证身份并获取固定UUID
-            return identityGuard.verifyIdentity(name, incomingUuid, providerName);
-        } catch (Exception e) {
-            LOGGER.warning("XiSessionService: Exception verifying identity: " + e.getMessage());
-            return false;
-        }
-    }
-    
-    /**
-     * 接管UUID并创建新的GameProfile
-     * 
-     * @param profile 原始GameProfile
-     * @param providerName 提供者名称
-     * @return 带有固定UUID的GameProfile
-     */
-    private Object takeOverUUID(Object profile, String providerName) {
-        try {
-            // 使用反射获取名称和ID
-            String name = (String) profile.getClass().getMethod("getName").invoke(profile);
-            Object idObj = profile.getClass().getMethod("getId").invoke(profile);
-            java.util.UUID incomingUuid = (java.util.UUID) idObj;
-            
-            // 获取固定UUID
-            java.util.UUID fixedUuid = identityGuard.getOrCreateIdentity(name, incomingUuid, providerName);
-            if (fixedUuid == null) {
-                LOGGER.warning("XiSessionService: Failed to get fixed UUID for " + name);
-                return profile;
-            }
-            
-            // 如果UUID相同，直接返回
-            if (fixedUuid.equals(incomingUuid)) {
-                LOGGER.info("XiSessionService: UUID already fixed for " + name + ": " + fixedUuid);
-                return profile;
-            }
-            
-            // 使用固定UUID创建新的GameProfile
-            Object newProfile = createGameProfile(fixedUuid, name);
-            LOGGER.info("XiSessionService: UUID taken over for " + name + ": " + incomingUuid + " -> " + fixedUuid);
-            return newProfile;
-        } catch (Exception e) {
-            LOGGER.warning("XiSessionService: Exception taking over UUID: " + e.getMessage());
-            return profile;
+    private CompletableFuture<Boolean> verifyCrackedIdentityAsync(Object profile, java.util.UUID storedUuid) {
+        String name = AuthlibBridge.getName(profile);
+        java.util.UUID incomingUuid = AuthlibBridge.getId(profile);
+        if (name == null) {
+            return CompletableFuture.completedFuture(false);
         }
+        return identityGuard.verifyIdentityAsync(name, incomingUuid, "CRACKED", storedUuid)
+                .exceptionally(ex -> {
+                    LOGGER.warning("XiSessionService: Exception verifying identity: " + ex.getMessage());
+                    return false;
+                });
     }
     
     /**
@@ -482,17 +702,20 @@ public class XiSessionService {
      * 
      * @param profile 原始GameProfile
      * @param providerName 提供者名称
+     * @param storedUuid 登录开始时查询到的存储 UUID，不存在为 null
      * @return 带有固定UUID的GameProfile的 CompletableFuture
      */
-    private CompletableFuture<Object> takeOverUUIDAsync(Object profile, String providerName) {
+    private CompletableFuture<Object> takeOverUUIDAsync(Object profile, String providerName, java.util.UUID storedUuid) {
         try {
-            // 使用反射获取名称和ID
-            String name = (String) profile.getClass().getMethod("getName").invoke(profile);
-            Object idObj = profile.getClass().getMethod("getId").invoke(profile);
-            java.util.UUID incomingUuid = (java.util.UUID) idObj;
+            // 获取名称和ID
+            String name = AuthlibBridge.getName(profile);
+            java.util.UUID incomingUuid = AuthlibBridge.getId(profile);
+            if (name == null) {
+                return CompletableFuture.completedFuture(profile);
+            }
             
             // 异步获取固定UUID
-            return identityGuard.getOrCreateIdentityAsync(name, incomingUuid, providerName)
+            return identityGuard.getOrCreateIdentityAsync(name, incomingUuid, providerName, storedUuid)
                     .thenApply(fixedUuid -> {
                         if (fixedUuid == null) {
                             LOGGER.warning("XiSessionService: Failed to get fixed UUID for " + name);
@@ -522,35 +745,37 @@ public class XiSessionService {
     }
     
     /**
-     * 使用反射创建GameProfile
+     * 创建GameProfile
      * 
      * @param uuid UUID
      * @param name 名称
-     * @return GameProfile对象
+     * @return GameProfile对象，失败返回 null
      */
     private Object createGameProfile(java.util.UUID uuid, String name) {
-        try {
-            Class<?> gameProfileClass = Class.forName("com.mojang.authlib.GameProfile");
-            java.lang.reflect.Constructor<?> constructor = gameProfileClass.getConstructor(java.util.UUID.class, String.class);
-            return constructor.newInstance(uuid, name);
-        } catch (Exception e) {
-            LOGGER.warning("XiSessionService: Failed to create GameProfile: " + e.getMessage());
-            return null;
-        }
+        return AuthlibBridge.createProfile(uuid, name);
     }
 
     /**
-     * 使用反射获取游戏档案名称
+     * 获取游戏档案名称
      * 
      * @param profile  GameProfile 对象
      * @return 游戏档案名称
      */
-    private String getProfileNameWithReflection(Object profile) {
-        try {
-            return (String) profile.getClass().getMethod("getName").invoke(profile);
-        } catch (Exception e) {
-            LOGGER.warning("XiSessionService: Exception getting profile name: " + e.getMessage());
-            return "unknown";
+    private String getProfileName(Object profile) {
+        String name = AuthlibBridge.getName(profile);
+        return name != null ? name : "unknown";
+    }
+
+    /**
+     * 登录开始时查询到的玩家记录
+     */
+    private static final class StoredRecord {
+        final String authProvider;
+        final java.util.UUID uuid;
+
+        StoredRecord(String authProvider, java.util.UUID uuid) {
+            this.authProvider = authProvider;
+            this.uuid = uuid;
         }
     }
 
@@ -569,7 +794,16 @@ public class XiSessionService {
      * @return 验证提供者列表
      */
     public List<AuthProvider> getProviders() {
-        return providers;
+        return pipeline.getProviders();
+    }
+
+    /**
+     * 获取当前验证链快照
+     * 
+     * @return 验证链快照
+     */
+    public AuthPipeline getPipeline() {
+        return pipeline;
     }
 
     /**
@@ -1,6 +1,14 @@
 package com.Leeinx.ximultilogin.auth.providers;
 
 import com.Leeinx.ximultilogin.auth.AuthProvider;
+import com.Leeinx.ximultilogin.reflection.AuthlibBridge;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * Mojang 官方认证提供者
@@ -8,6 +16,27 @@ import com.Leeinx.ximultilogin.auth.AuthProvider;
  */
 public class MojangAuthProvider extends BaseAuthProvider {
 
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodHandle CREATE_PROFILE;
+    private static final MethodHandle TO_HOST_ADDRESS;
+
+    static {
+        try {
+            CREATE_PROFILE = LOOKUP.findStatic(AuthlibBridge.class, "createProfile",
+                    MethodType.methodType(Object.class, java.util.UUID.class, String.class));
+            TO_HOST_ADDRESS = LOOKUP.findStatic(MojangAuthProvider.class, "toHostAddress",
+                    MethodType.methodType(String.class, java.net.InetAddress.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * 最近一次解析的调用器，验证链重载产生的新实例共享同一个缓存
+     */
+    private static volatile Invoker invoker;
+
+    private static final String SESSION_HOST = "sessionserver.mojang.com";
     private final Object sessionService;
 
     /**
@@ -21,6 +50,31 @@ public class MojangAuthProvider extends BaseAuthProvider {
         this.sessionService = sessionService;
     }
 
+    /**
+     * 预热：解析 Mojang 会话服务器地址
+     * 连接由服务端自带的 authlib 管理，这里只让地址进入 JVM 的 DNS 缓存
+     */
+    @Override
+    public CompletableFuture<Void> warmUp(long deadline, Executor executor) {
+        if (!enabled) {
+            return CompletableFuture.completedFuture(null);
+        }
+        try {
+            return CompletableFuture.runAsync(() -> {
+                long start = System.currentTimeMillis();
+                try {
+                    java.net.InetAddress[] addresses = java.net.InetAddress.getAllByName(SESSION_HOST);
+                    info("Warm-up " + SESSION_HOST + ": DNS " + (System.currentTimeMillis() - start) + "ms ("
+                            + addresses.length + " addresses)");
+                } catch (java.net.UnknownHostException e) {
+                    warning("Warm-up " + SESSION_HOST + " failed: " + e.getMessage());
+                }
+            }, executor);
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
     /**
      * 执行 Mojang 官方认证
      * 
@@ -37,7 +91,7 @@ public class MojangAuthProvider extends BaseAuthProvider {
 
         try {
             info("Authenticating " + username + " with Mojang");
-            // 使用反射调用 hasJoinedServer 方法
+            // 通过缓存的调用器调用 hasJoinedServer 方法
             Object profile = callHasJoinedServer(sessionService, username, serverId, null);
             if (profile != null) {
                 info("Authentication successful for " + username);
@@ -52,8 +106,7 @@ public class MojangAuthProvider extends BaseAuthProvider {
     }
 
     /**
-     * 使用反射调用 hasJoinedServer 方法
-     * 智能匹配不同的方法签名
+     * 调用 hasJoinedServer 方法
      * 
      * @param sessionService Minecraft 会话服务
      * @param username 玩家名称
@@ -61,86 +114,107 @@ public class MojangAuthProvider extends BaseAuthProvider {
      * @param ipAddress IP地址
      * @return 认证成功返回 GameProfile，认证失败返回 null
      */
-    private Object callHasJoinedServer(Object sessionService, String username, String serverId, String ipAddress) {
+    private Object callHasJoinedServer(Object sessionService, String username, String serverId, java.net.InetAddress ipAddress) {
+        Invoker current = getInvoker(sessionService);
+        if (current.handle == null) {
+            return null;
+        }
         try {
-            info("SessionService class: " + sessionService.getClass().getName());
-            info("SessionService class loader: " + sessionService.getClass().getClassLoader());
-            
-            // 打印所有方法，以便调试
-            info("Available methods:");
-            for (java.lang.reflect.Method method : sessionService.getClass().getMethods()) {
-                if (method.getName().equals("hasJoinedServer")) {
-                    StringBuilder params = new StringBuilder();
-                    for (Class<?> paramType : method.getParameterTypes()) {
-                        params.append(paramType.getName()).append(", ");
-                    }
-                    if (params.length() > 0) {
-                        params.setLength(params.length() - 2);
-                    }
-                    info("  - " + method.getName() + "(" + params + ")");
-                }
-            }
-            
-            // 尝试不同的方法签名
-            // 1. 尝试 (GameProfile, String, InetAddress) 签名
-            try {
-                Class<?> gameProfileClass = Class.forName("com.mojang.authlib.GameProfile");
-                java.lang.reflect.Method method = sessionService.getClass().getMethod("hasJoinedServer", gameProfileClass, String.class, java.net.InetAddress.class);
-                info("Using method signature: (GameProfile, String, InetAddress)");
-                
-                // 创建一个临时的 GameProfile 对象
-                Object gameProfile = null;
-                try {
-                    // 尝试使用 GameProfile 构造函数
-                    java.lang.reflect.Constructor<?> constructor = gameProfileClass.getConstructor(java.util.UUID.class, String.class);
-                    gameProfile = constructor.newInstance(null, username);
-                    info("Created temporary GameProfile for " + username);
-                } catch (Exception e) {
-                    warning("Failed to create GameProfile: " + e.getMessage());
-                    return null;
-                }
-                
-                // 转换IP地址
-                java.net.InetAddress inetAddress = null;
-                if (ipAddress != null) {
-                    inetAddress = java.net.InetAddress.getByName(ipAddress);
-                }
-                
-                return method.invoke(sessionService, gameProfile, serverId, inetAddress);
-            } catch (NoSuchMethodException e1) {
-                // 2. 尝试 (String, String, String) 签名
-                try {
-                    java.lang.reflect.Method method = sessionService.getClass().getMethod("hasJoinedServer", String.class, String.class, String.class);
-                    info("Using method signature: (String, String, String)");
-                    return method.invoke(sessionService, username, serverId, ipAddress);
-                } catch (NoSuchMethodException e2) {
-                    // 3. 尝试 (String, String, java.net.InetAddress) 签名
-                    try {
-                        java.lang.reflect.Method method = sessionService.getClass().getMethod("hasJoinedServer", String.class, String.class, java.net.InetAddress.class);
-                        info("Using method signature: (String, String, InetAddress)");
-                        // 转换IP地址
-                        java.net.InetAddress inetAddress = null;
-                        if (ipAddress != null) {
-                            inetAddress = java.net.InetAddress.getByName(ipAddress);
-                        }
-                        return method.invoke(sessionService, username, serverId, inetAddress);
-                    } catch (NoSuchMethodException e3) {
-                        // 4. 尝试 (String, String) 签名
-                        try {
-                            java.lang.reflect.Method method = sessionService.getClass().getMethod("hasJoinedServer", String.class, String.class);
-                            info("Using method signature: (String, String)");
-                            return method.invoke(sessionService, username, serverId);
-                        } catch (NoSuchMethodException e4) {
-                            warning("No matching hasJoinedServer method found");
-                            return null;
-                        }
-                    }
-                }
-            }
-        } catch (Exception e) {
+            return (Object) current.handle.invokeExact(username, serverId, ipAddress);
+        } catch (Throwable e) {
             warning("Exception calling hasJoinedServer: " + e.getMessage());
             e.printStackTrace();
             return null;
         }
     }
+
+    /**
+     * 获取会话服务对应的调用器，只有会话服务实例变化时才重新解析
+     * 
+     * @param sessionService Minecraft 会话服务
+     * @return 调用器
+     */
+    private Invoker getInvoker(Object sessionService) {
+        Invoker current = invoker;
+        if (current == null || current.target != sessionService) {
+            current = resolveInvoker(sessionService);
+            invoker = current;
+        }
+        return current;
+    }
+
+    /**
+     * 解析会话服务的 hasJoinedServer 签名，并适配为 (String, String, InetAddress)Object
+     * 按优先级尝试：(GameProfile, String, InetAddress)、(String, String, String)、(String, String, InetAddress)、(String, String)
+     * 
+     * @param sessionService Minecraft 会话服务
+     * @return 调用器，找不到匹配签名时 handle 为 null
+     */
+    private Invoker resolveInvoker(Object sessionService) {
+        Class<?> serviceClass = sessionService.getClass();
+        MethodType invokerType = MethodType.methodType(Object.class, String.class, String.class, java.net.InetAddress.class);
+        try {
+            Class<?> gameProfileClass = AuthlibBridge.getGameProfileClass();
+            Method method;
+            MethodHandle handle;
+            String signature;
+
+            if (gameProfileClass != null
+                    && (method = findMethod(serviceClass, gameProfileClass, String.class, java.net.InetAddress.class)) != null) {
+                // 用户名 -> 临时 GameProfile
+                handle = MethodHandles.filterArguments(bind(method, sessionService), 0,
+                        MethodHandles.insertArguments(CREATE_PROFILE, 0, (Object) null).asType(MethodType.methodType(gameProfileClass, String.class)));
+                signature = "(GameProfile, String, InetAddress)";
+            } else if ((method = findMethod(serviceClass, String.class, String.class, String.class)) != null) {
+                handle = MethodHandles.filterArguments(bind(method, sessionService), 2, TO_HOST_ADDRESS);
+                signature = "(String, String, String)";
+            } else if ((method = findMethod(serviceClass, String.class, String.class, java.net.InetAddress.class)) != null) {
+                handle = bind(method, sessionService);
+                signature = "(String, String, InetAddress)";
+            } else if ((method = findMethod(serviceClass, String.class, String.class)) != null) {
+                handle = MethodHandles.dropArguments(bind(method, sessionService), 2, java.net.InetAddress.class);
+                signature = "(String, String)";
+            } else {
+                warning("No matching hasJoinedServer method found on " + serviceClass.getName());
+                return new Invoker(sessionService, null);
+            }
+
+            info("Using method signature: " + signature + " on " + serviceClass.getName());
+            return new Invoker(sessionService, handle.asType(invokerType));
+        } catch (Exception e) {
+            warning("Failed to resolve hasJoinedServer on " + serviceClass.getName() + ": " + e.getMessage());
+            return new Invoker(sessionService, null);
+        }
+    }
+
+    private static Method findMethod(Class<?> serviceClass, Class<?>... parameterTypes) {
+        try {
+            return serviceClass.getMethod("hasJoinedServer", parameterTypes);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static MethodHandle bind(Method method, Object target) throws IllegalAccessException {
+        method.setAccessible(true);
+        return LOOKUP.unreflect(method).bindTo(target);
+    }
+
+    private static String toHostAddress(java.net.InetAddress address) {
+        return address != null ? address.getHostAddress() : null;
+    }
+
+    /**
+     * 已解析的 hasJoinedServer 调用器
+     */
+    private static final class Invoker {
+        final Object target;
+        /** (String, String, InetAddress)Object，找不到签名时为 null */
+        final MethodHandle handle;
+
+        Invoker(Object target, MethodHandle handle) {
+            this.target = target;
+            this.handle = handle;
+        }
+    }
 }
@@ -0,0 +1,185 @@
+package com.Leeinx.ximultilogin.auth.providers;
+
+import com.Leeinx.ximultilogin.cache.SkinProperty;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * hasJoined 响应
+ * 用 JsonReader 直接在响应体输入流上单遍解析，只保留 id、name 和 properties，
+ * 同一个对象既用于创建 GameProfile，也用于皮肤缓存。
+ */
+final class ProfileResponse {
+
+    private final UUID id;
+    private final String name;
+    private final List<SkinProperty> properties;
+
+    private ProfileResponse(UUID id, String name, List<SkinProperty> properties) {
+        this.id = id;
+        this.name = name;
+        this.properties = properties;
+    }
+
+    /**
+     * 解析响应体
+     *
+     * @param body     响应体输入流
+     * @param maxBytes 响应体最大字节数，超过时解析失败
+     * @return 解析结果
+     * @throws IOException 读取失败、JSON 格式错误、缺少 id 或超过大小上限
+     */
+    static ProfileResponse parse(InputStream body, long maxBytes) throws IOException {
+        JsonReader reader = new JsonReader(new InputStreamReader(new LimitedInputStream(body, maxBytes), StandardCharsets.UTF_8));
+        String id = null;
+        String name = null;
+        List<SkinProperty> properties = Collections.emptyList();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "id":
+                    id = nextStringOrNull(reader);
+                    break;
+                case "name":
+                    name = nextStringOrNull(reader);
+                    break;
+                case "properties":
+                    properties = readProperties(reader);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+
+        UUID uuid = parseUUID(id);
+        if (uuid == null) {
+            throw new IOException("Missing or invalid profile id: " + id);
+        }
+        return new ProfileResponse(uuid, name, properties);
+    }
+
+    private static List<SkinProperty> readProperties(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return Collections.emptyList();
+        }
+        List<SkinProperty> properties = new ArrayList<>(2);
+        reader.beginArray();
+        while (reader.hasNext()) {
+            String propertyName = null;
+            String value = null;
+            String signature = null;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "name":
+                        propertyName = nextStringOrNull(reader);
+                        break;
+                    case "value":
+                        value = nextStringOrNull(reader);
+                        break;
+                    case "signature":
+                        signature = nextStringOrNull(reader);
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+            if (propertyName != null && value != null) {
+                properties.add(new SkinProperty(propertyName, value, signature));
+            }
+        }
+        reader.endArray();
+        return Collections.unmodifiableList(properties);
+    }
+
+    private static String nextStringOrNull(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return reader.nextString();
+    }
+
+    private static UUID parseUUID(String id) {
+        if (id == null) return null;
+        try {
+            if (id.contains("-")) return UUID.fromString(id);
+            // 补全 UUID 连字符
+            return UUID.fromString(id.replaceFirst(
+                "(\\w{8})(\\w{4})(\\w{4})(\\w{4})(\\w{12})", "$1-$2-$3-$4-$5"));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    UUID getId() {
+        return id;
+    }
+
+    /**
+     * 获取名称
+     *
+     * @param fallback 响应中没有名称时使用的名称
+     * @return 名称
+     */
+    String getName(String fallback) {
+        return name != null ? name : fallback;
+    }
+
+    List<SkinProperty> getProperties() {
+        return properties;
+    }
+
+    /**
+     * 限制可读取字节数的输入流
+     */
+    private static final class LimitedInputStream extends FilterInputStream {
+        private long remaining;
+
+        LimitedInputStream(InputStream in, long maxBytes) {
+            super(in);
+            this.remaining = maxBytes;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                consume(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                consume(read);
+            }
+            return read;
+        }
+
+        private void consume(int count) throws IOException {
+            remaining -= count;
+            if (remaining < 0) {
+                throw new IOException("Response body exceeds size limit");
+            }
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.Leeinx.ximultilogin.auth.providers;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 提供者并发限制（舱壁）
+ * 同时发往一个提供者的请求数不超过当前限制，超出的请求进入有界队列，由归还许可的线程按顺序交给下一个请求，
+ * 排队期间不占用线程；轮到时已过截止时间的请求直接失败。
+ * 限制按 AIMD 自适应：每个成功的请求使限制增加 1/限制（大约每轮增加 1），
+ * 超时、429 或 503 时限制减半，上限为配置的最大并发数。
+ * 收到 429（或带 Retry-After 的 503）时整个提供者进入退避，退避结束前不再发出请求，排队的请求立即失败。
+ * 限制器按提供者保存在会话服务中，重载验证链时沿用，自适应的限制和退避状态不会被重置。
+ */
+public final class ProviderLimiter {
+
+    /**
+     * 请求结果
+     */
+    public enum Outcome {
+        /** 收到了确定的响应 */
+        SUCCESS,
+        /** 上游过载：超时、429 或 503 */
+        OVERLOAD,
+        /** 其它失败（如连接被拒绝），不调整限制 */
+        FAILURE
+    }
+
+    private static final long DEFAULT_BACKOFF_MILLIS = 1000;
+    private static final int QUEUE_PER_PERMIT = 4; // 队列容量为最大并发数的倍数
+
+    private int maxLimit;
+    private boolean adaptive;
+    private long maxBackoffMillis;
+
+    private double limit;
+    private int inFlight;
+    private long backoffUntil;
+    private final Deque<Waiter> waiters = new ArrayDeque<>();
+
+    private long rejected;
+    private long throttled;
+
+    /**
+     * 排队的请求
+     */
+    private static final class Waiter {
+        final long deadline;
+        final CompletableFuture<Boolean> future = new CompletableFuture<>();
+        boolean granted;
+
+        Waiter(long deadline) {
+            this.deadline = deadline;
+        }
+    }
+
+    /**
+     * 构造 ProviderLimiter
+     *
+     * @param maxLimit          最大并发数
+     * @param adaptive          是否按 AIMD 自适应调整，否则固定为最大并发数
+     * @param maxBackoffSeconds 单次退避的最长时间（秒）
+     */
+    public ProviderLimiter(int maxLimit, boolean adaptive, int maxBackoffSeconds) {
+        this.limit = Math.max(1, maxLimit);
+        configure(maxLimit, adaptive, maxBackoffSeconds);
+    }
+
+    /**
+     * 应用新的配置（重载验证链时调用）
+     * 当前限制、进行中的请求和退避保持不变，限制只会被收紧到新的最大并发数
+     *
+     * @param maxLimit          最大并发数
+     * @param adaptive          是否按 AIMD 自适应调整，否则固定为最大并发数
+     * @param maxBackoffSeconds 单次退避的最长时间（秒）
+     */
+    public void configure(int maxLimit, boolean adaptive, int maxBackoffSeconds) {
+        List<Waiter> ready;
+        synchronized (this) {
+            this.maxLimit = Math.max(1, maxLimit);
+            this.adaptive = adaptive;
+            this.maxBackoffMillis = maxBackoffSeconds * 1000L;
+            this.limit = adaptive ? Math.min(limit, this.maxLimit) : this.maxLimit;
+            ready = dispatch(System.currentTimeMillis());
+        }
+        complete(ready);
+    }
+
+    /**
+     * 立即获取许可，不排队
+     *
+     * @return 是否获得许可，获得后必须调用 release
+     */
+    public synchronized boolean tryAcquire() {
+        if (System.currentTimeMillis() < backoffUntil || !waiters.isEmpty() || inFlight >= (int) limit) {
+            rejected++;
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    /**
+     * 获取许可，没有空闲许可时排队
+     * 返回的 future 在获得许可时以 true 完成，在退避中、队列已满或轮到时已过截止时间时以 false 完成。
+     * 排队期间不占用线程；future 由归还许可的线程完成，依赖它的任务应切换到自己的线程池
+     *
+     * @param deadline 截止时间（System.currentTimeMillis() 时间戳）
+     * @return 是否获得许可，获得后必须调用 release
+     */
+    public CompletableFuture<Boolean> acquire(long deadline) {
+        List<Waiter> ready;
+        CompletableFuture<Boolean> result;
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            ready = dispatch(now);
+            if (now < backoffUntil || now >= deadline) {
+                rejected++;
+                result = CompletableFuture.completedFuture(false);
+            } else if (waiters.isEmpty() && inFlight < (int) limit) {
+                inFlight++;
+                result = CompletableFuture.completedFuture(true);
+            } else if (waiters.size() >= maxLimit * QUEUE_PER_PERMIT) {
+                rejected++;
+                result = CompletableFuture.completedFuture(false);
+            } else {
+                Waiter waiter = new Waiter(deadline);
+                waiters.addLast(waiter);
+                result = waiter.future;
+            }
+        }
+        complete(ready);
+        return result;
+    }
+
+    /**
+     * 归还许可并按结果调整限制，然后把空出的许可交给排队的请求
+     *
+     * @param outcome 请求结果
+     */
+    public void release(Outcome outcome) {
+        List<Waiter> ready;
+        synchronized (this) {
+            inFlight--;
+            if (adaptive) {
+                if (outcome == Outcome.SUCCESS) {
+                    limit = Math.min(maxLimit, limit + 1 / limit);
+                } else if (outcome == Outcome.OVERLOAD) {
+                    limit = Math.max(1, limit / 2);
+                }
+            }
+            ready = dispatch(System.currentTimeMillis());
+        }
+        complete(ready);
+    }
+
+    /**
+     * 上游要求降速（429 或带 Retry-After 的 503），整个提供者进入退避
+     *
+     * @param retryAfter Retry-After 响应头（秒数或 HTTP 日期），可为 null
+     */
+    public void throttle(String retryAfter) {
+        List<Waiter> ready;
+        synchronized (this) {
+            throttled++;
+            long now = System.currentTimeMillis();
+            long delay = Math.min(maxBackoffMillis, parseRetryAfter(retryAfter, now));
+            backoffUntil = Math.max(backoffUntil, now + delay);
+            ready = dispatch(now);
+        }
+        complete(ready);
+    }
+
+    /**
+     * 从队首取出可以结束排队的请求：退避中或已过截止时间的失败，有空闲许可的获得许可
+     * 必须持有锁调用，返回的请求在释放锁后由 complete 完成
+     *
+     * @param now 当前时间
+     * @return 结束排队的请求
+     */
+    private List<Waiter> dispatch(long now) {
+        if (waiters.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Waiter> ready = new ArrayList<>();
+        while (!waiters.isEmpty()) {
+            Waiter waiter = waiters.peekFirst();
+            if (now < backoffUntil || now >= waiter.deadline) {
+                waiter.granted = false;
+                rejected++;
+            } else if (inFlight < (int) limit) {
+                waiter.granted = true;
+                inFlight++;
+            } else {
+                break;
+            }
+            ready.add(waiters.pollFirst());
+        }
+        return ready;
+    }
+
+    private static void complete(List<Waiter> ready) {
+        for (Waiter waiter : ready) {
+            waiter.future.complete(waiter.granted);
+        }
+    }
+
+    private static long parseRetryAfter(String retryAfter, long now) {
+        if (retryAfter == null) {
+            return DEFAULT_BACKOFF_MILLIS;
+        }
+        String value = retryAfter.trim();
+        try {
+            return Math.max(0, Long.parseLong(value) * 1000);
+        } catch (NumberFormatException ignored) {
+        }
+        try {
+            return Math.max(0, ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli() - now);
+        } catch (DateTimeParseException e) {
+            return DEFAULT_BACKOFF_MILLIS;
+        }
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getQueued() {
+        return waiters.size();
+    }
+
+    public synchronized long getRejected() {
+        return rejected;
+    }
+
+    public synchronized long getThrottled() {
+        return throttled;
+    }
+
+    /**
+     * 获取剩余的退避时间
+     *
+     * @return 毫秒，未在退避返回 0
+     */
+    public synchronized long getBackoffRemainingMillis() {
+        return Math.max(0, backoffUntil - System.currentTimeMillis());
+    }
+}
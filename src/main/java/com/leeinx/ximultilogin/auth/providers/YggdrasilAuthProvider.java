@@ -1,246 +1,582 @@
 package com.Leeinx.ximultilogin.auth.providers;
 
 import com.Leeinx.ximultilogin.auth.AuthProvider;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
-
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import com.Leeinx.ximultilogin.cache.SkinCache;
+import com.Leeinx.ximultilogin.cache.SkinProperty;
+import com.Leeinx.ximultilogin.http.HttpClients;
+import com.Leeinx.ximultilogin.http.HttpResponse;
+import com.Leeinx.ximultilogin.reflection.AuthlibBridge;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.MalformedURLException;
+import java.net.SocketTimeoutException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class YggdrasilAuthProvider extends BaseAuthProvider {
 
-    private final String apiUrl;
+    private final List<YggdrasilEndpoint> endpoints;
     private final SkinCache skinCache;
+    private final long maxResponseBytes;
+    private final ProviderLimiter limiter;
+
+    // 后台刷新的速率限制（令牌桶），同时最多一个刷新请求
+    private static final long REFRESH_TIMEOUT_MILLIS = 10000;
+    private static final String TEXTURES = "textures";
+    private final double refreshPerSecond;
+    private double refreshTokens;
+    private long refreshTokensAt;
+    private boolean refreshInFlight;
+
+    public YggdrasilAuthProvider(String name, String apiUrl, boolean enabled, SkinCache skinCache) {
+        this(name, Collections.singletonList(apiUrl), enabled, skinCache, 64 * 1024, 2, new ProviderLimiter(16, true, 60));
+    }
 
-    public YggdrasilAuthProvider(String name, String apiUrl, boolean enabled) {
+    /**
+     * 构造 YggdrasilAuthProvider
+     *
+     * @param name             提供者名称
+     * @param apiUrls          API 根地址，多个地址互为镜像
+     * @param enabled          是否启用
+     * @param skinCache        共享的皮肤缓存
+     * @param maxResponseBytes 响应体最大字节数
+     * @param refreshPerSecond 每秒最多发起的后台刷新次数
+     * @param limiter          并发限制，所有镜像共用
+     */
+    public YggdrasilAuthProvider(String name, List<String> apiUrls, boolean enabled, SkinCache skinCache, long maxResponseBytes,
+                                 double refreshPerSecond, ProviderLimiter limiter) {
         super(name, enabled);
-        this.apiUrl = apiUrl;
-        this.skinCache = new SkinCache();
+        this.maxResponseBytes = maxResponseBytes;
+        this.limiter = limiter;
+        this.skinCache = skinCache;
+        this.refreshPerSecond = refreshPerSecond;
+        this.refreshTokens = Math.max(1, refreshPerSecond);
+        this.refreshTokensAt = System.currentTimeMillis();
+
+        // 连接池按主机共享，请求路径在这里拼好
+        List<YggdrasilEndpoint> resolved = new ArrayList<>(apiUrls.size());
+        for (String apiUrl : apiUrls) {
+            try {
+                resolved.add(new YggdrasilEndpoint(apiUrl));
+            } catch (MalformedURLException | IllegalArgumentException e) {
+                warning("Invalid API URL " + apiUrl + ": " + e.getMessage());
+            }
+        }
+        this.endpoints = Collections.unmodifiableList(resolved);
     }
     
+    @Override
+    public Object authenticate(String username, String serverId) {
+        if (!enabled || endpoints.isEmpty()) return null;
+        // 同步调用不排队，没有空闲许可时直接失败
+        if (!limiter.tryAcquire()) {
+            warning(rejection());
+            return null;
+        }
+        return requestProfile(username, serverId, Long.MAX_VALUE, null);
+    }
+
     /**
-     * 皮肤缓存类
-     * 缓存玩家皮肤属性，减少重复获取
+     * 异步执行认证
+     * 每次登录都发送 hasJoined 请求，皮肤缓存不能代替验证。直接连接的镜像使用非阻塞 HTTP 引擎（NIO + SSLEngine），
+     * 排队等待许可、等待连接和等待响应时都不占用线程，线程池只执行收到响应后的解析；
+     * 经过代理的镜像仍使用阻塞连接，在线程池中执行。截止时间由连接池和 I/O 线程检查
      */
-    private static class SkinCache {
-        private final ConcurrentHashMap<String, SkinData> cache;
-        private static final long CACHE_DURATION = 30 * 60 * 1000; // 30分钟缓存
-
-        public SkinCache() {
-            this.cache = new ConcurrentHashMap<>();
+    @Override
+    public CompletableFuture<Object> authenticateAsync(String username, String serverId, long deadline, Executor executor) {
+        if (!enabled || endpoints.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
         }
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        limiter.acquire(deadline).thenAccept(granted -> {
+            if (!granted) {
+                warning(rejection());
+                future.complete(null);
+                return;
+            }
+            String target;
+            try {
+                target = hasJoinedTarget(username, serverId);
+            } catch (UnsupportedEncodingException e) {
+                limiter.release(ProviderLimiter.Outcome.FAILURE);
+                warning("Network/Parse Error: " + e.getMessage());
+                future.complete(null);
+                return;
+            }
+            exchangeAsync(target, deadline, profileHandler(username, executor), executor).whenComplete((profile, error) -> {
+                if (error != null) {
+                    warning("Network/Parse Error: " + cause(error).getMessage());
+                }
+                future.complete(error == null ? profile : null);
+            });
+        });
+        return future;
+    }
 
-        /**
-         * 获取缓存的皮肤数据
-         * 
-         * @param key 缓存键 (username:provider)
-         * @return 皮肤数据，若不存在或已过期返回 null
-         */
-        public SkinData get(String key) {
-            SkinData data = cache.get(key);
-            if (data != null && !data.isExpired()) {
-                return data;
+    /**
+     * 并行预热所有镜像：解析地址、建立预热连接并请求 API 元数据，记录各步骤耗时
+     */
+    @Override
+    public CompletableFuture<Void> warmUp(long deadline, Executor executor) {
+        if (!enabled || endpoints.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        int connections = HttpClients.getWarmConnections();
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[endpoints.size()];
+        for (int i = 0; i < futures.length; i++) {
+            YggdrasilEndpoint endpoint = endpoints.get(i);
+            try {
+                futures[i] = CompletableFuture.runAsync(() -> info("Warm-up " + endpoint.warmUp(connections, deadline)), executor);
+            } catch (RuntimeException e) {
+                futures[i] = CompletableFuture.completedFuture(null);
             }
-            cache.remove(key);
-            return null;
         }
+        return CompletableFuture.allOf(futures).handle((ignored, ex) -> null);
+    }
 
-        /**
-         * 缓存皮肤数据
-         * 
-         * @param key 缓存键 (username:provider)
-         * @param data 皮肤数据
-         */
-        public void put(String key, SkinData data) {
-            cache.put(key, data);
+    /**
+     * 向认证服务器发送 hasJoined 请求
+     * 调用方必须已获得并发许可，许可由 exchange 归还
+     *
+     * @param username 玩家名称
+     * @param serverId 服务器唯一标识符
+     * @param deadline 截止时间（System.currentTimeMillis() 时间戳）
+     * @param executor 后台刷新材质使用的线程池，为 null 时不刷新
+     * @return 认证成功返回 GameProfile，失败返回 null
+     */
+    private Object requestProfile(String username, String serverId, long deadline, Executor executor) {
+        try {
+            return exchange(hasJoinedTarget(username, serverId), deadline, profileHandler(username, executor));
+        } catch (Exception e) {
+            warning("Network/Parse Error: " + e.getMessage());
         }
+        return null;
+    }
 
+    private static String hasJoinedTarget(String username, String serverId) throws UnsupportedEncodingException {
+        String encodedUsername = java.net.URLEncoder.encode(username, StandardCharsets.UTF_8.toString());
+        String encodedServerId = java.net.URLEncoder.encode(serverId, StandardCharsets.UTF_8.toString());
+        return "hasJoined?username=" + encodedUsername + "&serverId=" + encodedServerId;
+    }
+
+    /**
+     * hasJoined 响应的处理器
+     *
+     * @param username 玩家名称
+     * @param executor 后台刷新材质使用的线程池，为 null 时不刷新
+     * @return 处理器，认证成功返回 GameProfile，失败返回 null
+     */
+    private ResponseHandler<Object> profileHandler(String username, Executor executor) {
+        // 生成缓存键
+        String cacheKey = username + ":" + name;
+        return (endpoint, httpResponse) -> {
+            info("Authenticating " + username + " with API Root: " + endpoint.getApiUrl());
+            int responseCode = httpResponse.getStatusCode();
+            if (responseCode == 200) {
+                // 单遍流式解析，结果同时用于 GameProfile 和皮肤缓存
+                ProfileResponse result = parseResponse(httpResponse);
+
+                Object profile = AuthlibBridge.createProfile(result.getId(), result.getName(username));
+                if (profile == null) return null;
+
+                // 验证通过后才使用缓存：响应带属性时更新缓存，不带属性时用同一档案缓存的属性补全
+                List<SkinProperty> properties = result.getProperties();
+                if (!properties.isEmpty()) {
+                    skinCache.put(cacheKey, result.getId(), properties);
+                    info("Cached skin data for " + username);
+                } else {
+                    List<SkinProperty> cached = skinCache.get(cacheKey, result.getId(),
+                            executor != null ? (key, profileId, current) -> refreshProperties(profileId, current, executor) : null);
+                    if (cached != null) {
+                        info("Using cached skin data for " + username);
+                        properties = cached;
+                    }
+                }
+                addPropertiesToProfile(profile, properties);
+                return profile;
+            } else if (responseCode == 204) {
+                // 204 代表验证未通过（账号密码错或未购买）
+                info("204 No Content (Verify Failed)");
+            } else {
+                info("HTTP " + responseCode);
+            }
+            return null;
+        };
+    }
+
+    /**
+     * 响应处理器
+     */
+    private interface ResponseHandler<T> {
         /**
-         * 清除缓存
+         * 处理响应
+         *
+         * @throws IOException 响应无效，换下一个镜像重试
          */
-        public void clear() {
-            cache.clear();
-        }
+        T handle(YggdrasilEndpoint endpoint, HttpResponse response) throws IOException;
+    }
+
+    /**
+     * 一次故障转移过程的状态：所有镜像共用一个并发许可，结束时按结果归还
+     */
+    private final class Attempt {
+        ProviderLimiter.Outcome outcome = ProviderLimiter.Outcome.FAILURE;
+        IOException lastError;
+        boolean throttled;
 
         /**
-         * 皮肤数据类
+         * 是否继续尝试下一个镜像：站点要求降速或已超过截止时间时停止
          */
-        public static class SkinData {
-            private final JsonArray properties;
-            private final long timestamp;
-
-            public SkinData(JsonArray properties) {
-                this.properties = properties;
-                this.timestamp = System.currentTimeMillis();
+        boolean proceed(YggdrasilEndpoint endpoint, long deadline) {
+            if (throttled) {
+                return false;
             }
-
-            public JsonArray getProperties() {
-                return properties;
+            if (lastError != null) {
+                if (System.currentTimeMillis() >= deadline) {
+                    return false;
+                }
+                info("Failing over to " + endpoint.getApiUrl() + " after: " + lastError.getMessage());
             }
+            return true;
+        }
 
-            public boolean isExpired() {
-                return System.currentTimeMillis() - timestamp > CACHE_DURATION;
+        void failed(IOException e) {
+            if (e instanceof SocketTimeoutException) {
+                outcome = ProviderLimiter.Outcome.OVERLOAD;
             }
+            lastError = e;
         }
-    }
 
-    @Override
-    public Object authenticate(String username, String serverId) {
-        if (!enabled) return null;
+        IOException failure() {
+            return lastError != null ? lastError : new IOException("No endpoint available");
+        }
+    }
 
+    /**
+     * 按选择顺序向镜像发送 GET 请求（阻塞）
+     * 调用方必须已获得提供者的并发许可（整个故障转移过程占用一个许可），结束时在这里归还；
+     * 网络错误、5xx 或响应无效时，在截止时间之内换下一个镜像；
+     * 429（或带 Retry-After 的 503）表示站点要求降速，整个提供者进入退避，不再尝试其它镜像；
+     * 其它状态码（如 204）是确定的结果，直接交给处理器
+     *
+     * @param target   相对于 sessionserver/session/minecraft/ 的路径和查询字符串
+     * @param deadline 截止时间
+     * @param handler  响应处理器
+     * @return 处理器的结果
+     * @throws IOException 所有镜像都失败
+     */
+    private <T> T exchange(String target, long deadline, ResponseHandler<T> handler) throws IOException {
+        Attempt attempt = new Attempt();
         try {
-            // 生成缓存键
-            String cacheKey = username + ":" + name;
-            
-            // 检查缓存
-            SkinCache.SkinData cachedSkinData = skinCache.get(cacheKey);
-            if (cachedSkinData != null) {
-                info("Using cached skin data for " + username);
-                // 使用缓存的数据创建临时 GameProfile
-                UUID offlineUUID = UUID.nameUUIDFromBytes(("OfflinePlayer:" + username).getBytes(StandardCharsets.UTF_8));
-                Object profile = createGameProfile(offlineUUID, username);
-                if (profile != null) {
-                    addPropertiesToProfile(profile, cachedSkinData.getProperties());
+            for (YggdrasilEndpoint endpoint : selectionOrder()) {
+                if (!attempt.proceed(endpoint, deadline)) {
+                    break;
+                }
+                long start = System.currentTimeMillis();
+                endpoint.begin();
+                boolean succeeded = false;
+                try (HttpResponse httpResponse = endpoint.getPool().get(endpoint.getSessionPath() + target, deadline)) {
+                    T result = handle(endpoint, httpResponse, handler, attempt);
+                    succeeded = true;
+                    return result;
+                } catch (IOException e) {
+                    attempt.failed(e);
+                } finally {
+                    long elapsed = System.currentTimeMillis() - start;
+                    if (succeeded) {
+                        endpoint.succeeded(elapsed);
+                    } else {
+                        endpoint.failed(elapsed);
+                    }
                 }
-                return profile;
             }
+        } finally {
+            limiter.release(attempt.outcome);
+        }
+        throw attempt.failure();
+    }
 
-            // URL 处理
-            String cleanApiUrl = apiUrl.endsWith("/") ? apiUrl.substring(0, apiUrl.length() - 1) : apiUrl;
-            String endpoint = cleanApiUrl + "/sessionserver/session/minecraft/hasJoined";
-            String encodedUsername = java.net.URLEncoder.encode(username, StandardCharsets.UTF_8.toString());
-            String encodedServerId = java.net.URLEncoder.encode(serverId, StandardCharsets.UTF_8.toString());
-            String urlString = endpoint + "?username=" + encodedUsername + "&serverId=" + encodedServerId;
-            URL url = new URL(urlString);
-
-            info("Authenticating " + username + " with API Root: " + cleanApiUrl);
-
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("GET");
-            connection.setConnectTimeout(5000);
-            connection.setReadTimeout(5000);
+    /**
+     * 按选择顺序向镜像发送 GET 请求（非阻塞）
+     * 规则与 exchange 相同；请求通过 HostConnectionPool.getAsync 发送，等待响应时不占用线程，
+     * 响应在线程池中交给处理器，失败时从那里发起对下一个镜像的请求
+     *
+     * @param target   相对于 sessionserver/session/minecraft/ 的路径和查询字符串
+     * @param deadline 截止时间
+     * @param handler  响应处理器
+     * @param executor 执行处理器（以及代理连接等阻塞操作）的线程池
+     * @return 处理器结果的 CompletableFuture，所有镜像都失败时以最后一个错误异常完成；完成之前许可已归还
+     */
+    private <T> CompletableFuture<T> exchangeAsync(String target, long deadline, ResponseHandler<T> handler, Executor executor) {
+        Attempt attempt = new Attempt();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        CompletableFuture<T> released = result.whenComplete((value, error) -> limiter.release(attempt.outcome));
+        attemptAsync(selectionOrder().iterator(), attempt, target, deadline, handler, executor, result);
+        return released;
+    }
 
-            int responseCode = connection.getResponseCode();
-            
-            if (responseCode == 200) {
-                try (BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
-                    StringBuilder response = new StringBuilder();
-                    String inputLine;
-                    while ((inputLine = in.readLine()) != null) response.append(inputLine);
-
-                    // ★★★ 核心修复：使用 Gson 解析 JSON，不再手写字符串截取 ★★★
-                    Object profile = parseResponseWithGson(response.toString(), username);
-                    
-                    // 缓存皮肤数据
-                    try {
-                        JsonObject json = new JsonParser().parse(response.toString()).getAsJsonObject();
-                        if (json.has("properties")) {
-                            JsonArray props = json.getAsJsonArray("properties");
-                            skinCache.put(cacheKey, new SkinCache.SkinData(props));
-                            info("Cached skin data for " + username);
-                        }
-                    } catch (Exception e) {
-                        warning("Failed to cache skin data: " + e.getMessage());
-                    }
-                    
-                    return profile;
+    private <T> void attemptAsync(Iterator<YggdrasilEndpoint> order, Attempt attempt, String target, long deadline,
+                                  ResponseHandler<T> handler, Executor executor, CompletableFuture<T> result) {
+        YggdrasilEndpoint endpoint = order.hasNext() ? order.next() : null;
+        if (endpoint == null || !attempt.proceed(endpoint, deadline)) {
+            result.completeExceptionally(attempt.failure());
+            return;
+        }
+        long start = System.currentTimeMillis();
+        endpoint.begin();
+        endpoint.getPool().getAsync(endpoint.getSessionPath() + target, deadline, maxResponseBytes, executor).whenComplete((httpResponse, error) -> {
+            T value = null;
+            boolean succeeded = false;
+            RuntimeException unexpected = null;
+            if (error != null) {
+                Throwable failure = cause(error);
+                attempt.failed(failure instanceof IOException ? (IOException) failure : new IOException(failure.getMessage(), failure));
+            } else {
+                try (HttpResponse response = httpResponse) {
+                    value = handle(endpoint, response, handler, attempt);
+                    succeeded = true;
+                } catch (IOException e) {
+                    attempt.failed(e);
+                } catch (RuntimeException e) {
+                    unexpected = e;
                 }
-            } else if (responseCode == 204) {
-                // 204 代表验证未通过（账号密码错或未购买）
-                info("204 No Content (Verify Failed)");
+            }
+            long elapsed = System.currentTimeMillis() - start;
+            if (succeeded) {
+                endpoint.succeeded(elapsed);
+                result.complete(value);
             } else {
-                info("HTTP " + responseCode);
+                endpoint.failed(elapsed);
+                if (unexpected != null) {
+                    result.completeExceptionally(unexpected);
+                } else {
+                    attemptAsync(order, attempt, target, deadline, handler, executor, result);
+                }
             }
-        } catch (Exception e) {
-            warning("Network/Parse Error: " + e.getMessage());
-            e.printStackTrace();
+        });
+    }
+
+    /**
+     * 按状态码分类响应，确定的结果交给处理器
+     *
+     * @throws IOException 站点要求降速、5xx，或处理器认为响应无效
+     */
+    private <T> T handle(YggdrasilEndpoint endpoint, HttpResponse httpResponse, ResponseHandler<T> handler, Attempt attempt)
+            throws IOException {
+        int responseCode = httpResponse.getStatusCode();
+        String retryAfter = httpResponse.getHeader("retry-after");
+        if (responseCode == 429 || (responseCode == 503 && retryAfter != null)) {
+            limiter.throttle(retryAfter);
+            attempt.throttled = true;
+            attempt.outcome = ProviderLimiter.Outcome.OVERLOAD;
+            throw new IOException("HTTP " + responseCode + " from " + endpoint.getApiUrl()
+                    + (retryAfter != null ? ", Retry-After: " + retryAfter : ""));
         }
-        return null;
+        if (responseCode >= 500) {
+            if (responseCode == 503 || responseCode == 504) {
+                attempt.outcome = ProviderLimiter.Outcome.OVERLOAD;
+            }
+            throw new IOException("HTTP " + responseCode + " from " + endpoint.getApiUrl());
+        }
+        T result = handler.handle(endpoint, httpResponse);
+        if (attempt.outcome == ProviderLimiter.Outcome.FAILURE) {
+            attempt.outcome = ProviderLimiter.Outcome.SUCCESS;
+        }
+        return result;
     }
 
-    private Object parseResponseWithGson(String jsonString, String originalName) {
-        try {
-            // 使用 Spigot 自带的 Gson 解析器
-            JsonObject json = new JsonParser().parse(jsonString).getAsJsonObject();
-            
-            // 1. 提取 UUID (兼容带横线和不带横线)
-            String idStr = json.get("id").getAsString();
-            UUID uuid = parseUUID(idStr);
-            
-            // 2. 提取名称
-            String name = json.has("name") ? json.get("name").getAsString() : originalName;
-            
-            // 3. 反射创建 GameProfile
-            Object profile = createGameProfile(uuid, name);
-            if (profile == null) return null;
-
-            // 4. 提取皮肤属性 (Properties)
-            if (json.has("properties")) {
-                JsonArray props = json.getAsJsonArray("properties");
-                addPropertiesToProfile(profile, props);
-            }
-            
-            return profile;
+    private static Throwable cause(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
 
-        } catch (Exception e) {
-            warning("JSON Parse Failed: " + e.getMessage());
-            LOGGER.warning("JSON Debug: " + jsonString); // 打印出来方便调试
-            return null;
+    /**
+     * 没有获得并发许可的原因
+     */
+    private String rejection() {
+        long backoff = limiter.getBackoffRemainingMillis();
+        return backoff > 0
+                ? "Backing off for " + backoff + "ms after rate limiting"
+                : "Concurrency limit reached (" + limiter.getInFlight() + "/" + limiter.getLimit()
+                        + ", " + limiter.getQueued() + " queued)";
+    }
+
+    /**
+     * 镜像的尝试顺序
+     * 第一个用两者择优（power of two choices）选出：随机取两个镜像，代价较小的优先，
+     * 避免所有登录同时涌向同一个镜像；其余按代价从小到大作为故障转移的备选
+     */
+    private List<YggdrasilEndpoint> selectionOrder() {
+        int count = endpoints.size();
+        if (count == 1) {
+            return endpoints;
+        }
+        long now = System.currentTimeMillis();
+        double[] scores = new double[count];
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            scores[i] = endpoints.get(i).score(now);
+            order[i] = i;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int a = random.nextInt(count);
+        int b = random.nextInt(count - 1);
+        if (b >= a) {
+            b++;
         }
+        int first = scores[a] <= scores[b] ? a : b;
+        Arrays.sort(order, (x, y) -> x == first ? -1 : y == first ? 1 : Double.compare(scores[x], scores[y]));
+        List<YggdrasilEndpoint> ordered = new ArrayList<>(count);
+        for (int index : order) {
+            ordered.add(endpoints.get(index));
+        }
+        return ordered;
     }
 
-    private UUID parseUUID(String id) {
-        if (id == null) return null;
+    /**
+     * 解析 200 响应的档案
+     *
+     * @throws IOException 响应过大或格式错误
+     */
+    private ProfileResponse parseResponse(HttpResponse httpResponse) throws IOException {
+        long contentLength = httpResponse.getContentLength();
+        if (contentLength > maxResponseBytes) {
+            throw new IOException("Response too large (" + contentLength + " bytes), limit " + maxResponseBytes);
+        }
         try {
-            if (id.contains("-")) return UUID.fromString(id);
-            // 补全 UUID 连字符
-            return UUID.fromString(id.replaceFirst(
-                "(\\w{8})(\\w{4})(\\w{4})(\\w{4})(\\w{12})", "$1-$2-$3-$4-$5"));
-        } catch (Exception e) {
-            return null;
+            return ProfileResponse.parse(httpResponse.getBody(), maxResponseBytes);
+        } catch (IllegalStateException e) {
+            throw new IOException("JSON Parse Failed: " + e.getMessage(), e);
         }
     }
 
-    // 反射创建 GameProfile (保持不变)
-    private Object createGameProfile(UUID uuid, String name) {
-        try {
-            Class<?> gpClass = Class.forName("com.mojang.authlib.GameProfile");
-            return gpClass.getConstructor(UUID.class, String.class).newInstance(uuid, name);
-        } catch (Exception e) {
-            e.printStackTrace();
+    /**
+     * 获取所有镜像，用于统计
+     *
+     * @return 镜像列表
+     */
+    public List<YggdrasilEndpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    /**
+     * 获取并发限制，用于统计
+     *
+     * @return 并发限制
+     */
+    public ProviderLimiter getLimiter() {
+        return limiter;
+    }
+
+    /**
+     * 在后台重新获取档案的材质
+     * 只在 hasJoined 验证通过后触发；通过 profile/{uuid} 接口获取（hasJoined 的 serverId 只能使用一次），受速率限制。
+     * 与登录一样使用非阻塞请求；后台刷新不排队，没有空闲的并发许可时放弃，下次读取再刷新。
+     * 只替换 textures 属性，其它缓存的属性保持不变
+     *
+     * @param profileId 档案 UUID
+     * @param current   当前缓存的皮肤属性
+     * @param executor  线程池
+     * @return 新的皮肤属性（失败或响应中没有材质时为 null），超过速率限制或没有并发许可时返回 null
+     */
+    private CompletableFuture<List<SkinProperty>> refreshProperties(UUID profileId, List<SkinProperty> current, Executor executor) {
+        if (!enabled || endpoints.isEmpty() || !tryAcquireRefresh()) {
+            return null;
+        }
+        if (!limiter.tryAcquire()) {
+            releaseRefresh();
             return null;
         }
+        String target = "profile/" + profileId.toString().replace("-", "") + "?unsigned=false";
+        return exchangeAsync(target, System.currentTimeMillis() + REFRESH_TIMEOUT_MILLIS, texturesHandler(profileId, current), executor)
+                .handle((properties, error) -> {
+                    releaseRefresh();
+                    if (error != null) {
+                        warning("Failed to refresh skin data for " + profileId + ": " + cause(error).getMessage());
+                        return null;
+                    }
+                    return properties;
+                });
     }
 
-    // 反射填充 Properties (保持不变)
-    private void addPropertiesToProfile(Object profile, JsonArray jsonProps) {
-        try {
-            Class<?> gpClass = profile.getClass();
-            Object propertyMap = gpClass.getMethod("getProperties").invoke(profile);
-            java.lang.reflect.Method putMethod = propertyMap.getClass().getMethod("put", Object.class, Object.class);
-            
-            Class<?> propClass = Class.forName("com.mojang.authlib.properties.Property");
-            java.lang.reflect.Constructor<?> propCons = propClass.getConstructor(String.class, String.class, String.class);
-            java.lang.reflect.Constructor<?> propCons2 = propClass.getConstructor(String.class, String.class);
-
-            for (int i = 0; i < jsonProps.size(); i++) {
-                JsonObject p = jsonProps.get(i).getAsJsonObject();
-                String pName = p.get("name").getAsString();
-                String pValue = p.get("value").getAsString();
-                
-                Object propertyObj;
-                if (p.has("signature")) {
-                    propertyObj = propCons.newInstance(pName, pValue, p.get("signature").getAsString());
-                } else {
-                    propertyObj = propCons2.newInstance(pName, pValue);
+    /**
+     * 获取刷新许可：令牌桶中有令牌且没有进行中的刷新
+     */
+    private synchronized boolean tryAcquireRefresh() {
+        if (refreshInFlight || refreshPerSecond <= 0) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        refreshTokens = Math.min(Math.max(1, refreshPerSecond), refreshTokens + (now - refreshTokensAt) * refreshPerSecond / 1000);
+        refreshTokensAt = now;
+        if (refreshTokens < 1) {
+            return false;
+        }
+        refreshTokens -= 1;
+        refreshInFlight = true;
+        return true;
+    }
+
+    private synchronized void releaseRefresh() {
+        refreshInFlight = false;
+    }
+
+    /**
+     * profile 响应的处理器：取出材质，替换当前属性中的 textures
+     *
+     * @param profileId 档案 UUID
+     * @param current   当前缓存的皮肤属性
+     * @return 处理器，响应中没有材质时返回 null
+     */
+    private ResponseHandler<List<SkinProperty>> texturesHandler(UUID profileId, List<SkinProperty> current) {
+        return (endpoint, httpResponse) -> {
+            if (httpResponse.getStatusCode() != 200) {
+                info("Refresh of " + profileId + " returned HTTP " + httpResponse.getStatusCode());
+                return null;
+            }
+            ProfileResponse result = parseResponse(httpResponse);
+            if (!profileId.equals(result.getId())) {
+                return null;
+            }
+            SkinProperty textures = null;
+            for (SkinProperty property : result.getProperties()) {
+                if (TEXTURES.equals(property.getName())) {
+                    textures = property;
+                }
+            }
+            if (textures == null) {
+                return null;
+            }
+            List<SkinProperty> merged = new ArrayList<>(current.size());
+            for (SkinProperty property : current) {
+                if (!TEXTURES.equals(property.getName())) {
+                    merged.add(property);
                 }
-                putMethod.invoke(propertyMap, pName, propertyObj);
+            }
+            merged.add(textures);
+            info("Refreshed textures for " + profileId);
+            return merged;
+        };
+    }
+
+    // 填充 Properties
+    private void addPropertiesToProfile(Object profile, List<SkinProperty> properties) {
+        try {
+            for (SkinProperty property : properties) {
+                AuthlibBridge.putProperty(profile, property.getName(),
+                        AuthlibBridge.createProperty(property.getName(), property.getValue(), property.getSignature()));
             }
         } catch (Exception e) {
             warning("Failed to add properties: " + e.getMessage());
@@ -0,0 +1,196 @@
+package com.Leeinx.ximultilogin.auth.providers;
+
+import com.Leeinx.ximultilogin.http.HostConnectionPool;
+import com.Leeinx.ximultilogin.http.HttpClients;
+import com.Leeinx.ximultilogin.http.HttpResponse;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.MalformedURLException;
+import java.net.URL;
+
+/**
+ * Yggdrasil 提供者的一个 API 地址（镜像）
+ * 记录延迟和错误率的指数加权移动平均（EWMA），供提供者选择镜像；
+ * 错误率随距上次失败的时间衰减，出过错的镜像过一段时间会重新被尝试。
+ */
+public final class YggdrasilEndpoint {
+
+    private static final double ALPHA = 0.3;
+    private static final double ERROR_DECAY_MILLIS = 30000;
+    private static final double ERROR_PENALTY_MILLIS = 2000;
+
+    private final String apiUrl;
+    private final HostConnectionPool pool;
+    private final String sessionPath;
+    private final String rootPath;
+
+    private double latencyMillis;
+    private double errorRate;
+    private long errorRateAt; // errorRate 对应的时间点
+    private int inFlight;
+    private long requests;
+    private long failures;
+
+    /**
+     * 构造 YggdrasilEndpoint
+     *
+     * @param apiUrl API 根地址
+     * @throws MalformedURLException    地址格式错误
+     * @throws IllegalArgumentException 不支持的协议
+     */
+    YggdrasilEndpoint(String apiUrl) throws MalformedURLException {
+        String cleanApiUrl = apiUrl.endsWith("/") ? apiUrl.substring(0, apiUrl.length() - 1) : apiUrl;
+        URL url = new URL(cleanApiUrl);
+        this.apiUrl = cleanApiUrl;
+        this.pool = HttpClients.forUrl(url);
+        this.sessionPath = url.getPath() + "/sessionserver/session/minecraft/";
+        this.rootPath = url.getPath().isEmpty() ? "/" : url.getPath();
+    }
+
+    /**
+     * 预热：解析地址（经过代理时跳过）、建立连接并请求 API 元数据（API 根地址）
+     * 元数据请求的耗时作为延迟的初始样本
+     *
+     * @param connections 预先建立的连接数
+     * @param deadline    截止时间
+     * @return 预热结果，用于日志
+     */
+    String warmUp(int connections, long deadline) {
+        StringBuilder result = new StringBuilder(apiUrl).append(": ");
+        long start = System.currentTimeMillis();
+        long requestStart = start;
+        boolean succeeded = false;
+        begin();
+        try {
+            // 经过代理时主机名由代理解析
+            if (pool.isProxied()) {
+                result.append("via proxy");
+            } else {
+                InetAddress[] resolved = pool.resolve();
+                result.append("DNS ").append(System.currentTimeMillis() - start).append("ms (").append(resolved.length).append(" addresses)");
+            }
+            long resolvedAt = System.currentTimeMillis();
+
+            long resumedBefore = pool.getTlsResumed();
+            int opened = pool.warmUp(Math.max(1, connections), deadline);
+            requestStart = System.currentTimeMillis();
+            result.append(", ").append(opened).append(" connections in ").append(requestStart - resolvedAt).append("ms");
+            if (pool.getTlsResumed() > resumedBefore) {
+                result.append(" (").append(pool.getTlsResumed() - resumedBefore).append(" TLS resumed)");
+            }
+
+            int status;
+            try (HttpResponse response = pool.get(rootPath, deadline)) {
+                status = response.getStatusCode();
+            }
+            long elapsed = System.currentTimeMillis() - requestStart;
+            result.append(", metadata HTTP ").append(status).append(" in ").append(elapsed).append("ms");
+            succeeded = status < 500;
+        } catch (IOException | RuntimeException e) {
+            result.append(" failed after ").append(System.currentTimeMillis() - start).append("ms: ").append(e.getMessage());
+        } finally {
+            // 无论结果如何都结束这次请求，否则进行中的计数会一直偏高，影响镜像选择
+            long elapsed = System.currentTimeMillis() - requestStart;
+            if (succeeded) {
+                succeeded(elapsed);
+            } else {
+                failed(elapsed);
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * 获取镜像所在主机的共享连接池
+     *
+     * @return 连接池
+     */
+    public HostConnectionPool getPool() {
+        return pool;
+    }
+
+    String getSessionPath() {
+        return sessionPath;
+    }
+
+    /**
+     * 计算选择代价，越小越优先
+     * 延迟加上错误惩罚，再乘以进行中的请求数 + 1
+     *
+     * @param now 当前时间
+     * @return 代价
+     */
+    synchronized double score(long now) {
+        return (latencyMillis + currentErrorRate(now) * ERROR_PENALTY_MILLIS) * (inFlight + 1);
+    }
+
+    private double currentErrorRate(long now) {
+        return errorRate * Math.exp(-(now - errorRateAt) / ERROR_DECAY_MILLIS);
+    }
+
+    /**
+     * 开始一次请求
+     */
+    synchronized void begin() {
+        inFlight++;
+        requests++;
+    }
+
+    /**
+     * 请求成功（收到了有效的响应）
+     *
+     * @param elapsedMillis 耗时
+     */
+    synchronized void succeeded(long elapsedMillis) {
+        inFlight--;
+        long now = System.currentTimeMillis();
+        latencyMillis = latencyMillis == 0 ? elapsedMillis : latencyMillis + ALPHA * (elapsedMillis - latencyMillis);
+        errorRate = currentErrorRate(now) * (1 - ALPHA);
+        errorRateAt = now;
+    }
+
+    /**
+     * 请求失败（网络错误、服务器错误或无效响应）
+     *
+     * @param elapsedMillis 耗时
+     */
+    synchronized void failed(long elapsedMillis) {
+        inFlight--;
+        failures++;
+        long now = System.currentTimeMillis();
+        // 失败的耗时也计入延迟，慢到超时的镜像排到后面
+        latencyMillis = latencyMillis == 0 ? elapsedMillis : latencyMillis + ALPHA * (elapsedMillis - latencyMillis);
+        errorRate = currentErrorRate(now) * (1 - ALPHA) + ALPHA;
+        errorRateAt = now;
+    }
+
+    public String getApiUrl() {
+        return apiUrl;
+    }
+
+    public synchronized long getLatencyMillis() {
+        return Math.round(latencyMillis);
+    }
+
+    /**
+     * 获取当前错误率（已按时间衰减）
+     *
+     * @return 0 到 1 之间的错误率
+     */
+    public synchronized double getErrorRate() {
+        return currentErrorRate(System.currentTimeMillis());
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized long getRequests() {
+        return requests;
+    }
+
+    public synchronized long getFailures() {
+        return failures;
+    }
+}
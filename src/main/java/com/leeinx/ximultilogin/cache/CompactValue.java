@@ -0,0 +1,91 @@
+package com.Leeinx.ximultilogin.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * 紧凑存储的属性字符串
+ * 标准 Base64 字符串（textures 的值和签名）保存解码后的原始字节，其它字符串保存 UTF-8 字节，
+ * 只在创建 authlib Property 时还原成 String。按内容比较，供 SkinCache 去重。
+ */
+final class CompactValue {
+
+    private final byte[] bytes;
+    private final boolean base64;
+    private final int hash;
+
+    private CompactValue(byte[] bytes, boolean base64) {
+        this.bytes = bytes;
+        this.base64 = base64;
+        this.hash = 31 * Arrays.hashCode(bytes) + (base64 ? 1 : 0);
+    }
+
+    /**
+     * 用已压缩的字节创建（从磁盘缓存读取时使用）
+     *
+     * @param bytes  字节
+     * @param base64 字节是否为 Base64 解码结果
+     * @return 紧凑值
+     */
+    static CompactValue of(byte[] bytes, boolean base64) {
+        return new CompactValue(bytes, base64);
+    }
+
+    /**
+     * 压缩字符串
+     *
+     * @param value 原始字符串
+     * @return 紧凑值
+     */
+    static CompactValue of(String value) {
+        try {
+            byte[] decoded = Base64.getDecoder().decode(value);
+            // 只有能原样还原的字符串才按 Base64 保存（排除换行、缺少填充等写法）
+            if (Base64.getEncoder().encodeToString(decoded).equals(value)) {
+                return new CompactValue(decoded, true);
+            }
+        } catch (IllegalArgumentException ignored) {
+        }
+        return new CompactValue(value.getBytes(StandardCharsets.UTF_8), false);
+    }
+
+    /**
+     * 还原成字符串
+     *
+     * @return 原始字符串
+     */
+    String asString() {
+        return base64 ? Base64.getEncoder().encodeToString(bytes) : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    byte[] getBytes() {
+        return bytes;
+    }
+
+    boolean isBase64() {
+        return base64;
+    }
+
+    /**
+     * 估算占用的字节数（数组内容加对象头）
+     *
+     * @return 字节数
+     */
+    int getWeight() {
+        return bytes.length + 32;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CompactValue)) return false;
+        CompactValue other = (CompactValue) o;
+        return hash == other.hash && base64 == other.base64 && Arrays.equals(bytes, other.bytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
@@ -0,0 +1,699 @@
+package com.Leeinx.ximultilogin.cache;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 皮肤属性缓存
+ * 所有认证提供者共享，按属性字节数计算权重，总权重有上限。
+ * 缓存只保存皮肤属性，不是认证结果：只在 hasJoined 验证通过之后，用来补全响应中缺少的属性。
+ * 淘汰策略为 W-TinyLFU：新条目先进入窗口 LRU，溢出后与主区（分段 LRU：试用段 + 保护段）中
+ * 最久未使用的条目比较访问频率，频率更高的留下，避免一次性访问把热门玩家挤出缓存。
+ * 过期条目由定时任务调用 cleanUp() 清除，读取时也会检查过期。
+ * 属性值和签名以紧凑字节保存，内容相同的值在所有条目间共享一份（按引用计数释放）。
+ * 可以附加磁盘层（SkinDiskCache）：写入时同时交给磁盘层的后台线程追加，内存未命中时再查磁盘并放回内存，
+ * 重启后缓存仍然有效。磁盘读写都在内存缓存的锁之外进行。
+ * 提前刷新：hasJoined 验证通过后读取到剩余有效期不足 (1 - refresh_ahead) × 有效期 的条目时，照常返回当前值，
+ * 同时通过 Refresher 在后台重新获取材质；同一个键同时只有一个刷新。读取本身从不延长有效期。
+ */
+public final class SkinCache {
+
+    /**
+     * 按 skin_cache_size 条目估算总权重时使用的单个条目字节数
+     */
+    static final int TYPICAL_ENTRY_WEIGHT = 1024;
+    private static final int WINDOW_PERCENT = 1;
+    private static final int PROTECTED_PERCENT = 80;
+
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    private final Map<String, Node> data = new HashMap<>();
+    private final Map<CompactValue, Shared> values = new HashMap<>();
+    private final Node[] heads = {new Node(), new Node(), new Node()};
+    private final long[] weights = new long[3];
+    private FrequencySketch sketch;
+    private long maximumWeight;
+    private long windowMaximum;
+    private long protectedMaximum;
+    private volatile long expiryMillis;
+    private volatile long refreshWindowMillis;
+    private volatile SkinDiskCache diskTier;
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    private long sharedBytes;
+    private long refreshes;
+
+    /**
+     * 构造 SkinCache
+     *
+     * @param maximumEntries 按典型条目大小估算的最大条目数
+     * @param expiryMinutes  条目写入后的有效期（分钟）
+     * @param refreshAhead   条目经过有效期的这一比例后读取时在后台刷新，1 表示不提前刷新
+     */
+    public SkinCache(int maximumEntries, int expiryMinutes, double refreshAhead) {
+        for (Node head : heads) {
+            head.prev = head;
+            head.next = head;
+        }
+        configure(maximumEntries, expiryMinutes, refreshAhead);
+    }
+
+    /**
+     * 刷新器：在后台重新获取一个条目的皮肤属性
+     */
+    public interface Refresher {
+        /**
+         * 开始刷新
+         *
+         * @param key       缓存键
+         * @param profileId 条目所属的档案 UUID
+         * @param current   当前缓存的皮肤属性
+         * @return 新的皮肤属性（获取失败时完成为 null），不能刷新（如超过速率限制）时返回 null
+         */
+        CompletableFuture<List<SkinProperty>> refresh(String key, UUID profileId, List<SkinProperty> current);
+    }
+
+    /**
+     * 缓存条目快照
+     */
+    static final class Entry {
+        final List<SkinProperty> properties;
+        final UUID profileId;
+        final long expiresAt;
+
+        Entry(List<SkinProperty> properties, UUID profileId, long expiresAt) {
+            this.properties = properties;
+            this.profileId = profileId;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * 更新容量、有效期和提前刷新比例
+     * 容量变小时立即淘汰多出的条目
+     *
+     * @param maximumEntries 按典型条目大小估算的最大条目数
+     * @param expiryMinutes  条目写入后的有效期（分钟）
+     * @param refreshAhead   条目经过有效期的这一比例后读取时在后台刷新，1 表示不提前刷新
+     */
+    public synchronized void configure(int maximumEntries, int expiryMinutes, double refreshAhead) {
+        this.maximumWeight = (long) maximumEntries * TYPICAL_ENTRY_WEIGHT;
+        this.windowMaximum = Math.max(TYPICAL_ENTRY_WEIGHT, maximumWeight * WINDOW_PERCENT / 100);
+        this.protectedMaximum = (maximumWeight - windowMaximum) * PROTECTED_PERCENT / 100;
+        this.expiryMillis = TimeUnit.MINUTES.toMillis(expiryMinutes);
+        this.refreshWindowMillis = (long) (expiryMillis * (1 - refreshAhead));
+        if (sketch == null || sketch.capacity < maximumEntries) {
+            this.sketch = new FrequencySketch(maximumEntries);
+        }
+        evict();
+    }
+
+    /**
+     * 获取缓存的皮肤属性
+     *
+     * @param key 缓存键 (username:provider)
+     * @return 皮肤属性，不存在或已过期返回 null
+     */
+    public List<SkinProperty> get(String key) {
+        Entry entry = lookup(key);
+        return entry != null ? entry.properties : null;
+    }
+
+    /**
+     * 获取属于指定档案的皮肤属性，条目即将过期时在后台刷新
+     * 只应在 hasJoined 验证通过之后调用；条目属于其它档案（如玩家名已转给另一个账号）时视为未命中
+     *
+     * @param key       缓存键 (username:provider)
+     * @param profileId 已通过验证的档案 UUID
+     * @param refresher 刷新器，为 null 时不刷新
+     * @return 皮肤属性，不存在、已过期或属于其它档案返回 null
+     */
+    public List<SkinProperty> get(String key, UUID profileId, Refresher refresher) {
+        Entry entry = lookup(key);
+        if (entry == null || !profileId.equals(entry.profileId)) {
+            return null;
+        }
+        if (refresher != null && entry.expiresAt - System.currentTimeMillis() < refreshWindowMillis) {
+            refresh(key, profileId, entry.properties, refresher);
+        }
+        return entry.properties;
+    }
+
+    /**
+     * 先查内存层，未命中时查磁盘层并放回内存
+     */
+    private Entry lookup(String key) {
+        Entry entry = getFromMemory(key);
+        SkinDiskCache disk = diskTier;
+        if (entry == null && disk != null) {
+            entry = disk.get(key, System.currentTimeMillis());
+            if (entry != null) {
+                entry = putInMemory(key, entry.properties, entry.profileId, entry.expiresAt);
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * 在后台刷新条目，同一个键同时只有一个刷新
+     */
+    private void refresh(String key, UUID profileId, List<SkinProperty> current, Refresher refresher) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        CompletableFuture<List<SkinProperty>> future;
+        try {
+            future = refresher.refresh(key, profileId, current);
+        } catch (RuntimeException e) {
+            future = null;
+        }
+        if (future == null) {
+            refreshing.remove(key);
+            return;
+        }
+        synchronized (this) {
+            refreshes++;
+        }
+        future.whenComplete((properties, ex) -> {
+            refreshing.remove(key);
+            if (ex == null && properties != null && !properties.isEmpty()) {
+                put(key, profileId, properties);
+            }
+        });
+    }
+
+    private synchronized Entry getFromMemory(String key) {
+        sketch.increment(key.hashCode());
+        Node node = data.get(key);
+        if (node == null) {
+            misses++;
+            return null;
+        }
+        if (node.expiresAt <= System.currentTimeMillis()) {
+            remove(node);
+            expirations++;
+            misses++;
+            return null;
+        }
+        hits++;
+        onAccess(node);
+        return new Entry(node.value, node.profileId, node.expiresAt);
+    }
+
+    /**
+     * 缓存皮肤属性
+     * 单个条目超过总容量时不缓存
+     *
+     * @param key        缓存键 (username:provider)
+     * @param profileId  条目所属的档案 UUID，用于提前刷新（可为 null）
+     * @param properties 皮肤属性
+     */
+    public void put(String key, UUID profileId, List<SkinProperty> properties) {
+        long expiresAt = System.currentTimeMillis() + expiryMillis;
+        putInMemory(key, properties, profileId, expiresAt);
+        SkinDiskCache disk = diskTier;
+        if (disk != null) {
+            disk.put(key, profileId, properties, expiresAt);
+        }
+    }
+
+    /**
+     * 写入内存层
+     *
+     * @return 去重后的条目
+     */
+    private synchronized Entry putInMemory(String key, List<SkinProperty> properties, UUID profileId, long expiresAt) {
+        int weight = 64;
+        for (SkinProperty property : properties) {
+            weight += property.getWeight();
+        }
+        if (weight > maximumWeight - windowMaximum) {
+            return new Entry(properties, profileId, expiresAt);
+        }
+        sketch.increment(key.hashCode());
+        properties = intern(properties);
+
+        Node node = data.get(key);
+        if (node != null) {
+            weights[node.queue] += weight - node.weight;
+            release(node.value);
+            node.value = properties;
+            node.profileId = profileId;
+            node.weight = weight;
+            node.expiresAt = expiresAt;
+            onAccess(node);
+        } else {
+            node = new Node();
+            node.key = key;
+            node.value = properties;
+            node.profileId = profileId;
+            node.weight = weight;
+            node.expiresAt = expiresAt;
+            data.put(key, node);
+            link(node, WINDOW);
+        }
+        evict();
+        return new Entry(properties, profileId, expiresAt);
+    }
+
+    /**
+     * 移除条目
+     *
+     * @param key 缓存键
+     */
+    public void invalidate(String key) {
+        synchronized (this) {
+            Node node = data.get(key);
+            if (node != null) {
+                remove(node);
+            }
+        }
+        SkinDiskCache disk = diskTier;
+        if (disk != null) {
+            disk.remove(key);
+        }
+    }
+
+    /**
+     * 清空内存层（磁盘层不受影响）
+     */
+    public synchronized void clear() {
+        for (Node node : new ArrayList<>(data.values())) {
+            remove(node);
+        }
+    }
+
+    /**
+     * 清除所有过期条目
+     * 由定时任务周期性调用
+     *
+     * @return 清除的条目数
+     */
+    public int cleanUp() {
+        SkinDiskCache disk = diskTier;
+        if (disk != null) {
+            disk.cleanUp(System.currentTimeMillis());
+        }
+        return cleanUpMemory();
+    }
+
+    private synchronized int cleanUpMemory() {
+        long now = System.currentTimeMillis();
+        int removed = 0;
+        Iterator<Node> iterator = data.values().iterator();
+        while (iterator.hasNext()) {
+            Node node = iterator.next();
+            if (node.expiresAt <= now) {
+                iterator.remove();
+                unlink(node);
+                release(node.value);
+                removed++;
+            }
+        }
+        expirations += removed;
+        return removed;
+    }
+
+    /**
+     * 附加磁盘层
+     * 只创建对象，不读取文件，之后需要调用 loadDiskTier()
+     *
+     * @param directory 磁盘缓存目录
+     * @param maxBytes  段文件的最大字节数
+     */
+    public void attachDiskTier(File directory, long maxBytes) {
+        this.diskTier = new SkinDiskCache(directory, maxBytes);
+    }
+
+    /**
+     * 在磁盘层的写入线程上加载段文件和索引，不阻塞调用线程
+     * 加载完成前磁盘层不参与读取
+     */
+    public void loadDiskTier() {
+        SkinDiskCache disk = diskTier;
+        if (disk != null) {
+            disk.load();
+        }
+    }
+
+    /**
+     * 关闭缓存：保存磁盘层索引并清空内存层
+     */
+    public void close() {
+        SkinDiskCache disk = diskTier;
+        if (disk != null) {
+            disk.close();
+        }
+        clear();
+    }
+
+    private void onAccess(Node node) {
+        if (node.queue == PROBATION) {
+            // 试用段中再次被访问，晋升到保护段
+            unlink(node);
+            link(node, PROTECTED);
+            while (weights[PROTECTED] > protectedMaximum) {
+                Node demoted = heads[PROTECTED].next;
+                unlink(demoted);
+                link(demoted, PROBATION);
+            }
+        } else {
+            unlink(node);
+            link(node, node.queue);
+        }
+    }
+
+    /**
+     * 把窗口溢出的条目移到试用段，再按访问频率淘汰，直到总权重不超过上限
+     */
+    private void evict() {
+        Node candidate = null;
+        while (weights[WINDOW] > windowMaximum) {
+            Node overflow = heads[WINDOW].next;
+            unlink(overflow);
+            link(overflow, PROBATION);
+            if (candidate == null) {
+                candidate = overflow;
+            }
+        }
+
+        while (weights[WINDOW] + weights[PROBATION] + weights[PROTECTED] > maximumWeight) {
+            Node victim = heads[PROBATION].next;
+            if (victim == heads[PROBATION]) {
+                victim = heads[PROTECTED].next != heads[PROTECTED] ? heads[PROTECTED].next : heads[WINDOW].next;
+                evict(victim);
+                continue;
+            }
+            if (candidate == null || candidate.queue != PROBATION || candidate == victim) {
+                evict(victim);
+                continue;
+            }
+            // TinyLFU 准入：新进入主区的条目只有在访问频率更高时才能挤掉最久未使用的条目
+            Node loser = sketch.frequency(candidate.key.hashCode()) > sketch.frequency(victim.key.hashCode()) ? victim : candidate;
+            if (loser == candidate) {
+                candidate = candidate.next != heads[PROBATION] ? candidate.next : null;
+            }
+            evict(loser);
+        }
+    }
+
+    private void evict(Node node) {
+        remove(node);
+        evictions++;
+    }
+
+    private void remove(Node node) {
+        data.remove(node.key);
+        unlink(node);
+        release(node.value);
+    }
+
+    /**
+     * 把属性中的值替换为共享实例，并增加引用计数
+     */
+    private List<SkinProperty> intern(List<SkinProperty> properties) {
+        List<SkinProperty> interned = new ArrayList<>(properties.size());
+        for (SkinProperty property : properties) {
+            CompactValue signature = property.getCompactSignature();
+            interned.add(new SkinProperty(property.getName(), intern(property.getCompactValue()),
+                    signature != null ? intern(signature) : null));
+        }
+        return interned;
+    }
+
+    private CompactValue intern(CompactValue value) {
+        Shared shared = values.get(value);
+        if (shared == null) {
+            values.put(value, new Shared(value));
+            return value;
+        }
+        shared.references++;
+        sharedBytes += value.getWeight();
+        return shared.value;
+    }
+
+    /**
+     * 减少属性中共享值的引用计数，不再被引用的值从共享表移除
+     */
+    private void release(List<SkinProperty> properties) {
+        for (SkinProperty property : properties) {
+            release(property.getCompactValue());
+            if (property.getCompactSignature() != null) {
+                release(property.getCompactSignature());
+            }
+        }
+    }
+
+    private void release(CompactValue value) {
+        Shared shared = values.get(value);
+        if (shared == null) {
+            return;
+        }
+        if (--shared.references == 0) {
+            values.remove(value);
+        } else {
+            sharedBytes -= value.getWeight();
+        }
+    }
+
+    private void link(Node node, int queue) {
+        Node head = heads[queue];
+        node.queue = queue;
+        node.prev = head.prev;
+        node.next = head;
+        head.prev.next = node;
+        head.prev = node;
+        weights[queue] += node.weight;
+    }
+
+    private void unlink(Node node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.prev = null;
+        node.next = null;
+        weights[node.queue] -= node.weight;
+    }
+
+    public synchronized int size() {
+        return data.size();
+    }
+
+    public synchronized long getWeight() {
+        return weights[WINDOW] + weights[PROBATION] + weights[PROTECTED];
+    }
+
+    public synchronized long getMaximumWeight() {
+        return maximumWeight;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized long getExpirations() {
+        return expirations;
+    }
+
+    /**
+     * 获取因去重而少占用的字节数
+     *
+     * @return 字节数
+     */
+    public synchronized long getSharedBytes() {
+        return sharedBytes;
+    }
+
+    public synchronized long getRefreshes() {
+        return refreshes;
+    }
+
+    /**
+     * 获取磁盘层统计
+     *
+     * @return 统计快照，磁盘层未启用或尚未加载返回 null
+     */
+    public DiskStats getDiskStats() {
+        SkinDiskCache disk = diskTier;
+        if (disk == null || !disk.isLoaded()) {
+            return null;
+        }
+        return new DiskStats(disk.size(), disk.getFileSize(), disk.getMaxBytes(), disk.getHits(), disk.getMisses(), disk.getWrites(),
+                disk.getCompactions(), disk.getEvictions());
+    }
+
+    /**
+     * 磁盘层统计快照
+     */
+    public static final class DiskStats {
+        private final int entries;
+        private final long fileSize;
+        private final long maxFileSize;
+        private final long hits;
+        private final long misses;
+        private final long writes;
+        private final long compactions;
+        private final long evictions;
+
+        DiskStats(int entries, long fileSize, long maxFileSize, long hits, long misses, long writes, long compactions, long evictions) {
+            this.entries = entries;
+            this.fileSize = fileSize;
+            this.maxFileSize = maxFileSize;
+            this.hits = hits;
+            this.misses = misses;
+            this.writes = writes;
+            this.compactions = compactions;
+            this.evictions = evictions;
+        }
+
+        public int getEntries() {
+            return entries;
+        }
+
+        public long getFileSize() {
+            return fileSize;
+        }
+
+        public long getMaxFileSize() {
+            return maxFileSize;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getWrites() {
+            return writes;
+        }
+
+        public long getCompactions() {
+            return compactions;
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+    }
+
+    /**
+     * 共享值及其引用计数
+     */
+    private static final class Shared {
+        final CompactValue value;
+        int references = 1;
+
+        Shared(CompactValue value) {
+            this.value = value;
+        }
+    }
+
+    /**
+     * 缓存条目（按访问顺序链接在所属分段的双向链表中，链表头是最久未使用的条目）
+     */
+    private static final class Node {
+        String key;
+        List<SkinProperty> value;
+        UUID profileId;
+        int weight;
+        long expiresAt;
+        int queue;
+        Node prev;
+        Node next;
+    }
+
+    /**
+     * 访问频率估计（4 位计数的 Count-Min Sketch）
+     * 计数总和达到采样上限时全部减半，使频率反映近期的访问
+     */
+    private static final class FrequencySketch {
+        private static final long RESET_MASK = 0x7777777777777777L;
+
+        final int capacity;
+        private final long[] table;
+        private final int sampleSize;
+        private int size;
+
+        FrequencySketch(int capacity) {
+            this.capacity = capacity;
+            int length = Integer.highestOneBit(Math.max(16, capacity - 1)) << 1;
+            this.table = new long[length];
+            this.sampleSize = 10 * capacity;
+        }
+
+        void increment(int hash) {
+            int spread = spread(hash);
+            boolean added = false;
+            for (int i = 0; i < 4; i++) {
+                added |= incrementAt(indexOf(spread, i), (spread >>> (i << 3)) & 0xF);
+            }
+            if (added && ++size >= sampleSize) {
+                reset();
+            }
+        }
+
+        int frequency(int hash) {
+            int spread = spread(hash);
+            int frequency = Integer.MAX_VALUE;
+            for (int i = 0; i < 4; i++) {
+                int offset = (spread >>> (i << 3)) & 0xF;
+                int count = (int) ((table[indexOf(spread, i)] >>> (offset << 2)) & 0xFL);
+                frequency = Math.min(frequency, count);
+            }
+            return frequency;
+        }
+
+        private boolean incrementAt(int index, int offset) {
+            int shift = offset << 2;
+            long mask = 0xFL << shift;
+            if ((table[index] & mask) != mask) {
+                table[index] += 1L << shift;
+                return true;
+            }
+            return false;
+        }
+
+        private void reset() {
+            for (int i = 0; i < table.length; i++) {
+                table[i] = (table[i] >>> 1) & RESET_MASK;
+            }
+            size >>>= 1;
+        }
+
+        private int indexOf(int spread, int depth) {
+            long hash = (spread + (long) depth * 0x9E3779B9L) * 0x9E3779B97F4A7C15L;
+            return (int) (hash >>> 32) & (table.length - 1);
+        }
+
+        private static int spread(int hash) {
+            hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+            hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+            return (hash >>> 16) ^ hash;
+        }
+    }
+}
@@ -0,0 +1,877 @@
+package com.Leeinx.ximultilogin.cache;
+
+import org.bukkit.Bukkit;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * 皮肤缓存的磁盘层
+ * 数据追加写入段文件 skins-<代>.dat，每条记录带长度和 CRC32；读取通过按 4MB 分区的内存映射完成，
+ * 文件增长时只重新映射未写满的最后一个分区。
+ * 索引（键 → 偏移、长度、过期时间）保存在内存中，定期和关闭时写入 skins.idx，
+ * 启动时读取索引后只需扫描索引之后追加的记录，崩溃时截断写了一半的尾部记录。
+ * 过期和被覆盖的记录超过一半时，把仍有效的记录复制到下一代段文件（压缩）；
+ * 文件将超过上限时按过期时间从早到晚淘汰，再压缩。
+ * 加载、写入、清理和压缩都在一个后台写入线程上进行，登录线程只做读取；
+ * 锁只保护索引和映射，复制记录等文件操作都在锁外进行。加载完成之前 get 不做任何事，不会阻塞登录。
+ */
+final class SkinDiskCache {
+
+    private static final Logger LOGGER = Bukkit.getLogger();
+    private static final int INDEX_MAGIC = 0x58534B49; // "XSKI"
+    private static final int FORMAT_VERSION = 2;
+    private static final String INDEX_FILE = "skins.idx";
+    private static final String SEGMENT_PREFIX = "skins-";
+    private static final String SEGMENT_SUFFIX = ".dat";
+    private static final int RECORD_HEADER = 8; // 长度 + CRC32
+    private static final int MAX_RECORD_LENGTH = 1024 * 1024;
+    private static final int TOMBSTONE = 0xFF;
+    private static final int FLAG_VALUE_BASE64 = 1;
+    private static final int FLAG_SIGNATURE = 2;
+    private static final int FLAG_SIGNATURE_BASE64 = 4;
+    private static final long COMPACT_MIN_BYTES = 1024 * 1024;
+    private static final int REGION_BYTES = 4 * 1024 * 1024;
+    private static final int MAX_PENDING_WRITES = 4096;
+    private static final long CLOSE_TIMEOUT_SECONDS = 5;
+
+    private final File directory;
+    private final long maxBytes;
+    private final ThreadPoolExecutor writer;
+
+    // 以下字段只由写入线程修改；index、channel、regions、size、liveBytes 和统计的修改与读取都持有 this 锁
+    private final Map<String, Location> index = new HashMap<>();
+    private final List<MappedByteBuffer> regions = new ArrayList<>();
+    private volatile boolean loaded;
+    private boolean closed;
+    private int generation;
+    private FileChannel channel;
+    private long size;
+    private long indexedSize = -1;
+    private long liveBytes;
+
+    private long hits;
+    private long misses;
+    private long writes;
+    private long compactions;
+    private long evictions;
+
+    /**
+     * 构造 SkinDiskCache
+     *
+     * @param directory 磁盘缓存目录
+     * @param maxBytes  段文件的最大字节数
+     */
+    SkinDiskCache(File directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = Math.max(COMPACT_MIN_BYTES, maxBytes);
+        // 磁盘层只是缓存，积压过多时直接丢弃写入
+        this.writer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(MAX_PENDING_WRITES), r -> {
+                    Thread t = new Thread(r, "XiMultiLogin-SkinDiskWriter");
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    /**
+     * 记录在段文件中的位置
+     */
+    private static final class Location {
+        final long offset;
+        final int length; // 包括记录头
+        final long expiresAt;
+
+        Location(long offset, int length, long expiresAt) {
+            this.offset = offset;
+            this.length = length;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * 在写入线程上打开段文件并恢复索引
+     * 失败时磁盘层保持未加载状态，只使用内存缓存
+     */
+    void load() {
+        submit(this::doLoad);
+    }
+
+    /**
+     * 把任务交给写入线程，关闭后或积压过多时丢弃
+     */
+    private void submit(Runnable task) {
+        try {
+            writer.execute(task);
+        } catch (RejectedExecutionException ignored) {
+        }
+    }
+
+    private void doLoad() {
+        if (loaded || closed) {
+            return;
+        }
+        // 加载完成（loaded 写入）之前 get 不会访问索引，这里不需要持有锁
+        long start = System.currentTimeMillis();
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("Cannot create directory " + directory);
+            }
+            long covered = readIndex();
+            if (covered < 0) {
+                // 没有可用的索引，使用最新一代段文件并从头扫描
+                generation = newestGeneration();
+                covered = 0;
+            }
+            deleteOtherSegments();
+            channel = FileChannel.open(segmentFile(generation).toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (covered > channel.size()) {
+                // 索引比段文件新（段文件被截断），丢弃索引
+                index.clear();
+                liveBytes = 0;
+                covered = 0;
+            }
+            size = scan(covered);
+            long now = System.currentTimeMillis();
+            Iterator<Location> iterator = index.values().iterator();
+            while (iterator.hasNext()) {
+                Location location = iterator.next();
+                if (location.expiresAt <= now) {
+                    liveBytes -= location.length;
+                    iterator.remove();
+                }
+            }
+            loaded = true;
+            LOGGER.info("SkinDiskCache: Loaded " + index.size() + " entries (" + size / 1024 + " KB) in "
+                    + (System.currentTimeMillis() - start) + "ms");
+        } catch (IOException e) {
+            LOGGER.warning("SkinDiskCache: Failed to load disk cache, using memory only: " + e.getMessage());
+            closeChannel();
+            index.clear();
+        }
+    }
+
+    /**
+     * 读取索引文件
+     *
+     * @return 索引覆盖的段文件长度，索引不存在或无效返回 -1
+     */
+    private long readIndex() {
+        File file = new File(directory, INDEX_FILE);
+        if (!file.isFile()) {
+            return -1;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != INDEX_MAGIC || in.readInt() != FORMAT_VERSION) {
+                return -1;
+            }
+            int indexGeneration = in.readInt();
+            long covered = in.readLong();
+            int count = in.readInt();
+            Map<String, Location> entries = new HashMap<>(Math.max(16, count * 2));
+            long live = 0;
+            for (int i = 0; i < count; i++) {
+                String key = in.readUTF();
+                Location location = new Location(in.readLong(), in.readInt(), in.readLong());
+                entries.put(key, location);
+                live += location.length;
+            }
+            if (!segmentFile(indexGeneration).isFile()) {
+                return -1;
+            }
+            generation = indexGeneration;
+            index.putAll(entries);
+            liveBytes = live;
+            return covered;
+        } catch (IOException e) {
+            LOGGER.warning("SkinDiskCache: Ignoring unreadable index: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * 从指定偏移扫描段文件，把记录加入索引，截断不完整或校验失败的尾部
+     *
+     * @param from 起始偏移
+     * @return 有效数据的长度
+     */
+    private long scan(long from) throws IOException {
+        long fileSize = channel.size();
+        long offset = from;
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER);
+        while (offset + RECORD_HEADER <= fileSize) {
+            header.clear();
+            readFully(header, offset);
+            header.flip();
+            int length = header.getInt();
+            int crc = header.getInt();
+            if (length <= 0 || length > MAX_RECORD_LENGTH || offset + RECORD_HEADER + length > fileSize) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(payload, offset + RECORD_HEADER);
+            if (crc(payload.array(), length) != crc) {
+                break;
+            }
+            payload.flip();
+            if (payload.get() != FORMAT_VERSION) {
+                // 旧格式或损坏的记录，从这里截断
+                break;
+            }
+            long expiresAt;
+            String key;
+            boolean tombstone;
+            try {
+                expiresAt = payload.getLong();
+                key = readString(payload);
+                readProfileId(payload);
+                tombstone = (payload.get() & 0xFF) == TOMBSTONE;
+            } catch (RuntimeException e) {
+                break;
+            }
+            Location previous = tombstone
+                    ? index.remove(key)
+                    : index.put(key, new Location(offset, RECORD_HEADER + length, expiresAt));
+            if (previous != null) {
+                liveBytes -= previous.length;
+            }
+            if (!tombstone) {
+                liveBytes += RECORD_HEADER + length;
+            }
+            offset += RECORD_HEADER + length;
+        }
+        if (offset < fileSize) {
+            LOGGER.warning("SkinDiskCache: Truncating " + (fileSize - offset) + " bytes of incomplete records");
+            channel.truncate(offset);
+        }
+        return offset;
+    }
+
+    /**
+     * 读取缓存记录
+     *
+     * @param key 缓存键
+     * @param now 当前时间
+     * @return 条目，不存在、已过期或尚未加载返回 null
+     */
+    SkinCache.Entry get(String key, long now) {
+        if (!loaded) {
+            return null;
+        }
+        Location location;
+        ByteBuffer buffer;
+        synchronized (this) {
+            location = index.get(key);
+            if (location == null || location.expiresAt <= now || closed) {
+                misses++;
+                return null;
+            }
+            try {
+                buffer = record(location);
+            } catch (IOException | RuntimeException e) {
+                LOGGER.warning("SkinDiskCache: Failed to read entry " + key + ": " + e.getMessage());
+                discard(key, location);
+                return null;
+            }
+        }
+        // 映射在段文件关闭后仍然有效，解码在锁外进行
+        try {
+            buffer.get();
+            buffer.getLong();
+            readString(buffer);
+            UUID profileId = readProfileId(buffer);
+            int count = buffer.get() & 0xFF;
+            List<SkinProperty> properties = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String name = readString(buffer).intern();
+                int flags = buffer.get();
+                CompactValue value = CompactValue.of(readBytes(buffer), (flags & FLAG_VALUE_BASE64) != 0);
+                CompactValue signature = (flags & FLAG_SIGNATURE) != 0
+                        ? CompactValue.of(readBytes(buffer), (flags & FLAG_SIGNATURE_BASE64) != 0)
+                        : null;
+                properties.add(new SkinProperty(name, value, signature));
+            }
+            synchronized (this) {
+                hits++;
+            }
+            return new SkinCache.Entry(Collections.unmodifiableList(properties), profileId, location.expiresAt);
+        } catch (RuntimeException e) {
+            LOGGER.warning("SkinDiskCache: Failed to read entry " + key + ": " + e.getMessage());
+            synchronized (this) {
+                discard(key, location);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 从索引中移除读取失败的记录（索引仍指向这条记录时）
+     */
+    private void discard(String key, Location location) {
+        if (index.remove(key, location)) {
+            liveBytes -= location.length;
+        }
+        misses++;
+    }
+
+    /**
+     * 获取记录内容（不含记录头）
+     * 记录在一个映射分区之内时直接返回映射的视图，跨分区时从文件读取
+     * 调用时持有 this 锁
+     */
+    private ByteBuffer record(Location location) throws IOException {
+        int region = (int) (location.offset / REGION_BYTES);
+        long regionStart = (long) region * REGION_BYTES;
+        long end = location.offset + location.length;
+        if (end > regionStart + REGION_BYTES) {
+            ByteBuffer buffer = ByteBuffer.allocate(location.length - RECORD_HEADER);
+            readFully(buffer, location.offset + RECORD_HEADER);
+            buffer.flip();
+            return buffer;
+        }
+        while (regions.size() <= region) {
+            regions.add(null);
+        }
+        MappedByteBuffer mapping = regions.get(region);
+        if (mapping == null || regionStart + mapping.capacity() < end) {
+            // 只有未写满的最后一个分区需要重新映射，写满的分区映射一次后不再改变
+            mapping = channel.map(FileChannel.MapMode.READ_ONLY, regionStart, Math.min(REGION_BYTES, size - regionStart));
+            regions.set(region, mapping);
+        }
+        ByteBuffer buffer = mapping.duplicate();
+        buffer.position((int) (location.offset - regionStart) + RECORD_HEADER);
+        buffer.limit((int) (end - regionStart));
+        return buffer;
+    }
+
+    /**
+     * 追加写入缓存记录
+     * 调用线程只负责编码，写入由写入线程完成
+     *
+     * @param key        缓存键
+     * @param profileId  档案 UUID（可为 null）
+     * @param properties 皮肤属性
+     * @param expiresAt  过期时间
+     */
+    void put(String key, UUID profileId, List<SkinProperty> properties, long expiresAt) {
+        if (properties.size() >= TOMBSTONE) {
+            return;
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(FORMAT_VERSION);
+            out.writeLong(expiresAt);
+            writeString(out, key);
+            writeProfileId(out, profileId);
+            out.writeByte(properties.size());
+            for (SkinProperty property : properties) {
+                CompactValue value = property.getCompactValue();
+                CompactValue signature = property.getCompactSignature();
+                int flags = (value.isBase64() ? FLAG_VALUE_BASE64 : 0)
+                        | (signature != null ? FLAG_SIGNATURE : 0)
+                        | (signature != null && signature.isBase64() ? FLAG_SIGNATURE_BASE64 : 0);
+                writeString(out, property.getName());
+                out.writeByte(flags);
+                writeBytes(out, value.getBytes());
+                if (signature != null) {
+                    writeBytes(out, signature.getBytes());
+                }
+            }
+            byte[] payload = bytes.toByteArray();
+            submit(() -> write(key, payload, expiresAt));
+        } catch (IOException e) {
+            LOGGER.warning("SkinDiskCache: Failed to encode entry " + key + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * 在写入线程上追加记录，文件将超过上限时先腾出空间
+     */
+    private void write(String key, byte[] payload, long expiresAt) {
+        if (!loaded) {
+            return;
+        }
+        int length = RECORD_HEADER + payload.length;
+        try {
+            if (size + length > maxBytes && !makeRoom(length)) {
+                return;
+            }
+            long offset = append(payload);
+            synchronized (this) {
+                size = offset + length;
+                Location previous = index.put(key, new Location(offset, length, expiresAt));
+                if (previous != null) {
+                    liveBytes -= previous.length;
+                }
+                liveBytes += length;
+                writes++;
+            }
+        } catch (IOException e) {
+            LOGGER.warning("SkinDiskCache: Failed to write entry " + key + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * 腾出空间：清除过期记录，仍然不够时按过期时间从早到晚淘汰，留出四分之一的余量，然后压缩
+     *
+     * @param length 要写入的记录长度
+     * @return 压缩后能否写入
+     */
+    private boolean makeRoom(int length) throws IOException {
+        long target = maxBytes * 3 / 4;
+        if (length > target) {
+            return false;
+        }
+        List<Map.Entry<String, Location>> entries;
+        synchronized (this) {
+            removeExpired(System.currentTimeMillis());
+            entries = liveBytes + length > target ? new ArrayList<>(index.entrySet()) : Collections.emptyList();
+        }
+        if (!entries.isEmpty()) {
+            // 排序在锁外进行
+            entries.sort(Comparator.comparingLong(entry -> entry.getValue().expiresAt));
+            synchronized (this) {
+                for (Map.Entry<String, Location> entry : entries) {
+                    if (liveBytes + length <= target) {
+                        break;
+                    }
+                    if (index.remove(entry.getKey(), entry.getValue())) {
+                        liveBytes -= entry.getValue().length;
+                        evictions++;
+                    }
+                }
+            }
+        }
+        compact();
+        return size + length <= maxBytes;
+    }
+
+    /**
+     * 移除缓存记录（写入删除标记，重启后也不会恢复）
+     * 删除标记总是交给写入线程：排在前面的写入或加载可能还没有更新索引
+     *
+     * @param key 缓存键
+     */
+    void remove(String key) {
+        boolean indexed = false;
+        if (loaded) {
+            synchronized (this) {
+                Location previous = index.remove(key);
+                if (previous != null) {
+                    liveBytes -= previous.length;
+                    indexed = true;
+                }
+            }
+        }
+        boolean removed = indexed;
+        submit(() -> writeTombstone(key, removed));
+    }
+
+    /**
+     * 在写入线程上追加删除标记
+     * 再次从索引中移除，排在删除之前的写入此时可能已经把条目加回索引；
+     * 两次都不在索引中时磁盘上没有这个键的有效记录，不写删除标记
+     *
+     * @param key     缓存键
+     * @param indexed 调用 remove 时是否已从索引中移除
+     */
+    private void writeTombstone(String key, boolean indexed) {
+        if (!loaded) {
+            return;
+        }
+        synchronized (this) {
+            Location previous = index.remove(key);
+            if (previous != null) {
+                liveBytes -= previous.length;
+            } else if (!indexed) {
+                return;
+            }
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(FORMAT_VERSION);
+            out.writeLong(0);
+            writeString(out, key);
+            writeProfileId(out, null);
+            out.writeByte(TOMBSTONE);
+            byte[] payload = bytes.toByteArray();
+            if (size + RECORD_HEADER + payload.length > maxBytes) {
+                // 文件已满时直接压缩，被删除的记录不会复制到新文件
+                compact();
+                return;
+            }
+            long offset = append(payload);
+            synchronized (this) {
+                size = offset + RECORD_HEADER + payload.length;
+            }
+        } catch (IOException e) {
+            LOGGER.warning("SkinDiskCache: Failed to remove entry " + key + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * 在段文件末尾追加一条记录（写入线程）
+     * 写入完成后调用方再在锁内更新 size 和索引，读取方不会看到未写完的记录
+     *
+     * @return 记录的偏移
+     */
+    private long append(byte[] payload) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER + payload.length);
+        record.putInt(payload.length).putInt(crc(payload, payload.length)).put(payload);
+        record.flip();
+        long offset = size;
+        long position = offset;
+        while (record.hasRemaining()) {
+            position += channel.write(record, position);
+        }
+        return offset;
+    }
+
+    /**
+     * 清除过期记录，保存索引，需要时压缩段文件
+     * 由定时任务周期性调用，实际工作在写入线程上进行
+     *
+     * @param now 当前时间
+     */
+    void cleanUp(long now) {
+        submit(() -> maintain(now));
+    }
+
+    private void maintain(long now) {
+        if (!loaded) {
+            return;
+        }
+        boolean shouldCompact;
+        synchronized (this) {
+            removeExpired(now);
+            shouldCompact = size >= COMPACT_MIN_BYTES && liveBytes < size / 2;
+        }
+        try {
+            if (shouldCompact) {
+                compact();
+            } else if (size != indexedSize) {
+                writeIndex();
+            }
+        } catch (IOException e) {
+            LOGGER.warning("SkinDiskCache: Maintenance failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 从索引中移除过期记录，调用时持有 this 锁
+     */
+    private void removeExpired(long now) {
+        Iterator<Location> iterator = index.values().iterator();
+        while (iterator.hasNext()) {
+            Location location = iterator.next();
+            if (location.expiresAt <= now) {
+                liveBytes -= location.length;
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * 把有效记录复制到下一代段文件，然后删除旧段文件（写入线程）
+     * 复制在锁外进行，期间读取继续使用旧段文件；最后在锁内切换到新段文件
+     */
+    private void compact() throws IOException {
+        long start = System.currentTimeMillis();
+        long before = size;
+        int nextGeneration = generation + 1;
+        File nextFile = segmentFile(nextGeneration);
+        Map<String, Location> live;
+        synchronized (this) {
+            live = new HashMap<>(index);
+        }
+        Map<String, Location> nextIndex = new HashMap<>(Math.max(16, live.size() * 2));
+        FileChannel next = FileChannel.open(nextFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long position = 0;
+        try {
+            for (Map.Entry<String, Location> entry : live.entrySet()) {
+                Location location = entry.getValue();
+                ByteBuffer record = ByteBuffer.allocate(location.length);
+                readFully(record, location.offset);
+                record.flip();
+                nextIndex.put(entry.getKey(), new Location(position, location.length, location.expiresAt));
+                while (record.hasRemaining()) {
+                    position += next.write(record, position);
+                }
+            }
+            next.force(true);
+        } catch (IOException e) {
+            next.close();
+            Files.deleteIfExists(nextFile.toPath());
+            throw e;
+        }
+
+        File previousFile = segmentFile(generation);
+        FileChannel previous;
+        synchronized (this) {
+            previous = channel;
+            channel = next;
+            regions.clear();
+            generation = nextGeneration;
+            // 复制期间被删除或读取失败的记录不再放回索引
+            nextIndex.keySet().retainAll(index.keySet());
+            index.clear();
+            index.putAll(nextIndex);
+            size = position;
+            liveBytes = 0;
+            for (Location location : nextIndex.values()) {
+                liveBytes += location.length;
+            }
+            compactions++;
+        }
+        try {
+            previous.close();
+        } catch (IOException ignored) {
+        }
+        writeIndex();
+        if (!previousFile.delete()) {
+            // 旧映射尚未释放时部分平台无法删除，下次加载时清理
+            previousFile.deleteOnExit();
+        }
+        LOGGER.info("SkinDiskCache: Compacted " + before / 1024 + " KB to " + size / 1024 + " KB in "
+                + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    /**
+     * 原子地写入索引文件（写入线程，在锁外写入索引的快照）
+     */
+    private void writeIndex() throws IOException {
+        Map<String, Location> snapshot;
+        long covered;
+        synchronized (this) {
+            snapshot = new HashMap<>(index);
+            covered = size;
+        }
+        File temp = new File(directory, INDEX_FILE + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(generation);
+            out.writeLong(covered);
+            out.writeInt(snapshot.size());
+            for (Map.Entry<String, Location> entry : snapshot.entrySet()) {
+                Location location = entry.getValue();
+                out.writeUTF(entry.getKey());
+                out.writeLong(location.offset);
+                out.writeInt(location.length);
+                out.writeLong(location.expiresAt);
+            }
+        }
+        File target = new File(directory, INDEX_FILE);
+        try {
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        indexedSize = covered;
+    }
+
+    /**
+     * 等待写入线程写完已排队的记录，保存索引并关闭段文件
+     * 写入线程在时限内没有结束时不保存索引，下次加载时从上一次的索引重新扫描
+     */
+    void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        writer.shutdown();
+        boolean drained;
+        try {
+            drained = writer.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            drained = false;
+        }
+        if (!drained) {
+            writer.shutdownNow();
+            LOGGER.warning("SkinDiskCache: Writer did not finish in time, index not saved");
+        }
+        if (loaded) {
+            loaded = false;
+            if (drained) {
+                try {
+                    writeIndex();
+                } catch (IOException e) {
+                    LOGGER.warning("SkinDiskCache: Failed to save index: " + e.getMessage());
+                }
+            }
+        }
+        synchronized (this) {
+            closeChannel();
+        }
+    }
+
+    private void closeChannel() {
+        regions.clear();
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+            channel = null;
+        }
+    }
+
+    private File segmentFile(int segmentGeneration) {
+        return new File(directory, SEGMENT_PREFIX + segmentGeneration + SEGMENT_SUFFIX);
+    }
+
+    private int newestGeneration() {
+        int newest = 0;
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                int fileGeneration = parseGeneration(file.getName());
+                newest = Math.max(newest, fileGeneration);
+            }
+        }
+        return newest;
+    }
+
+    private void deleteOtherSegments() {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            int fileGeneration = parseGeneration(file.getName());
+            if (fileGeneration >= 0 && fileGeneration != generation && !file.delete()) {
+                LOGGER.warning("SkinDiskCache: Failed to delete stale segment " + file.getName());
+            }
+        }
+    }
+
+    private static int parseGeneration(String fileName) {
+        if (!fileName.startsWith(SEGMENT_PREFIX) || !fileName.endsWith(SEGMENT_SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(fileName.substring(SEGMENT_PREFIX.length(), fileName.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of segment");
+            }
+            position += read;
+        }
+    }
+
+    private static int crc(byte[] bytes, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, length);
+        return (int) crc.getValue();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        writeBytes(out, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeProfileId(DataOutputStream out, UUID profileId) throws IOException {
+        out.writeBoolean(profileId != null);
+        if (profileId != null) {
+            out.writeLong(profileId.getMostSignificantBits());
+            out.writeLong(profileId.getLeastSignificantBits());
+        }
+    }
+
+    private static UUID readProfileId(ByteBuffer buffer) {
+        return buffer.get() != 0 ? new UUID(buffer.getLong(), buffer.getLong()) : null;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        return new String(readBytes(buffer), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    boolean isLoaded() {
+        return loaded;
+    }
+
+    synchronized int size() {
+        return index.size();
+    }
+
+    synchronized long getFileSize() {
+        return size;
+    }
+
+    synchronized long getHits() {
+        return hits;
+    }
+
+    synchronized long getMisses() {
+        return misses;
+    }
+
+    synchronized long getWrites() {
+        return writes;
+    }
+
+    synchronized long getCompactions() {
+        return compactions;
+    }
+
+    synchronized long getEvictions() {
+        return evictions;
+    }
+
+    long getMaxBytes() {
+        return maxBytes;
+    }
+}
@@ -0,0 +1,53 @@
+package com.Leeinx.ximultilogin.cache;
+
+/**
+ * 皮肤属性
+ * 认证服务器返回的一个 GameProfile 属性（通常是 textures），不可变。
+ * 值和签名以紧凑字节保存，getValue() 和 getSignature() 每次调用时还原，
+ * 只应在创建 authlib Property 时使用。
+ */
+public final class SkinProperty {
+
+    private final String name;
+    private final CompactValue value;
+    private final CompactValue signature;
+
+    public SkinProperty(String name, String value, String signature) {
+        this(name.intern(), CompactValue.of(value), signature != null ? CompactValue.of(signature) : null);
+    }
+
+    SkinProperty(String name, CompactValue value, CompactValue signature) {
+        this.name = name;
+        this.value = value;
+        this.signature = signature;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getValue() {
+        return value.asString();
+    }
+
+    public String getSignature() {
+        return signature != null ? signature.asString() : null;
+    }
+
+    CompactValue getCompactValue() {
+        return value;
+    }
+
+    CompactValue getCompactSignature() {
+        return signature;
+    }
+
+    /**
+     * 估算占用的字节数，用于缓存权重
+     *
+     * @return 字节数
+     */
+    public int getWeight() {
+        return 16 + value.getWeight() + (signature != null ? signature.getWeight() : 0);
+    }
+}
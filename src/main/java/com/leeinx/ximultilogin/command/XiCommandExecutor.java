@@ -1,9 +1,20 @@
 package com.Leeinx.ximultilogin.command;
 
 import com.Leeinx.ximultilogin.XiMultiLogin;
+import com.Leeinx.ximultilogin.auth.AuthProvider;
+import com.Leeinx.ximultilogin.auth.XiSessionService;
+import com.Leeinx.ximultilogin.auth.providers.ProviderLimiter;
+import com.Leeinx.ximultilogin.auth.providers.YggdrasilAuthProvider;
+import com.Leeinx.ximultilogin.auth.providers.YggdrasilEndpoint;
+import com.Leeinx.ximultilogin.cache.SkinCache;
 import com.Leeinx.ximultilogin.config.ConfigManager;
+import com.Leeinx.ximultilogin.config.ConfigWatcher;
 import com.Leeinx.ximultilogin.config.MessageManager;
+import com.Leeinx.ximultilogin.guard.FloodGuard;
 import com.Leeinx.ximultilogin.guard.IdentityGuard;
+import com.Leeinx.ximultilogin.http.HostConnectionPool;
+import com.Leeinx.ximultilogin.http.HttpClients;
+import com.Leeinx.ximultilogin.injector.InjectionWatchdog;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.command.Command;
@@ -13,6 +24,7 @@ import org.bukkit.entity.Player;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Logger;
 
 /**
@@ -64,6 +76,8 @@ public class XiCommandExecutor implements CommandExecutor {
                 return handleInfo(sender);
             case "allowcracked":
                 return handleAllowCracked(sender, args);
+            case "migrate":
+                return handleMigrate(sender, args);
             default:
                 sendHelpMessage(sender);
                 return true;
@@ -84,6 +98,11 @@ public class XiCommandExecutor implements CommandExecutor {
             return true;
         }
 
+        // 按名称模式批量设置
+        if (args.length >= 2 && args[1].equalsIgnoreCase("--pattern")) {
+            return handleSetAuthPattern(sender, args);
+        }
+
         // 检查参数
         if (args.length < 3) {
             sender.sendMessage(messageManager.getMessage("error.invalid_args"));
@@ -126,6 +145,144 @@ public class XiCommandExecutor implements CommandExecutor {
         return true;
     }
 
+    /**
+     * 处理按名称模式批量设置认证方式的命令
+     * 用法: setauth --pattern <通配符> <认证类型> [--dry-run]
+     *
+     * @param sender 命令发送者
+     * @param args   命令参数
+     * @return 命令执行是否成功
+     */
+    private boolean handleSetAuthPattern(CommandSender sender, String[] args) {
+        if (args.length < 4) {
+            sender.sendMessage(messageManager.getMessage("error.invalid_args"));
+            return true;
+        }
+
+        String pattern = args[2];
+        String authType = args[3];
+        if (!isValidAuthType(authType)) {
+            sender.sendMessage(messageManager.getMessage("error.invalid_args"));
+            return true;
+        }
+
+        runBatchMigration(sender, null, pattern, authType, hasDryRunFlag(args, 4));
+        return true;
+    }
+
+    /**
+     * 处理批量迁移认证方式的命令
+     * 用法: migrate <原认证类型> <新认证类型> [--dry-run]
+     *
+     * @param sender 命令发送者
+     * @param args   命令参数
+     * @return 命令执行是否成功
+     */
+    private boolean handleMigrate(CommandSender sender, String[] args) {
+        // 检查权限
+        if (!sender.hasPermission("ximultilogin.migrate")) {
+            sender.sendMessage(messageManager.getMessage("error.no_permission"));
+            return true;
+        }
+
+        // 检查参数
+        if (args.length < 3) {
+            sender.sendMessage(messageManager.getMessage("error.invalid_args"));
+            return true;
+        }
+
+        // 原认证类型可能已从配置中移除，只校验目标类型
+        String fromProvider = args[1];
+        String toProvider = args[2];
+        if (!isValidAuthType(toProvider) || fromProvider.equals(toProvider)) {
+            sender.sendMessage(messageManager.getMessage("error.invalid_args"));
+            return true;
+        }
+
+        runBatchMigration(sender, fromProvider, null, toProvider, hasDryRunFlag(args, 3));
+        return true;
+    }
+
+    /**
+     * 在数据库线程上执行批量迁移，并将进度回报给命令发送者
+     *
+     * @param sender       命令发送者
+     * @param fromProvider 原认证类型，为 null 时不限制
+     * @param pattern      玩家名称通配符，为 null 时不限制
+     * @param toProvider   新认证类型
+     * @param dryRun       是否只统计不修改
+     */
+    private void runBatchMigration(CommandSender sender, String fromProvider, String pattern, String toProvider, boolean dryRun) {
+        String scope = fromProvider != null ? fromProvider : pattern;
+        identityGuard.countMigrationAsync(fromProvider, pattern, toProvider).thenCompose(count -> {
+            if (count < 0) {
+                sendSync(sender, messageManager.getMessage("error.database", "reason", "统计失败"));
+                return CompletableFuture.completedFuture(null);
+            }
+            if (dryRun || count == 0) {
+                sendSync(sender, messageManager.getMessage("command.migrate_dry_run", "scope", scope, "auth", toProvider, "count", count));
+                return CompletableFuture.completedFuture(null);
+            }
+
+            sendSync(sender, messageManager.getMessage("command.migrate_started", "scope", scope, "auth", toProvider, "count", count));
+            int[] lastReported = {0};
+            return identityGuard.migrateAuthProviderAsync(fromProvider, pattern, toProvider, (updated, scanned, idSpan) -> {
+                // 每推进 10% 回报一次，避免刷屏
+                int percent = (int) (scanned * 100 / Math.max(1, idSpan));
+                if (percent / 10 > lastReported[0] / 10 && percent < 100) {
+                    lastReported[0] = percent;
+                    sendSync(sender, messageManager.getMessage("command.migrate_progress", "percent", percent, "updated", updated, "count", count));
+                }
+            }).thenAccept(result -> {
+                if (result.isComplete()) {
+                    sendSync(sender, messageManager.getMessage("command.migrate_done", "scope", scope, "auth", toProvider, "updated", result.getUpdated()));
+                    LOGGER.info("XiMultiLogin: Admin " + sender.getName() + " migrated " + result.getUpdated() + " players (" + scope + ") to " + toProvider);
+                } else if (result.hasFailedRange()) {
+                    // 之前的区间已经提交，告知实际更新的数量和失败的位置，重新执行命令即可继续
+                    sendSync(sender, messageManager.getMessage("command.migrate_partial", "scope", scope, "auth", toProvider,
+                            "updated", result.getUpdated(), "from", result.getFailedStartId(), "to", result.getFailedEndId()));
+                    LOGGER.warning("XiMultiLogin: Batch migration (" + scope + ") to " + toProvider + " by " + sender.getName()
+                            + " stopped at ids " + result.getFailedStartId() + "-" + result.getFailedEndId()
+                            + ", " + result.getUpdated() + " players migrated");
+                } else {
+                    sendSync(sender, messageManager.getMessage("error.database", "reason", "批量迁移失败"));
+                }
+            });
+        }).exceptionally(ex -> {
+            // 进度回调或消息发送抛出的异常也要告知命令发送者，否则迁移会无声无息地中断
+            Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+            LOGGER.severe("XiMultiLogin: Batch migration (" + scope + ") to " + toProvider + " failed: " + cause);
+            sendSync(sender, messageManager.getMessage("error.database", "reason", "批量迁移失败: " + cause.getMessage()));
+            return null;
+        });
+    }
+
+    /**
+     * 在主线程向命令发送者发送消息
+     *
+     * @param sender  命令发送者
+     * @param message 消息
+     */
+    private void sendSync(CommandSender sender, String message) {
+        Bukkit.getScheduler().runTask(plugin, () -> sender.sendMessage(message));
+    }
+
+    /**
+     * 检查参数中是否包含 --dry-run
+     *
+     * @param args  命令参数
+     * @param start 开始检查的位置
+     * @return 是否为 dry-run
+     */
+    private boolean hasDryRunFlag(String[] args, int start) {
+        for (int i = start; i < args.length; i++) {
+            if (args[i].equalsIgnoreCase("--dry-run")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * 处理获取玩家认证方式的命令
      *
@@ -175,9 +332,27 @@ public class XiCommandExecutor implements CommandExecutor {
         // 重新加载配置
         configManager.loadConfig();
         messageManager.reloadMessages();
+        // 配置文件监视以重载后的配置为基准比较之后的修改
+        ConfigWatcher configWatcher = plugin.getConfigWatcher();
+        if (configWatcher != null) {
+            configWatcher.resync();
+        }
         sender.sendMessage(messageManager.getMessage("command.reloaded"));
         LOGGER.info("XiMultiLogin: Config reloaded by " + sender.getName());
 
+        // 热重载验证链
+        XiSessionService sessionService = plugin.getXiSessionService();
+        if (sessionService != null) {
+            sessionService.reloadPipeline().whenComplete((pipeline, ex) -> {
+                if (ex != null) {
+                    LOGGER.severe("XiMultiLogin: Failed to reload pipeline: " + ex.getMessage());
+                    sendSync(sender, messageManager.getMessage("error.config_error", "reason", "验证链重载失败"));
+                } else {
+                    sendSync(sender, messageManager.getMessage("command.pipeline_reloaded", "count", pipeline.getProviders().size()));
+                }
+            });
+        }
+
         return true;
     }
 
@@ -193,6 +368,81 @@ public class XiCommandExecutor implements CommandExecutor {
         sender.sendMessage(messageManager.getMessage("other.info.author"));
         sender.sendMessage(messageManager.getMessage("other.info.description"));
         sender.sendMessage(messageManager.getMessage("other.info.command"));
+        InjectionWatchdog watchdog = plugin.getInjectionWatchdog();
+        if (watchdog != null) {
+            sender.sendMessage(messageManager.getMessage("other.info.injection",
+                    "checks", watchdog.getChecks(),
+                    "drifts", watchdog.getDrifts(),
+                    "reinjections", watchdog.getReinjections(),
+                    "failed", watchdog.getFailedReinjections()));
+        }
+        FloodGuard floodGuard = plugin.getFloodGuard();
+        if (floodGuard != null) {
+            sender.sendMessage(messageManager.getMessage("other.info.flood", "rejected", floodGuard.getRejected()));
+        }
+        for (HostConnectionPool pool : HttpClients.getPools()) {
+            sender.sendMessage(messageManager.getMessage("other.info.http",
+                    "origin", pool.getOrigin(),
+                    "requests", pool.getRequests(),
+                    "opened", pool.getOpened(),
+                    "reused", pool.getReused(),
+                    "resumed", pool.getTlsResumed(),
+                    "leased", pool.getLeased(),
+                    "idle", pool.getIdle(),
+                    "max", pool.getMaxConnections(),
+                    "failures", pool.getFailures()));
+        }
+        XiSessionService sessionService = plugin.getXiSessionService();
+        if (sessionService != null) {
+            for (AuthProvider provider : sessionService.getProviders()) {
+                if (!(provider instanceof YggdrasilAuthProvider)) {
+                    continue;
+                }
+                for (YggdrasilEndpoint endpoint : ((YggdrasilAuthProvider) provider).getEndpoints()) {
+                    sender.sendMessage(messageManager.getMessage("other.info.endpoint",
+                            "provider", provider.getName(),
+                            "url", endpoint.getApiUrl(),
+                            "latency", endpoint.getLatencyMillis(),
+                            "errors", Math.round(endpoint.getErrorRate() * 100),
+                            "inflight", endpoint.getInFlight(),
+                            "requests", endpoint.getRequests(),
+                            "failures", endpoint.getFailures()));
+                }
+                ProviderLimiter limiter = ((YggdrasilAuthProvider) provider).getLimiter();
+                sender.sendMessage(messageManager.getMessage("other.info.limiter",
+                        "provider", provider.getName(),
+                        "inflight", limiter.getInFlight(),
+                        "limit", limiter.getLimit(),
+                        "max", limiter.getMaxLimit(),
+                        "queued", limiter.getQueued(),
+                        "rejected", limiter.getRejected(),
+                        "throttled", limiter.getThrottled(),
+                        "backoff", (limiter.getBackoffRemainingMillis() + 999) / 1000));
+            }
+            SkinCache skinCache = sessionService.getSkinCache();
+            sender.sendMessage(messageManager.getMessage("other.info.skin_cache",
+                    "entries", skinCache.size(),
+                    "weight", skinCache.getWeight() / 1024,
+                    "max", skinCache.getMaximumWeight() / 1024,
+                    "hits", skinCache.getHits(),
+                    "misses", skinCache.getMisses(),
+                    "evictions", skinCache.getEvictions(),
+                    "expirations", skinCache.getExpirations(),
+                    "shared", skinCache.getSharedBytes() / 1024,
+                    "refreshes", skinCache.getRefreshes()));
+            SkinCache.DiskStats disk = skinCache.getDiskStats();
+            if (disk != null) {
+                sender.sendMessage(messageManager.getMessage("other.info.skin_disk",
+                        "entries", disk.getEntries(),
+                        "size", disk.getFileSize() / 1024,
+                        "max", disk.getMaxFileSize() / 1024,
+                        "hits", disk.getHits(),
+                        "misses", disk.getMisses(),
+                        "writes", disk.getWrites(),
+                        "compactions", disk.getCompactions(),
+                        "evictions", disk.getEvictions()));
+            }
+        }
         sender.sendMessage(messageManager.getMessage("other.info.footer"));
         return true;
     }
@@ -250,7 +500,9 @@ public class XiCommandExecutor implements CommandExecutor {
     private void sendHelpMessage(CommandSender sender) {
         sender.sendMessage(messageManager.getMessage("other.help_menu.title"));
         sender.sendMessage(messageManager.getMessage("other.help_menu.setauth"));
+        sender.sendMessage(messageManager.getMessage("other.help_menu.setauth_pattern"));
         sender.sendMessage(messageManager.getMessage("other.help_menu.getauth"));
+        sender.sendMessage(messageManager.getMessage("other.help_menu.migrate"));
         sender.sendMessage(messageManager.getMessage("other.help_menu.allowcracked"));
         sender.sendMessage(messageManager.getMessage("other.help_menu.allowcracked_status"));
         sender.sendMessage(messageManager.getMessage("other.help_menu.reload"));
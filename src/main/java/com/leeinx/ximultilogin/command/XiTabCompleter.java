@@ -2,6 +2,7 @@ package com.Leeinx.ximultilogin.command;
 
 import com.Leeinx.ximultilogin.XiMultiLogin;
 import com.Leeinx.ximultilogin.config.ConfigManager;
+import com.Leeinx.ximultilogin.guard.IdentityGuard;
 import org.bukkit.Bukkit;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
@@ -11,6 +12,8 @@ import org.bukkit.plugin.java.JavaPlugin;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * XiMultiLogin 标签补全器
@@ -18,7 +21,9 @@ import java.util.List;
  */
 public class XiTabCompleter implements TabCompleter {
 
+    private static final int MAX_NAME_COMPLETIONS = 50;
     private final ConfigManager configManager;
+    private final IdentityGuard identityGuard;
 
     /**
      * 构造 XiTabCompleter
@@ -27,6 +32,7 @@ public class XiTabCompleter implements TabCompleter {
      */
     public XiTabCompleter(XiMultiLogin plugin) {
         this.configManager = plugin.getConfigManager();
+        this.identityGuard = plugin.getIdentityGuard();
     }
 
     @Override
@@ -46,6 +52,7 @@ public class XiTabCompleter implements TabCompleter {
             subCommands.add("reload");
             subCommands.add("info");
             subCommands.add("allowcracked");
+            subCommands.add("migrate");
 
             for (String subCommand : subCommands) {
                 if (subCommand.toLowerCase().startsWith(args[0].toLowerCase())) {
@@ -56,11 +63,32 @@ public class XiTabCompleter implements TabCompleter {
             // 补全玩家名或布尔值
             String subCommand = args[0].toLowerCase();
             if (subCommand.equals("setauth") || subCommand.equals("getauth")) {
+                if (subCommand.equals("setauth") && "--pattern".startsWith(args[1].toLowerCase())) {
+                    completions.add("--pattern");
+                }
+                // 在线玩家优先，再补充索引中的离线玩家；名称忽略大小写去重，保留先出现的写法
+                Set<String> seen = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+                List<String> names = new ArrayList<>();
                 for (Player player : Bukkit.getOnlinePlayers()) {
-                    if (player.getName().toLowerCase().startsWith(args[1].toLowerCase())) {
-                        completions.add(player.getName());
+                    if (names.size() >= MAX_NAME_COMPLETIONS) {
+                        break;
+                    }
+                    if (player.getName().toLowerCase().startsWith(args[1].toLowerCase()) && seen.add(player.getName())) {
+                        names.add(player.getName());
                     }
                 }
+                if (names.size() < MAX_NAME_COMPLETIONS) {
+                    // 按完整上限查询再过滤，与在线玩家重复的名称不占名额
+                    for (String name : identityGuard.completeNames(args[1], MAX_NAME_COMPLETIONS)) {
+                        if (names.size() >= MAX_NAME_COMPLETIONS) {
+                            break;
+                        }
+                        if (seen.add(name)) {
+                            names.add(name);
+                        }
+                    }
+                }
+                completions.addAll(names);
             } else if (subCommand.equals("allowcracked")) {
                 // 补全布尔值
                 List<String> booleanValues = new ArrayList<>();
@@ -76,7 +104,8 @@ public class XiTabCompleter implements TabCompleter {
         } else if (args.length == 3) {
             // 补全认证类型
             String subCommand = args[0].toLowerCase();
-            if (subCommand.equals("setauth")) {
+            boolean patternMode = args[1].equalsIgnoreCase("--pattern");
+            if ((subCommand.equals("setauth") && !patternMode) || subCommand.equals("migrate")) {
                 List<String> authTypes = new ArrayList<>();
                 // 添加MOJANG
                 authTypes.add("MOJANG");
@@ -94,6 +123,24 @@ public class XiTabCompleter implements TabCompleter {
                     }
                 }
             }
+        } else if (args.length == 4) {
+            // 补全 --pattern 模式下的认证类型
+            String subCommand = args[0].toLowerCase();
+            if (subCommand.equals("setauth") && args[1].equalsIgnoreCase("--pattern")) {
+                List<String> authTypes = new ArrayList<>();
+                authTypes.add("MOJANG");
+                for (ConfigManager.ProviderConfig provider : configManager.getPipelineConfig()) {
+                    if (provider.getType().equalsIgnoreCase("YGGDRASIL")) {
+                        authTypes.add(provider.getName());
+                    }
+                }
+
+                for (String authType : authTypes) {
+                    if (authType.toLowerCase().startsWith(args[3].toLowerCase())) {
+                        completions.add(authType);
+                    }
+                }
+            }
         }
 
         return completions;
@@ -2,12 +2,15 @@ package com.Leeinx.ximultilogin.config;
 
 import org.bukkit.Bukkit;
 import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Logger;
@@ -21,7 +24,7 @@ import java.util.logging.Logger;
         private static final Logger LOGGER = Bukkit.getLogger();
         private final JavaPlugin plugin;
         private File configFile;
-        private FileConfiguration config;
+        private volatile FileConfiguration config;
         private boolean debugMode;
         
         /**
@@ -116,12 +119,30 @@ import java.util.logging.Logger;
      * @return 验证提供者配置列表
      */
     public List<ProviderConfig> getPipelineConfig() {
+        try {
+            return readPipelineConfig(config, false);
+        } catch (InvalidConfigurationException e) {
+            // 非严格模式不会抛出
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 从配置根节点读取验证链配置
+     * 严格模式下无法解析的提供者或越界的数值使整个配置被拒绝，否则跳过或截断并记录日志
+     * 
+     * @param root   配置根节点
+     * @param strict 是否严格校验
+     * @return 验证提供者配置列表
+     * @throws InvalidConfigurationException 严格模式下配置无效
+     */
+    private List<ProviderConfig> readPipelineConfig(ConfigurationSection root, boolean strict) throws InvalidConfigurationException {
         List<ProviderConfig> providers = new ArrayList<>();
         
         info("Loading pipeline configuration...");
         
         // 1. 尝试将 pipeline 作为列表读取（优先）
-        List<?> pipelineList = config.getList("pipeline");
+        List<?> pipelineList = root.getList("pipeline");
         debug("Pipeline list: " + (pipelineList != null ? pipelineList.size() + " items" : "null"));
         if (pipelineList != null && !pipelineList.isEmpty()) {
             info("Loading pipeline as list format");
@@ -146,18 +167,25 @@ import java.util.logging.Logger;
                 if (providerSection != null) {
                     ProviderConfig providerConfig = parseProviderConfig(providerSection);
                     if (providerConfig != null) {
+                        if (strict) {
+                            checkProvider(providerSection, providerConfig);
+                        }
                         providers.add(providerConfig);
                         debug("Successfully added provider: " + providerConfig.getName());
+                    } else if (strict) {
+                        throw new InvalidConfigurationException("Cannot parse pipeline entry: " + item);
                     } else {
                         warning("Failed to parse provider config");
                     }
+                } else if (strict) {
+                    throw new InvalidConfigurationException("Pipeline entry is not a section: " + item);
                 } else {
                     warning("Item is not a ConfigurationSection or Map: " + item.getClass().getName());
                 }
             }
         } else {
             // 2. 尝试将 pipeline 作为映射读取（向后兼容）
-            ConfigurationSection pipelineSection = config.getConfigurationSection("pipeline");
+            ConfigurationSection pipelineSection = root.getConfigurationSection("pipeline");
             debug("Pipeline section: " + (pipelineSection != null ? "found" : "null"));
             if (pipelineSection != null) {
                 info("Loading pipeline as map format");
@@ -167,11 +195,18 @@ import java.util.logging.Logger;
                     if (providerSection != null) {
                         ProviderConfig providerConfig = parseProviderConfig(providerSection);
                         if (providerConfig != null) {
+                            if (strict) {
+                                checkProvider(providerSection, providerConfig);
+                            }
                             providers.add(providerConfig);
                             debug("Successfully added provider: " + providerConfig.getName());
+                        } else if (strict) {
+                            throw new InvalidConfigurationException("Cannot parse pipeline entry: " + key);
                         } else {
                             warning("Failed to parse provider config for key: " + key);
                         }
+                    } else if (strict) {
+                        throw new InvalidConfigurationException("Pipeline entry is not a section: " + key);
                     } else {
                         warning("Provider section is null for key: " + key);
                     }
@@ -192,7 +227,7 @@ import java.util.logging.Logger;
         for (ProviderConfig config : providers) {
             info("  - " + config.getName() + " (" + config.getType() + "): " + (config.isEnabled() ? "enabled" : "disabled"));
             if ("YGGDRASIL".equalsIgnoreCase(config.getType())) {
-                debug("    API URL: " + config.getApiUrl());
+                debug("    API URL: " + String.join(", ", config.getApiUrls()));
             }
         }
         
@@ -213,12 +248,24 @@ import java.util.logging.Logger;
             ProviderConfig providerConfig = new ProviderConfig();
             providerConfig.setType(section.getString("type", "MOJANG"));
             providerConfig.setEnabled(section.getBoolean("enabled", true));
+            providerConfig.setMaxConcurrency(section.getInt("max_concurrency", 0));
             
             debug("Provider type: " + providerConfig.getType() + ", enabled: " + providerConfig.isEnabled());
             
             if ("YGGDRASIL".equalsIgnoreCase(providerConfig.getType())) {
                 // 处理 YGGDRASIL 类型的配置
                 providerConfig.setName(section.getString("name", "Yggdrasil"));
+                // api 可以是地址列表，多个地址互为镜像
+                if (section.isList("api")) {
+                    List<String> apiUrls = new ArrayList<>();
+                    for (String url : section.getStringList("api")) {
+                        apiUrls.add(url.trim().replaceAll("[`\"']", ""));
+                    }
+                    debug("API URLs from 'api' list: " + apiUrls);
+                    providerConfig.setApiUrls(apiUrls);
+                    debug("Successfully parsed provider: " + providerConfig.getName());
+                    return providerConfig;
+                }
                 // 支持 api 和 apiUrl 两种配置键名
                 String apiUrl = section.getString("api");
                 debug("Raw API URL from 'api' key: " + apiUrl);
@@ -232,7 +279,7 @@ import java.util.logging.Logger;
                     apiUrl = apiUrl.replaceAll("[`\"']", "");
                     debug("Processed API URL: " + apiUrl);
                 }
-                providerConfig.setApiUrl(apiUrl);
+                providerConfig.setApiUrls(java.util.Collections.singletonList(apiUrl));
             } else {
                 // 处理其他类型的配置
                 providerConfig.setName(section.getString("name", "Mojang"));
@@ -255,8 +302,18 @@ import java.util.logging.Logger;
      * @return 数据库配置
      */
     public DatabaseConfig getDatabaseConfig() {
+        return readDatabaseConfig(config);
+    }
+
+    /**
+     * 从配置根节点读取数据库配置
+     * 
+     * @param root 配置根节点
+     * @return 数据库配置
+     */
+    private DatabaseConfig readDatabaseConfig(ConfigurationSection root) {
         DatabaseConfig databaseConfig = new DatabaseConfig();
-        ConfigurationSection databaseSection = config.getConfigurationSection("database");
+        ConfigurationSection databaseSection = root.getConfigurationSection("database");
         if (databaseSection != null) {
             databaseConfig.setType(databaseSection.getString("type", "SQLite"));
             ConfigurationSection mysqlSection = databaseSection.getConfigurationSection("mysql");
@@ -267,6 +324,11 @@ import java.util.logging.Logger;
                 databaseConfig.setUsername(mysqlSection.getString("username", "root"));
                 databaseConfig.setPassword(mysqlSection.getString("password", ""));
             }
+            ConfigurationSection poolSection = databaseSection.getConfigurationSection("pool");
+            if (poolSection != null) {
+                databaseConfig.setMaximumPoolSize(poolSection.getInt("maximum_pool_size", databaseConfig.getMaximumPoolSize()));
+                databaseConfig.setMinimumIdle(poolSection.getInt("minimum_idle", databaseConfig.getMinimumIdle()));
+            }
         } else {
             // 默认使用 SQLite
             databaseConfig.setType("SQLite");
@@ -322,18 +384,348 @@ import java.util.logging.Logger;
      * @return 性能配置
      */
     public PerformanceConfig getPerformanceConfig() {
+        return readPerformanceConfig(config);
+    }
+
+    /**
+     * 从配置根节点读取性能配置
+     * 
+     * @param root 配置根节点
+     * @return 性能配置
+     */
+    private PerformanceConfig readPerformanceConfig(ConfigurationSection root) {
         PerformanceConfig performanceConfig = new PerformanceConfig();
-        ConfigurationSection performanceSection = config.getConfigurationSection("performance");
+        ConfigurationSection performanceSection = root.getConfigurationSection("performance");
         if (performanceSection != null) {
             performanceConfig.setDbThreadPoolSize(performanceSection.getInt("db_thread_pool_size", performanceConfig.getDbThreadPoolSize()));
             performanceConfig.setAuthThreadPoolSize(performanceSection.getInt("auth_thread_pool_size", performanceConfig.getAuthThreadPoolSize()));
             performanceConfig.setAuthTimeoutSeconds(performanceSection.getInt("auth_timeout_seconds", performanceConfig.getAuthTimeoutSeconds()));
             performanceConfig.setSkinCacheSize(performanceSection.getInt("skin_cache_size", performanceConfig.getSkinCacheSize()));
             performanceConfig.setSkinCacheExpiryMinutes(performanceSection.getInt("skin_cache_expiry_minutes", performanceConfig.getSkinCacheExpiryMinutes()));
+            performanceConfig.setSkinDiskCache(performanceSection.getBoolean("skin_disk_cache", performanceConfig.isSkinDiskCache()));
+            performanceConfig.setSkinDiskCacheMaxMb(performanceSection.getInt("skin_disk_cache_max_mb", performanceConfig.getSkinDiskCacheMaxMb()));
+            performanceConfig.setSkinRefreshAhead(performanceSection.getDouble("skin_refresh_ahead", performanceConfig.getSkinRefreshAhead()));
+            performanceConfig.setSkinRefreshPerSecond(performanceSection.getDouble("skin_refresh_per_second", performanceConfig.getSkinRefreshPerSecond()));
+            performanceConfig.setHttpMaxConnectionsPerHost(performanceSection.getInt("http_max_connections_per_host", performanceConfig.getHttpMaxConnectionsPerHost()));
+            performanceConfig.setHttpConnectTimeoutMillis(performanceSection.getInt("http_connect_timeout_ms", performanceConfig.getHttpConnectTimeoutMillis()));
+            performanceConfig.setHttpReadTimeoutMillis(performanceSection.getInt("http_read_timeout_ms", performanceConfig.getHttpReadTimeoutMillis()));
+            performanceConfig.setHttpIdleTimeoutSeconds(performanceSection.getInt("http_idle_timeout_seconds", performanceConfig.getHttpIdleTimeoutSeconds()));
+            performanceConfig.setHttpMaxResponseKb(performanceSection.getInt("http_max_response_kb", performanceConfig.getHttpMaxResponseKb()));
+            performanceConfig.setHttpWarmConnectionsPerHost(performanceSection.getInt("http_warm_connections_per_host", performanceConfig.getHttpWarmConnectionsPerHost()));
+            performanceConfig.setProviderMaxConcurrency(performanceSection.getInt("provider_max_concurrency", performanceConfig.getProviderMaxConcurrency()));
+            performanceConfig.setProviderAdaptiveConcurrency(performanceSection.getBoolean("provider_adaptive_concurrency", performanceConfig.isProviderAdaptiveConcurrency()));
+            performanceConfig.setProviderMaxBackoffSeconds(performanceSection.getInt("provider_max_backoff_seconds", performanceConfig.getProviderMaxBackoffSeconds()));
         }
         return performanceConfig;
     }
 
+    /**
+     * 获取登录洪泛防护配置
+     * 
+     * @return 登录洪泛防护配置
+     */
+    public FloodProtectionConfig getFloodProtectionConfig() {
+        return readFloodProtectionConfig(config);
+    }
+
+    /**
+     * 从配置根节点读取登录洪泛防护配置
+     * 
+     * @param root 配置根节点
+     * @return 登录洪泛防护配置
+     */
+    private FloodProtectionConfig readFloodProtectionConfig(ConfigurationSection root) {
+        FloodProtectionConfig floodConfig = new FloodProtectionConfig();
+        ConfigurationSection section = root.getConfigurationSection("flood_protection");
+        // 旧配置没有这一节时保持关闭，升级不改变登录行为
+        floodConfig.setEnabled(section != null && section.getBoolean("enabled", true));
+        if (section != null) {
+            floodConfig.setIpPerMinute(section.getInt("ip_per_minute", floodConfig.getIpPerMinute()));
+            floodConfig.setIpBurst(section.getInt("ip_burst", floodConfig.getIpBurst()));
+            floodConfig.setNamePerMinute(section.getInt("name_per_minute", floodConfig.getNamePerMinute()));
+            floodConfig.setNameBurst(section.getInt("name_burst", floodConfig.getNameBurst()));
+            floodConfig.setDenyAfterFailures(section.getInt("deny_after_failures", floodConfig.getDenyAfterFailures()));
+            floodConfig.setDenySeconds(section.getInt("deny_seconds", floodConfig.getDenySeconds()));
+        }
+        return floodConfig;
+    }
+
+    /**
+     * 获取是否启用配置文件监视
+     * 
+     * @return 是否启用配置文件监视
+     */
+    public boolean isConfigWatcherEnabled() {
+        return config.getBoolean("config_watcher.enabled", false);
+    }
+
+    /**
+     * 获取配置文件监视的防抖时间
+     * 
+     * @return 防抖时间（毫秒）
+     */
+    public long getConfigWatcherDebounceMillis() {
+        return readConfigWatcherDebounceMillis(config);
+    }
+
+    private static long readConfigWatcherDebounceMillis(ConfigurationSection root) {
+        return Math.max(100, root.getLong("config_watcher.debounce_ms", 500));
+    }
+
+    /**
+     * 获取是否启用注入守护
+     * 
+     * @return 是否启用注入守护
+     */
+    public boolean isInjectionWatchdogEnabled() {
+        return readInjectionWatchdogEnabled(config);
+    }
+
+    private static boolean readInjectionWatchdogEnabled(ConfigurationSection root) {
+        return root.getBoolean("injection_watchdog.enabled", true);
+    }
+
+    /**
+     * 获取注入守护的检查间隔
+     * 
+     * @return 检查间隔（秒）
+     */
+    public int getInjectionWatchdogIntervalSeconds() {
+        return readInjectionWatchdogIntervalSeconds(config);
+    }
+
+    private static int readInjectionWatchdogIntervalSeconds(ConfigurationSection root) {
+        return Math.max(1, root.getInt("injection_watchdog.interval_seconds", 5));
+    }
+
+    /**
+     * 获取注入守护发现替换时是否重新注入
+     * 
+     * @return 是否重新注入
+     */
+    public boolean isInjectionWatchdogReinject() {
+        return readInjectionWatchdogReinject(config);
+    }
+
+    private static boolean readInjectionWatchdogReinject(ConfigurationSection root) {
+        return root.getBoolean("injection_watchdog.reinject", true);
+    }
+
+    /**
+     * 获取是否启用登录预取
+     * 
+     * @return 是否启用登录预取
+     */
+    public boolean isLoginPrefetchEnabled() {
+        return config.getBoolean("login_prefetch.enabled", false);
+    }
+
+    /**
+     * 获取当前已加载配置的快照
+     * 
+     * @return 配置快照
+     */
+    public ConfigSnapshot snapshot() {
+        FileConfiguration current = config;
+        try {
+            return buildSnapshot(current, current.saveToString(), false);
+        } catch (InvalidConfigurationException e) {
+            // 非严格模式不会抛出
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 应用已校验的配置快照
+     * 从快照保存的原文重新加载，之后对当前配置的修改（如 setAllowCracked）不会影响快照
+     * 
+     * @param snapshot 由 parseSnapshot 返回的配置快照
+     * @throws InvalidConfigurationException 快照原文无法加载（不应发生，原文已校验过）
+     */
+    public void applySnapshot(ConfigSnapshot snapshot) throws InvalidConfigurationException {
+        YamlConfiguration next = new YamlConfiguration();
+        next.loadFromString(snapshot.getSource());
+        config = next;
+        this.debugMode = config.getBoolean("debug", false);
+        info("Config applied from validated snapshot");
+    }
+
+    /**
+     * 严格解析并校验磁盘上的 config.yml，不影响当前已加载的配置
+     * 数值越界、类型错误或提供者无法解析时拒绝整个文件，不会像启动加载那样静默截断
+     * 
+     * @return 校验通过的配置快照
+     * @throws InvalidConfigurationException YAML 语法错误或配置内容无效
+     */
+    public ConfigSnapshot parseSnapshot() throws InvalidConfigurationException {
+        String source;
+        try {
+            source = new String(Files.readAllBytes(configFile.toPath()), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new InvalidConfigurationException("Cannot read config.yml: " + e.getMessage());
+        }
+        YamlConfiguration candidate = new YamlConfiguration();
+        candidate.loadFromString(source);
+        return buildSnapshot(candidate, source, true);
+    }
+
+    /**
+     * 从配置根节点构建快照
+     * 
+     * @param root   配置根节点
+     * @param source 配置原文
+     * @param strict 是否严格校验
+     * @return 配置快照
+     * @throws InvalidConfigurationException 严格模式下配置无效
+     */
+    private ConfigSnapshot buildSnapshot(ConfigurationSection root, String source, boolean strict) throws InvalidConfigurationException {
+        List<ProviderConfig> pipeline = readPipelineConfig(root, strict);
+        PerformanceConfig performance = readPerformanceConfig(root);
+        DatabaseConfig database = readDatabaseConfig(root);
+        FloodProtectionConfig floodProtection = readFloodProtectionConfig(root);
+        if (strict) {
+            checkPipeline(pipeline);
+            checkPerformance(root, performance);
+            checkDatabase(root, database);
+            checkFloodProtection(root, floodProtection);
+            checkBoolean(root, "debug");
+            checkBoolean(root, "allow_cracked");
+            checkBoolean(root, "config_watcher.enabled");
+            checkInt(root, "config_watcher.debounce_ms", readConfigWatcherDebounceMillis(root));
+            checkBoolean(root, "injection_watchdog.enabled");
+            checkInt(root, "injection_watchdog.interval_seconds", readInjectionWatchdogIntervalSeconds(root));
+            checkBoolean(root, "injection_watchdog.reinject");
+            checkBoolean(root, "login_prefetch.enabled");
+        }
+        return new ConfigSnapshot(pipeline, performance, database, floodProtection,
+                readInjectionWatchdogEnabled(root), readInjectionWatchdogIntervalSeconds(root), readInjectionWatchdogReinject(root),
+                source);
+    }
+
+    private static void checkPipeline(List<ProviderConfig> pipeline) throws InvalidConfigurationException {
+        java.util.Set<String> names = new java.util.HashSet<>();
+        for (ProviderConfig provider : pipeline) {
+            String type = provider.getType() == null ? "" : provider.getType().toUpperCase();
+            if (!type.equals("MOJANG") && !type.equals("YGGDRASIL")) {
+                throw new InvalidConfigurationException("Unknown provider type: " + provider.getType());
+            }
+            if (!names.add(provider.getName())) {
+                throw new InvalidConfigurationException("Duplicate provider name: " + provider.getName());
+            }
+            if (type.equals("YGGDRASIL")) {
+                if (provider.getApiUrls().isEmpty()) {
+                    throw new InvalidConfigurationException("No api url for " + provider.getName());
+                }
+                for (String apiUrl : provider.getApiUrls()) {
+                    try {
+                        new java.net.URL(apiUrl);
+                    } catch (java.net.MalformedURLException e) {
+                        throw new InvalidConfigurationException("Invalid api url for " + provider.getName() + ": " + apiUrl);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void checkProvider(ConfigurationSection section, ProviderConfig provider) throws InvalidConfigurationException {
+        String label = "pipeline." + provider.getName() + ".";
+        checkBoolean(section, "enabled", label + "enabled");
+        checkInt(section, "max_concurrency", provider.getMaxConcurrency(), label + "max_concurrency");
+    }
+
+    private static void checkPerformance(ConfigurationSection root, PerformanceConfig performance) throws InvalidConfigurationException {
+        checkInt(root, "performance.db_thread_pool_size", performance.getDbThreadPoolSize());
+        checkInt(root, "performance.auth_thread_pool_size", performance.getAuthThreadPoolSize());
+        checkInt(root, "performance.auth_timeout_seconds", performance.getAuthTimeoutSeconds());
+        checkInt(root, "performance.skin_cache_size", performance.getSkinCacheSize());
+        checkInt(root, "performance.skin_cache_expiry_minutes", performance.getSkinCacheExpiryMinutes());
+        checkBoolean(root, "performance.skin_disk_cache");
+        checkInt(root, "performance.skin_disk_cache_max_mb", performance.getSkinDiskCacheMaxMb());
+        checkDouble(root, "performance.skin_refresh_ahead", performance.getSkinRefreshAhead());
+        checkDouble(root, "performance.skin_refresh_per_second", performance.getSkinRefreshPerSecond());
+        checkInt(root, "performance.http_max_connections_per_host", performance.getHttpMaxConnectionsPerHost());
+        checkInt(root, "performance.http_connect_timeout_ms", performance.getHttpConnectTimeoutMillis());
+        checkInt(root, "performance.http_read_timeout_ms", performance.getHttpReadTimeoutMillis());
+        checkInt(root, "performance.http_idle_timeout_seconds", performance.getHttpIdleTimeoutSeconds());
+        checkInt(root, "performance.http_max_response_kb", performance.getHttpMaxResponseKb());
+        checkInt(root, "performance.http_warm_connections_per_host", performance.getHttpWarmConnectionsPerHost());
+        checkInt(root, "performance.provider_max_concurrency", performance.getProviderMaxConcurrency());
+        checkBoolean(root, "performance.provider_adaptive_concurrency");
+        checkInt(root, "performance.provider_max_backoff_seconds", performance.getProviderMaxBackoffSeconds());
+    }
+
+    private static void checkDatabase(ConfigurationSection root, DatabaseConfig database) throws InvalidConfigurationException {
+        checkInt(root, "database.mysql.port", database.getPort());
+        if (database.getPort() < 0 || database.getPort() > 65535) {
+            throw new InvalidConfigurationException("database.mysql.port = " + database.getPort() + " is out of range");
+        }
+        checkInt(root, "database.pool.maximum_pool_size", database.getMaximumPoolSize());
+        checkInt(root, "database.pool.minimum_idle", database.getMinimumIdle());
+        if (database.getMinimumIdle() > database.getMaximumPoolSize()) {
+            throw new InvalidConfigurationException("database.pool.minimum_idle must not exceed maximum_pool_size");
+        }
+    }
+
+    private static void checkFloodProtection(ConfigurationSection root, FloodProtectionConfig floodProtection) throws InvalidConfigurationException {
+        checkBoolean(root, "flood_protection.enabled");
+        checkInt(root, "flood_protection.ip_per_minute", floodProtection.getIpPerMinute());
+        checkInt(root, "flood_protection.ip_burst", floodProtection.getIpBurst());
+        checkInt(root, "flood_protection.name_per_minute", floodProtection.getNamePerMinute());
+        checkInt(root, "flood_protection.name_burst", floodProtection.getNameBurst());
+        checkInt(root, "flood_protection.deny_after_failures", floodProtection.getDenyAfterFailures());
+        checkInt(root, "flood_protection.deny_seconds", floodProtection.getDenySeconds());
+    }
+
+    private static void checkInt(ConfigurationSection root, String path, long accepted) throws InvalidConfigurationException {
+        checkInt(root, path, accepted, path);
+    }
+
+    /**
+     * 校验整数配置项
+     * 配置项存在时必须是整数；读取时 setter 会把越界值截断，截断后的值与原值不同说明越界
+     *
+     * @param section  配置节
+     * @param key      配置键
+     * @param accepted 读取后实际使用的值
+     * @param label    日志中显示的配置项名称
+     * @throws InvalidConfigurationException 类型错误或越界
+     */
+    private static void checkInt(ConfigurationSection section, String key, long accepted, String label) throws InvalidConfigurationException {
+        if (!section.contains(key)) {
+            return;
+        }
+        Object raw = section.get(key);
+        if (!(raw instanceof Integer) && !(raw instanceof Long)) {
+            throw new InvalidConfigurationException(label + " must be an integer: " + raw);
+        }
+        if (((Number) raw).longValue() != accepted) {
+            throw new InvalidConfigurationException(label + " = " + raw + " is out of range (nearest allowed value: " + accepted + ")");
+        }
+    }
+
+    private static void checkDouble(ConfigurationSection root, String path, double accepted) throws InvalidConfigurationException {
+        if (!root.contains(path)) {
+            return;
+        }
+        Object raw = root.get(path);
+        if (!(raw instanceof Number)) {
+            throw new InvalidConfigurationException(path + " must be a number: " + raw);
+        }
+        if (((Number) raw).doubleValue() != accepted) {
+            throw new InvalidConfigurationException(path + " = " + raw + " is out of range (nearest allowed value: " + accepted + ")");
+        }
+    }
+
+    private static void checkBoolean(ConfigurationSection root, String path) throws InvalidConfigurationException {
+        checkBoolean(root, path, path);
+    }
+
+    private static void checkBoolean(ConfigurationSection section, String key, String label) throws InvalidConfigurationException {
+        if (section.contains(key) && !(section.get(key) instanceof Boolean)) {
+            throw new InvalidConfigurationException(label + " must be true or false: " + section.get(key));
+        }
+    }
+
     /**
      * 提供者配置类
      */
@@ -341,7 +733,24 @@ import java.util.logging.Logger;
         private String type;
         private boolean enabled;
         private String name;
-        private String apiUrl;
+        private List<String> apiUrls = java.util.Collections.emptyList();
+        private int maxConcurrency;
+
+        public ProviderConfig() {
+        }
+
+        /**
+         * 复制构造
+         *
+         * @param other 要复制的配置
+         */
+        public ProviderConfig(ProviderConfig other) {
+            this.type = other.type;
+            this.enabled = other.enabled;
+            this.name = other.name;
+            this.apiUrls = other.apiUrls;
+            this.maxConcurrency = other.maxConcurrency;
+        }
 
         public String getType() {
             return type;
@@ -367,12 +776,55 @@ import java.util.logging.Logger;
             this.name = name;
         }
 
+        /**
+         * 获取主 API 地址（第一个地址）
+         *
+         * @return API 地址，未配置返回 null
+         */
         public String getApiUrl() {
-            return apiUrl;
+            return apiUrls.isEmpty() ? null : apiUrls.get(0);
         }
 
         public void setApiUrl(String apiUrl) {
-            this.apiUrl = apiUrl;
+            this.apiUrls = java.util.Collections.singletonList(apiUrl);
+        }
+
+        public List<String> getApiUrls() {
+            return apiUrls;
+        }
+
+        public void setApiUrls(List<String> apiUrls) {
+            this.apiUrls = java.util.Collections.unmodifiableList(new ArrayList<>(apiUrls));
+        }
+
+        /**
+         * 获取该提供者的最大并发请求数
+         *
+         * @return 最大并发数，0 表示使用 performance.provider_max_concurrency
+         */
+        public int getMaxConcurrency() {
+            return maxConcurrency;
+        }
+
+        public void setMaxConcurrency(int maxConcurrency) {
+            this.maxConcurrency = Math.max(0, Math.min(256, maxConcurrency));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ProviderConfig)) return false;
+            ProviderConfig that = (ProviderConfig) o;
+            return enabled == that.enabled
+                    && java.util.Objects.equals(type, that.type)
+                    && java.util.Objects.equals(name, that.name)
+                    && maxConcurrency == that.maxConcurrency
+                    && java.util.Objects.equals(apiUrls, that.apiUrls);
+        }
+
+        @Override
+        public int hashCode() {
+            return java.util.Objects.hash(type, enabled, name, apiUrls, maxConcurrency);
         }
     }
 
@@ -385,6 +837,19 @@ import java.util.logging.Logger;
         private int authTimeoutSeconds;
         private int skinCacheSize;
         private int skinCacheExpiryMinutes;
+        private boolean skinDiskCache;
+        private int skinDiskCacheMaxMb;
+        private double skinRefreshAhead;
+        private double skinRefreshPerSecond;
+        private int httpMaxConnectionsPerHost;
+        private int httpConnectTimeoutMillis;
+        private int httpReadTimeoutMillis;
+        private int httpIdleTimeoutSeconds;
+        private int httpMaxResponseKb;
+        private int httpWarmConnectionsPerHost;
+        private int providerMaxConcurrency;
+        private boolean providerAdaptiveConcurrency;
+        private int providerMaxBackoffSeconds;
 
         public PerformanceConfig() {
             // 默认值
@@ -393,6 +858,45 @@ import java.util.logging.Logger;
             this.authTimeoutSeconds = 8;
             this.skinCacheSize = 1000;
             this.skinCacheExpiryMinutes = 30;
+            this.skinDiskCache = true;
+            this.skinDiskCacheMaxMb = 64;
+            this.skinRefreshAhead = 0.8;
+            this.skinRefreshPerSecond = 2;
+            this.httpMaxConnectionsPerHost = 8;
+            this.httpConnectTimeoutMillis = 5000;
+            this.httpReadTimeoutMillis = 5000;
+            this.httpIdleTimeoutSeconds = 30;
+            this.httpMaxResponseKb = 64;
+            this.httpWarmConnectionsPerHost = 2;
+            this.providerMaxConcurrency = 16;
+            this.providerAdaptiveConcurrency = true;
+            this.providerMaxBackoffSeconds = 60;
+        }
+
+        /**
+         * 复制构造
+         *
+         * @param other 要复制的配置
+         */
+        public PerformanceConfig(PerformanceConfig other) {
+            this.dbThreadPoolSize = other.dbThreadPoolSize;
+            this.authThreadPoolSize = other.authThreadPoolSize;
+            this.authTimeoutSeconds = other.authTimeoutSeconds;
+            this.skinCacheSize = other.skinCacheSize;
+            this.skinCacheExpiryMinutes = other.skinCacheExpiryMinutes;
+            this.skinDiskCache = other.skinDiskCache;
+            this.skinDiskCacheMaxMb = other.skinDiskCacheMaxMb;
+            this.skinRefreshAhead = other.skinRefreshAhead;
+            this.skinRefreshPerSecond = other.skinRefreshPerSecond;
+            this.httpMaxConnectionsPerHost = other.httpMaxConnectionsPerHost;
+            this.httpConnectTimeoutMillis = other.httpConnectTimeoutMillis;
+            this.httpReadTimeoutMillis = other.httpReadTimeoutMillis;
+            this.httpIdleTimeoutSeconds = other.httpIdleTimeoutSeconds;
+            this.httpMaxResponseKb = other.httpMaxResponseKb;
+            this.httpWarmConnectionsPerHost = other.httpWarmConnectionsPerHost;
+            this.providerMaxConcurrency = other.providerMaxConcurrency;
+            this.providerAdaptiveConcurrency = other.providerAdaptiveConcurrency;
+            this.providerMaxBackoffSeconds = other.providerMaxBackoffSeconds;
         }
 
         public int getDbThreadPoolSize() {
@@ -434,6 +938,110 @@ import java.util.logging.Logger;
         public void setSkinCacheExpiryMinutes(int skinCacheExpiryMinutes) {
             this.skinCacheExpiryMinutes = Math.max(5, Math.min(120, skinCacheExpiryMinutes));
         }
+
+        public boolean isSkinDiskCache() {
+            return skinDiskCache;
+        }
+
+        public void setSkinDiskCache(boolean skinDiskCache) {
+            this.skinDiskCache = skinDiskCache;
+        }
+
+        public int getSkinDiskCacheMaxMb() {
+            return skinDiskCacheMaxMb;
+        }
+
+        public void setSkinDiskCacheMaxMb(int skinDiskCacheMaxMb) {
+            this.skinDiskCacheMaxMb = Math.max(1, Math.min(1024, skinDiskCacheMaxMb));
+        }
+
+        public double getSkinRefreshAhead() {
+            return skinRefreshAhead;
+        }
+
+        public void setSkinRefreshAhead(double skinRefreshAhead) {
+            this.skinRefreshAhead = Math.max(0.5, Math.min(1.0, skinRefreshAhead));
+        }
+
+        public double getSkinRefreshPerSecond() {
+            return skinRefreshPerSecond;
+        }
+
+        public void setSkinRefreshPerSecond(double skinRefreshPerSecond) {
+            this.skinRefreshPerSecond = Math.max(0, Math.min(100, skinRefreshPerSecond));
+        }
+
+        public int getHttpMaxConnectionsPerHost() {
+            return httpMaxConnectionsPerHost;
+        }
+
+        public void setHttpMaxConnectionsPerHost(int httpMaxConnectionsPerHost) {
+            this.httpMaxConnectionsPerHost = Math.max(1, Math.min(64, httpMaxConnectionsPerHost));
+        }
+
+        public int getHttpConnectTimeoutMillis() {
+            return httpConnectTimeoutMillis;
+        }
+
+        public void setHttpConnectTimeoutMillis(int httpConnectTimeoutMillis) {
+            this.httpConnectTimeoutMillis = Math.max(500, Math.min(30000, httpConnectTimeoutMillis));
+        }
+
+        public int getHttpReadTimeoutMillis() {
+            return httpReadTimeoutMillis;
+        }
+
+        public void setHttpReadTimeoutMillis(int httpReadTimeoutMillis) {
+            this.httpReadTimeoutMillis = Math.max(500, Math.min(30000, httpReadTimeoutMillis));
+        }
+
+        public int getHttpIdleTimeoutSeconds() {
+            return httpIdleTimeoutSeconds;
+        }
+
+        public void setHttpIdleTimeoutSeconds(int httpIdleTimeoutSeconds) {
+            this.httpIdleTimeoutSeconds = Math.max(1, Math.min(300, httpIdleTimeoutSeconds));
+        }
+
+        public int getHttpMaxResponseKb() {
+            return httpMaxResponseKb;
+        }
+
+        public void setHttpMaxResponseKb(int httpMaxResponseKb) {
+            this.httpMaxResponseKb = Math.max(4, Math.min(1024, httpMaxResponseKb));
+        }
+
+        public int getHttpWarmConnectionsPerHost() {
+            return httpWarmConnectionsPerHost;
+        }
+
+        public void setHttpWarmConnectionsPerHost(int httpWarmConnectionsPerHost) {
+            this.httpWarmConnectionsPerHost = Math.max(0, Math.min(16, httpWarmConnectionsPerHost));
+        }
+
+        public int getProviderMaxConcurrency() {
+            return providerMaxConcurrency;
+        }
+
+        public void setProviderMaxConcurrency(int providerMaxConcurrency) {
+            this.providerMaxConcurrency = Math.max(1, Math.min(256, providerMaxConcurrency));
+        }
+
+        public boolean isProviderAdaptiveConcurrency() {
+            return providerAdaptiveConcurrency;
+        }
+
+        public void setProviderAdaptiveConcurrency(boolean providerAdaptiveConcurrency) {
+            this.providerAdaptiveConcurrency = providerAdaptiveConcurrency;
+        }
+
+        public int getProviderMaxBackoffSeconds() {
+            return providerMaxBackoffSeconds;
+        }
+
+        public void setProviderMaxBackoffSeconds(int providerMaxBackoffSeconds) {
+            this.providerMaxBackoffSeconds = Math.max(1, Math.min(600, providerMaxBackoffSeconds));
+        }
     }
 
     /**
@@ -446,6 +1054,27 @@ import java.util.logging.Logger;
         private String database;
         private String username;
         private String password;
+        private int maximumPoolSize = 10;
+        private int minimumIdle = 2;
+
+        public DatabaseConfig() {
+        }
+
+        /**
+         * 复制构造
+         *
+         * @param other 要复制的配置
+         */
+        public DatabaseConfig(DatabaseConfig other) {
+            this.type = other.type;
+            this.host = other.host;
+            this.port = other.port;
+            this.database = other.database;
+            this.username = other.username;
+            this.password = other.password;
+            this.maximumPoolSize = other.maximumPoolSize;
+            this.minimumIdle = other.minimumIdle;
+        }
 
         public String getType() {
             return type;
@@ -494,5 +1123,127 @@ import java.util.logging.Logger;
         public void setPassword(String password) {
             this.password = password;
         }
+
+        public int getMaximumPoolSize() {
+            return maximumPoolSize;
+        }
+
+        public void setMaximumPoolSize(int maximumPoolSize) {
+            this.maximumPoolSize = Math.max(1, maximumPoolSize);
+        }
+
+        public int getMinimumIdle() {
+            return minimumIdle;
+        }
+
+        public void setMinimumIdle(int minimumIdle) {
+            this.minimumIdle = Math.max(0, minimumIdle);
+        }
+    }
+
+    /**
+     * 登录洪泛防护配置类
+     */
+    public static class FloodProtectionConfig {
+        private boolean enabled = false;
+        private int ipPerMinute = 30;
+        private int ipBurst = 10;
+        private int namePerMinute = 10;
+        private int nameBurst = 3;
+        private int denyAfterFailures = 3;
+        private int denySeconds = 60;
+
+        public FloodProtectionConfig() {
+        }
+
+        /**
+         * 复制构造
+         *
+         * @param other 要复制的配置
+         */
+        public FloodProtectionConfig(FloodProtectionConfig other) {
+            this.enabled = other.enabled;
+            this.ipPerMinute = other.ipPerMinute;
+            this.ipBurst = other.ipBurst;
+            this.namePerMinute = other.namePerMinute;
+            this.nameBurst = other.nameBurst;
+            this.denyAfterFailures = other.denyAfterFailures;
+            this.denySeconds = other.denySeconds;
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getIpPerMinute() {
+            return ipPerMinute;
+        }
+
+        public void setIpPerMinute(int ipPerMinute) {
+            this.ipPerMinute = Math.max(1, ipPerMinute);
+        }
+
+        public int getIpBurst() {
+            return ipBurst;
+        }
+
+        public void setIpBurst(int ipBurst) {
+            this.ipBurst = Math.max(1, ipBurst);
+        }
+
+        public int getNamePerMinute() {
+            return namePerMinute;
+        }
+
+        public void setNamePerMinute(int namePerMinute) {
+            this.namePerMinute = Math.max(1, namePerMinute);
+        }
+
+        public int getNameBurst() {
+            return nameBurst;
+        }
+
+        public void setNameBurst(int nameBurst) {
+            this.nameBurst = Math.max(1, nameBurst);
+        }
+
+        public int getDenyAfterFailures() {
+            return denyAfterFailures;
+        }
+
+        public void setDenyAfterFailures(int denyAfterFailures) {
+            this.denyAfterFailures = Math.max(1, denyAfterFailures);
+        }
+
+        public int getDenySeconds() {
+            return denySeconds;
+        }
+
+        public void setDenySeconds(int denySeconds) {
+            this.denySeconds = Math.max(1, Math.min(3600, denySeconds));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof FloodProtectionConfig)) return false;
+            FloodProtectionConfig that = (FloodProtectionConfig) o;
+            return enabled == that.enabled
+                    && ipPerMinute == that.ipPerMinute
+                    && ipBurst == that.ipBurst
+                    && namePerMinute == that.namePerMinute
+                    && nameBurst == that.nameBurst
+                    && denyAfterFailures == that.denyAfterFailures
+                    && denySeconds == that.denySeconds;
+        }
+
+        @Override
+        public int hashCode() {
+            return java.util.Objects.hash(enabled, ipPerMinute, ipBurst, namePerMinute, nameBurst, denyAfterFailures, denySeconds);
+        }
     }
 }
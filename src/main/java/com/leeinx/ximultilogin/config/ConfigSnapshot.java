@@ -0,0 +1,165 @@
+package com.Leeinx.ximultilogin.config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 配置快照
+ * 一次 config.yml 解析结果的类型化只读视图，用于在应用前比较各配置节是否变化。
+ * 不可变：构造时复制所有配置对象，getter 返回副本；应用时从保存的原文重新加载配置。
+ */
+public final class ConfigSnapshot {
+
+    private final List<ConfigManager.ProviderConfig> pipeline;
+    private final ConfigManager.PerformanceConfig performance;
+    private final ConfigManager.DatabaseConfig database;
+    private final ConfigManager.FloodProtectionConfig floodProtection;
+    private final boolean injectionWatchdogEnabled;
+    private final int injectionWatchdogIntervalSeconds;
+    private final boolean injectionWatchdogReinject;
+    private final String source;
+
+    /**
+     * 构造 ConfigSnapshot
+     *
+     * @param pipeline                         验证链配置
+     * @param performance                      性能配置
+     * @param database                         数据库配置
+     * @param floodProtection                  登录洪泛防护配置
+     * @param injectionWatchdogEnabled         是否启用注入守护
+     * @param injectionWatchdogIntervalSeconds 注入守护检查间隔（秒）
+     * @param injectionWatchdogReinject        注入守护是否重新注入
+     * @param source                           快照对应的 config.yml 原文
+     */
+    ConfigSnapshot(List<ConfigManager.ProviderConfig> pipeline, ConfigManager.PerformanceConfig performance,
+                   ConfigManager.DatabaseConfig database, ConfigManager.FloodProtectionConfig floodProtection,
+                   boolean injectionWatchdogEnabled, int injectionWatchdogIntervalSeconds, boolean injectionWatchdogReinject,
+                   String source) {
+        this.pipeline = copyPipeline(pipeline);
+        this.performance = new ConfigManager.PerformanceConfig(performance);
+        this.database = new ConfigManager.DatabaseConfig(database);
+        this.floodProtection = new ConfigManager.FloodProtectionConfig(floodProtection);
+        this.injectionWatchdogEnabled = injectionWatchdogEnabled;
+        this.injectionWatchdogIntervalSeconds = injectionWatchdogIntervalSeconds;
+        this.injectionWatchdogReinject = injectionWatchdogReinject;
+        this.source = source;
+    }
+
+    private static List<ConfigManager.ProviderConfig> copyPipeline(List<ConfigManager.ProviderConfig> pipeline) {
+        List<ConfigManager.ProviderConfig> copy = new ArrayList<>(pipeline.size());
+        for (ConfigManager.ProviderConfig provider : pipeline) {
+            copy.add(new ConfigManager.ProviderConfig(provider));
+        }
+        return Collections.unmodifiableList(copy);
+    }
+
+    String getSource() {
+        return source;
+    }
+
+    public List<ConfigManager.ProviderConfig> getPipeline() {
+        return copyPipeline(pipeline);
+    }
+
+    public ConfigManager.PerformanceConfig getPerformance() {
+        return new ConfigManager.PerformanceConfig(performance);
+    }
+
+    public ConfigManager.DatabaseConfig getDatabase() {
+        return new ConfigManager.DatabaseConfig(database);
+    }
+
+    public ConfigManager.FloodProtectionConfig getFloodProtection() {
+        return new ConfigManager.FloodProtectionConfig(floodProtection);
+    }
+
+    public boolean isInjectionWatchdogEnabled() {
+        return injectionWatchdogEnabled;
+    }
+
+    public int getInjectionWatchdogIntervalSeconds() {
+        return injectionWatchdogIntervalSeconds;
+    }
+
+    public boolean isInjectionWatchdogReinject() {
+        return injectionWatchdogReinject;
+    }
+
+    /**
+     * 验证链是否需要重建
+     * 提供者列表、认证线程池大小、认证超时或 HTTP 连接池设置变化时需要重建
+     *
+     * @param other 另一个快照
+     * @return 是否需要重建验证链
+     */
+    public boolean pipelineDiffers(ConfigSnapshot other) {
+        return !pipeline.equals(other.pipeline)
+                || performance.getAuthThreadPoolSize() != other.performance.getAuthThreadPoolSize()
+                || performance.getAuthTimeoutSeconds() != other.performance.getAuthTimeoutSeconds()
+                || performance.getHttpMaxConnectionsPerHost() != other.performance.getHttpMaxConnectionsPerHost()
+                || performance.getHttpConnectTimeoutMillis() != other.performance.getHttpConnectTimeoutMillis()
+                || performance.getHttpReadTimeoutMillis() != other.performance.getHttpReadTimeoutMillis()
+                || performance.getHttpIdleTimeoutSeconds() != other.performance.getHttpIdleTimeoutSeconds()
+                || performance.getHttpMaxResponseKb() != other.performance.getHttpMaxResponseKb()
+                || performance.getHttpWarmConnectionsPerHost() != other.performance.getHttpWarmConnectionsPerHost()
+                || performance.getProviderMaxConcurrency() != other.performance.getProviderMaxConcurrency()
+                || performance.isProviderAdaptiveConcurrency() != other.performance.isProviderAdaptiveConcurrency()
+                || performance.getProviderMaxBackoffSeconds() != other.performance.getProviderMaxBackoffSeconds()
+                || performance.getSkinCacheSize() != other.performance.getSkinCacheSize()
+                || performance.getSkinCacheExpiryMinutes() != other.performance.getSkinCacheExpiryMinutes()
+                || performance.getSkinRefreshAhead() != other.performance.getSkinRefreshAhead()
+                || performance.getSkinRefreshPerSecond() != other.performance.getSkinRefreshPerSecond();
+    }
+
+    /**
+     * 数据库线程池或连接池大小是否变化
+     *
+     * @param other 另一个快照
+     * @return 是否变化
+     */
+    public boolean databasePoolsDiffer(ConfigSnapshot other) {
+        return performance.getDbThreadPoolSize() != other.performance.getDbThreadPoolSize()
+                || database.getMaximumPoolSize() != other.database.getMaximumPoolSize()
+                || database.getMinimumIdle() != other.database.getMinimumIdle();
+    }
+
+    /**
+     * 是否修改了只能在重启后生效的数据库连接参数
+     *
+     * @param other 另一个快照
+     * @return 是否变化
+     */
+    public boolean databaseConnectionDiffers(ConfigSnapshot other) {
+        ConfigManager.DatabaseConfig a = database;
+        ConfigManager.DatabaseConfig b = other.database;
+        return !java.util.Objects.equals(a.getType(), b.getType())
+                || !java.util.Objects.equals(a.getHost(), b.getHost())
+                || a.getPort() != b.getPort()
+                || !java.util.Objects.equals(a.getDatabase(), b.getDatabase())
+                || !java.util.Objects.equals(a.getUsername(), b.getUsername())
+                || !java.util.Objects.equals(a.getPassword(), b.getPassword());
+    }
+
+    /**
+     * 登录洪泛防护配置是否变化
+     *
+     * @param other 另一个快照
+     * @return 是否变化
+     */
+    public boolean floodProtectionDiffers(ConfigSnapshot other) {
+        return !floodProtection.equals(other.floodProtection);
+    }
+
+    /**
+     * 注入守护配置是否变化
+     *
+     * @param other 另一个快照
+     * @return 是否变化
+     */
+    public boolean injectionWatchdogDiffers(ConfigSnapshot other) {
+        return injectionWatchdogEnabled != other.injectionWatchdogEnabled
+                || injectionWatchdogIntervalSeconds != other.injectionWatchdogIntervalSeconds
+                || injectionWatchdogReinject != other.injectionWatchdogReinject;
+    }
+}
@@ -0,0 +1,251 @@
+package com.Leeinx.ximultilogin.config;
+
+import com.Leeinx.ximultilogin.XiMultiLogin;
+import com.Leeinx.ximultilogin.auth.XiSessionService;
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * 配置文件监视器
+ * 监视 config.yml 和 messages.yml，修改后自动校验并只应用发生变化的配置节。
+ * 连续的修改事件会被合并（防抖）；校验失败的修改会被拒绝并记录日志，当前配置保持不变。
+ * 验证链需要重建时，新配置在新验证链构建完成后才提交。登录洪泛防护的修改需要重启才能生效。
+ */
+public class ConfigWatcher {
+
+    private static final Logger LOGGER = Bukkit.getLogger();
+    private static final String CONFIG_FILE = "config.yml";
+    private static final String MESSAGES_FILE = "messages.yml";
+
+    private final XiMultiLogin plugin;
+    private final long debounceMillis;
+    private WatchService watchService;
+    private Thread thread;
+    private volatile boolean running;
+    private volatile ConfigSnapshot applied; // 最后提交的配置
+    // 以下只在主线程访问：已发起的修改序号和最后提交的修改序号
+    private long requested;
+    private long committed;
+
+    /**
+     * 构造 ConfigWatcher
+     *
+     * @param plugin         插件实例
+     * @param debounceMillis 防抖时间（毫秒）
+     */
+    public ConfigWatcher(XiMultiLogin plugin, long debounceMillis) {
+        this.plugin = plugin;
+        this.debounceMillis = debounceMillis;
+    }
+
+    /**
+     * 启动监视
+     *
+     * @throws IOException 无法注册文件监视
+     */
+    public void start() throws IOException {
+        applied = plugin.getConfigManager().snapshot();
+        watchService = FileSystems.getDefault().newWatchService();
+        plugin.getDataFolder().toPath().register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        running = true;
+        thread = new Thread(this::run, "XiMultiLogin-ConfigWatcher");
+        thread.setDaemon(true);
+        thread.start();
+        LOGGER.info("ConfigWatcher: Watching " + CONFIG_FILE + " and " + MESSAGES_FILE + " (debounce: " + debounceMillis + "ms)");
+    }
+
+    /**
+     * 停止监视
+     */
+    public void stop() {
+        running = false;
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ignored) {
+            }
+        }
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                WatchKey key = watchService.take();
+                boolean configChanged = false;
+                boolean messagesChanged = false;
+
+                // 防抖：持续收集事件，直到 debounceMillis 内没有新事件
+                while (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            configChanged = true;
+                            messagesChanged = true;
+                            continue;
+                        }
+                        String file = String.valueOf(event.context());
+                        if (CONFIG_FILE.equals(file)) {
+                            configChanged = true;
+                        } else if (MESSAGES_FILE.equals(file)) {
+                            messagesChanged = true;
+                        }
+                    }
+                    key.reset();
+                    key = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS);
+                }
+
+                if (configChanged || messagesChanged) {
+                    handleChange(configChanged, messagesChanged);
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                break;
+            } catch (Exception e) {
+                LOGGER.warning("ConfigWatcher: Unexpected error: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 在监视线程上校验修改，校验通过后切回主线程应用
+     *
+     * @param configChanged   config.yml 是否变化
+     * @param messagesChanged messages.yml 是否变化
+     */
+    private void handleChange(boolean configChanged, boolean messagesChanged) {
+        ConfigSnapshot next = null;
+        if (configChanged) {
+            try {
+                next = plugin.getConfigManager().parseSnapshot();
+            } catch (InvalidConfigurationException e) {
+                LOGGER.warning("ConfigWatcher: Rejected " + CONFIG_FILE + " change, keeping current config: " + e.getMessage());
+            }
+        }
+
+        FileConfiguration messages = null;
+        if (messagesChanged) {
+            try {
+                messages = plugin.getMessageManager().parseMessages();
+            } catch (InvalidConfigurationException e) {
+                LOGGER.warning("ConfigWatcher: Rejected " + MESSAGES_FILE + " change, keeping current messages: " + e.getMessage());
+            }
+        }
+
+        if (next == null && messages == null) {
+            return;
+        }
+        ConfigSnapshot validatedConfig = next;
+        FileConfiguration validatedMessages = messages;
+        Bukkit.getScheduler().runTask(plugin, () -> apply(validatedConfig, validatedMessages));
+    }
+
+    /**
+     * 以当前已加载的配置为基准（/xml reload 之后调用，主线程）
+     * 尚未提交的修改随之作废，避免它们稍后覆盖重载的配置
+     */
+    public void resync() {
+        applied = plugin.getConfigManager().snapshot();
+        committed = ++requested;
+    }
+
+    /**
+     * 应用已校验的配置，只处理发生变化的配置节（主线程）
+     * 验证链变化时先按新配置构建验证链，构建完成后再提交配置；构建失败时拒绝整个修改，当前配置保持不变
+     *
+     * @param next     新的配置快照（未变化或被拒绝时为 null）
+     * @param messages 新的消息配置（未变化或被拒绝时为 null）
+     */
+    private void apply(ConfigSnapshot next, FileConfiguration messages) {
+        if (messages != null) {
+            plugin.getMessageManager().applyMessages(messages);
+            LOGGER.info("ConfigWatcher: Applied changes: messages");
+        }
+        if (next == null) {
+            return;
+        }
+
+        long sequence = ++requested;
+        XiSessionService sessionService = plugin.getXiSessionService();
+        if (sessionService == null || !next.pipelineDiffers(applied)) {
+            commit(sequence, next, false);
+            return;
+        }
+        sessionService.reloadPipeline(next.getPipeline(), next.getPerformance()).whenComplete((pipeline, ex) -> {
+            if (!plugin.isEnabled()) {
+                return;
+            }
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                if (ex != null) {
+                    Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                    LOGGER.warning("ConfigWatcher: Rejected " + CONFIG_FILE + " change, pipeline could not be built: " + cause.getMessage());
+                    return;
+                }
+                commit(sequence, next, true);
+            });
+        });
+    }
+
+    /**
+     * 提交配置（主线程）
+     * 较晚发起的修改已经提交时跳过，过时的配置不能覆盖它
+     *
+     * @param sequence         修改的序号
+     * @param next             新的配置快照
+     * @param pipelineReloaded 是否已经按该配置重建了验证链
+     */
+    private void commit(long sequence, ConfigSnapshot next, boolean pipelineReloaded) {
+        if (sequence <= committed) {
+            LOGGER.info("ConfigWatcher: Skipped outdated " + CONFIG_FILE + " change, a newer one is already applied");
+            return;
+        }
+        try {
+            plugin.getConfigManager().applySnapshot(next);
+        } catch (InvalidConfigurationException e) {
+            LOGGER.warning("ConfigWatcher: Rejected " + CONFIG_FILE + " change, keeping current config: " + e.getMessage());
+            return;
+        }
+        committed = sequence;
+        ConfigSnapshot previous = applied;
+        applied = next;
+
+        List<String> changed = new ArrayList<>();
+        if (pipelineReloaded) {
+            changed.add("pipeline");
+        }
+        if (next.databasePoolsDiffer(previous)) {
+            ConfigManager.DatabaseConfig database = next.getDatabase();
+            plugin.getIdentityGuard().resizeDatabase(next.getPerformance().getDbThreadPoolSize(),
+                    database.getMaximumPoolSize(), database.getMinimumIdle());
+            changed.add("database pools");
+        }
+        if (next.injectionWatchdogDiffers(previous)) {
+            plugin.reconfigureInjectionWatchdog(next.isInjectionWatchdogEnabled(), next.getInjectionWatchdogIntervalSeconds(),
+                    next.isInjectionWatchdogReinject());
+            changed.add("injection watchdog");
+        }
+        if (next.databaseConnectionDiffers(previous)) {
+            LOGGER.warning("ConfigWatcher: Database connection settings changed; they take effect after a restart");
+        }
+        if (next.floodProtectionDiffers(previous)) {
+            LOGGER.warning("ConfigWatcher: flood_protection settings changed; they take effect after a restart");
+        }
+
+        LOGGER.info("ConfigWatcher: Applied changes" + (changed.isEmpty() ? " (no runtime sections changed)" : ": " + String.join(", ", changed)));
+    }
+}
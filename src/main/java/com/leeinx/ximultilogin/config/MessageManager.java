@@ -3,14 +3,18 @@ package com.Leeinx.ximultilogin.config;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
 /**
@@ -22,8 +26,9 @@ public class MessageManager {
     private static final Logger LOGGER = Bukkit.getLogger();
     private final JavaPlugin plugin;
     private File messagesFile;
-    private FileConfiguration messages;
-    private final Map<String, String> messageCache = new HashMap<>();
+    private volatile FileConfiguration messages;
+    private volatile Map<String, MessageTemplate> messageCache = new ConcurrentHashMap<>();
+    private volatile String prefix = "";
 
     /**
      * 构造 MessageManager
@@ -45,7 +50,6 @@ public class MessageManager {
             LOGGER.info("XiMultiLogin: Created default messages.yml");
         }
         messages = YamlConfiguration.loadConfiguration(messagesFile);
-        messageCache.clear(); // 清空缓存
         loadMessagesToCache();
         LOGGER.info("XiMultiLogin: Messages loaded successfully");
     }
@@ -64,9 +68,13 @@ public class MessageManager {
 
     /**
      * 加载消息到缓存
+     * 每条消息在此时编译为模板（颜色代码已处理、前缀已拼接），并整体替换旧的模板表
      */
     private void loadMessagesToCache() {
-        loadSectionToCache("", messages);
+        Map<String, MessageTemplate> templates = new ConcurrentHashMap<>();
+        prefix = ChatColor.translateAlternateColorCodes('&', getPrefix());
+        loadSectionToCache("", messages, templates);
+        messageCache = templates;
     }
 
     /**
@@ -74,8 +82,9 @@ public class MessageManager {
      *
      * @param prefix 前缀
      * @param section 配置节
+     * @param templates 模板表
      */
-    private void loadSectionToCache(String prefix, ConfigurationSection section) {
+    private void loadSectionToCache(String prefix, ConfigurationSection section, Map<String, MessageTemplate> templates) {
         if (section == null) return;
 
         for (String key : section.getKeys(false)) {
@@ -83,9 +92,9 @@ public class MessageManager {
             Object value = section.get(key);
 
             if (value instanceof ConfigurationSection) {
-                loadSectionToCache(fullKey, (ConfigurationSection) value);
+                loadSectionToCache(fullKey, (ConfigurationSection) value, templates);
             } else if (value instanceof String) {
-                messageCache.put(fullKey, (String) value);
+                templates.put(fullKey, MessageTemplate.compile((String) value, this.prefix));
             }
         }
     }
@@ -106,65 +115,33 @@ public class MessageManager {
      *
      * @param key 消息键
      * @param withPrefix 是否添加前缀
-     * @param replacements 变量替换
+     * @param replacements 变量替换，格式为 {key, value, key, value, ...}
      * @return 处理后的消息
      */
     public String getMessage(String key, boolean withPrefix, Object... replacements) {
-        // 从缓存获取消息
-        String message = messageCache.get(key);
-        if (message == null) {
+        // 从缓存获取已编译的模板
+        Map<String, MessageTemplate> templates = messageCache;
+        MessageTemplate template = templates.get(key);
+        if (template == null) {
             // 缓存未命中，从配置中获取
-            message = messages.getString(key);
+            String message = messages.getString(key);
             if (message == null) {
                 // 配置中也没有，返回默认消息
-                message = "&cMessage not found: " + key;
                 LOGGER.warning("XiMultiLogin: Message not found: " + key);
+                template = MessageTemplate.compile("&cMessage not found: " + key, prefix);
             } else {
                 // 存入缓存
-                messageCache.put(key, message);
-            }
-        }
-
-        // 处理变量替换
-        if (replacements != null && replacements.length > 0) {
-            message = replaceVariables(message, replacements);
-        }
-
-        // 处理颜色代码
-        message = ChatColor.translateAlternateColorCodes('&', message);
-
-        // 添加前缀
-        if (withPrefix) {
-            String prefix = getPrefix();
-            if (prefix != null && !prefix.isEmpty()) {
-                prefix = ChatColor.translateAlternateColorCodes('&', prefix);
-                message = prefix + message;
+                template = MessageTemplate.compile(message, prefix);
+                templates.put(key, template);
             }
         }
 
-        return message;
-    }
-
-    /**
-     * 替换消息中的变量
-     *
-     * @param message 原始消息
-     * @param replacements 变量替换，格式为 {key, value, key, value, ...}
-     * @return 替换后的消息
-     */
-    private String replaceVariables(String message, Object... replacements) {
-        if (replacements.length % 2 != 0) {
+        if (replacements != null && replacements.length % 2 != 0) {
             LOGGER.warning("XiMultiLogin: Invalid number of replacements");
-            return message;
+            replacements = null;
         }
 
-        String result = message;
-        for (int i = 0; i < replacements.length; i += 2) {
-            String key = replacements[i].toString();
-            String value = replacements[i + 1].toString();
-            result = result.replace("{" + key + "}", value);
-        }
-        return result;
+        return template.render(withPrefix, replacements);
     }
 
     /**
@@ -185,6 +162,33 @@ public class MessageManager {
         return messages.getString("prefix", "&6[XiMultiLogin] &r");
     }
 
+    /**
+     * 严格解析磁盘上的 messages.yml，不影响当前已加载的消息
+     *
+     * @return 解析得到的消息配置
+     * @throws InvalidConfigurationException YAML 语法错误或文件无法读取
+     */
+    public FileConfiguration parseMessages() throws InvalidConfigurationException {
+        YamlConfiguration candidate = new YamlConfiguration();
+        try {
+            candidate.load(messagesFile);
+        } catch (IOException e) {
+            throw new InvalidConfigurationException("Cannot read messages.yml: " + e.getMessage());
+        }
+        return candidate;
+    }
+
+    /**
+     * 应用已解析的消息配置
+     *
+     * @param parsed 由 parseMessages 返回的消息配置
+     */
+    public void applyMessages(FileConfiguration parsed) {
+        messages = parsed;
+        loadMessagesToCache();
+        LOGGER.info("XiMultiLogin: Messages applied");
+    }
+
     /**
      * 重新加载消息配置
      */
@@ -192,4 +196,115 @@ public class MessageManager {
         loadMessages();
         LOGGER.info("XiMultiLogin: Messages reloaded");
     }
+
+    /**
+     * 已编译的消息模板
+     * 编译时处理颜色代码并把前缀拼接到第一段文本，占位符拆分为槽位，每个槽位记录变量名的序号。
+     * 渲染时扫描一遍变量替换按序号取值，再按精确长度一次性写入 StringBuilder；变量值原样插入，其中的 & 不作为颜色代码
+     */
+    static final class MessageTemplate {
+        // literals.length == slots.length + 1，渲染顺序为 literal[0] slot[0] literal[1] ... literal[n]
+        private final String[] literals;
+        // 带前缀的第一段文本
+        private final String prefixedFirst;
+        // 每个槽位对应的变量序号，指向 names
+        private final int[] slots;
+        private final String[] names;
+        private final Map<String, Integer> nameIndex;
+        private final int literalLength;
+
+        private MessageTemplate(String[] literals, String prefix, int[] slots, String[] names) {
+            this.literals = literals;
+            this.prefixedFirst = prefix.concat(literals[0]);
+            this.slots = slots;
+            this.names = names;
+            this.nameIndex = new HashMap<>(names.length * 2);
+            for (int i = 0; i < names.length; i++) {
+                nameIndex.put(names[i], i);
+            }
+            int length = 0;
+            for (int i = 1; i < literals.length; i++) {
+                length += literals[i].length();
+            }
+            this.literalLength = length;
+        }
+
+        /**
+         * 编译消息模板
+         *
+         * @param raw 原始消息
+         * @param prefix 已处理颜色的前缀
+         * @return 消息模板
+         */
+        static MessageTemplate compile(String raw, String prefix) {
+            List<String> literals = new ArrayList<>();
+            List<String> names = new ArrayList<>();
+            List<Integer> slots = new ArrayList<>();
+            int literalStart = 0;
+            int open = raw.indexOf('{');
+            while (open >= 0) {
+                int close = raw.indexOf('}', open + 1);
+                if (close < 0) {
+                    break;
+                }
+                literals.add(ChatColor.translateAlternateColorCodes('&', raw.substring(literalStart, open)));
+                String name = raw.substring(open + 1, close);
+                int index = names.indexOf(name);
+                if (index < 0) {
+                    index = names.size();
+                    names.add(name);
+                }
+                slots.add(index);
+                literalStart = close + 1;
+                open = raw.indexOf('{', literalStart);
+            }
+            literals.add(ChatColor.translateAlternateColorCodes('&', raw.substring(literalStart)));
+            int[] slotIndexes = new int[slots.size()];
+            for (int i = 0; i < slotIndexes.length; i++) {
+                slotIndexes[i] = slots.get(i);
+            }
+            return new MessageTemplate(literals.toArray(new String[0]), prefix, slotIndexes, names.toArray(new String[0]));
+        }
+
+        /**
+         * 渲染消息
+         *
+         * @param withPrefix 是否带前缀
+         * @param replacements 变量替换，格式为 {key, value, key, value, ...}，可为 null
+         * @return 渲染后的消息
+         */
+        String render(boolean withPrefix, Object[] replacements) {
+            String first = withPrefix ? prefixedFirst : literals[0];
+            if (slots.length == 0) {
+                return first;
+            }
+            // 扫描一遍变量替换，按变量序号放入数组；同名变量以第一个为准
+            String[] values = new String[names.length];
+            if (replacements != null) {
+                for (int i = 0; i < replacements.length; i += 2) {
+                    Integer index = nameIndex.get(String.valueOf(replacements[i]));
+                    if (index != null && values[index] == null) {
+                        values[index] = String.valueOf(replacements[i + 1]);
+                    }
+                }
+            }
+            int length = first.length() + literalLength;
+            for (int slot : slots) {
+                length += values[slot] != null ? values[slot].length() : names[slot].length() + 2;
+            }
+            StringBuilder out = new StringBuilder(length);
+            out.append(first);
+            for (int i = 0; i < slots.length; i++) {
+                String value = values[slots[i]];
+                if (value != null) {
+                    out.append(value);
+                } else {
+                    // 未提供的变量保持原样
+                    out.append('{').append(names[slots[i]]).append('}');
+                }
+                out.append(literals[i + 1]);
+            }
+            return out.toString();
+        }
+    }
 }
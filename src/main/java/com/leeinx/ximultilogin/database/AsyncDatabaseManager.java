@@ -2,6 +2,7 @@ package com.Leeinx.ximultilogin.database;
 
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * 异步数据库管理器接口
@@ -21,6 +22,16 @@ public interface AsyncDatabaseManager {
      */
     void close();
 
+    /**
+     * 调整数据库线程池和连接池大小
+     * 运行时生效，进行中的操作不受影响
+     * 
+     * @param threadCount     数据库线程数
+     * @param maximumPoolSize 最大连接数
+     * @param minimumIdle     最小空闲连接数
+     */
+    void resize(int threadCount, int maximumPoolSize, int minimumIdle);
+
     /**
      * 异步存储身份映射
      * 
@@ -124,4 +135,71 @@ public interface AsyncDatabaseManager {
      * @return 是否删除成功
      */
     boolean deleteIdentity(String name);
-}
\ No newline at end of file
+
+    /**
+     * 异步流式读取所有玩家名称
+     * 
+     * @param consumer 名称消费者（在数据库线程上调用）
+     * @return 是否读取成功的 CompletableFuture
+     */
+    CompletableFuture<Boolean> streamNamesAsync(Consumer<String> consumer);
+
+    /**
+     * 异步统计批量更新认证提供者将影响的行数
+     * 
+     * @param fromProvider 原认证提供者名称，为 null 时不限制
+     * @param namePattern  名称 LIKE 模式，为 null 时不限制
+     * @param toProvider   新的认证提供者名称
+     * @return 将被更新行数的 CompletableFuture，失败为 -1
+     */
+    CompletableFuture<Integer> countAuthProviderBatchAsync(String fromProvider, String namePattern, String toProvider);
+
+    /**
+     * 同步统计批量更新认证提供者将影响的行数
+     * 
+     * @param fromProvider 原认证提供者名称，为 null 时不限制
+     * @param namePattern  名称 LIKE 模式，为 null 时不限制
+     * @param toProvider   新的认证提供者名称
+     * @return 将被更新的行数，失败返回 -1
+     */
+    int countAuthProviderBatch(String fromProvider, String namePattern, String toProvider);
+
+    /**
+     * 异步读取 identities 表的 id 范围
+     * 
+     * @return {最小 id, 最大 id} 的 CompletableFuture，表为空时为 {0, -1}，失败为 null
+     */
+    CompletableFuture<long[]> getIdRangeAsync();
+
+    /**
+     * 同步读取 identities 表的 id 范围
+     * 
+     * @return {最小 id, 最大 id}，表为空时返回 {0, -1}，失败返回 null
+     */
+    long[] getIdRange();
+
+    /**
+     * 异步更新一个 id 区间内的认证提供者
+     * 每个区间是数据库线程池中的一个独立任务，登录查询可以插在区间之间执行
+     * 
+     * @param fromProvider 原认证提供者名称，为 null 时不限制
+     * @param namePattern  名称 LIKE 模式，为 null 时不限制
+     * @param toProvider   新的认证提供者名称
+     * @param startId      区间起点（包含）
+     * @param endId        区间终点（不包含）
+     * @return 更新行数的 CompletableFuture，失败为 -1
+     */
+    CompletableFuture<Integer> updateAuthProviderRangeAsync(String fromProvider, String namePattern, String toProvider, long startId, long endId);
+
+    /**
+     * 同步更新一个 id 区间内的认证提供者
+     * 
+     * @param fromProvider 原认证提供者名称，为 null 时不限制
+     * @param namePattern  名称 LIKE 模式，为 null 时不限制
+     * @param toProvider   新的认证提供者名称
+     * @param startId      区间起点（包含）
+     * @param endId        区间终点（不包含）
+     * @return 更新的行数，失败返回 -1
+     */
+    int updateAuthProviderRange(String fromProvider, String namePattern, String toProvider, long startId, long endId);
+}
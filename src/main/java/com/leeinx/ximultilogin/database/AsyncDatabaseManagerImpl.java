@@ -4,8 +4,9 @@ import org.bukkit.Bukkit;
 
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
 
 /**
@@ -16,7 +17,7 @@ public class AsyncDatabaseManagerImpl implements AsyncDatabaseManager {
 
     private static final Logger LOGGER = Bukkit.getLogger();
     private final DatabaseManager delegate;
-    private final ExecutorService executorService;
+    private final ThreadPoolExecutor executorService;
 
     /**
      * 构造 AsyncDatabaseManagerImpl
@@ -28,7 +29,7 @@ public class AsyncDatabaseManagerImpl implements AsyncDatabaseManager {
         this.delegate = delegate;
         // 创建固定大小的线程池
         int finalThreadCount = Math.max(2, threadCount);
-        this.executorService = Executors.newFixedThreadPool(finalThreadCount, r -> {
+        this.executorService = (ThreadPoolExecutor) Executors.newFixedThreadPool(finalThreadCount, r -> {
             Thread thread = new Thread(r, "XiMultiLogin-DB-Thread");
             thread.setDaemon(true);
             return thread;
@@ -57,6 +58,21 @@ public class AsyncDatabaseManagerImpl implements AsyncDatabaseManager {
         LOGGER.info("AsyncDatabaseManager: Closed");
     }
 
+    @Override
+    public void resize(int threadCount, int maximumPoolSize, int minimumIdle) {
+        int finalThreadCount = Math.max(2, threadCount);
+        // 扩容先调最大值，缩容先调核心值，保证 core <= max
+        if (finalThreadCount > executorService.getMaximumPoolSize()) {
+            executorService.setMaximumPoolSize(finalThreadCount);
+            executorService.setCorePoolSize(finalThreadCount);
+        } else {
+            executorService.setCorePoolSize(finalThreadCount);
+            executorService.setMaximumPoolSize(finalThreadCount);
+        }
+        delegate.resizePool(maximumPoolSize, minimumIdle);
+        LOGGER.info("AsyncDatabaseManager: Resized to " + finalThreadCount + " threads");
+    }
+
     @Override
     public CompletableFuture<Boolean> storeIdentityAsync(String name, UUID uuid, String authProvider) {
         return CompletableFuture.supplyAsync(() -> {
@@ -158,4 +174,67 @@ public class AsyncDatabaseManagerImpl implements AsyncDatabaseManager {
     public boolean deleteIdentity(String name) {
         return delegate.deleteIdentity(name);
     }
-}
\ No newline at end of file
+
+    @Override
+    public CompletableFuture<Boolean> streamNamesAsync(Consumer<String> consumer) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return delegate.streamNames(consumer);
+            } catch (Exception e) {
+                LOGGER.severe("AsyncDatabaseManager: Error streaming names: " + e.getMessage());
+                return false;
+            }
+        }, executorService);
+    }
+
+    @Override
+    public CompletableFuture<Integer> countAuthProviderBatchAsync(String fromProvider, String namePattern, String toProvider) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return delegate.countAuthProviderBatch(fromProvider, namePattern, toProvider);
+            } catch (Exception e) {
+                LOGGER.severe("AsyncDatabaseManager: Error counting batch update: " + e.getMessage());
+                return -1;
+            }
+        }, executorService);
+    }
+
+    @Override
+    public int countAuthProviderBatch(String fromProvider, String namePattern, String toProvider) {
+        return delegate.countAuthProviderBatch(fromProvider, namePattern, toProvider);
+    }
+
+    @Override
+    public CompletableFuture<long[]> getIdRangeAsync() {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return delegate.getIdRange();
+            } catch (Exception e) {
+                LOGGER.severe("AsyncDatabaseManager: Error reading id range: " + e.getMessage());
+                return null;
+            }
+        }, executorService);
+    }
+
+    @Override
+    public long[] getIdRange() {
+        return delegate.getIdRange();
+    }
+
+    @Override
+    public CompletableFuture<Integer> updateAuthProviderRangeAsync(String fromProvider, String namePattern, String toProvider, long startId, long endId) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return delegate.updateAuthProviderRange(fromProvider, namePattern, toProvider, startId, endId);
+            } catch (Exception e) {
+                LOGGER.severe("AsyncDatabaseManager: Error updating auth provider range: " + e.getMessage());
+                return -1;
+            }
+        }, executorService);
+    }
+
+    @Override
+    public int updateAuthProviderRange(String fromProvider, String namePattern, String toProvider, long startId, long endId) {
+        return delegate.updateAuthProviderRange(fromProvider, namePattern, toProvider, startId, endId);
+    }
+}
@@ -48,7 +48,9 @@ public class DatabaseFactory {
             dataFolder.mkdirs();
         }
         File dbFile = new File(dataFolder, "ximultilogin.db");
-        return new SQLiteDatabaseManager(dbFile.getAbsolutePath());
+        ConfigManager.DatabaseConfig databaseConfig = configManager.getDatabaseConfig();
+        return new SQLiteDatabaseManager(dbFile.getAbsolutePath(),
+                databaseConfig.getMaximumPoolSize(), databaseConfig.getMinimumIdle());
     }
 
     /**
@@ -63,7 +65,9 @@ public class DatabaseFactory {
                 databaseConfig.getPort(),
                 databaseConfig.getDatabase(),
                 databaseConfig.getUsername(),
-                databaseConfig.getPassword()
+                databaseConfig.getPassword(),
+                databaseConfig.getMaximumPoolSize(),
+                databaseConfig.getMinimumIdle()
         );
     }
 }
@@ -1,6 +1,7 @@
 package com.Leeinx.ximultilogin.database;
 
 import java.util.UUID;
+import java.util.function.Consumer;
 
 /**
  * 数据库管理器接口
@@ -20,6 +21,15 @@ public interface DatabaseManager {
      */
     void close();
 
+    /**
+     * 调整连接池大小
+     * 运行时生效，无需重建连接池
+     * 
+     * @param maximumPoolSize 最大连接数
+     * @param minimumIdle     最小空闲连接数
+     */
+    void resizePool(int maximumPoolSize, int minimumIdle);
+
     /**
      * 存储身份映射
      * 
@@ -71,4 +81,58 @@ public interface DatabaseManager {
      * @return 是否删除成功
      */
     boolean deleteIdentity(String name);
+
+    /**
+     * 流式读取所有玩家名称
+     * 逐行回调，不在内存中聚合整个结果集
+     * 
+     * @param consumer 名称消费者
+     * @return 是否读取成功
+     */
+    boolean streamNames(Consumer<String> consumer);
+
+    /**
+     * 统计批量更新认证提供者将影响的行数（用于 dry-run）
+     * 
+     * @param fromProvider 原认证提供者名称，为 null 时不限制
+     * @param namePattern  名称 LIKE 模式（以 \ 转义），为 null 时不限制
+     * @param toProvider   新的认证提供者名称
+     * @return 将被更新的行数，失败返回 -1
+     */
+    int countAuthProviderBatch(String fromProvider, String namePattern, String toProvider);
+
+    /**
+     * 读取 identities 表的 id 范围，用于分块批量更新
+     * 
+     * @return {最小 id, 最大 id}，表为空时返回 {0, -1}，失败返回 null
+     */
+    long[] getIdRange();
+
+    /**
+     * 更新一个 id 区间内的认证提供者
+     * 批量更新按区间分块，每个区间一条集合式 UPDATE，避免长时间持有写锁
+     * 
+     * @param fromProvider 原认证提供者名称，为 null 时不限制
+     * @param namePattern  名称 LIKE 模式（以 \ 转义），为 null 时不限制
+     * @param toProvider   新的认证提供者名称
+     * @param startId      区间起点（包含）
+     * @param endId        区间终点（不包含）
+     * @return 更新的行数，失败返回 -1
+     */
+    int updateAuthProviderRange(String fromProvider, String namePattern, String toProvider, long startId, long endId);
+
+    /**
+     * 批量更新进度监听器
+     */
+    interface BatchProgressListener {
+
+        /**
+         * 每处理完一个区间调用一次
+         * 
+         * @param updated  目前已更新的行数
+         * @param scanned  目前已扫描的 id 数量
+         * @param idSpan   需要扫描的 id 总跨度
+         */
+        void onProgress(int updated, long scanned, long idSpan);
+    }
 }
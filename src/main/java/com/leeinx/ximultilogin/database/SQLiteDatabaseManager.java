@@ -6,6 +6,7 @@ import org.bukkit.Bukkit;
 
 import java.sql.*;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
 
 /**
@@ -17,6 +18,8 @@ public class SQLiteDatabaseManager implements DatabaseManager {
     private static final Logger LOGGER = Bukkit.getLogger();
     private HikariDataSource dataSource;
     private final String dbPath;
+    private final int maximumPoolSize;
+    private final int minimumIdle;
 
     /**
      * 构造 SQLiteDatabaseManager
@@ -24,7 +27,20 @@ public class SQLiteDatabaseManager implements DatabaseManager {
      * @param dbPath 数据库文件路径
      */
     public SQLiteDatabaseManager(String dbPath) {
+        this(dbPath, 10, 2);
+    }
+
+    /**
+     * 构造 SQLiteDatabaseManager
+     * 
+     * @param dbPath          数据库文件路径
+     * @param maximumPoolSize 最大连接数
+     * @param minimumIdle     最小空闲连接数
+     */
+    public SQLiteDatabaseManager(String dbPath, int maximumPoolSize, int minimumIdle) {
         this.dbPath = dbPath;
+        this.maximumPoolSize = maximumPoolSize;
+        this.minimumIdle = minimumIdle;
     }
 
     /**
@@ -38,8 +54,8 @@ public class SQLiteDatabaseManager implements DatabaseManager {
             // 配置 HikariCP
             HikariConfig config = new HikariConfig();
             config.setJdbcUrl("jdbc:sqlite:" + dbPath);
-            config.setMaximumPoolSize(10);
-            config.setMinimumIdle(2);
+            config.setMaximumPoolSize(maximumPoolSize);
+            config.setMinimumIdle(Math.min(minimumIdle, maximumPoolSize));
             config.setConnectionTimeout(30000);
             config.setIdleTimeout(600000);
             config.setMaxLifetime(1800000);
@@ -89,6 +105,22 @@ public class SQLiteDatabaseManager implements DatabaseManager {
         }
     }
 
+    /**
+     * 调整连接池大小
+     * 
+     * @param maximumPoolSize 最大连接数
+     * @param minimumIdle     最小空闲连接数
+     */
+    @Override
+    public void resizePool(int maximumPoolSize, int minimumIdle) {
+        if (dataSource == null) {
+            return;
+        }
+        dataSource.getHikariConfigMXBean().setMaximumPoolSize(maximumPoolSize);
+        dataSource.getHikariConfigMXBean().setMinimumIdle(Math.min(minimumIdle, maximumPoolSize));
+        LOGGER.info("SQLiteDatabaseManager: Pool resized (max: " + maximumPoolSize + ", min idle: " + minimumIdle + ")");
+    }
+
     /**
      * 存储身份映射
      * 
@@ -233,4 +265,143 @@ public class SQLiteDatabaseManager implements DatabaseManager {
             return false;
         }
     }
+
+    /**
+     * 流式读取所有玩家名称
+     * 
+     * @param consumer 名称消费者
+     * @return 是否读取成功
+     */
+    @Override
+    public boolean streamNames(Consumer<String> consumer) {
+        try (Connection conn = dataSource.getConnection();
+             Statement stmt = conn.createStatement()) {
+            
+            stmt.setFetchSize(500);
+            try (ResultSet rs = stmt.executeQuery("SELECT name FROM identities")) {
+                while (rs.next()) {
+                    consumer.accept(rs.getString(1));
+                }
+            }
+            return true;
+        } catch (SQLException e) {
+            LOGGER.severe("SQLiteDatabaseManager: Failed to stream names: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 统计批量更新认证提供者将影响的行数
+     * 
+     * @param fromProvider 原认证提供者名称，为 null 时不限制
+     * @param namePattern  名称 LIKE 模式，为 null 时不限制
+     * @param toProvider   新的认证提供者名称
+     * @return 将被更新的行数，失败返回 -1
+     */
+    @Override
+    public int countAuthProviderBatch(String fromProvider, String namePattern, String toProvider) {
+        String sql = "SELECT COUNT(*) FROM identities WHERE " + buildBatchFilter(fromProvider, namePattern);
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            bindBatchFilter(pstmt, 1, fromProvider, namePattern, toProvider);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.severe("SQLiteDatabaseManager: Failed to count batch update: " + e.getMessage());
+            return -1;
+        }
+        return 0;
+    }
+
+    /**
+     * 读取 identities 表的 id 范围
+     * 
+     * @return {最小 id, 最大 id}，表为空时返回 {0, -1}，失败返回 null
+     */
+    @Override
+    public long[] getIdRange() {
+        try (Connection conn = dataSource.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MIN(id), MAX(id) FROM identities")) {
+            
+            if (!rs.next() || rs.getObject(1) == null) {
+                return new long[]{0, -1};
+            }
+            return new long[]{rs.getLong(1), rs.getLong(2)};
+        } catch (SQLException e) {
+            LOGGER.severe("SQLiteDatabaseManager: Failed to read id range: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 更新一个 id 区间内的认证提供者
+     * 每个区间一条语句，避免长时间持有数据库写锁
+     * 
+     * @param fromProvider 原认证提供者名称，为 null 时不限制
+     * @param namePattern  名称 LIKE 模式，为 null 时不限制
+     * @param toProvider   新的认证提供者名称
+     * @param startId      区间起点（包含）
+     * @param endId        区间终点（不包含）
+     * @return 更新的行数，失败返回 -1
+     */
+    @Override
+    public int updateAuthProviderRange(String fromProvider, String namePattern, String toProvider, long startId, long endId) {
+        String sql = "UPDATE identities SET auth_provider = ? WHERE id >= ? AND id < ? AND "
+                + buildBatchFilter(fromProvider, namePattern);
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setString(1, toProvider);
+            pstmt.setLong(2, startId);
+            pstmt.setLong(3, endId);
+            bindBatchFilter(pstmt, 4, fromProvider, namePattern, toProvider);
+            return pstmt.executeUpdate();
+        } catch (SQLException e) {
+            LOGGER.severe("SQLiteDatabaseManager: Failed to update auth provider range: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * 构建批量更新的过滤条件
+     * 
+     * @param fromProvider 原认证提供者名称，为 null 时不限制
+     * @param namePattern  名称 LIKE 模式，为 null 时不限制
+     * @return WHERE 子句片段
+     */
+    private String buildBatchFilter(String fromProvider, String namePattern) {
+        StringBuilder filter = new StringBuilder("auth_provider <> ?");
+        if (fromProvider != null) {
+            filter.append(" AND auth_provider = ?");
+        }
+        if (namePattern != null) {
+            filter.append(" AND name LIKE ? ESCAPE '\\'");
+        }
+        return filter.toString();
+    }
+
+    /**
+     * 绑定批量更新过滤条件的参数
+     * 
+     * @param pstmt        预编译语句
+     * @param index        起始参数位置
+     * @param fromProvider 原认证提供者名称，为 null 时不限制
+     * @param namePattern  名称 LIKE 模式，为 null 时不限制
+     * @param toProvider   新的认证提供者名称
+     * @throws SQLException 绑定失败
+     */
+    private void bindBatchFilter(PreparedStatement pstmt, int index, String fromProvider, String namePattern, String toProvider) throws SQLException {
+        pstmt.setString(index++, toProvider);
+        if (fromProvider != null) {
+            pstmt.setString(index++, fromProvider);
+        }
+        if (namePattern != null) {
+            pstmt.setString(index, namePattern);
+        }
+    }
 }
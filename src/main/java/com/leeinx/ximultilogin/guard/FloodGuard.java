@@ -0,0 +1,229 @@
+package com.Leeinx.ximultilogin.guard;
+
+import java.net.InetAddress;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 登录洪泛防护
+ * 在任何认证提供者或数据库操作之前，按 IP 和玩家名限速，并拒绝近期从同一 IP 多次认证失败的玩家名。
+ * 失败记录按“玩家名 + IP”计数，其他 IP 上的失败不会让该玩家名被拒绝，避免任何人都能锁定他人的名称。
+ * 限速桶和失败记录都按精确的 IP / 玩家名保存在有上限的 LRU 表中，每次检查 O(1)：
+ * 不同的名称从不共享状态，大量随机名称只会挤掉最久未使用的记录（让它们重新开始计数），不会锁定其他玩家。
+ */
+public class FloodGuard {
+
+    private static final int DEFAULT_MAX_KEYS = 16384;
+
+    private final RateLimiter ipLimiter;
+    private final RateLimiter nameLimiter;
+    private final LruMap<Strike> strikes;
+    private final int denyAfterFailures;
+    private final long denyMillis;
+    private final AtomicLong rejected = new AtomicLong();
+    private volatile boolean connectionLayerActive;
+
+    /**
+     * 构造 FloodGuard
+     *
+     * @param ipPerMinute       每个 IP 每分钟允许的登录次数
+     * @param ipBurst           每个 IP 允许的突发次数
+     * @param namePerMinute     每个玩家名每分钟允许的登录次数
+     * @param nameBurst         每个玩家名允许的突发次数
+     * @param denyAfterFailures 连续认证失败多少次后拒绝
+     * @param denySeconds       拒绝持续时间（秒）
+     */
+    public FloodGuard(int ipPerMinute, int ipBurst, int namePerMinute, int nameBurst, int denyAfterFailures, int denySeconds) {
+        this(ipPerMinute, ipBurst, namePerMinute, nameBurst, denyAfterFailures, denySeconds, DEFAULT_MAX_KEYS);
+    }
+
+    /**
+     * 构造 FloodGuard
+     *
+     * @param ipPerMinute       每个 IP 每分钟允许的登录次数
+     * @param ipBurst           每个 IP 允许的突发次数
+     * @param namePerMinute     每个玩家名每分钟允许的登录次数
+     * @param nameBurst         每个玩家名允许的突发次数
+     * @param denyAfterFailures 连续认证失败多少次后拒绝
+     * @param denySeconds       拒绝持续时间（秒）
+     * @param maxKeys           每个表最多保存的 IP / 玩家名数量
+     */
+    FloodGuard(int ipPerMinute, int ipBurst, int namePerMinute, int nameBurst, int denyAfterFailures, int denySeconds, int maxKeys) {
+        this.ipLimiter = new RateLimiter(ipPerMinute, ipBurst, maxKeys);
+        this.nameLimiter = new RateLimiter(namePerMinute, nameBurst, maxKeys);
+        this.strikes = new LruMap<>(maxKeys);
+        this.denyAfterFailures = denyAfterFailures;
+        this.denyMillis = TimeUnit.SECONDS.toMillis(denySeconds);
+    }
+
+    /**
+     * 标记连接层检查是否已启用
+     * 启用后连接层负责限速，会话层只检查拒绝名单，避免同一次登录被计数两次
+     *
+     * @param active 连接层检查是否已启用
+     */
+    public void setConnectionLayerActive(boolean active) {
+        this.connectionLayerActive = active;
+    }
+
+    /**
+     * 连接层检查（收到 LoginStart 时调用）
+     *
+     * @param address 客户端地址（可为 null）
+     * @param name    玩家名称
+     * @return 是否放行
+     */
+    public boolean admitConnection(InetAddress address, String name) {
+        return admit(address, name, true);
+    }
+
+    /**
+     * 会话层检查（hasJoinedServer 开始时调用）
+     *
+     * @param name    玩家名称
+     * @param address 客户端地址（可为 null）
+     * @return 是否放行
+     */
+    public boolean admitSession(String name, InetAddress address) {
+        return admit(address, name, !connectionLayerActive);
+    }
+
+    private boolean admit(InetAddress address, String name, boolean limit) {
+        String key = name == null ? "" : name.toLowerCase(Locale.ROOT);
+        boolean allowed = !isDenied(strikeKey(name, address))
+                && (!limit || address == null || ipLimiter.tryAcquire(address.getHostAddress()))
+                && (!limit || nameLimiter.tryAcquire(key));
+        if (!allowed) {
+            rejected.incrementAndGet();
+        }
+        return allowed;
+    }
+
+    /**
+     * 记录一次认证失败（只应在登录确实被拒绝时调用）
+     * 地址未知时不计数，失败不会只按玩家名归属
+     *
+     * @param name    玩家名称
+     * @param address 客户端地址（可为 null）
+     */
+    public void recordFailure(String name, InetAddress address) {
+        String key = strikeKey(name, address);
+        if (key == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        synchronized (strikes) {
+            Strike current = strikes.get(key);
+            int failures = current != null && current.expiresAt > now ? current.failures + 1 : 1;
+            strikes.put(key, new Strike(failures, now + denyMillis));
+        }
+    }
+
+    /**
+     * 清除玩家在该地址上的失败记录（认证成功时调用）
+     *
+     * @param name    玩家名称
+     * @param address 客户端地址（可为 null）
+     */
+    public void clearFailures(String name, InetAddress address) {
+        String key = strikeKey(name, address);
+        if (key == null) {
+            return;
+        }
+        synchronized (strikes) {
+            strikes.remove(key);
+        }
+    }
+
+    private static String strikeKey(String name, InetAddress address) {
+        if (name == null || address == null) {
+            return null;
+        }
+        return name.toLowerCase(Locale.ROOT) + '@' + address.getHostAddress();
+    }
+
+    private boolean isDenied(String key) {
+        if (key == null) {
+            return false;
+        }
+        Strike strike;
+        synchronized (strikes) {
+            strike = strikes.get(key);
+        }
+        return strike != null
+                && strike.failures >= denyAfterFailures
+                && strike.expiresAt > System.currentTimeMillis();
+    }
+
+    /**
+     * 获取被拒绝的连接总数
+     *
+     * @return 被拒绝的连接数
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    /**
+     * 有上限的 LRU 表（访问顺序），超过上限时移除最久未使用的条目
+     * 调用方负责同步
+     */
+    private static final class LruMap<V> extends LinkedHashMap<String, V> {
+        private final int maxKeys;
+
+        LruMap(int maxKeys) {
+            super(Math.min(maxKeys, 256), 0.75f, true);
+            this.maxKeys = maxKeys;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+            return size() > maxKeys;
+        }
+    }
+
+    /**
+     * 玩家名 + IP 的失败记录（不可变，整体替换）
+     */
+    private static final class Strike {
+        final int failures;
+        final long expiresAt;
+
+        Strike(int failures, long expiresAt) {
+            this.failures = failures;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * 按键保存的令牌桶（GCRA 形式）
+     * 每个键只保存一个“理论到达时间”，取令牌和补充在一次查表中完成；
+     * 被挤出表的键等同于桶已满，只会让它的限速重新开始，不影响其它键
+     */
+    private static final class RateLimiter {
+        private final LruMap<Long> arrival;
+        private final long origin = System.nanoTime();
+        private final long intervalNanos;
+        private final long toleranceNanos;
+
+        RateLimiter(int perMinute, int burst, int maxKeys) {
+            this.arrival = new LruMap<>(maxKeys);
+            this.intervalNanos = TimeUnit.MINUTES.toNanos(1) / Math.max(1, perMinute);
+            this.toleranceNanos = intervalNanos * (Math.max(1, burst) - 1);
+        }
+
+        synchronized boolean tryAcquire(String key) {
+            long now = System.nanoTime() - origin;
+            Long current = arrival.get(key);
+            long base = current == null ? now : Math.max(current, now);
+            if (base - now > toleranceNanos) {
+                return false;
+            }
+            arrival.put(key, base + intervalNanos);
+            return true;
+        }
+    }
+}
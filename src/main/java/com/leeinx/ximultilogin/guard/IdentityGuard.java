@@ -6,6 +6,7 @@ import com.Leeinx.ximultilogin.database.DatabaseFactory;
 import com.Leeinx.ximultilogin.database.DatabaseManager;
 import org.bukkit.Bukkit;
 
+import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.logging.Logger;
@@ -17,7 +18,12 @@ import java.util.logging.Logger;
 public class IdentityGuard {
 
     private static final Logger LOGGER = Bukkit.getLogger();
+    private static final int MIGRATION_BATCH_SIZE = 1000;
     private final AsyncDatabaseManager databaseManager;
+    private static final int PREFETCH_MAX_ENTRIES = 1024;
+    private static final long PREFETCH_TTL_MILLIS = 10000;
+    private final NameIndex nameIndex = new NameIndex();
+    private final PrefetchCache prefetchCache = new PrefetchCache(PREFETCH_MAX_ENTRIES, PREFETCH_TTL_MILLIS);
 
     /**
      * 构造 IdentityGuard
@@ -33,6 +39,80 @@ public class IdentityGuard {
         LOGGER.info("IdentityGuard: Initialized successfully with async database operations");
     }
 
+    /**
+     * 使用已初始化的数据库管理器构造 IdentityGuard（测试用）
+     * 
+     * @param databaseManager 异步数据库管理器
+     */
+    IdentityGuard(AsyncDatabaseManager databaseManager) {
+        this.databaseManager = databaseManager;
+    }
+
+    /**
+     * 批量迁移的结果
+     * 每个区间是一条单独提交的 UPDATE：失败的区间整体回滚，之前的区间已经提交，之后的区间不再执行
+     */
+    public static final class MigrationResult {
+        private final int updated;
+        private final boolean complete;
+        private final long failedStartId;
+        private final long failedEndId;
+
+        private MigrationResult(int updated, boolean complete, long failedStartId, long failedEndId) {
+            this.updated = updated;
+            this.complete = complete;
+            this.failedStartId = failedStartId;
+            this.failedEndId = failedEndId;
+        }
+
+        static MigrationResult completed(int updated) {
+            return new MigrationResult(updated, true, -1, -1);
+        }
+
+        static MigrationResult failedAt(int updated, long startId, long endId) {
+            return new MigrationResult(updated, false, startId, endId);
+        }
+
+        static MigrationResult notStarted() {
+            return new MigrationResult(0, false, -1, -1);
+        }
+
+        /**
+         * @return 已提交的更新行数
+         */
+        public int getUpdated() {
+            return updated;
+        }
+
+        /**
+         * @return 是否所有区间都已执行
+         */
+        public boolean isComplete() {
+            return complete;
+        }
+
+        /**
+         * @return 是否在某个区间失败（否则为迁移未能开始或已完成）
+         */
+        public boolean hasFailedRange() {
+            return failedStartId >= 0;
+        }
+
+        /**
+         * @return 失败区间的起始 id（含），没有时为 -1
+         */
+        public long getFailedStartId() {
+            return failedStartId;
+        }
+
+        /**
+         * @return 失败区间的结束 id（含），没有时为 -1
+         */
+        public long getFailedEndId() {
+            return failedEndId;
+        }
+    }
+
     /**
      * 验证玩家身份
      * 
@@ -59,32 +139,52 @@ public class IdentityGuard {
             return CompletableFuture.completedFuture(false);
         }
         
-        return databaseManager.getUUIDAsync(name)
-                .thenCompose(storedUuid -> {
-                    if (storedUuid == null) {
-                        // 第一次登录，记录身份和认证方式
-                        return databaseManager.storeIdentityAsync(name, incomingUuid, authProvider)
-                                .thenApply(stored -> {
-                                    if (stored) {
-                                        LOGGER.info("IdentityGuard: New identity registered: " + name + " -> " + incomingUuid + " (" + authProvider + ")");
-                                        return true;
-                                    } else {
-                                        LOGGER.warning("IdentityGuard: Failed to store new identity: " + name + " -> " + incomingUuid + " (" + authProvider + ")");
-                                        return false;
-                                    }
-                                });
-                    } else {
-                        // 老玩家，更新认证方式，保持UUID不变
-                        return databaseManager.updateAuthProviderAsync(name, storedUuid, authProvider)
-                                .thenApply(updated -> {
-                                    if (updated) {
-                                        LOGGER.info("IdentityGuard: Auth provider updated for " + name + " to " + authProvider);
-                                    }
-                                    LOGGER.info("IdentityGuard: Identity verified: " + name + " -> " + storedUuid + " (using stored UUID)");
-                                    return true;
-                                });
-                    }
-                });
+        return getUUIDAsync(name)
+                .thenCompose(storedUuid -> verifyIdentityAsync(name, incomingUuid, authProvider, storedUuid));
+    }
+
+    /**
+     * 异步验证玩家身份（复用登录开始时已查询到的 UUID，不再查询数据库）
+     * 
+     * @param name 玩家名称
+     * @param incomingUuid 传入的 UUID
+     * @param authProvider 认证提供者名称
+     * @param storedUuid 已查询到的存储 UUID，不存在为 null
+     * @return 身份验证是否通过的 CompletableFuture
+     */
+    public CompletableFuture<Boolean> verifyIdentityAsync(String name, UUID incomingUuid, String authProvider, UUID storedUuid) {
+        if (name == null || incomingUuid == null || authProvider == null) {
+            LOGGER.warning("IdentityGuard: Name, UUID, or authProvider is null");
+            return CompletableFuture.completedFuture(false);
+        }
+
+        prefetchCache.beginWrite(name);
+        CompletableFuture<Boolean> result;
+        if (storedUuid == null) {
+            // 第一次登录，记录身份和认证方式
+            result = databaseManager.storeIdentityAsync(name, incomingUuid, authProvider)
+                    .thenApply(stored -> {
+                        if (stored) {
+                            nameIndex.add(name);
+                            LOGGER.info("IdentityGuard: New identity registered: " + name + " -> " + incomingUuid + " (" + authProvider + ")");
+                            return true;
+                        } else {
+                            LOGGER.warning("IdentityGuard: Failed to store new identity: " + name + " -> " + incomingUuid + " (" + authProvider + ")");
+                            return false;
+                        }
+                    });
+        } else {
+            // 老玩家，更新认证方式，保持UUID不变
+            result = databaseManager.updateAuthProviderAsync(name, storedUuid, authProvider)
+                    .thenApply(updated -> {
+                        if (updated) {
+                            LOGGER.info("IdentityGuard: Auth provider updated for " + name + " to " + authProvider);
+                        }
+                        LOGGER.info("IdentityGuard: Identity verified: " + name + " -> " + storedUuid + " (using stored UUID)");
+                        return true;
+                    });
+        }
+        return endWrite(name, result);
     }
     
     /**
@@ -113,31 +213,51 @@ public class IdentityGuard {
             return CompletableFuture.completedFuture(null);
         }
         
-        return databaseManager.getUUIDAsync(name)
-                .thenCompose(storedUuid -> {
-                    if (storedUuid == null) {
-                        // 第一次登录，使用传入的UUID
-                        return databaseManager.storeIdentityAsync(name, incomingUuid, authProvider)
-                                .thenApply(stored -> {
-                                    if (stored) {
-                                        LOGGER.info("IdentityGuard: Created new identity: " + name + " -> " + incomingUuid + " (" + authProvider + ")");
-                                        return incomingUuid;
-                                    } else {
-                                        LOGGER.warning("IdentityGuard: Failed to create identity: " + name);
-                                        return null;
-                                    }
-                                });
-                    } else {
-                        // 老玩家，更新认证方式，返回存储的UUID
-                        return databaseManager.updateAuthProviderAsync(name, storedUuid, authProvider)
-                                .thenApply(updated -> {
-                                    if (updated) {
-                                        LOGGER.info("IdentityGuard: Updated auth provider for " + name + " to " + authProvider + " (keeping UUID: " + storedUuid + ")");
-                                    }
-                                    return storedUuid;
-                                });
-                    }
-                });
+        return getUUIDAsync(name)
+                .thenCompose(storedUuid -> getOrCreateIdentityAsync(name, incomingUuid, authProvider, storedUuid));
+    }
+
+    /**
+     * 异步获取或创建玩家身份（复用登录开始时已查询到的 UUID，不再查询数据库）
+     * 
+     * @param name 玩家名称
+     * @param incomingUuid 传入的 UUID
+     * @param authProvider 认证提供者名称
+     * @param storedUuid 已查询到的存储 UUID，不存在为 null
+     * @return 固定的 UUID 的 CompletableFuture
+     */
+    public CompletableFuture<UUID> getOrCreateIdentityAsync(String name, UUID incomingUuid, String authProvider, UUID storedUuid) {
+        if (name == null || incomingUuid == null || authProvider == null) {
+            LOGGER.warning("IdentityGuard: Name, UUID, or authProvider is null");
+            return CompletableFuture.completedFuture(null);
+        }
+
+        prefetchCache.beginWrite(name);
+        CompletableFuture<UUID> result;
+        if (storedUuid == null) {
+            // 第一次登录，使用传入的UUID
+            result = databaseManager.storeIdentityAsync(name, incomingUuid, authProvider)
+                    .thenApply(stored -> {
+                        if (stored) {
+                            nameIndex.add(name);
+                            LOGGER.info("IdentityGuard: Created new identity: " + name + " -> " + incomingUuid + " (" + authProvider + ")");
+                            return incomingUuid;
+                        } else {
+                            LOGGER.warning("IdentityGuard: Failed to create identity: " + name);
+                            return null;
+                        }
+                    });
+        } else {
+            // 老玩家，更新认证方式，返回存储的UUID
+            result = databaseManager.updateAuthProviderAsync(name, storedUuid, authProvider)
+                    .thenApply(updated -> {
+                        if (updated) {
+                            LOGGER.info("IdentityGuard: Updated auth provider for " + name + " to " + authProvider + " (keeping UUID: " + storedUuid + ")");
+                        }
+                        return storedUuid;
+                    });
+        }
+        return endWrite(name, result);
     }
 
     /**
@@ -157,6 +277,10 @@ public class IdentityGuard {
      * @return 认证提供者名称的 CompletableFuture，若不存在返回 null
      */
     public CompletableFuture<String> getAuthProviderAsync(String name) {
+        PrefetchCache.Entry prefetched = prefetchCache.get(name);
+        if (prefetched != null) {
+            return prefetched.authProvider;
+        }
         return databaseManager.getAuthProviderAsync(name);
     }
 
@@ -177,9 +301,30 @@ public class IdentityGuard {
      * @return 玩家UUID的 CompletableFuture，若不存在返回 null
      */
     public CompletableFuture<UUID> getUUIDAsync(String name) {
+        PrefetchCache.Entry prefetched = prefetchCache.get(name);
+        if (prefetched != null) {
+            return prefetched.uuid;
+        }
         return databaseManager.getUUIDAsync(name);
     }
 
+    /**
+     * 预取玩家记录
+     * 在连接层收到 LoginStart 时调用，使数据库查询与客户端加密握手并行进行；
+     * 随后的 getAuthProviderAsync / getUUIDAsync 在短时间内直接复用查询结果
+     * 
+     * @param name 玩家名称
+     */
+    public void prefetch(String name) {
+        if (name == null || name.isEmpty()) {
+            return;
+        }
+        prefetchCache.prefetch(name, expiresAt -> new PrefetchCache.Entry(
+                databaseManager.getAuthProviderAsync(name),
+                databaseManager.getUUIDAsync(name),
+                expiresAt));
+    }
+
     /**
      * 更新玩家的认证提供者
      * 
@@ -207,7 +352,8 @@ public class IdentityGuard {
         }
         
         // 检查玩家是否存在
-        return databaseManager.getUUIDAsync(name)
+        prefetchCache.beginWrite(name);
+        return endWrite(name, databaseManager.getUUIDAsync(name)
                 .thenCompose(storedUuid -> {
                     if (storedUuid != null) {
                         // 玩家已存在，使用存储的UUID，只更新认证方式
@@ -225,6 +371,7 @@ public class IdentityGuard {
                         return databaseManager.storeIdentityAsync(name, uuid, authProvider)
                                 .thenApply(stored -> {
                                     if (stored) {
+                                        nameIndex.add(name);
                                         LOGGER.info("IdentityGuard: New identity registered: " + name + " -> " + uuid + " (" + authProvider + ")");
                                     } else {
                                         LOGGER.warning("IdentityGuard: Failed to store new identity: " + name + " -> " + uuid + " (" + authProvider + ")");
@@ -236,9 +383,175 @@ public class IdentityGuard {
                         LOGGER.warning("IdentityGuard: Player not found and no UUID provided for " + name);
                         return CompletableFuture.completedFuture(false);
                     }
+                }));
+    }
+
+    /**
+     * 写操作完成（无论成功与否）后再次使预取条目失效
+     * 写入期间发起的预取可能读到旧记录，必须在写入落盘之后丢弃
+     * 
+     * @param name  玩家名称
+     * @param write 写操作
+     * @return 写操作完成且预取条目已失效后完成的 CompletableFuture
+     */
+    private <T> CompletableFuture<T> endWrite(String name, CompletableFuture<T> write) {
+        return write.whenComplete((result, ex) -> prefetchCache.endWrite(name));
+    }
+
+    /**
+     * 按前缀补全已知玩家名称
+     * 只查询内存索引；索引在第一次调用时于数据库线程上流式构建，构建完成前可能返回不完整的结果
+     * 
+     * @param prefix 名称前缀（忽略大小写）
+     * @param limit  最多返回的数量
+     * @return 匹配的玩家名称
+     */
+    public List<String> completeNames(String prefix, int limit) {
+        if (nameIndex.beginLoad()) {
+            databaseManager.streamNamesAsync(nameIndex::add).thenAccept(nameIndex::finishLoad);
+        }
+        return nameIndex.complete(prefix, limit);
+    }
+
+    /**
+     * 异步统计批量迁移将影响的玩家数量（dry-run）
+     * 
+     * @param fromProvider 原认证提供者名称，为 null 时不限制
+     * @param nameGlob     玩家名称通配符（支持 * 和 ?），为 null 时不限制
+     * @param toProvider   新的认证提供者名称
+     * @return 将被迁移的玩家数量的 CompletableFuture，失败为 -1
+     */
+    public CompletableFuture<Integer> countMigrationAsync(String fromProvider, String nameGlob, String toProvider) {
+        if (toProvider == null) {
+            LOGGER.warning("IdentityGuard: Target authProvider is null");
+            return CompletableFuture.completedFuture(-1);
+        }
+        return databaseManager.countAuthProviderBatchAsync(fromProvider, globToLikePattern(nameGlob), toProvider);
+    }
+
+    /**
+     * 异步批量迁移玩家的认证提供者
+     * 以集合式 UPDATE 按 id 区间分块执行，不逐行读取；每个区间单独提交到数据库线程池，
+     * 上一个区间完成后才提交下一个，迁移期间的登录查询可以插在区间之间执行
+     * 
+     * @param fromProvider 原认证提供者名称，为 null 时不限制
+     * @param nameGlob     玩家名称通配符（支持 * 和 ?），为 null 时不限制
+     * @param toProvider   新的认证提供者名称
+     * @param listener     进度监听器（可为 null）
+     * @return 迁移结果的 CompletableFuture，包含已提交的行数；中途失败时包含失败的 id 区间
+     */
+    public CompletableFuture<MigrationResult> migrateAuthProviderAsync(String fromProvider, String nameGlob, String toProvider,
+                                                                       DatabaseManager.BatchProgressListener listener) {
+        if (toProvider == null) {
+            LOGGER.warning("IdentityGuard: Target authProvider is null");
+            return CompletableFuture.completedFuture(MigrationResult.notStarted());
+        }
+        prefetchCache.clear();
+        String namePattern = globToLikePattern(nameGlob);
+        return databaseManager.getIdRangeAsync()
+                .thenCompose(range -> range == null
+                        ? CompletableFuture.completedFuture(MigrationResult.notStarted())
+                        : migrateRange(fromProvider, namePattern, toProvider, range[0], range[0], range[1], 0, listener))
+                .thenApply(result -> {
+                    prefetchCache.clear();
+                    if (result.isComplete()) {
+                        LOGGER.info("IdentityGuard: Migrated " + result.getUpdated() + " identities to " + toProvider
+                                + " (from: " + fromProvider + ", pattern: " + nameGlob + ")");
+                    } else if (result.hasFailedRange()) {
+                        LOGGER.warning("IdentityGuard: Batch migration to " + toProvider + " stopped at ids "
+                                + result.getFailedStartId() + "-" + result.getFailedEndId() + " after "
+                                + result.getUpdated() + " committed updates");
+                    } else {
+                        LOGGER.warning("IdentityGuard: Batch migration to " + toProvider + " failed");
+                    }
+                    return result;
                 });
     }
 
+    /**
+     * 迁移从 start 开始的一个区间，完成后递归提交下一个区间
+     * 
+     * @param fromProvider 原认证提供者名称，为 null 时不限制
+     * @param namePattern  名称 LIKE 模式，为 null 时不限制
+     * @param toProvider   新的认证提供者名称
+     * @param start        本区间起点
+     * @param minId        最小 id
+     * @param maxId        最大 id
+     * @param updated      之前的区间已提交的行数
+     * @param listener     进度监听器（可为 null）
+     * @return 迁移结果的 CompletableFuture，区间失败时停止并记录该区间
+     */
+    private CompletableFuture<MigrationResult> migrateRange(String fromProvider, String namePattern, String toProvider, long start,
+                                                            long minId, long maxId, int updated,
+                                                            DatabaseManager.BatchProgressListener listener) {
+        if (start > maxId) {
+            return CompletableFuture.completedFuture(MigrationResult.completed(updated));
+        }
+        long end = start + MIGRATION_BATCH_SIZE;
+        return databaseManager.updateAuthProviderRangeAsync(fromProvider, namePattern, toProvider, start, end)
+                .handle((rows, ex) -> {
+                    if (ex != null) {
+                        LOGGER.severe("IdentityGuard: Migration of ids " + start + "-" + (end - 1) + " failed: " + ex);
+                        return -1;
+                    }
+                    return rows;
+                })
+                .thenCompose(rows -> {
+                    if (rows < 0) {
+                        return CompletableFuture.completedFuture(MigrationResult.failedAt(updated, start, Math.min(end, maxId + 1) - 1));
+                    }
+                    int total = updated + rows;
+                    if (listener != null) {
+                        long idSpan = maxId - minId + 1;
+                        listener.onProgress(total, Math.min(idSpan, end - minId), idSpan);
+                    }
+                    return migrateRange(fromProvider, namePattern, toProvider, end, minId, maxId, total, listener);
+                });
+    }
+
+    /**
+     * 将通配符模式转换为 LIKE 模式
+     * 
+     * @param glob 通配符模式（支持 * 和 ?）
+     * @return 以 \ 转义的 LIKE 模式，glob 为 null 时返回 null
+     */
+    static String globToLikePattern(String glob) {
+        if (glob == null) {
+            return null;
+        }
+        StringBuilder like = new StringBuilder(glob.length() + 8);
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            switch (c) {
+                case '*':
+                    like.append('%');
+                    break;
+                case '?':
+                    like.append('_');
+                    break;
+                case '%':
+                case '_':
+                case '\\':
+                    like.append('\\').append(c);
+                    break;
+                default:
+                    like.append(c);
+            }
+        }
+        return like.toString();
+    }
+
+    /**
+     * 调整数据库线程池和连接池大小
+     * 
+     * @param dbThreadPoolSize 数据库线程数
+     * @param maximumPoolSize  最大连接数
+     * @param minimumIdle      最小空闲连接数
+     */
+    public void resizeDatabase(int dbThreadPoolSize, int maximumPoolSize, int minimumIdle) {
+        databaseManager.resize(dbThreadPoolSize, maximumPoolSize, minimumIdle);
+    }
+
     /**
      * 关闭数据库连接
      */
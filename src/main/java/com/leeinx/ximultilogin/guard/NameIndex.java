@@ -0,0 +1,83 @@
+package com.Leeinx.ximultilogin.guard;
+
+import org.bukkit.Bukkit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+/**
+ * 玩家名称前缀索引
+ * 以小写名称排序保存所有已知玩家名，供 TAB 补全按前缀查找，不访问数据库
+ */
+public class NameIndex {
+
+    private static final Logger LOGGER = Bukkit.getLogger();
+    private final ConcurrentSkipListMap<String, String> names = new ConcurrentSkipListMap<>();
+    private final AtomicBoolean loadStarted = new AtomicBoolean(false);
+    private volatile boolean loaded;
+    private volatile long loadStartTime;
+
+    /**
+     * 开始加载索引
+     * 只有第一次调用（或上次加载失败后）返回 true，调用方随后应流式写入名称并调用 finishLoad
+     *
+     * @return 调用方是否应执行加载
+     */
+    public boolean beginLoad() {
+        if (loaded || !loadStarted.compareAndSet(false, true)) {
+            return false;
+        }
+        loadStartTime = System.currentTimeMillis();
+        return true;
+    }
+
+    /**
+     * 结束加载索引
+     *
+     * @param success 是否加载成功，失败时允许下次重试
+     */
+    public void finishLoad(boolean success) {
+        if (success) {
+            loaded = true;
+            LOGGER.info("NameIndex: Indexed " + names.size() + " names in " + (System.currentTimeMillis() - loadStartTime) + "ms");
+        } else {
+            loadStarted.set(false);
+            LOGGER.warning("NameIndex: Failed to load names, will retry on next lookup");
+        }
+    }
+
+    /**
+     * 添加名称
+     *
+     * @param name 玩家名称
+     */
+    public void add(String name) {
+        if (name != null && !name.isEmpty()) {
+            names.put(name.toLowerCase(Locale.ROOT), name);
+        }
+    }
+
+    /**
+     * 按前缀查找名称（忽略大小写）
+     *
+     * @param prefix 前缀
+     * @param limit  最多返回的数量
+     * @return 匹配的名称，按字母顺序
+     */
+    public List<String> complete(String prefix, int limit) {
+        String key = prefix == null ? "" : prefix.toLowerCase(Locale.ROOT);
+        List<String> result = new ArrayList<>(Math.min(limit, 16));
+        for (Map.Entry<String, String> entry : names.tailMap(key, true).entrySet()) {
+            if (result.size() >= limit || !entry.getKey().startsWith(key)) {
+                break;
+            }
+            result.add(entry.getValue());
+        }
+        return result;
+    }
+}
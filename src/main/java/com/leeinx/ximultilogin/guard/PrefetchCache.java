@@ -0,0 +1,127 @@
+package com.Leeinx.ximultilogin.guard;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 登录预取缓存
+ * 在连接层收到 LoginStart 时提前发起玩家记录查询，hasJoinedServer 执行时直接复用查询结果。
+ * 条目只保留很短的时间，数量有上限。写操作开始和完成时都会使对应条目失效，
+ * 写操作进行期间不为该名称发起新的预取，写入前发起、写入后才返回的查询结果不会被复用。
+ */
+class PrefetchCache {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, Integer> pendingWrites = new ConcurrentHashMap<>();
+    private final int maxEntries;
+    private final long ttlMillis;
+
+    /**
+     * 预取的玩家记录
+     */
+    static final class Entry {
+        final CompletableFuture<String> authProvider;
+        final CompletableFuture<UUID> uuid;
+        final long expiresAt;
+
+        Entry(CompletableFuture<String> authProvider, CompletableFuture<UUID> uuid, long expiresAt) {
+            this.authProvider = authProvider;
+            this.uuid = uuid;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * 构造 PrefetchCache
+     *
+     * @param maxEntries 最大条目数
+     * @param ttlMillis  条目有效期（毫秒）
+     */
+    PrefetchCache(int maxEntries, long ttlMillis) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * 发起预取，已有有效条目或缓存已满时不做任何事
+     *
+     * @param name   玩家名称
+     * @param loader 查询函数
+     */
+    void prefetch(String name, Function<Long, Entry> loader) {
+        if (pendingWrites.containsKey(name)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Entry existing = entries.get(name);
+        if (existing != null && existing.expiresAt > now) {
+            return;
+        }
+        if (entries.size() >= maxEntries) {
+            evictExpired(now);
+            if (entries.size() >= maxEntries) {
+                return;
+            }
+        }
+        entries.put(name, loader.apply(now + ttlMillis));
+    }
+
+    /**
+     * 获取有效的预取条目
+     *
+     * @param name 玩家名称
+     * @return 预取条目，不存在或已过期返回 null
+     */
+    Entry get(String name) {
+        Entry entry = entries.get(name);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            entries.remove(name, entry);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * 写操作开始：使条目失效，写操作完成前不再预取该名称
+     *
+     * @param name 玩家名称
+     */
+    void beginWrite(String name) {
+        pendingWrites.merge(name, 1, Integer::sum);
+        entries.remove(name);
+    }
+
+    /**
+     * 写操作完成：再次使条目失效，丢弃写入期间发起的预取
+     * 必须与 beginWrite 成对调用
+     *
+     * @param name 玩家名称
+     */
+    void endWrite(String name) {
+        pendingWrites.computeIfPresent(name, (key, count) -> count == 1 ? null : count - 1);
+        entries.remove(name);
+    }
+
+    /**
+     * 使所有条目失效
+     */
+    void clear() {
+        entries.clear();
+    }
+
+    private void evictExpired(long now) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().expiresAt <= now) {
+                iterator.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,540 @@
+package com.Leeinx.ximultilogin.http;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CompletableFuture;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+
+/**
+ * 非阻塞的 HTTP/1.1 连接
+ * 由 AsyncHttpEngine 的 I/O 线程驱动：依次尝试主机的每个地址建立连接，HTTPS 用 SSLEngine 完成握手和加解密，
+ * 响应由 ResponseParser 随数据到达增量解析。除 send() 和 close() 外的方法只在 I/O 线程上调用。
+ * 空闲时仍然监听读事件，对端关闭连接或发来意外数据时立即关闭并从连接池中移除，不需要探测。
+ */
+final class AsyncConnection {
+
+    private static final int MAX_LINE_BYTES = 8192;
+    private static final int PLAIN_BUFFER_BYTES = 16 * 1024;
+
+    private final AsyncHttpEngine engine;
+    private final HostConnectionPool pool;
+    private final InetAddress[] addresses;
+    private final int port;
+    private final SSLEngine ssl;
+    private final long connectDeadline;
+
+    // 建立连接期间
+    private CompletableFuture<AsyncConnection> connecting;
+    private int nextAddress;
+    private IOException connectError;
+    private long handshakeStart;
+    private boolean handshakeDone;
+
+    private SocketChannel channel;
+    private SelectionKey key;
+    private ByteBuffer netIn;   // 写模式：从套接字读到的密文（TLS）
+    private ByteBuffer netOut;  // 读模式：等待写入套接字的数据
+    private ByteBuffer appIn;   // 写模式：等待解析的明文
+    private ByteBuffer appOut;  // 读模式：等待加密的请求（TLS）
+    private boolean eof;
+
+    // 请求进行中
+    private ResponseParser parser;
+    private CompletableFuture<HttpResponse> response;
+    private long deadline = Long.MAX_VALUE;
+    private int readTimeoutMillis;
+    private long lastReadAt;
+
+    private volatile boolean open = true;
+    private volatile long verifiedAt;
+    private volatile boolean pooled;
+
+    /**
+     * 构造 AsyncConnection
+     *
+     * @param engine          驱动连接的引擎
+     * @param pool            所属连接池
+     * @param addresses       主机地址，依次尝试
+     * @param port            端口
+     * @param ssl             客户端模式的 SSLEngine，明文 HTTP 为 null
+     * @param connectDeadline 建立连接（含 TLS 握手）的截止时间
+     * @param connecting      连接建立后完成的 CompletableFuture
+     */
+    AsyncConnection(AsyncHttpEngine engine, HostConnectionPool pool, InetAddress[] addresses, int port, SSLEngine ssl,
+                    long connectDeadline, CompletableFuture<AsyncConnection> connecting) {
+        this.engine = engine;
+        this.pool = pool;
+        this.addresses = addresses;
+        this.port = port;
+        this.ssl = ssl;
+        this.connectDeadline = connectDeadline;
+        this.connecting = connecting;
+        if (ssl != null) {
+            int packetSize = ssl.getSession().getPacketBufferSize();
+            this.netIn = ByteBuffer.allocate(packetSize);
+            this.netOut = emptyBuffer(packetSize);
+            // 未解析完的行最多 MAX_LINE_BYTES，剩余空间仍能容纳一条完整记录
+            this.appIn = ByteBuffer.allocate(ssl.getSession().getApplicationBufferSize() + MAX_LINE_BYTES);
+            this.appOut = emptyBuffer(0);
+        } else {
+            this.netOut = emptyBuffer(0);
+            this.appIn = ByteBuffer.allocate(PLAIN_BUFFER_BYTES);
+        }
+    }
+
+    private static ByteBuffer emptyBuffer(int capacity) {
+        ByteBuffer buffer = ByteBuffer.allocate(capacity);
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * 连接下一个地址，所有地址都失败时以最后一个错误失败
+     *
+     * @param selector I/O 线程的 Selector
+     * @throws IOException 连接建立后的 TLS 握手失败
+     */
+    void connect(Selector selector) throws IOException {
+        while (nextAddress < addresses.length) {
+            InetAddress address = addresses[nextAddress++];
+            boolean connected;
+            try {
+                channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                channel.setOption(StandardSocketOptions.SO_KEEPALIVE, true);
+                connected = channel.connect(new InetSocketAddress(address, port));
+                key = channel.register(selector, connected ? 0 : SelectionKey.OP_CONNECT, this);
+            } catch (IOException e) {
+                closeChannel();
+                connectError = e;
+                continue;
+            }
+            if (connected) {
+                connected();
+            }
+            return;
+        }
+        fail(connectError != null ? connectError : new IOException("No address to connect to " + pool.getOrigin()));
+    }
+
+    /**
+     * 处理就绪事件
+     *
+     * @param readyOps 就绪的操作
+     * @throws IOException 连接出错，由引擎关闭连接
+     */
+    void ready(int readyOps) throws IOException {
+        if ((readyOps & SelectionKey.OP_CONNECT) != 0) {
+            try {
+                if (!channel.finishConnect()) {
+                    return;
+                }
+            } catch (IOException e) {
+                // 换下一个地址
+                Selector selector = key.selector();
+                closeChannel();
+                connectError = e;
+                connect(selector);
+                return;
+            }
+            connected();
+            return;
+        }
+        pump();
+    }
+
+    private void connected() throws IOException {
+        if (ssl != null) {
+            handshakeStart = System.currentTimeMillis();
+            ssl.beginHandshake();
+            pump();
+        } else {
+            established();
+            updateInterest();
+        }
+    }
+
+    /**
+     * 连接（含 TLS 握手）已建立
+     */
+    private void established() {
+        // 恢复的会话沿用原来的创建时间
+        pool.opened(ssl != null && ssl.getSession().getCreationTime() < handshakeStart);
+        verifiedAt = System.currentTimeMillis();
+        CompletableFuture<AsyncConnection> future = connecting;
+        connecting = null;
+        future.complete(this);
+    }
+
+    /**
+     * 发送请求，响应完整收到后完成
+     * 请求结束时连接由这里归还连接池，失败时连接被关闭
+     *
+     * @param request           完整的请求头
+     * @param deadline          截止时间
+     * @param readTimeoutMillis 两次收到数据之间的最长间隔
+     * @param maxBodyBytes      响应体最大字节数
+     * @return 响应的 CompletableFuture
+     */
+    CompletableFuture<HttpResponse> send(byte[] request, long deadline, int readTimeoutMillis, long maxBodyBytes) {
+        CompletableFuture<HttpResponse> future = new CompletableFuture<>();
+        Runnable start = () -> start(request, deadline, readTimeoutMillis, maxBodyBytes, future);
+        if (!engine.submit(start)) {
+            pool.releaseAsync(this, false);
+            future.completeExceptionally(new IOException("HTTP engine stopped"));
+        }
+        return future;
+    }
+
+    private void start(byte[] request, long deadline, int readTimeoutMillis, long maxBodyBytes, CompletableFuture<HttpResponse> future) {
+        if (!open) {
+            pool.releaseAsync(this, false);
+            future.completeExceptionally(new EOFException("Connection closed by peer"));
+            return;
+        }
+        parser = new ResponseParser(maxBodyBytes);
+        response = future;
+        this.deadline = deadline;
+        this.readTimeoutMillis = readTimeoutMillis;
+        lastReadAt = System.currentTimeMillis();
+        if (ssl != null) {
+            appOut = ByteBuffer.wrap(request);
+        } else {
+            netOut = ByteBuffer.wrap(request);
+        }
+        try {
+            pump();
+        } catch (IOException | RuntimeException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * 在不阻塞的前提下尽量推进：写出、握手、解密、读取和解析，直到没有进展
+     */
+    private void pump() throws IOException {
+        boolean progress;
+        do {
+            progress = flush();
+            if (ssl != null) {
+                progress |= runDelegatedTasks();
+                progress |= wrap();
+                progress |= unwrap();
+                if (!handshakeDone && ssl.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NOT_HANDSHAKING) {
+                    handshakeDone = true;
+                    established();
+                    progress = true;
+                }
+            }
+            progress |= fill();
+            progress |= deliver();
+        } while (progress && open);
+        if (!open) {
+            return;
+        }
+        if (eof) {
+            endOfStream();
+            return;
+        }
+        updateInterest();
+    }
+
+    private boolean flush() throws IOException {
+        return netOut.hasRemaining() && channel.write(netOut) > 0;
+    }
+
+    private boolean fill() throws IOException {
+        ByteBuffer target = ssl != null ? netIn : appIn;
+        if (eof || !target.hasRemaining()) {
+            return false;
+        }
+        int read = channel.read(target);
+        if (read < 0) {
+            eof = true;
+            return true;
+        }
+        if (read > 0) {
+            lastReadAt = System.currentTimeMillis();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 执行握手中的委托任务（证书验证等），直接在 I/O 线程上执行
+     */
+    private boolean runDelegatedTasks() {
+        if (ssl.getHandshakeStatus() != SSLEngineResult.HandshakeStatus.NEED_TASK) {
+            return false;
+        }
+        Runnable task;
+        while ((task = ssl.getDelegatedTask()) != null) {
+            task.run();
+        }
+        return true;
+    }
+
+    /**
+     * 加密：握手需要发送数据，或握手完成后有待发送的请求；上一批密文写完之前不加密新的数据
+     */
+    private boolean wrap() throws IOException {
+        if (netOut.hasRemaining() || ssl.isOutboundDone()) {
+            return false;
+        }
+        SSLEngineResult.HandshakeStatus status = ssl.getHandshakeStatus();
+        boolean handshake = status == SSLEngineResult.HandshakeStatus.NEED_WRAP;
+        boolean data = handshakeDone && status == SSLEngineResult.HandshakeStatus.NOT_HANDSHAKING && appOut.hasRemaining();
+        if (!handshake && !data) {
+            return false;
+        }
+        netOut.clear();
+        SSLEngineResult result;
+        try {
+            result = ssl.wrap(appOut, netOut);
+        } finally {
+            netOut.flip();
+        }
+        switch (result.getStatus()) {
+            case CLOSED:
+                throw new IOException("TLS connection closed");
+            case BUFFER_OVERFLOW:
+                netOut = emptyBuffer(Math.max(netOut.capacity() * 2, ssl.getSession().getPacketBufferSize()));
+                return true;
+            default:
+                return result.bytesProduced() > 0 || result.bytesConsumed() > 0;
+        }
+    }
+
+    /**
+     * 解密已收到的所有完整记录
+     */
+    private boolean unwrap() throws IOException {
+        boolean progress = false;
+        while (netIn.position() > 0) {
+            SSLEngineResult.HandshakeStatus status = ssl.getHandshakeStatus();
+            if (status != SSLEngineResult.HandshakeStatus.NEED_UNWRAP && status != SSLEngineResult.HandshakeStatus.NOT_HANDSHAKING) {
+                return progress;
+            }
+            netIn.flip();
+            SSLEngineResult result;
+            try {
+                result = ssl.unwrap(netIn, appIn);
+            } finally {
+                netIn.compact();
+            }
+            switch (result.getStatus()) {
+                case BUFFER_UNDERFLOW:
+                    if (netIn.hasRemaining()) {
+                        return progress;
+                    }
+                    // 记录比缓冲区大（会话协商了更大的记录）
+                    netIn = enlarge(netIn, ssl.getSession().getPacketBufferSize());
+                    progress = true;
+                    break;
+                case BUFFER_OVERFLOW:
+                    if (appIn.position() > 0) {
+                        // 先解析已解密的数据
+                        return true;
+                    }
+                    appIn = enlarge(appIn, ssl.getSession().getApplicationBufferSize());
+                    progress = true;
+                    break;
+                case CLOSED:
+                    eof = true;
+                    return true;
+                default:
+                    if (result.bytesConsumed() == 0 && result.bytesProduced() == 0) {
+                        return progress;
+                    }
+                    progress = true;
+            }
+        }
+        return progress;
+    }
+
+    private static ByteBuffer enlarge(ByteBuffer buffer, int minimumFree) {
+        ByteBuffer larger = ByteBuffer.allocate(buffer.position() + Math.max(minimumFree, buffer.capacity()));
+        buffer.flip();
+        larger.put(buffer);
+        return larger;
+    }
+
+    /**
+     * 把已解密的数据交给解析器，响应完整时归还连接并完成请求
+     */
+    private boolean deliver() throws IOException {
+        if (appIn.position() == 0) {
+            return false;
+        }
+        if (parser == null) {
+            // 空闲或握手中的连接不应收到数据
+            throw new IOException("Unexpected data on idle connection to " + pool.getOrigin());
+        }
+        appIn.flip();
+        int before = appIn.remaining();
+        boolean complete;
+        try {
+            complete = parser.parse(appIn);
+        } finally {
+            appIn.compact();
+        }
+        if (complete) {
+            // 响应之后还有数据说明对端行为异常，连接不再复用
+            complete(parser.isKeepAlive() && appIn.position() == 0 && !eof);
+            return true;
+        }
+        return appIn.position() < before;
+    }
+
+    /**
+     * 连接已结束（对端关闭或 TLS close_notify）
+     */
+    private void endOfStream() throws IOException {
+        if (parser == null) {
+            throw new EOFException("Connection closed by peer");
+        }
+        parser.finish();
+        complete(false);
+    }
+
+    private void complete(boolean reusable) {
+        HttpResponse result = parser.response();
+        CompletableFuture<HttpResponse> future = response;
+        parser = null;
+        response = null;
+        deadline = Long.MAX_VALUE;
+        verifiedAt = System.currentTimeMillis();
+        if (!reusable) {
+            closeNow();
+        }
+        pool.releaseAsync(this, reusable);
+        future.complete(result);
+    }
+
+    private void updateInterest() {
+        int ops = SelectionKey.OP_READ;
+        if (netOut.hasRemaining()) {
+            ops |= SelectionKey.OP_WRITE;
+        }
+        key.interestOps(ops);
+    }
+
+    /**
+     * 获取超时时间：建立连接时为连接截止时间，请求进行中为请求截止时间和读取超时中较早的一个
+     *
+     * @return 超时时间，空闲时为 Long.MAX_VALUE
+     */
+    long expiresAt() {
+        if (connecting != null) {
+            return connectDeadline;
+        }
+        if (parser != null) {
+            return Math.min(deadline, lastReadAt + readTimeoutMillis);
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * 超时
+     */
+    void expire() {
+        fail(new SocketTimeoutException(connecting != null
+                ? "Connect to " + pool.getOrigin() + " timed out"
+                : "Read timed out"));
+    }
+
+    /**
+     * 关闭连接并让进行中的操作失败
+     * 建立连接时由连接池处理占用的名额；请求进行中时归还连接池；空闲时从连接池中移除
+     *
+     * @param error 失败原因
+     */
+    void fail(Throwable error) {
+        closeNow();
+        if (connecting != null) {
+            CompletableFuture<AsyncConnection> future = connecting;
+            connecting = null;
+            future.completeExceptionally(error);
+        } else if (response != null) {
+            CompletableFuture<HttpResponse> future = response;
+            response = null;
+            parser = null;
+            pool.releaseAsync(this, false);
+            future.completeExceptionally(error);
+        } else {
+            pool.discardIdle(this);
+        }
+    }
+
+    /**
+     * 关闭连接（任意线程），在 I/O 线程上执行
+     */
+    void close() {
+        if (open && !engine.submit(this::closeNow)) {
+            open = false;
+        }
+    }
+
+    private void closeNow() {
+        if (!open && channel == null) {
+            return;
+        }
+        open = false;
+        engine.remove(this);
+        closeChannel();
+    }
+
+    private void closeChannel() {
+        if (key != null) {
+            key.cancel();
+            key = null;
+        }
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+            channel = null;
+        }
+    }
+
+    boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * 连接是否在空闲列表中停留过（之后的请求失败可能只是对端已关闭了空闲连接）
+     *
+     * @return 是否来自空闲列表
+     */
+    boolean isPooled() {
+        return pooled;
+    }
+
+    void markPooled() {
+        pooled = true;
+    }
+
+    /**
+     * 获取最近一次确认连接可用的时间（建立或完成请求）
+     *
+     * @return 时间戳
+     */
+    long getVerifiedAt() {
+        return verifiedAt;
+    }
+
+    void verified(long now) {
+        verifiedAt = now;
+    }
+}
@@ -0,0 +1,216 @@
+package com.Leeinx.ximultilogin.http;
+
+import java.io.IOException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 非阻塞 HTTP 引擎
+ * 一个 I/O 线程通过 Selector 驱动所有 AsyncConnection：建立连接、TLS 握手、发送请求和解析响应都在这个线程上完成，
+ * 等待响应的请求不占用任何线程。其它线程的操作作为任务提交给 I/O 线程执行。
+ * 每轮循环检查连接的超时（连接截止时间、读取超时和请求截止时间）和定时任务，Selector 最多等到最近的一个到期。
+ */
+final class AsyncHttpEngine {
+
+    private final Selector selector;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    // 以下只在 I/O 线程上访问
+    private final Set<AsyncConnection> connections = new HashSet<>();
+    private final PriorityQueue<Timer> timers = new PriorityQueue<>(Comparator.comparingLong((Timer timer) -> timer.at));
+    private volatile boolean running = true;
+
+    /**
+     * 定时任务
+     */
+    private static final class Timer {
+        final long at;
+        final Runnable task;
+
+        Timer(long at, Runnable task) {
+            this.at = at;
+            this.task = task;
+        }
+    }
+
+    /**
+     * 构造 AsyncHttpEngine 并启动 I/O 线程
+     *
+     * @throws IOException 无法打开 Selector
+     */
+    AsyncHttpEngine() throws IOException {
+        this.selector = Selector.open();
+        Thread thread = new Thread(this::run, "XiMultiLogin-HttpIO");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 提交任务到 I/O 线程
+     *
+     * @param task 任务
+     * @return 引擎已停止时返回 false，任务不会执行
+     */
+    boolean submit(Runnable task) {
+        tasks.add(task);
+        if (!running && tasks.remove(task)) {
+            return false;
+        }
+        try {
+            selector.wakeup();
+        } catch (ClosedSelectorException ignored) {
+            // 引擎已停止，任务由退出时的清理执行
+        }
+        return true;
+    }
+
+    /**
+     * 开始建立连接
+     * 引擎已停止时连接立即失败
+     *
+     * @param connection 新的连接
+     */
+    void connect(AsyncConnection connection) {
+        boolean submitted = submit(() -> {
+            if (!running) {
+                connection.fail(new IOException("HTTP engine stopped"));
+                return;
+            }
+            connections.add(connection);
+            try {
+                connection.connect(selector);
+            } catch (IOException | RuntimeException e) {
+                connection.fail(e);
+            }
+        });
+        if (!submitted) {
+            connection.fail(new IOException("HTTP engine stopped"));
+        }
+    }
+
+    /**
+     * 在指定时间之后在 I/O 线程上执行任务
+     * 引擎停止时尚未到期的任务立即执行
+     *
+     * @param at   执行时间（System.currentTimeMillis() 时间戳）
+     * @param task 任务，必须很快结束
+     */
+    void schedule(long at, Runnable task) {
+        if (!submit(() -> timers.add(new Timer(at, task)))) {
+            task.run();
+        }
+    }
+
+    /**
+     * 连接已关闭，不再检查它的超时（I/O 线程）
+     *
+     * @param connection 连接
+     */
+    void remove(AsyncConnection connection) {
+        connections.remove(connection);
+    }
+
+    boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 停止 I/O 线程，关闭所有连接，进行中的操作以 IOException 失败
+     */
+    void shutdown() {
+        running = false;
+        try {
+            selector.wakeup();
+        } catch (ClosedSelectorException ignored) {
+        }
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                long next = runTimers(System.currentTimeMillis());
+                long now = System.currentTimeMillis();
+                for (AsyncConnection connection : new ArrayList<>(connections)) {
+                    long expiresAt = connection.expiresAt();
+                    if (expiresAt <= now) {
+                        connection.expire();
+                    } else {
+                        next = Math.min(next, expiresAt);
+                    }
+                }
+                if (!tasks.isEmpty()) {
+                    selector.selectNow();
+                } else {
+                    selector.select(next == Long.MAX_VALUE ? 0 : Math.max(1, next - System.currentTimeMillis()));
+                }
+                Iterator<SelectionKey> selected = selector.selectedKeys().iterator();
+                while (selected.hasNext()) {
+                    SelectionKey key = selected.next();
+                    selected.remove();
+                    AsyncConnection connection = (AsyncConnection) key.attachment();
+                    try {
+                        if (key.isValid()) {
+                            connection.ready(key.readyOps());
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        connection.fail(e);
+                    }
+                }
+                runTasks();
+            }
+        } catch (IOException | RuntimeException e) {
+            HttpClients.LOGGER.severe("HttpClients: HTTP I/O thread failed: " + e);
+        } finally {
+            running = false;
+            for (AsyncConnection connection : new ArrayList<>(connections)) {
+                connection.fail(new IOException("HTTP engine stopped"));
+            }
+            runTasks();
+            Timer timer;
+            while ((timer = timers.poll()) != null) {
+                runSafely(timer.task);
+            }
+            try {
+                selector.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * 执行已到期的定时任务
+     *
+     * @return 下一个定时任务的时间，没有时为 Long.MAX_VALUE
+     */
+    private long runTimers(long now) {
+        Timer timer;
+        while ((timer = timers.peek()) != null && timer.at <= now) {
+            timers.poll();
+            runSafely(timer.task);
+        }
+        return timer != null ? timer.at : Long.MAX_VALUE;
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            runSafely(task);
+        }
+    }
+
+    private static void runSafely(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            HttpClients.LOGGER.warning("HttpClients: HTTP I/O task failed: " + e);
+        }
+    }
+}
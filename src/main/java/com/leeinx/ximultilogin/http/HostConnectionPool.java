@@ -0,0 +1,1178 @@
+package com.Leeinx.ximultilogin.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.net.Proxy;
+import java.net.ProxySelector;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.URL;
+import java.net.UnknownHostException;
+import java.util.Collections;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSocket;
+
+/**
+ * 单个主机的 HTTP/1.1 keep-alive 连接池
+ * 同一主机（scheme://host:port）的所有提供者共享一个连接池：
+ * 连接数有上限，空闲连接按最近使用优先复用，超过空闲时间的连接由 HttpClients 定期回收；
+ * HTTPS 连接共用同一个 SSLContext，新连接可以恢复之前的 TLS 会话，省去完整握手。
+ * 主机地址解析一次后缓存，有效期遵循 JVM 的 DNS 缓存策略（networkaddress.cache.ttl），
+ * 由 HttpClients 在后台提前重新解析，登录时不等待 DNS；还可以保持若干条预热的空闲连接。
+ * 与 HttpURLConnection 一样遵循 JVM 的代理设置（ProxySelector，即 http.proxyHost、https.proxyHost、socksProxyHost
+ * 和 http.nonProxyHosts 等），并跟随同协议的 3xx 重定向。
+ * get 使用阻塞连接；getAsync 对直接连接的主机使用非阻塞连接（AsyncHttpEngine），等待响应时不占用线程。
+ * 两种连接共用连接数上限，各自保留空闲连接；预热连接按登录使用的方式建立。
+ */
+public final class HostConnectionPool {
+
+    private static final int MAX_REDIRECTS = 5;
+
+    private final String host;
+    private final int port;
+    private final boolean secure;
+    private final String origin;
+    private final URI originUri;
+    private final SSLContext sslContext;
+    private volatile HttpClients.Settings settings;
+    private volatile InetAddress[] addresses;
+    private volatile long resolvedAt;
+
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    private final Deque<AsyncConnection> asyncIdle = new ArrayDeque<>();
+    private final Deque<AsyncWaiter> asyncWaiters = new ArrayDeque<>();
+    private int leased;
+    private boolean closed;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong opened = new AtomicLong();
+    private final AtomicLong reused = new AtomicLong();
+    private final AtomicLong tlsResumed = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+    private final AtomicLong poolTimeouts = new AtomicLong();
+    private final AtomicLong resolutions = new AtomicLong();
+
+    /**
+     * 等待连接的异步请求
+     */
+    private static final class AsyncWaiter {
+        final CompletableFuture<AsyncConnection> future = new CompletableFuture<>();
+        final long requestDeadline;
+        final Executor executor;
+
+        AsyncWaiter(long requestDeadline, Executor executor) {
+            this.requestDeadline = requestDeadline;
+            this.executor = executor;
+        }
+    }
+
+    HostConnectionPool(String host, int port, boolean secure, SSLContext sslContext, HttpClients.Settings settings) {
+        this.host = host;
+        this.port = port;
+        this.secure = secure;
+        this.origin = (secure ? "https://" : "http://") + host + ":" + port;
+        this.originUri = URI.create(origin);
+        this.sslContext = sslContext;
+        this.settings = settings;
+    }
+
+    /**
+     * 发送 GET 请求
+     * 复用的空闲连接可能已被服务器关闭，此时在新连接上重试一次（GET 是幂等的）
+     *
+     * @param target 请求路径和查询字符串（以 / 开头）
+     * @return 响应，调用方必须关闭
+     * @throws IOException 连接、发送或读取响应头失败
+     */
+    public HttpResponse get(String target) throws IOException {
+        return get(target, Long.MAX_VALUE);
+    }
+
+    /**
+     * 在截止时间之前发送 GET 请求
+     * 等待连接、建立连接和读取的超时都不会超过截止时间，超时后线程立即返回。
+     * 跟随最多 5 次同协议的重定向（301、302、303、307、308），目标在其它主机时使用该主机的连接池；
+     * 与 HttpURLConnection 一样不跟随协议改变的重定向，此时返回 3xx 响应本身
+     *
+     * @param target   请求路径和查询字符串（以 / 开头）
+     * @param deadline 截止时间（System.currentTimeMillis() 时间戳）
+     * @return 响应，调用方必须关闭
+     * @throws IOException 连接、发送或读取响应头失败，重定向过多，或已超过截止时间
+     */
+    public HttpResponse get(String target, long deadline) throws IOException {
+        HostConnectionPool pool = this;
+        String currentTarget = target;
+        for (int redirects = 0; ; redirects++) {
+            HttpResponse response = pool.execute(currentTarget, deadline);
+            URL next = pool.redirectTarget(currentTarget, response);
+            if (next == null) {
+                return response;
+            }
+            if (redirects >= MAX_REDIRECTS) {
+                throw new IOException("Too many redirects from " + origin + target);
+            }
+            pool = HttpClients.forUrl(next);
+            currentTarget = next.getFile().isEmpty() ? "/" : next.getFile();
+        }
+    }
+
+    /**
+     * 在截止时间之前异步发送 GET 请求
+     * 直接连接的主机使用非阻塞连接：等待连接、建立连接、TLS 握手和读取响应都不占用线程，响应完整收到后才完成，
+     * 截止时间、连接超时和读取超时由 I/O 线程检查。经过代理的主机（SOCKS 和 HTTP CONNECT 只有阻塞实现）
+     * 以及缓存中没有地址时的 DNS 解析改在给定线程池中执行。重定向的处理与 get 相同。
+     * 结果在给定线程池中完成，调用方的后续处理不占用 I/O 线程
+     *
+     * @param target       请求路径和查询字符串（以 / 开头）
+     * @param deadline     截止时间（System.currentTimeMillis() 时间戳）
+     * @param maxBodyBytes 非阻塞连接上响应体的最大字节数，超过时请求失败
+     * @param executor     执行阻塞操作和后续处理的线程池
+     * @return 响应的 CompletableFuture，失败时以 IOException 异常完成
+     */
+    public CompletableFuture<HttpResponse> getAsync(String target, long deadline, long maxBodyBytes, Executor executor) {
+        CompletableFuture<HttpResponse> result = new CompletableFuture<>();
+        followAsync(this, target, deadline, maxBodyBytes, executor, 0, result);
+        CompletableFuture<HttpResponse> completed = new CompletableFuture<>();
+        result.whenComplete((response, error) -> {
+            try {
+                executor.execute(() -> complete(completed, response, error));
+            } catch (RejectedExecutionException e) {
+                complete(completed, response, error);
+            }
+        });
+        return completed;
+    }
+
+    private void followAsync(HostConnectionPool pool, String target, long deadline, long maxBodyBytes, Executor executor,
+                             int redirects, CompletableFuture<HttpResponse> result) {
+        pool.executeAsync(target, deadline, maxBodyBytes, executor).whenComplete((response, error) -> {
+            if (error != null) {
+                result.completeExceptionally(cause(error));
+                return;
+            }
+            URL next;
+            try {
+                next = pool.redirectTarget(target, response);
+            } catch (IOException e) {
+                result.completeExceptionally(e);
+                return;
+            }
+            if (next == null) {
+                result.complete(response);
+            } else if (redirects >= MAX_REDIRECTS) {
+                result.completeExceptionally(new IOException("Too many redirects from " + pool.origin + target));
+            } else {
+                followAsync(HttpClients.forUrl(next), next.getFile().isEmpty() ? "/" : next.getFile(), deadline, maxBodyBytes, executor,
+                        redirects + 1, result);
+            }
+        });
+    }
+
+    /**
+     * 获取要跟随的重定向目标
+     * 需要跟随时关闭响应；协议改变的重定向不跟随，返回 null，响应保持打开
+     *
+     * @param target   请求路径
+     * @param response 响应
+     * @return 重定向目标，不是重定向或不跟随时返回 null
+     * @throws IOException Location 格式错误（响应已关闭）
+     */
+    private URL redirectTarget(String target, HttpResponse response) throws IOException {
+        String location = response.getHeader("location");
+        if (!isRedirect(response.getStatusCode()) || location == null) {
+            return null;
+        }
+        URL next;
+        try {
+            next = new URL(new URL(origin + target), location);
+        } catch (MalformedURLException e) {
+            response.close();
+            throw new IOException("Invalid redirect location from " + origin + ": " + location);
+        }
+        if (!next.getProtocol().equalsIgnoreCase(secure ? "https" : "http")) {
+            return null;
+        }
+        response.close();
+        return next;
+    }
+
+    private static boolean isRedirect(int statusCode) {
+        return statusCode == 301 || statusCode == 302 || statusCode == 303 || statusCode == 307 || statusCode == 308;
+    }
+
+    private static void complete(CompletableFuture<HttpResponse> future, HttpResponse response, Throwable error) {
+        if (error != null) {
+            future.completeExceptionally(cause(error));
+        } else {
+            future.complete(response);
+        }
+    }
+
+    private static Throwable cause(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    private static <T> CompletableFuture<T> failed(Throwable error) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(error);
+        return future;
+    }
+
+    /**
+     * 在本主机上发送一次 GET 请求（不跟随重定向）
+     */
+    private HttpResponse execute(String target, long deadline) throws IOException {
+        requests.incrementAndGet();
+        String headers = requestHeaders();
+        for (int attempt = 0; ; attempt++) {
+            PooledConnection connection = lease(deadline);
+            try {
+                // 经过 HTTP 代理的明文连接使用完整 URL 作为请求目标
+                connection.write(PooledConnection.ascii("GET "
+                        + (connection.isAbsoluteForm() ? (secure ? "https://" : "http://") + hostHeader() + target : target)
+                        + headers));
+                return readResponse(connection);
+            } catch (IOException e) {
+                release(connection, false);
+                boolean stale = connection.isReused() && !(e instanceof SocketTimeoutException);
+                if (stale && attempt == 0) {
+                    continue;
+                }
+                failures.incrementAndGet();
+                throw e;
+            } catch (RuntimeException e) {
+                release(connection, false);
+                failures.incrementAndGet();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 在本主机上异步发送一次 GET 请求（不跟随重定向）
+     * 复用的空闲连接可能已被服务器关闭，此时在新连接上重试一次
+     */
+    private CompletableFuture<HttpResponse> executeAsync(String target, long deadline, long maxBodyBytes, Executor executor) {
+        if (isProxied()) {
+            try {
+                return CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return execute(target, deadline);
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                }, executor);
+            } catch (RejectedExecutionException e) {
+                return failed(new IOException("Request to " + origin + " rejected", e));
+            }
+        }
+        requests.incrementAndGet();
+        byte[] request = PooledConnection.ascii("GET " + target + requestHeaders());
+        CompletableFuture<HttpResponse> result = new CompletableFuture<>();
+        attemptAsync(request, deadline, maxBodyBytes, executor, true, result);
+        return result;
+    }
+
+    private void attemptAsync(byte[] request, long deadline, long maxBodyBytes, Executor executor, boolean retry,
+                              CompletableFuture<HttpResponse> result) {
+        leaseAsync(deadline, executor).whenComplete((connection, leaseError) -> {
+            if (leaseError != null) {
+                failures.incrementAndGet();
+                result.completeExceptionally(cause(leaseError));
+                return;
+            }
+            connection.send(request, deadline, settings.readTimeoutMillis, maxBodyBytes).whenComplete((response, error) -> {
+                if (error == null) {
+                    result.complete(response);
+                    return;
+                }
+                Throwable failure = cause(error);
+                if (retry && connection.isPooled() && !(failure instanceof SocketTimeoutException)) {
+                    attemptAsync(request, deadline, maxBodyBytes, executor, false, result);
+                    return;
+                }
+                failures.incrementAndGet();
+                result.completeExceptionally(failure);
+            });
+        });
+    }
+
+    private String requestHeaders() {
+        return " HTTP/1.1\r\n"
+                + "Host: " + hostHeader() + "\r\n"
+                + "User-Agent: XiMultiLogin\r\n"
+                + "Accept: application/json\r\n"
+                + "Connection: keep-alive\r\n"
+                + "\r\n";
+    }
+
+    private String hostHeader() {
+        boolean defaultPort = secure ? port == 443 : port == 80;
+        return defaultPort ? host : host + ":" + port;
+    }
+
+    private HttpResponse readResponse(PooledConnection connection) throws IOException {
+        String statusLine = connection.readLine();
+        int statusCode = ResponseParser.statusCode(statusLine);
+
+        Map<String, String> headers = new HashMap<>();
+        String line;
+        while (!(line = connection.readLine()).isEmpty()) {
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+            }
+        }
+
+        return new HttpResponse(this, connection, statusCode, headers, ResponseParser.isKeepAlive(statusLine, headers),
+                ResponseParser.hasBody(statusCode));
+    }
+
+    /**
+     * 租用连接：优先复用最近使用的空闲连接，其次新建连接，
+     * 达到上限时等待其它请求归还，最多等待连接超时时间（且不超过请求截止时间）
+     */
+    private PooledConnection lease(long requestDeadline) throws IOException {
+        HttpClients.Settings current = settings;
+        long start = System.currentTimeMillis();
+        int connectTimeout = boundedTimeout(current.connectTimeoutMillis, requestDeadline, start);
+        int readTimeout = boundedTimeout(current.readTimeoutMillis, requestDeadline, start);
+        long deadline = start + connectTimeout;
+        List<PooledConnection> expired = new ArrayList<>();
+        PooledConnection connection = null;
+        try {
+            synchronized (this) {
+                while (true) {
+                    if (closed) {
+                        throw new IOException("Connection pool for " + origin + " is closed");
+                    }
+                    long now = System.currentTimeMillis();
+                    PooledConnection candidate;
+                    while ((candidate = idle.pollFirst()) != null) {
+                        if (candidate.isReusable(now, current.idleTimeoutMillis)) {
+                            connection = candidate;
+                            break;
+                        }
+                        expired.add(candidate);
+                    }
+                    if (connection != null || leased < current.maxConnections) {
+                        leased++;
+                        if (connection == null) {
+                            makeRoom(asyncIdle, current);
+                        }
+                        break;
+                    }
+                    long remaining = deadline - now;
+                    if (remaining <= 0) {
+                        poolTimeouts.incrementAndGet();
+                        throw new IOException("Connection pool for " + origin + " exhausted (" + current.maxConnections + " connections)");
+                    }
+                    wait(remaining);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for connection to " + origin);
+        } finally {
+            for (PooledConnection stale : expired) {
+                stale.close();
+                evicted.incrementAndGet();
+            }
+        }
+
+        if (connection != null) {
+            reused.incrementAndGet();
+            try {
+                connection.setReadTimeout(readTimeout);
+            } catch (IOException e) {
+                release(connection, false);
+                throw e;
+            }
+            return connection;
+        }
+        try {
+            return open(connectTimeout, readTimeout);
+        } catch (IOException | RuntimeException e) {
+            synchronized (this) {
+                leased--;
+                notifyAll();
+            }
+            dispatchWaiters();
+            throw e;
+        }
+    }
+
+    /**
+     * 新建连接前，如果另一种连接的空闲连接占着上限，关闭其中最久未用的一条
+     * 调用时必须持有锁，且已为新连接计入 leased
+     */
+    private void makeRoom(Deque<?> otherIdle, HttpClients.Settings current) {
+        if (leased + otherIdle.size() > current.maxConnections && !otherIdle.isEmpty()) {
+            Object oldest = otherIdle.pollLast();
+            if (oldest instanceof AsyncConnection) {
+                ((AsyncConnection) oldest).close();
+            } else {
+                ((PooledConnection) oldest).close();
+            }
+            evicted.incrementAndGet();
+        }
+    }
+
+    /**
+     * 异步租用非阻塞连接：优先复用最近使用的空闲连接，其次新建连接；
+     * 达到上限时排队等待归还，最多等待连接超时时间（且不超过请求截止时间），排队期间不占用线程
+     */
+    private CompletableFuture<AsyncConnection> leaseAsync(long requestDeadline, Executor executor) {
+        HttpClients.Settings current = settings;
+        long now = System.currentTimeMillis();
+        int connectTimeout;
+        try {
+            connectTimeout = boundedTimeout(current.connectTimeoutMillis, requestDeadline, now);
+        } catch (SocketTimeoutException e) {
+            return failed(e);
+        }
+        AsyncConnection connection;
+        AsyncWaiter waiter = null;
+        synchronized (this) {
+            if (closed) {
+                return failed(new IOException("Connection pool for " + origin + " is closed"));
+            }
+            connection = pollAsyncIdle(now, current);
+            if (connection == null && leased >= current.maxConnections) {
+                waiter = new AsyncWaiter(requestDeadline, executor);
+                asyncWaiters.addLast(waiter);
+            } else {
+                leased++;
+                if (connection == null) {
+                    makeRoom(idle, current);
+                }
+            }
+        }
+        if (waiter != null) {
+            AsyncWaiter queued = waiter;
+            try {
+                HttpClients.engine().schedule(now + connectTimeout, () -> expire(queued));
+            } catch (IOException e) {
+                expire(queued);
+            }
+            return waiter.future;
+        }
+        if (connection != null) {
+            reused.incrementAndGet();
+            return CompletableFuture.completedFuture(connection);
+        }
+        return openAsync(now + connectTimeout, executor);
+    }
+
+    /**
+     * 取出可复用的空闲非阻塞连接，调用时必须持有锁
+     */
+    private AsyncConnection pollAsyncIdle(long now, HttpClients.Settings current) {
+        AsyncConnection candidate;
+        while ((candidate = asyncIdle.pollFirst()) != null) {
+            if (candidate.isOpen() && now - candidate.getVerifiedAt() < current.idleTimeoutMillis) {
+                return candidate;
+            }
+            candidate.close();
+            evicted.incrementAndGet();
+        }
+        return null;
+    }
+
+    /**
+     * 排队超时，仍在队列中时失败
+     */
+    private void expire(AsyncWaiter waiter) {
+        boolean removed;
+        synchronized (this) {
+            removed = asyncWaiters.remove(waiter);
+        }
+        if (removed) {
+            poolTimeouts.incrementAndGet();
+            waiter.future.completeExceptionally(new IOException("Connection pool for " + origin + " exhausted ("
+                    + settings.maxConnections + " connections)"));
+        }
+    }
+
+    /**
+     * 有连接归还或名额释放时，按顺序把空闲连接或新建名额交给排队的异步请求
+     */
+    private void dispatchWaiters() {
+        while (true) {
+            HttpClients.Settings current = settings;
+            AsyncWaiter waiter;
+            AsyncConnection connection;
+            synchronized (this) {
+                waiter = asyncWaiters.peekFirst();
+                if (waiter == null || closed) {
+                    return;
+                }
+                connection = pollAsyncIdle(System.currentTimeMillis(), current);
+                if (connection == null && leased >= current.maxConnections) {
+                    return;
+                }
+                asyncWaiters.pollFirst();
+                leased++;
+                if (connection == null) {
+                    makeRoom(idle, current);
+                }
+            }
+            if (connection != null) {
+                reused.incrementAndGet();
+                waiter.future.complete(connection);
+                continue;
+            }
+            AsyncWaiter served = waiter;
+            long connectDeadline = Math.min(served.requestDeadline, System.currentTimeMillis() + current.connectTimeoutMillis);
+            openAsync(connectDeadline, served.executor).whenComplete((opened, error) -> {
+                if (error != null) {
+                    served.future.completeExceptionally(cause(error));
+                } else {
+                    served.future.complete(opened);
+                }
+            });
+        }
+    }
+
+    /**
+     * 新建非阻塞连接，调用方已为它计入 leased；失败时释放名额
+     */
+    private CompletableFuture<AsyncConnection> openAsync(long connectDeadline, Executor executor) {
+        CompletableFuture<AsyncConnection> opened = addressesAsync(executor).thenCompose(resolved -> connectAsync(resolved, connectDeadline));
+        opened.whenComplete((connection, error) -> {
+            if (error != null) {
+                synchronized (this) {
+                    leased--;
+                    notifyAll();
+                }
+                dispatchWaiters();
+            }
+        });
+        return opened;
+    }
+
+    private CompletableFuture<AsyncConnection> connectAsync(InetAddress[] resolved, long connectDeadline) {
+        CompletableFuture<AsyncConnection> future = new CompletableFuture<>();
+        try {
+            SSLEngine ssl = null;
+            if (secure) {
+                ssl = sslContext.createSSLEngine(host, port);
+                ssl.setUseClientMode(true);
+                SSLParameters parameters = ssl.getSSLParameters();
+                parameters.setEndpointIdentificationAlgorithm("HTTPS");
+                ssl.setSSLParameters(parameters);
+            }
+            AsyncHttpEngine engine = HttpClients.engine();
+            engine.connect(new AsyncConnection(engine, this, resolved, port, ssl, connectDeadline, future));
+        } catch (IOException | RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * 获取主机地址，缓存有效时直接返回，否则在线程池中解析，不阻塞调用线程
+     */
+    private CompletableFuture<InetAddress[]> addressesAsync(Executor executor) {
+        InetAddress[] cached = addresses;
+        if (cached != null && System.currentTimeMillis() - resolvedAt < HttpClients.dnsTtlMillis()) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return addresses();
+                } catch (UnknownHostException e) {
+                    throw new CompletionException(e);
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            return failed(new IOException("Address resolution for " + host + " rejected", e));
+        }
+    }
+
+    /**
+     * 把超时限制在截止时间之内
+     *
+     * @throws SocketTimeoutException 已超过截止时间
+     */
+    private static int boundedTimeout(int timeoutMillis, long deadline, long now) throws SocketTimeoutException {
+        long remaining = deadline - now;
+        if (remaining <= 0) {
+            throw new SocketTimeoutException("Deadline exceeded");
+        }
+        return (int) Math.min(timeoutMillis, remaining);
+    }
+
+    /**
+     * 解析主机地址并缓存
+     *
+     * @return 解析到的地址
+     * @throws UnknownHostException 解析失败
+     */
+    public InetAddress[] resolve() throws UnknownHostException {
+        InetAddress[] resolved = InetAddress.getAllByName(host);
+        addresses = resolved;
+        resolvedAt = System.currentTimeMillis();
+        resolutions.incrementAndGet();
+        return resolved;
+    }
+
+    /**
+     * 缓存的地址即将过期时重新解析
+     * 解析失败时继续使用旧地址，下次再试
+     *
+     * @param now 当前时间
+     */
+    void refreshAddresses(long now) {
+        if (addresses == null || now - resolvedAt < HttpClients.dnsTtlMillis() * 3 / 4) {
+            return;
+        }
+        try {
+            resolve();
+        } catch (UnknownHostException e) {
+            HttpClients.LOGGER.warning("HttpClients: Failed to re-resolve " + host + ", keeping cached addresses: " + e.getMessage());
+        }
+    }
+
+    private InetAddress[] addresses() throws UnknownHostException {
+        InetAddress[] cached = addresses;
+        if (cached != null && System.currentTimeMillis() - resolvedAt < HttpClients.dnsTtlMillis()) {
+            return cached;
+        }
+        try {
+            return resolve();
+        } catch (UnknownHostException e) {
+            if (cached != null) {
+                return cached;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 获取 ProxySelector 为本主机选择的代理
+     *
+     * @return 代理列表，不使用代理时为 [Proxy.NO_PROXY]
+     */
+    private List<Proxy> proxies() {
+        ProxySelector selector = ProxySelector.getDefault();
+        if (selector == null) {
+            return Collections.singletonList(Proxy.NO_PROXY);
+        }
+        List<Proxy> proxies = selector.select(originUri);
+        return proxies == null || proxies.isEmpty() ? Collections.singletonList(Proxy.NO_PROXY) : proxies;
+    }
+
+    /**
+     * 是否经过代理连接本主机
+     * 经过代理时主机名由代理解析，本地不需要（也可能无法）解析
+     *
+     * @return 是否使用代理
+     */
+    public boolean isProxied() {
+        return proxies().get(0).type() != Proxy.Type.DIRECT;
+    }
+
+    /**
+     * 建立连接，按 ProxySelector 给出的顺序尝试每个代理，代理连接失败时报告给 ProxySelector 并换下一个
+     */
+    private PooledConnection open(int connectTimeout, int readTimeout) throws IOException {
+        long deadline = System.currentTimeMillis() + connectTimeout;
+        IOException lastError = null;
+        for (Proxy proxy : proxies()) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                break;
+            }
+            if (proxy.type() == Proxy.Type.DIRECT) {
+                return openDirect((int) remaining, readTimeout);
+            }
+            try {
+                return openViaProxy(proxy, (int) remaining, readTimeout);
+            } catch (SocketTimeoutException e) {
+                throw e;
+            } catch (IOException e) {
+                ProxySelector selector = ProxySelector.getDefault();
+                if (selector != null) {
+                    selector.connectFailed(originUri, proxy.address(), e);
+                }
+                lastError = e;
+            }
+        }
+        throw lastError != null ? lastError : new SocketTimeoutException("Connect to " + origin + " timed out");
+    }
+
+    /**
+     * 直接连接，依次尝试主机的每个地址
+     */
+    private PooledConnection openDirect(int connectTimeout, int readTimeout) throws IOException {
+        long deadline = System.currentTimeMillis() + connectTimeout;
+        IOException lastError = null;
+        for (InetAddress address : addresses()) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                break;
+            }
+            try {
+                return open(address, (int) remaining, readTimeout);
+            } catch (SocketTimeoutException e) {
+                throw e;
+            } catch (IOException e) {
+                lastError = e;
+            }
+        }
+        throw lastError != null ? lastError : new SocketTimeoutException("Connect to " + origin + " timed out");
+    }
+
+    private PooledConnection open(InetAddress address, int connectTimeout, int readTimeout) throws IOException {
+        Socket socket = new Socket();
+        try {
+            socket.setTcpNoDelay(true);
+            socket.setKeepAlive(true);
+            socket.connect(new InetSocketAddress(address, port), connectTimeout);
+            socket.setSoTimeout(readTimeout);
+            return connected(socket, false);
+        } catch (IOException | RuntimeException e) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 经过代理连接
+     * SOCKS 代理由 Socket 自身处理（主机名交给代理解析）；HTTP 代理上 HTTPS 用 CONNECT 建立隧道，
+     * 明文 HTTP 直接把请求发给代理
+     */
+    private PooledConnection openViaProxy(Proxy proxy, int connectTimeout, int readTimeout) throws IOException {
+        Socket socket = proxy.type() == Proxy.Type.SOCKS ? new Socket(proxy) : new Socket();
+        try {
+            socket.setTcpNoDelay(true);
+            socket.setKeepAlive(true);
+            if (proxy.type() == Proxy.Type.SOCKS) {
+                socket.connect(InetSocketAddress.createUnresolved(host, port), connectTimeout);
+            } else {
+                socket.connect(resolved(proxy.address()), connectTimeout);
+            }
+            socket.setSoTimeout(readTimeout);
+            if (proxy.type() == Proxy.Type.HTTP) {
+                if (!secure) {
+                    return connected(socket, true);
+                }
+                tunnel(socket);
+            }
+            return connected(socket, false);
+        } catch (IOException | RuntimeException e) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+            throw e;
+        }
+    }
+
+    private static SocketAddress resolved(SocketAddress address) {
+        if (address instanceof InetSocketAddress && ((InetSocketAddress) address).isUnresolved()) {
+            InetSocketAddress unresolved = (InetSocketAddress) address;
+            return new InetSocketAddress(unresolved.getHostString(), unresolved.getPort());
+        }
+        return address;
+    }
+
+    /**
+     * 通过 HTTP 代理的 CONNECT 方法建立到本主机的隧道
+     * 逐字节读取代理的响应头，不预读隧道中的数据
+     */
+    private void tunnel(Socket socket) throws IOException {
+        String authority = host + ":" + port;
+        socket.getOutputStream().write(PooledConnection.ascii("CONNECT " + authority + " HTTP/1.1\r\n"
+                + "Host: " + authority + "\r\n"
+                + "User-Agent: XiMultiLogin\r\n"
+                + "\r\n"));
+        socket.getOutputStream().flush();
+        InputStream in = socket.getInputStream();
+        String statusLine = readProxyLine(in);
+        String[] parts = statusLine.split(" ", 3);
+        if (parts.length < 2 || !parts[0].startsWith("HTTP/") || !parts[1].startsWith("2")) {
+            throw new IOException("Proxy refused CONNECT to " + authority + ": " + statusLine);
+        }
+        while (!readProxyLine(in).isEmpty()) {
+            // 忽略代理的响应头
+        }
+    }
+
+    private static String readProxyLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder(64);
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b == -1) {
+                throw new IOException("Proxy closed the connection during CONNECT");
+            }
+            if (b != '\r') {
+                if (line.length() >= 8192) {
+                    throw new IOException("Proxy response line too long");
+                }
+                line.append((char) b);
+            }
+        }
+        return line.toString();
+    }
+
+    /**
+     * 在已连接的套接字上完成 TLS 握手（HTTPS）并包装为池中的连接
+     * 失败时由调用方关闭套接字
+     */
+    private PooledConnection connected(Socket socket, boolean absoluteForm) throws IOException {
+        if (secure) {
+            long handshakeStart = System.currentTimeMillis();
+            SSLSocket sslSocket = (SSLSocket) sslContext.getSocketFactory().createSocket(socket, host, port, true);
+            SSLParameters parameters = sslSocket.getSSLParameters();
+            parameters.setEndpointIdentificationAlgorithm("HTTPS");
+            sslSocket.setSSLParameters(parameters);
+            sslSocket.startHandshake();
+            // 恢复的会话沿用原来的创建时间
+            if (sslSocket.getSession().getCreationTime() < handshakeStart) {
+                tlsResumed.incrementAndGet();
+            }
+            socket = sslSocket;
+        }
+        opened.incrementAndGet();
+        return new PooledConnection(socket, absoluteForm);
+    }
+
+    /**
+     * 归还连接
+     *
+     * @param connection 连接
+     * @param reusable   连接能否复用
+     */
+    void release(PooledConnection connection, boolean reusable) {
+        boolean keep;
+        synchronized (this) {
+            leased--;
+            keep = reusable && !closed;
+            if (keep) {
+                connection.touch();
+                idle.addFirst(connection);
+            }
+            notifyAll();
+        }
+        if (!keep) {
+            connection.close();
+        }
+        dispatchWaiters();
+    }
+
+    /**
+     * 归还非阻塞连接（I/O 线程）
+     *
+     * @param connection 连接
+     * @param reusable   连接能否复用
+     */
+    void releaseAsync(AsyncConnection connection, boolean reusable) {
+        boolean keep;
+        synchronized (this) {
+            leased--;
+            keep = reusable && !closed && connection.isOpen();
+            if (keep) {
+                connection.markPooled();
+                asyncIdle.addFirst(connection);
+            }
+            notifyAll();
+        }
+        if (!keep) {
+            connection.close();
+        }
+        dispatchWaiters();
+    }
+
+    /**
+     * 空闲的非阻塞连接被对端关闭，从空闲列表中移除（I/O 线程）
+     *
+     * @param connection 连接
+     */
+    void discardIdle(AsyncConnection connection) {
+        synchronized (this) {
+            if (!asyncIdle.remove(connection)) {
+                return;
+            }
+        }
+        evicted.incrementAndGet();
+    }
+
+    /**
+     * 记录新建的连接
+     *
+     * @param tlsResumed 是否恢复了之前的 TLS 会话
+     */
+    void opened(boolean tlsResumed) {
+        opened.incrementAndGet();
+        if (tlsResumed) {
+            this.tlsResumed.incrementAndGet();
+        }
+    }
+
+    /**
+     * 预先建立连接，使空闲连接数达到指定数量（不超过最大连接数）
+     * 直接连接的主机建立非阻塞连接（getAsync 使用），经过代理的主机建立阻塞连接
+     *
+     * @param count    目标空闲连接数
+     * @param deadline 截止时间
+     * @return 新建的连接数
+     * @throws IOException 建立连接失败
+     */
+    public int warmUp(int count, long deadline) throws IOException {
+        if (!isProxied()) {
+            return warmUpAsync(count, deadline);
+        }
+        int created = 0;
+        while (true) {
+            HttpClients.Settings current = settings;
+            synchronized (this) {
+                if (closed || idle.size() >= count || leased + idle.size() + asyncIdle.size() >= current.maxConnections) {
+                    return created;
+                }
+                leased++;
+            }
+            PooledConnection connection;
+            try {
+                long now = System.currentTimeMillis();
+                connection = open(boundedTimeout(current.connectTimeoutMillis, deadline, now),
+                        boundedTimeout(current.readTimeoutMillis, deadline, now));
+            } catch (IOException | RuntimeException e) {
+                synchronized (this) {
+                    leased--;
+                    notifyAll();
+                }
+                throw e;
+            }
+            release(connection, true);
+            created++;
+        }
+    }
+
+    private int warmUpAsync(int count, long deadline) throws IOException {
+        int created = 0;
+        while (true) {
+            HttpClients.Settings current = settings;
+            synchronized (this) {
+                if (closed || asyncIdle.size() >= count || leased + idle.size() + asyncIdle.size() >= current.maxConnections) {
+                    return created;
+                }
+                leased++;
+            }
+            AsyncConnection connection;
+            CompletableFuture<AsyncConnection> opening = null;
+            try {
+                long now = System.currentTimeMillis();
+                int connectTimeout = boundedTimeout(current.connectTimeoutMillis, deadline, now);
+                InetAddress[] resolved = addresses();
+                opening = connectAsync(resolved, now + connectTimeout);
+                connection = opening.get(connectTimeout, TimeUnit.MILLISECONDS);
+            } catch (IOException | RuntimeException | InterruptedException | ExecutionException
+                     | TimeoutException e) {
+                synchronized (this) {
+                    leased--;
+                    notifyAll();
+                }
+                dispatchWaiters();
+                if (opening != null) {
+                    // 超时后才建立的连接直接关闭
+                    opening.thenAccept(AsyncConnection::close);
+                }
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while connecting to " + origin);
+                }
+                if (e instanceof TimeoutException) {
+                    throw new SocketTimeoutException("Connect to " + origin + " timed out");
+                }
+                Throwable cause = cause(e instanceof ExecutionException ? e.getCause() : e);
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                throw new IOException(cause.getMessage(), cause);
+            }
+            releaseAsync(connection, true);
+            created++;
+        }
+    }
+
+    /**
+     * 回收空闲超时的连接
+     * 最近使用的若干条（预热配额）不按空闲时间回收：空闲超过一半超时时间后在锁外探测一次（不发送数据），
+     * 对端仍未关闭就继续保留，避免每个回收周期都关闭再重新握手
+     *
+     * @param now 当前时间
+     */
+    void evictIdle(long now) {
+        HttpClients.Settings current = settings;
+        List<PooledConnection> expired = new ArrayList<>();
+        List<PooledConnection> probing = new ArrayList<>();
+        synchronized (this) {
+            int warm = 0;
+            // 非阻塞连接空闲时由 I/O 线程监听，对端关闭时已被移除，预热配额内仍打开的连接视为已确认可用
+            Iterator<AsyncConnection> asyncIterator = asyncIdle.iterator();
+            while (asyncIterator.hasNext()) {
+                AsyncConnection connection = asyncIterator.next();
+                if (connection.isOpen() && warm < current.warmConnections) {
+                    warm++;
+                    connection.verified(now);
+                } else if (!connection.isOpen() || now - connection.getVerifiedAt() >= current.idleTimeoutMillis) {
+                    asyncIterator.remove();
+                    connection.close();
+                    evicted.incrementAndGet();
+                }
+            }
+            Iterator<PooledConnection> iterator = idle.iterator();
+            while (iterator.hasNext()) {
+                PooledConnection connection = iterator.next();
+                long idleFor = now - connection.getVerifiedAt();
+                if (warm < current.warmConnections) {
+                    warm++;
+                    if (idleFor >= current.idleTimeoutMillis / 2) {
+                        iterator.remove();
+                        probing.add(connection);
+                    }
+                } else if (idleFor >= current.idleTimeoutMillis) {
+                    iterator.remove();
+                    expired.add(connection);
+                }
+            }
+        }
+        for (PooledConnection connection : probing) {
+            boolean kept = false;
+            if (connection.probe()) {
+                synchronized (this) {
+                    if (!closed) {
+                        idle.addLast(connection);
+                        notifyAll();
+                        kept = true;
+                    }
+                }
+            }
+            if (!kept) {
+                expired.add(connection);
+            }
+        }
+        for (PooledConnection connection : expired) {
+            connection.close();
+            evicted.incrementAndGet();
+        }
+    }
+
+    void configure(HttpClients.Settings settings) {
+        this.settings = settings;
+        synchronized (this) {
+            notifyAll();
+        }
+        dispatchWaiters();
+    }
+
+    /**
+     * 关闭连接池和所有空闲连接，已租出的连接在归还时关闭，排队的异步请求失败
+     */
+    void close() {
+        List<PooledConnection> connections;
+        List<AsyncConnection> asyncConnections;
+        List<AsyncWaiter> waiters;
+        synchronized (this) {
+            closed = true;
+            connections = new ArrayList<>(idle);
+            idle.clear();
+            asyncConnections = new ArrayList<>(asyncIdle);
+            asyncIdle.clear();
+            waiters = new ArrayList<>(asyncWaiters);
+            asyncWaiters.clear();
+            notifyAll();
+        }
+        for (PooledConnection connection : connections) {
+            connection.close();
+        }
+        for (AsyncConnection connection : asyncConnections) {
+            connection.close();
+        }
+        for (AsyncWaiter waiter : waiters) {
+            waiter.future.completeExceptionally(new IOException("Connection pool for " + origin + " is closed"));
+        }
+    }
+
+    public String getOrigin() {
+        return origin;
+    }
+
+    public synchronized int getLeased() {
+        return leased;
+    }
+
+    public synchronized int getIdle() {
+        return idle.size() + asyncIdle.size();
+    }
+
+    public int getMaxConnections() {
+        return settings.maxConnections;
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    public long getOpened() {
+        return opened.get();
+    }
+
+    public long getReused() {
+        return reused.get();
+    }
+
+    public long getTlsResumed() {
+        return tlsResumed.get();
+    }
+
+    public long getEvicted() {
+        return evicted.get();
+    }
+
+    public long getPoolTimeouts() {
+        return poolTimeouts.get();
+    }
+
+    public long getResolutions() {
+        return resolutions.get();
+    }
+}
@@ -0,0 +1,250 @@
+package com.Leeinx.ximultilogin.http;
+
+import org.bukkit.Bukkit;
+
+import java.io.IOException;
+import java.net.URL;
+import java.security.GeneralSecurityException;
+import java.security.NoSuchAlgorithmException;
+import java.security.Security;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import javax.net.ssl.SSLContext;
+
+/**
+ * HTTP 连接池注册表
+ * 按主机（scheme://host:port）共享 HostConnectionPool，验证链重载后连接池和其中的连接继续使用；
+ * 所有 HTTPS 连接（阻塞的 SSLSocket 和非阻塞的 SSLEngine）共用一个 SSLContext，以便复用 TLS 会话；
+ * 非阻塞连接共用一个 AsyncHttpEngine（一个 I/O 线程），首次使用时启动。
+ */
+public final class HttpClients {
+
+    static final Logger LOGGER = Bukkit.getLogger();
+    private static final long EVICTION_INTERVAL_SECONDS = 5;
+    private static final int TLS_SESSION_CACHE_SIZE = 256;
+
+    private static final Map<String, HostConnectionPool> POOLS = new ConcurrentHashMap<>();
+    private static final long DNS_TTL_MILLIS = readDnsTtlMillis();
+    private static volatile Settings settings = new Settings(8, 5000, 5000, 30000, 0);
+    private static SSLContext sslContext;
+    private static ScheduledExecutorService evictor;
+    private static AsyncHttpEngine engine;
+
+    private HttpClients() {
+    }
+
+    /**
+     * 连接池设置（不可变）
+     */
+    static final class Settings {
+        final int maxConnections;
+        final int connectTimeoutMillis;
+        final int readTimeoutMillis;
+        final long idleTimeoutMillis;
+        final int warmConnections;
+
+        Settings(int maxConnections, int connectTimeoutMillis, int readTimeoutMillis, long idleTimeoutMillis, int warmConnections) {
+            this.maxConnections = maxConnections;
+            this.connectTimeoutMillis = connectTimeoutMillis;
+            this.readTimeoutMillis = readTimeoutMillis;
+            this.idleTimeoutMillis = idleTimeoutMillis;
+            this.warmConnections = warmConnections;
+        }
+    }
+
+    /**
+     * 更新所有连接池的设置
+     * 已建立的连接保留，新的上限和超时对之后的请求生效
+     *
+     * @param maxConnectionsPerHost 每个主机的最大连接数
+     * @param connectTimeoutMillis  连接超时（毫秒），同时也是等待空闲连接的最长时间
+     * @param readTimeoutMillis     读取超时（毫秒）
+     * @param idleTimeoutSeconds    空闲连接保留时间（秒）
+     * @param warmConnections       每个主机保持的预热空闲连接数，0 表示不保持
+     */
+    public static void configure(int maxConnectionsPerHost, int connectTimeoutMillis, int readTimeoutMillis, int idleTimeoutSeconds,
+                                 int warmConnections) {
+        Settings next = new Settings(maxConnectionsPerHost, connectTimeoutMillis, readTimeoutMillis,
+                TimeUnit.SECONDS.toMillis(idleTimeoutSeconds), Math.min(warmConnections, maxConnectionsPerHost));
+        settings = next;
+        for (HostConnectionPool pool : POOLS.values()) {
+            pool.configure(next);
+        }
+    }
+
+    /**
+     * 获取指定 URL 所在主机的连接池
+     *
+     * @param url 目标 URL（仅使用 scheme、host 和 port）
+     * @return 共享的连接池
+     * @throws IllegalArgumentException 不支持的协议
+     */
+    public static HostConnectionPool forUrl(URL url) {
+        String protocol = url.getProtocol().toLowerCase(Locale.ROOT);
+        boolean secure;
+        if ("https".equals(protocol)) {
+            secure = true;
+        } else if ("http".equals(protocol)) {
+            secure = false;
+        } else {
+            throw new IllegalArgumentException("Unsupported protocol: " + protocol);
+        }
+        String host = url.getHost().toLowerCase(Locale.ROOT);
+        int port = url.getPort() != -1 ? url.getPort() : url.getDefaultPort();
+        String key = protocol + "://" + host + ":" + port;
+        return POOLS.computeIfAbsent(key, k -> {
+            startEvictor();
+            LOGGER.info("HttpClients: Created connection pool for " + k);
+            return new HostConnectionPool(host, port, secure, secure ? getSslContext() : null, settings);
+        });
+    }
+
+    /**
+     * 只保留仍被使用的连接池，关闭其余连接池
+     * 验证链重载后调用，已从配置中删除的主机不再被预热和回收；
+     * 被关闭的连接池中已租出的连接在请求结束时关闭
+     *
+     * @param referenced 当前验证链使用的连接池
+     */
+    public static void retain(Collection<HostConnectionPool> referenced) {
+        Iterator<Map.Entry<String, HostConnectionPool>> iterator = POOLS.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, HostConnectionPool> entry = iterator.next();
+            if (!referenced.contains(entry.getValue())) {
+                iterator.remove();
+                entry.getValue().close();
+                LOGGER.info("HttpClients: Closed connection pool for " + entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * 获取每个主机应保持的预热空闲连接数
+     *
+     * @return 连接数
+     */
+    public static int getWarmConnections() {
+        return settings.warmConnections;
+    }
+
+    /**
+     * 获取地址缓存的有效期
+     * 遵循 JVM 的 DNS 缓存策略：安全属性 networkaddress.cache.ttl，其次系统属性 sun.net.inetaddr.ttl，默认 30 秒；
+     * 负数表示永久缓存
+     *
+     * @return 有效期（毫秒）
+     */
+    static long dnsTtlMillis() {
+        return DNS_TTL_MILLIS;
+    }
+
+    private static long readDnsTtlMillis() {
+        String value = Security.getProperty("networkaddress.cache.ttl");
+        if (value == null) {
+            value = System.getProperty("sun.net.inetaddr.ttl");
+        }
+        long seconds = 30;
+        if (value != null) {
+            try {
+                seconds = Long.parseLong(value.trim());
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        return seconds < 0 ? Long.MAX_VALUE / 2 : TimeUnit.SECONDS.toMillis(seconds);
+    }
+
+    /**
+     * 获取所有连接池，用于统计
+     *
+     * @return 连接池列表
+     */
+    public static Collection<HostConnectionPool> getPools() {
+        return new ArrayList<>(POOLS.values());
+    }
+
+    /**
+     * 关闭所有连接池并停止空闲回收
+     * 插件停用时调用
+     */
+    public static synchronized void shutdown() {
+        if (evictor != null) {
+            evictor.shutdownNow();
+            evictor = null;
+        }
+        for (HostConnectionPool pool : POOLS.values()) {
+            pool.close();
+        }
+        POOLS.clear();
+        if (engine != null) {
+            engine.shutdown();
+            engine = null;
+        }
+    }
+
+    /**
+     * 获取非阻塞连接共用的引擎，首次使用（或停止后再次使用）时启动 I/O 线程
+     *
+     * @return 引擎
+     * @throws IOException 无法打开 Selector
+     */
+    static synchronized AsyncHttpEngine engine() throws IOException {
+        if (engine == null || !engine.isRunning()) {
+            engine = new AsyncHttpEngine();
+            LOGGER.info("HttpClients: Started non-blocking HTTP engine");
+        }
+        return engine;
+    }
+
+    private static synchronized SSLContext getSslContext() {
+        if (sslContext == null) {
+            try {
+                SSLContext context = SSLContext.getInstance("TLS");
+                context.init(null, null, null);
+                context.getClientSessionContext().setSessionCacheSize(TLS_SESSION_CACHE_SIZE);
+                sslContext = context;
+            } catch (GeneralSecurityException e) {
+                LOGGER.warning("HttpClients: Failed to create TLS context, using default: " + e.getMessage());
+                try {
+                    sslContext = SSLContext.getDefault();
+                } catch (NoSuchAlgorithmException ex) {
+                    throw new IllegalStateException("No TLS implementation available", ex);
+                }
+            }
+        }
+        return sslContext;
+    }
+
+    private static synchronized void startEvictor() {
+        if (evictor != null) {
+            return;
+        }
+        evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "XiMultiLogin-HttpEvictor");
+            t.setDaemon(true);
+            return t;
+        });
+        evictor.scheduleWithFixedDelay(() -> {
+            long now = System.currentTimeMillis();
+            Settings current = settings;
+            for (HostConnectionPool pool : POOLS.values()) {
+                pool.evictIdle(now);
+                pool.refreshAddresses(now);
+                if (current.warmConnections > 0) {
+                    // 补足被回收的预热连接，失败时等下一轮
+                    try {
+                        pool.warmUp(current.warmConnections, now + current.connectTimeoutMillis);
+                    } catch (IOException | RuntimeException ignored) {
+                    }
+                }
+            }
+        }, EVICTION_INTERVAL_SECONDS, EVICTION_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+}
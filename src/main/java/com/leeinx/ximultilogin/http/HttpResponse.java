@@ -0,0 +1,300 @@
+package com.Leeinx.ximultilogin.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * HTTP 响应
+ * 阻塞连接上的响应体直接从连接上流式读取；关闭响应时若响应体已读完（或剩余部分足够小可以丢弃）
+ * 且服务器允许 keep-alive，连接归还连接池，否则关闭连接。
+ * 非阻塞连接上的响应在完整收到后才交给调用方，响应体已在内存中，连接此时已经归还。
+ */
+public final class HttpResponse implements Closeable {
+
+    private static final int MAX_DRAIN_BYTES = 64 * 1024;
+
+    private final HostConnectionPool pool;
+    private final PooledConnection connection;
+    private final int statusCode;
+    private final Map<String, String> headers;
+    private final BodyInputStream body;
+    private final boolean keepAlive;
+    private boolean closed;
+    private volatile boolean released;
+
+    HttpResponse(HostConnectionPool pool, PooledConnection connection, int statusCode,
+                 Map<String, String> headers, boolean keepAlive, boolean hasBody) throws IOException {
+        this.pool = pool;
+        this.connection = connection;
+        this.statusCode = statusCode;
+        this.headers = headers;
+        String transferEncoding = headers.get("transfer-encoding");
+        String contentLength = headers.get("content-length");
+        if (!hasBody) {
+            this.body = new FixedLengthInputStream(connection.input(), 0);
+            this.keepAlive = keepAlive;
+        } else if (transferEncoding != null && transferEncoding.toLowerCase(Locale.ROOT).contains("chunked")) {
+            this.body = new ChunkedInputStream(connection);
+            this.keepAlive = keepAlive;
+        } else if (contentLength != null) {
+            long length;
+            try {
+                length = Long.parseLong(contentLength.trim());
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid Content-Length: " + contentLength);
+            }
+            this.body = new FixedLengthInputStream(connection.input(), length);
+            this.keepAlive = keepAlive;
+        } else {
+            // 没有长度信息，只能读到连接关闭为止，连接不可复用
+            this.body = new FixedLengthInputStream(connection.input(), Long.MAX_VALUE);
+            this.keepAlive = false;
+        }
+    }
+
+    /**
+     * 构造响应体已在内存中的响应（非阻塞连接）
+     *
+     * @param statusCode 状态码
+     * @param headers    响应头（名称为小写）
+     * @param body       响应体
+     */
+    HttpResponse(int statusCode, Map<String, String> headers, byte[] body) {
+        this.pool = null;
+        this.connection = null;
+        this.statusCode = statusCode;
+        this.headers = headers;
+        this.body = new FixedLengthInputStream(new ByteArrayInputStream(body), body.length);
+        this.keepAlive = false;
+    }
+
+    /**
+     * 获取状态码
+     *
+     * @return HTTP 状态码
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * 获取响应头
+     *
+     * @param name 响应头名称（不区分大小写）
+     * @return 响应头的值，不存在返回 null
+     */
+    public String getHeader(String name) {
+        return headers.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * 获取声明的响应体长度
+     *
+     * @return 响应体长度，未知返回 -1
+     */
+    public long getContentLength() {
+        String value = headers.get("content-length");
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 获取响应体输入流
+     * 关闭输入流等同于关闭响应
+     *
+     * @return 响应体输入流
+     */
+    public InputStream getBody() {
+        return body;
+    }
+
+    /**
+     * 关闭响应，归还或关闭连接
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        boolean reusable = false;
+        if (keepAlive) {
+            try {
+                reusable = body.drain(MAX_DRAIN_BYTES);
+            } catch (IOException e) {
+                reusable = false;
+            }
+        }
+        released = true;
+        if (pool != null) {
+            pool.release(connection, reusable);
+        }
+    }
+
+    /**
+     * 响应体输入流基类
+     */
+    private abstract class BodyInputStream extends InputStream {
+
+        /**
+         * 读完并丢弃剩余的响应体
+         *
+         * @param limit 最多丢弃的字节数
+         * @return 响应体是否已完整读完
+         */
+        boolean drain(long limit) throws IOException {
+            byte[] buffer = new byte[4096];
+            long drained = 0;
+            int read;
+            while (drained <= limit && (read = read(buffer, 0, buffer.length)) != -1) {
+                drained += read;
+            }
+            return isFinished();
+        }
+
+        abstract boolean isFinished();
+
+        void ensureOpen() throws IOException {
+            if (released) {
+                throw new IOException("Response already closed");
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            int read = read(one, 0, 1);
+            return read == -1 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public void close() {
+            HttpResponse.this.close();
+        }
+    }
+
+    /**
+     * 定长响应体
+     */
+    private final class FixedLengthInputStream extends BodyInputStream {
+        private final InputStream in;
+        private long remaining;
+
+        FixedLengthInputStream(InputStream in, long length) {
+            this.in = in;
+            this.remaining = length;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            ensureOpen();
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = in.read(b, off, (int) Math.min(len, remaining));
+            if (read == -1) {
+                if (remaining != Long.MAX_VALUE) {
+                    throw new IOException("Connection closed before end of response body");
+                }
+                remaining = 0;
+                return -1;
+            }
+            if (remaining != Long.MAX_VALUE) {
+                remaining -= read;
+            }
+            return read;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(in.available(), remaining);
+        }
+
+        @Override
+        boolean isFinished() {
+            return remaining == 0;
+        }
+    }
+
+    /**
+     * 分块传输的响应体
+     */
+    private final class ChunkedInputStream extends BodyInputStream {
+        private final PooledConnection connection;
+        private long chunkRemaining;
+        private boolean finished;
+        // 格式错误后不再读取，连接不会被归还
+        private boolean malformed;
+
+        ChunkedInputStream(PooledConnection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            ensureOpen();
+            if (malformed) {
+                throw new IOException("Malformed chunked body");
+            }
+            if (finished) {
+                return -1;
+            }
+            if (chunkRemaining == 0 && !nextChunk()) {
+                return -1;
+            }
+            int read = connection.input().read(b, off, (int) Math.min(len, chunkRemaining));
+            if (read == -1) {
+                throw new IOException("Connection closed inside chunked body");
+            }
+            chunkRemaining -= read;
+            if (chunkRemaining == 0 && !connection.readLine().isEmpty()) {
+                // 每个分块后必须紧跟 CRLF，否则分块长度与数据不符，连接上剩余的字节不可信
+                throw malformed("Missing CRLF after chunk");
+            }
+            return read;
+        }
+
+        private boolean nextChunk() throws IOException {
+            String line = connection.readLine();
+            int extension = line.indexOf(';');
+            String size = (extension >= 0 ? line.substring(0, extension) : line).trim();
+            try {
+                chunkRemaining = Long.parseLong(size, 16);
+            } catch (NumberFormatException e) {
+                throw malformed("Invalid chunk size: " + line);
+            }
+            if (chunkRemaining < 0) {
+                throw malformed("Invalid chunk size: " + line);
+            }
+            if (chunkRemaining == 0) {
+                // 跳过 trailer，直到空行
+                while (!connection.readLine().isEmpty()) {
+                    // ignore
+                }
+                finished = true;
+                return false;
+            }
+            return true;
+        }
+
+        private IOException malformed(String message) {
+            malformed = true;
+            return new IOException(message);
+        }
+
+        @Override
+        boolean isFinished() {
+            return finished;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.Leeinx.ximultilogin.http;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 连接池中的一条 HTTP/1.1 连接
+ * 同一时间只被一个请求租用，请求结束后由 HttpResponse 归还给连接池
+ */
+final class PooledConnection {
+
+    private static final int MAX_LINE_BYTES = 8192;
+
+    private final Socket socket;
+    private final InputStream in;
+    private final OutputStream out;
+    private final boolean absoluteForm;
+    private volatile long lastUsedAt;
+    private volatile long verifiedAt;
+    private int requestCount;
+    private boolean closed;
+
+    PooledConnection(Socket socket, boolean absoluteForm) throws IOException {
+        this.socket = socket;
+        this.absoluteForm = absoluteForm;
+        this.in = new BufferedInputStream(socket.getInputStream(), 8192);
+        this.out = new BufferedOutputStream(socket.getOutputStream(), 1024);
+        this.lastUsedAt = System.currentTimeMillis();
+        this.verifiedAt = lastUsedAt;
+    }
+
+    /**
+     * 发送请求头
+     *
+     * @param request 完整的请求头（含结尾空行）
+     */
+    void write(byte[] request) throws IOException {
+        requestCount++;
+        out.write(request);
+        out.flush();
+    }
+
+    /**
+     * 读取一行（以 CRLF 或 LF 结尾），用于状态行、响应头和分块长度
+     *
+     * @return 不含行尾的内容
+     * @throws EOFException 连接在行开始前被关闭
+     */
+    String readLine() throws IOException {
+        StringBuilder line = new StringBuilder(64);
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b == -1) {
+                if (line.length() == 0) {
+                    throw new EOFException("Connection closed by peer");
+                }
+                break;
+            }
+            if (b != '\r') {
+                if (line.length() >= MAX_LINE_BYTES) {
+                    throw new IOException("HTTP header line too long");
+                }
+                line.append((char) b);
+            }
+        }
+        return line.toString();
+    }
+
+    InputStream input() {
+        return in;
+    }
+
+    /**
+     * 连接是否经过 HTTP 代理（明文 HTTP），此时请求行必须使用完整 URL
+     *
+     * @return 是否使用绝对形式的请求目标
+     */
+    boolean isAbsoluteForm() {
+        return absoluteForm;
+    }
+
+    /**
+     * 检查空闲连接能否复用
+     *
+     * @param now           当前时间
+     * @param idleTimeoutMs 空闲超时（毫秒）
+     * @return 是否可以复用
+     */
+    boolean isReusable(long now, long idleTimeoutMs) {
+        if (closed || socket.isClosed() || now - verifiedAt >= idleTimeoutMs) {
+            return false;
+        }
+        try {
+            // 空闲连接上不应有未读数据；有数据说明对端已经发送了关闭或错误响应
+            return in.available() == 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    void setReadTimeout(int readTimeoutMillis) throws IOException {
+        socket.setSoTimeout(readTimeoutMillis);
+    }
+
+    void touch() {
+        lastUsedAt = System.currentTimeMillis();
+        verifiedAt = lastUsedAt;
+    }
+
+    /**
+     * 探测空闲连接是否仍然可用，不发送任何数据
+     * 以 1 毫秒超时读取：超时说明对端没有关闭连接；读到数据或连接结束说明连接已不可用。
+     * 可用时更新验证时间，空闲超时从这时重新计算
+     *
+     * @return 连接是否可用
+     */
+    boolean probe() {
+        try {
+            socket.setSoTimeout(1);
+            in.read();
+            return false;
+        } catch (SocketTimeoutException e) {
+            verifiedAt = System.currentTimeMillis();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    long getLastUsedAt() {
+        return lastUsedAt;
+    }
+
+    /**
+     * 获取最近一次确认连接可用的时间（使用或探测）
+     *
+     * @return 时间戳
+     */
+    long getVerifiedAt() {
+        return verifiedAt;
+    }
+
+    boolean isReused() {
+        return requestCount > 1;
+    }
+
+    void close() {
+        closed = true;
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+}
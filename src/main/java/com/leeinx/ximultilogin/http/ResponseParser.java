@@ -0,0 +1,290 @@
+package com.Leeinx.ximultilogin.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 增量 HTTP/1.1 响应解析器
+ * 非阻塞连接每收到一段数据就调用一次，解析器消费缓冲区中已到达的部分，记住解析到哪里；
+ * 响应体收集到内存中，超过上限时失败。分块之后的行必须为空，否则视为格式错误，连接随之关闭而不被复用。
+ */
+final class ResponseParser {
+
+    private static final int MAX_LINE_BYTES = 8192;
+
+    private enum State {
+        STATUS_LINE,
+        HEADERS,
+        BODY,
+        CHUNK_SIZE,
+        CHUNK_DATA,
+        CHUNK_END,
+        TRAILERS,
+        UNTIL_CLOSE,
+        DONE
+    }
+
+    private final long maxBodyBytes;
+    private final StringBuilder line = new StringBuilder(64);
+    private final Map<String, String> headers = new HashMap<>();
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream(1024);
+    private State state = State.STATUS_LINE;
+    private String statusLine;
+    private int statusCode;
+    private boolean keepAlive;
+    private long remaining;
+    private boolean started;
+
+    /**
+     * 构造 ResponseParser
+     *
+     * @param maxBodyBytes 响应体最大字节数
+     */
+    ResponseParser(long maxBodyBytes) {
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    /**
+     * 消费缓冲区中的数据
+     * 响应完整后不再消费，剩余的数据留在缓冲区中
+     *
+     * @param in 读模式的缓冲区
+     * @return 响应是否已完整
+     * @throws IOException 响应格式错误或响应体过大
+     */
+    boolean parse(ByteBuffer in) throws IOException {
+        while (state != State.DONE && in.hasRemaining()) {
+            started = true;
+            switch (state) {
+                case STATUS_LINE:
+                    if (readLine(in)) {
+                        statusLine = takeLine();
+                        statusCode = statusCode(statusLine);
+                        state = State.HEADERS;
+                    }
+                    break;
+                case HEADERS:
+                    if (readLine(in)) {
+                        String header = takeLine();
+                        if (header.isEmpty()) {
+                            startBody();
+                        } else {
+                            int colon = header.indexOf(':');
+                            if (colon > 0) {
+                                headers.put(header.substring(0, colon).trim().toLowerCase(Locale.ROOT), header.substring(colon + 1).trim());
+                            }
+                        }
+                    }
+                    break;
+                case BODY:
+                    copy(in);
+                    if (remaining == 0) {
+                        state = State.DONE;
+                    }
+                    break;
+                case UNTIL_CLOSE:
+                    copy(in);
+                    break;
+                case CHUNK_SIZE:
+                    if (readLine(in)) {
+                        String sizeLine = takeLine();
+                        int extension = sizeLine.indexOf(';');
+                        String size = (extension >= 0 ? sizeLine.substring(0, extension) : sizeLine).trim();
+                        try {
+                            remaining = Long.parseLong(size, 16);
+                        } catch (NumberFormatException e) {
+                            throw new IOException("Invalid chunk size: " + sizeLine);
+                        }
+                        if (remaining < 0) {
+                            throw new IOException("Invalid chunk size: " + sizeLine);
+                        }
+                        state = remaining == 0 ? State.TRAILERS : State.CHUNK_DATA;
+                    }
+                    break;
+                case CHUNK_DATA:
+                    copy(in);
+                    if (remaining == 0) {
+                        state = State.CHUNK_END;
+                    }
+                    break;
+                case CHUNK_END:
+                    if (readLine(in)) {
+                        if (!takeLine().isEmpty()) {
+                            throw new IOException("Missing CRLF after chunk");
+                        }
+                        state = State.CHUNK_SIZE;
+                    }
+                    break;
+                case TRAILERS:
+                    // 忽略 trailer，直到空行
+                    if (readLine(in) && takeLine().isEmpty()) {
+                        state = State.DONE;
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException(state.name());
+            }
+        }
+        return state == State.DONE;
+    }
+
+    /**
+     * 连接在响应完整之前结束
+     * 没有长度信息的响应体以连接结束为界，此时响应完整
+     *
+     * @throws EOFException 还没有收到任何数据（复用的连接已被对端关闭）
+     * @throws IOException  响应不完整
+     */
+    void finish() throws IOException {
+        if (state == State.UNTIL_CLOSE) {
+            state = State.DONE;
+            return;
+        }
+        if (state != State.DONE) {
+            if (!started) {
+                throw new EOFException("Connection closed by peer");
+            }
+            throw new IOException("Connection closed before end of response");
+        }
+    }
+
+    /**
+     * 解析完成后，连接能否用于下一个请求
+     *
+     * @return 服务器是否允许 keep-alive 且响应体以长度或分块定界
+     */
+    boolean isKeepAlive() {
+        return keepAlive;
+    }
+
+    /**
+     * 获取解析完成的响应
+     *
+     * @return 响应体已在内存中的响应
+     */
+    HttpResponse response() {
+        return new HttpResponse(statusCode, headers, body.toByteArray());
+    }
+
+    private void startBody() throws IOException {
+        keepAlive = isKeepAlive(statusLine, headers);
+        String transferEncoding = headers.get("transfer-encoding");
+        String contentLength = headers.get("content-length");
+        if (!hasBody(statusCode)) {
+            state = State.DONE;
+        } else if (transferEncoding != null && transferEncoding.toLowerCase(Locale.ROOT).contains("chunked")) {
+            state = State.CHUNK_SIZE;
+        } else if (contentLength != null) {
+            try {
+                remaining = Long.parseLong(contentLength.trim());
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid Content-Length: " + contentLength);
+            }
+            if (remaining < 0 || remaining > maxBodyBytes) {
+                throw new IOException("Response too large (" + remaining + " bytes), limit " + maxBodyBytes);
+            }
+            state = remaining == 0 ? State.DONE : State.BODY;
+        } else {
+            // 没有长度信息，只能读到连接关闭为止，连接不可复用
+            keepAlive = false;
+            state = State.UNTIL_CLOSE;
+        }
+    }
+
+    /**
+     * 把响应体复制到内存中，定长部分不超过剩余长度
+     */
+    private void copy(ByteBuffer in) throws IOException {
+        int count = state == State.UNTIL_CLOSE ? in.remaining() : (int) Math.min(in.remaining(), remaining);
+        if (body.size() + (long) count > maxBodyBytes) {
+            throw new IOException("Response body exceeds " + maxBodyBytes + " bytes");
+        }
+        if (in.hasArray()) {
+            body.write(in.array(), in.arrayOffset() + in.position(), count);
+            in.position(in.position() + count);
+        } else {
+            for (int i = 0; i < count; i++) {
+                body.write(in.get());
+            }
+        }
+        if (state != State.UNTIL_CLOSE) {
+            remaining -= count;
+        }
+    }
+
+    /**
+     * 读取一行（以 CRLF 或 LF 结尾），跨越多次调用时累积在 line 中
+     *
+     * @return 是否读到了行尾
+     */
+    private boolean readLine(ByteBuffer in) throws IOException {
+        while (in.hasRemaining()) {
+            byte b = in.get();
+            if (b == '\n') {
+                return true;
+            }
+            if (b != '\r') {
+                if (line.length() >= MAX_LINE_BYTES) {
+                    throw new IOException("HTTP header line too long");
+                }
+                line.append((char) (b & 0xFF));
+            }
+        }
+        return false;
+    }
+
+    private String takeLine() {
+        String value = line.toString();
+        line.setLength(0);
+        return value;
+    }
+
+    /**
+     * 解析状态行中的状态码
+     *
+     * @param statusLine 状态行
+     * @return 状态码
+     * @throws IOException 状态行格式错误
+     */
+    static int statusCode(String statusLine) throws IOException {
+        if (!statusLine.startsWith("HTTP/")) {
+            throw new IOException("Malformed status line: " + statusLine);
+        }
+        int firstSpace = statusLine.indexOf(' ');
+        int secondSpace = statusLine.indexOf(' ', firstSpace + 1);
+        try {
+            return Integer.parseInt(statusLine.substring(firstSpace + 1, secondSpace > 0 ? secondSpace : statusLine.length()));
+        } catch (RuntimeException e) {
+            throw new IOException("Malformed status line: " + statusLine);
+        }
+    }
+
+    /**
+     * 服务器是否允许复用连接：HTTP/1.1 默认允许，HTTP/1.0 需要 Connection: keep-alive
+     *
+     * @param statusLine 状态行
+     * @param headers    响应头（名称为小写）
+     * @return 是否 keep-alive
+     */
+    static boolean isKeepAlive(String statusLine, Map<String, String> headers) {
+        String connectionHeader = headers.get("connection");
+        return statusLine.startsWith("HTTP/1.1")
+                ? connectionHeader == null || !connectionHeader.equalsIgnoreCase("close")
+                : connectionHeader != null && connectionHeader.equalsIgnoreCase("keep-alive");
+    }
+
+    /**
+     * 响应是否带响应体
+     *
+     * @param statusCode 状态码
+     * @return 1xx、204 和 304 以外的响应带响应体
+     */
+    static boolean hasBody(int statusCode) {
+        return statusCode >= 200 && statusCode != 204 && statusCode != 304;
+    }
+}
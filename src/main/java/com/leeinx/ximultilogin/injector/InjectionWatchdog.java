@@ -0,0 +1,183 @@
+package com.Leeinx.ximultilogin.injector;
+
+import com.Leeinx.ximultilogin.XiMultiLogin;
+import com.Leeinx.ximultilogin.reflection.HolderPath;
+import com.Leeinx.ximultilogin.reflection.XiReflection;
+import org.bukkit.Bukkit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/**
+ * 注入完整性守护
+ * 定期沿缓存的注入路径读取 SessionService 字段，与注入时的对象做引用比较。
+ * 发现被其它插件或服务器组件替换时报警，并可选地在主线程重新注入。
+ * 正常情况下的检查只做一次字段读取和一次引用比较，不分配对象、不加锁。
+ */
+public class InjectionWatchdog {
+
+    private static final Logger LOGGER = Bukkit.getLogger();
+
+    private final XiMultiLogin plugin;
+    private final long intervalNanos;
+    private final boolean reinject;
+    private final AtomicBoolean reinjectPending = new AtomicBoolean(false);
+
+    private volatile Object minecraftServer;
+    private volatile HolderPath path;
+    private volatile Object expected;
+    private volatile Object reportedDrift;
+    private volatile boolean running;
+    private Thread thread;
+
+    private final AtomicLong checks = new AtomicLong();
+    private final AtomicLong drifts = new AtomicLong();
+    private final AtomicLong reinjections = new AtomicLong();
+    private final AtomicLong failedReinjections = new AtomicLong();
+    private volatile long lastDriftTime;
+
+    /**
+     * 构造 InjectionWatchdog
+     *
+     * @param plugin          插件实例
+     * @param intervalSeconds 检查间隔（秒）
+     * @param reinject        发现偏移时是否重新注入
+     */
+    public InjectionWatchdog(XiMultiLogin plugin, int intervalSeconds, boolean reinject) {
+        this.plugin = plugin;
+        this.intervalNanos = TimeUnit.SECONDS.toNanos(intervalSeconds);
+        this.reinject = reinject;
+    }
+
+    /**
+     * 启动守护
+     *
+     * @return 是否启动成功（需要已解析的注入路径）
+     */
+    public boolean start() {
+        if (!arm()) {
+            LOGGER.warning("InjectionWatchdog: Injection path not resolved, watchdog not started");
+            return false;
+        }
+        running = true;
+        thread = new Thread(this::run, "XiMultiLogin-InjectionWatchdog");
+        thread.setDaemon(true);
+        thread.start();
+        LOGGER.info("InjectionWatchdog: Started (interval: " + TimeUnit.NANOSECONDS.toSeconds(intervalNanos) + "s, reinject: " + reinject + ")");
+        return true;
+    }
+
+    /**
+     * 停止守护
+     * 必须在恢复原始 SessionService 之前调用，否则恢复操作会被当作偏移
+     */
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * 记录当前注入的对象作为期望值
+     *
+     * @return 是否成功读取到注入的对象
+     */
+    private boolean arm() {
+        Object server = XiReflection.getMinecraftServer();
+        HolderPath current = XiReflection.getCachedHolderPath();
+        if (server == null || current == null) {
+            return false;
+        }
+        Object installed = current.readService(server);
+        if (installed == null) {
+            return false;
+        }
+        minecraftServer = server;
+        path = current;
+        expected = installed;
+        reportedDrift = null;
+        return true;
+    }
+
+    private void run() {
+        while (running) {
+            LockSupport.parkNanos(this, intervalNanos);
+            if (!running) {
+                break;
+            }
+            check();
+        }
+    }
+
+    /**
+     * 执行一次检查
+     */
+    private void check() {
+        checks.incrementAndGet();
+        Object current = path.readService(minecraftServer);
+        if (current == expected || current == reportedDrift) {
+            return;
+        }
+        onDrift(current);
+    }
+
+    /**
+     * 处理偏移：同一个替换对象只报警一次
+     *
+     * @param current 当前字段中的对象
+     */
+    private void onDrift(Object current) {
+        reportedDrift = current;
+        drifts.incrementAndGet();
+        lastDriftTime = System.currentTimeMillis();
+        LOGGER.warning("InjectionWatchdog: Session service was replaced by "
+                + (current == null ? "null" : current.getClass().getName())
+                + ", logins are bypassing XiMultiLogin");
+
+        if (!reinject || !reinjectPending.compareAndSet(false, true)) {
+            return;
+        }
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            try {
+                if (running && plugin.getXiInjector().inject(plugin.getXiSessionService()) && arm()) {
+                    reinjections.incrementAndGet();
+                    LOGGER.info("InjectionWatchdog: Session service re-injected");
+                } else if (running) {
+                    failedReinjections.incrementAndGet();
+                    LOGGER.severe("InjectionWatchdog: Failed to re-inject session service");
+                }
+            } finally {
+                reinjectPending.set(false);
+            }
+        });
+    }
+
+    public long getChecks() {
+        return checks.get();
+    }
+
+    public long getDrifts() {
+        return drifts.get();
+    }
+
+    public long getReinjections() {
+        return reinjections.get();
+    }
+
+    public long getFailedReinjections() {
+        return failedReinjections.get();
+    }
+
+    /**
+     * 获取最近一次发现偏移的时间
+     *
+     * @return 时间戳（毫秒），从未偏移时为 0
+     */
+    public long getLastDriftTime() {
+        return lastDriftTime;
+    }
+}
@@ -0,0 +1,341 @@
+package com.Leeinx.ximultilogin.injector;
+
+import com.Leeinx.ximultilogin.guard.FloodGuard;
+import com.Leeinx.ximultilogin.guard.IdentityGuard;
+import com.Leeinx.ximultilogin.reflection.AuthlibBridge;
+import com.Leeinx.ximultilogin.reflection.XiReflection;
+import org.bukkit.Bukkit;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * LoginStart 预取器
+ * 通过反射在服务器的 Netty 管线中安装处理器，读取 LoginStart 包中的玩家名后立即发起 IdentityGuard 预取，
+ * 使数据库查询与客户端的加密握手并行进行，hasJoinedServer 执行时结果已经就绪。
+ * 启用洪泛防护时同时在这里做连接层检查，被拒绝的连接直接关闭，不会产生任何数据库或认证请求。
+ * 编译期不依赖 Netty：处理器是 ChannelInboundHandler 的动态代理，每个连接读到 LoginStart 后即移除自身。
+ */
+public class LoginStartPrefetcher {
+
+    private static final Logger LOGGER = Bukkit.getLogger();
+    private static final String HANDLER_NAME = "ximultilogin_prefetch";
+    private static final String PACKET_HANDLER = "packet_handler";
+    /** 读取到这么多个包仍未遇到 LoginStart（例如状态查询）时放弃 */
+    private static final int MAX_INSPECTED_PACKETS = 3;
+
+    private final IdentityGuard identityGuard;
+    private final FloodGuard floodGuard;
+    private final List<Object> serverPipelines = new ArrayList<>();
+
+    private Class<?> handlerType;
+    private Method channelPipeline;
+    private Method ctxPipeline;
+    private Method ctxChannel;
+    private Method ctxClose;
+    private Method channelRemoteAddress;
+    private Method pipelineAddFirst;
+    private Method pipelineAddLast;
+    private Method pipelineAddBefore;
+    private Method pipelineGet;
+    private Method pipelineRemoveHandler;
+    private Method pipelineRemoveName;
+    private final Map<String, Method> forwarders = new HashMap<>();
+
+    private volatile Class<?> loginStartClass;
+    private volatile Field nameField;
+    private volatile Field profileField;
+
+    /**
+     * 构造 LoginStartPrefetcher
+     *
+     * @param identityGuard 身份守护者
+     * @param floodGuard    登录洪泛防护（可为 null）
+     */
+    public LoginStartPrefetcher(IdentityGuard identityGuard, FloodGuard floodGuard) {
+        this.identityGuard = identityGuard;
+        this.floodGuard = floodGuard;
+    }
+
+    /**
+     * 安装到所有监听中的服务器 Channel
+     *
+     * @return 是否安装成功
+     */
+    public boolean install() {
+        try {
+            ClassLoader loader = Bukkit.getServer().getClass().getClassLoader();
+            handlerType = Class.forName("io.netty.channel.ChannelInboundHandler", true, loader);
+            Class<?> channelHandler = Class.forName("io.netty.channel.ChannelHandler", true, loader);
+            Class<?> contextType = Class.forName("io.netty.channel.ChannelHandlerContext", true, loader);
+            Class<?> pipelineType = Class.forName("io.netty.channel.ChannelPipeline", true, loader);
+            Class<?> channelType = Class.forName("io.netty.channel.Channel", true, loader);
+            Class<?> futureType = Class.forName("io.netty.channel.ChannelFuture", true, loader);
+
+            channelPipeline = channelType.getMethod("pipeline");
+            ctxPipeline = contextType.getMethod("pipeline");
+            ctxChannel = contextType.getMethod("channel");
+            ctxClose = contextType.getMethod("close");
+            channelRemoteAddress = channelType.getMethod("remoteAddress");
+            pipelineAddFirst = pipelineType.getMethod("addFirst", String.class, channelHandler);
+            pipelineAddLast = pipelineType.getMethod("addLast", String.class, channelHandler);
+            pipelineAddBefore = pipelineType.getMethod("addBefore", String.class, String.class, channelHandler);
+            pipelineGet = pipelineType.getMethod("get", String.class);
+            pipelineRemoveHandler = pipelineType.getMethod("remove", channelHandler);
+            pipelineRemoveName = pipelineType.getMethod("remove", String.class);
+
+            // channelXxx(ctx, args...) -> ctx.fireChannelXxx(args...)
+            for (Method method : handlerType.getMethods()) {
+                String name = method.getName();
+                if (name.startsWith("channel") || name.equals("userEventTriggered") || name.equals("exceptionCaught")) {
+                    Class<?>[] params = method.getParameterTypes();
+                    Class<?>[] rest = new Class<?>[params.length - 1];
+                    System.arraycopy(params, 1, rest, 0, rest.length);
+                    forwarders.put(name, contextType.getMethod("fire" + Character.toUpperCase(name.charAt(0)) + name.substring(1), rest));
+                }
+            }
+
+            Method futureChannel = futureType.getMethod("channel");
+            for (Object future : findServerChannelFutures(futureType)) {
+                Object pipeline = channelPipeline.invoke(futureChannel.invoke(future));
+                pipelineAddFirst.invoke(pipeline, HANDLER_NAME, newHandler(new AcceptorHandler()));
+                serverPipelines.add(pipeline);
+            }
+            if (serverPipelines.isEmpty()) {
+                LOGGER.warning("LoginStartPrefetcher: No listening channels found, prefetch disabled");
+                return false;
+            }
+            LOGGER.info("LoginStartPrefetcher: Installed on " + serverPipelines.size() + " listening channel(s)");
+            return true;
+        } catch (Exception e) {
+            LOGGER.warning("LoginStartPrefetcher: Failed to install: " + e);
+            uninstall();
+            return false;
+        }
+    }
+
+    /**
+     * 从服务器 Channel 上卸载
+     * 已建立的连接上的处理器会在读取到 LoginStart 后自行移除
+     */
+    public void uninstall() {
+        for (Object pipeline : serverPipelines) {
+            try {
+                if (pipelineGet.invoke(pipeline, HANDLER_NAME) != null) {
+                    pipelineRemoveName.invoke(pipeline, HANDLER_NAME);
+                }
+            } catch (Exception e) {
+                LOGGER.warning("LoginStartPrefetcher: Failed to uninstall: " + e.getMessage());
+            }
+        }
+        serverPipelines.clear();
+    }
+
+    /**
+     * 查找 ServerConnection 中保存的监听 ChannelFuture 列表
+     *
+     * @param futureType ChannelFuture 接口
+     * @return 监听中的 ChannelFuture
+     */
+    private List<Object> findServerChannelFutures(Class<?> futureType) throws IllegalAccessException {
+        Object minecraftServer = XiReflection.getMinecraftServer();
+        if (minecraftServer == null) {
+            return new ArrayList<>();
+        }
+        for (Class<?> clazz = minecraftServer.getClass(); clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+            for (Field field : clazz.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || field.getType().isPrimitive()) {
+                    continue;
+                }
+                String typeName = field.getType().getSimpleName();
+                if (!typeName.equals("ServerConnection") && !typeName.equals("ServerConnectionListener")) {
+                    continue;
+                }
+                field.setAccessible(true);
+                Object connection = field.get(minecraftServer);
+                if (connection == null) {
+                    continue;
+                }
+                for (Field listField : connection.getClass().getDeclaredFields()) {
+                    if (!List.class.isAssignableFrom(listField.getType())) {
+                        continue;
+                    }
+                    listField.setAccessible(true);
+                    List<?> list = (List<?>) listField.get(connection);
+                    if (list != null && !list.isEmpty() && futureType.isInstance(list.get(0))) {
+                        synchronized (list) {
+                            return new ArrayList<>(list);
+                        }
+                    }
+                }
+            }
+        }
+        return new ArrayList<>();
+    }
+
+    private Object newHandler(InvocationHandler handler) {
+        return Proxy.newProxyInstance(handlerType.getClassLoader(), new Class<?>[]{ handlerType }, handler);
+    }
+
+    /**
+     * 将事件转发给管线中的下一个处理器
+     */
+    private Object forward(Object proxy, Method method, Object[] args) throws Exception {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return HANDLER_NAME;
+            case "handlerAdded":
+            case "handlerRemoved":
+                return null;
+            default:
+                Method forwarder = forwarders.get(method.getName());
+                if (forwarder != null) {
+                    Object[] rest = new Object[args.length - 1];
+                    System.arraycopy(args, 1, rest, 0, rest.length);
+                    try {
+                        forwarder.invoke(args[0], rest);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                    }
+                }
+                return null;
+        }
+    }
+
+    /**
+     * 服务器 Channel 上的处理器
+     * 接受新连接时，在子 Channel 上添加一次性的初始化处理器（位于服务器自己的初始化器之前）
+     */
+    private final class AcceptorHandler implements InvocationHandler {
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getName().equals("channelRead")) {
+                try {
+                    Object childPipeline = channelPipeline.invoke(args[1]);
+                    pipelineAddLast.invoke(childPipeline, HANDLER_NAME, newHandler(new ChildInitHandler()));
+                } catch (Exception e) {
+                    LOGGER.warning("LoginStartPrefetcher: Failed to attach to connection: " + e.getMessage());
+                }
+            }
+            return forward(proxy, method, args);
+        }
+    }
+
+    /**
+     * 子 Channel 上的初始化处理器
+     * channelActive 时服务器的初始化器已经执行完毕，此时把包处理器插入到 packet_handler 之前并移除自身
+     */
+    private final class ChildInitHandler implements InvocationHandler {
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = forward(proxy, method, args);
+            if (method.getName().equals("channelActive")) {
+                Object pipeline = ctxPipeline.invoke(args[0]);
+                pipelineRemoveHandler.invoke(pipeline, proxy);
+                if (pipelineGet.invoke(pipeline, PACKET_HANDLER) != null) {
+                    pipelineAddBefore.invoke(pipeline, PACKET_HANDLER, HANDLER_NAME, newHandler(new LoginStartHandler()));
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 解码后的包处理器
+     * 读取到 LoginStart 时发起预取，随后（或检查若干个包后）移除自身
+     */
+    private final class LoginStartHandler implements InvocationHandler {
+        private int inspected;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (!method.getName().equals("channelRead")) {
+                return forward(proxy, method, args);
+            }
+            boolean done = ++inspected >= MAX_INSPECTED_PACKETS;
+            if (isLoginStart(args[1])) {
+                String name = readName(args[1]);
+                if (floodGuard != null && !floodGuard.admitConnection(remoteAddress(args[0]), name)) {
+                    // 连接层拒绝：不转发 LoginStart，直接断开
+                    ctxClose.invoke(args[0]);
+                    return null;
+                }
+                identityGuard.prefetch(name);
+                done = true;
+            }
+            Object result = forward(proxy, method, args);
+            if (done) {
+                pipelineRemoveHandler.invoke(ctxPipeline.invoke(args[0]), proxy);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 获取连接的客户端地址
+     */
+    private InetAddress remoteAddress(Object ctx) throws Exception {
+        SocketAddress address = (SocketAddress) channelRemoteAddress.invoke(ctxChannel.invoke(ctx));
+        return address instanceof InetSocketAddress ? ((InetSocketAddress) address).getAddress() : null;
+    }
+
+    /**
+     * 判断是否为 LoginStart 包，首次匹配后缓存包类型和名称字段
+     */
+    private boolean isLoginStart(Object packet) {
+        Class<?> type = packet.getClass();
+        if (type == loginStartClass) {
+            return true;
+        }
+        if (loginStartClass != null) {
+            return false;
+        }
+        String simpleName = type.getSimpleName();
+        if (!simpleName.equals("PacketLoginInStart") && !simpleName.equals("ServerboundHelloPacket")) {
+            return false;
+        }
+        for (Field field : type.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers())) {
+                continue;
+            }
+            if (field.getType() == String.class && nameField == null) {
+                field.setAccessible(true);
+                nameField = field;
+            } else if (field.getType().getName().equals("com.mojang.authlib.GameProfile") && profileField == null) {
+                field.setAccessible(true);
+                profileField = field;
+            }
+        }
+        loginStartClass = type;
+        return true;
+    }
+
+    private String readName(Object packet) {
+        try {
+            if (nameField != null) {
+                return (String) nameField.get(packet);
+            }
+            if (profileField != null) {
+                return AuthlibBridge.getName(profileField.get(packet));
+            }
+        } catch (IllegalAccessException ignored) {
+        }
+        return null;
+    }
+}
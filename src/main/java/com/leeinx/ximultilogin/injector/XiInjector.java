@@ -1,9 +1,17 @@
 package com.Leeinx.ximultilogin.injector;
 
 import com.Leeinx.ximultilogin.auth.XiSessionService;
+import com.Leeinx.ximultilogin.reflection.HolderPath;
 import com.Leeinx.ximultilogin.reflection.XiReflection;
 import org.bukkit.Bukkit;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
 import java.util.logging.Logger;
 
 /**
@@ -13,6 +21,19 @@ import java.util.logging.Logger;
 public class XiInjector {
 
     private static final Logger LOGGER = Bukkit.getLogger();
+    private static final String PATH_CACHE_FILE = "injection-cache.properties";
+
+    private final File pathCacheFile;
+    private boolean pathCacheChecked;
+
+    /**
+     * 构造 XiInjector
+     * 
+     * @param dataFolder 插件数据文件夹，用于持久化注入路径
+     */
+    public XiInjector(File dataFolder) {
+        this.pathCacheFile = new File(dataFolder, PATH_CACHE_FILE);
+    }
 
     /**
      * 获取原始的 MinecraftSessionService
@@ -27,6 +48,7 @@ public class XiInjector {
                 LOGGER.severe("XiInjector: Failed to get MinecraftServer instance");
                 return null;
             }
+            primeHolderPath(minecraftServer);
             
             // 获取 SessionService
             return XiReflection.getSessionService(minecraftServer);
@@ -50,6 +72,7 @@ public class XiInjector {
                 LOGGER.severe("XiInjector: Failed to get MinecraftServer instance");
                 return false;
             }
+            primeHolderPath(minecraftServer);
             
             // 注入 SessionService
             return XiReflection.setSessionService(minecraftServer, xiSessionService);
@@ -73,6 +96,7 @@ public class XiInjector {
                 LOGGER.severe("XiInjector: Failed to get MinecraftServer instance");
                 return false;
             }
+            primeHolderPath(minecraftServer);
             
             // 恢复 SessionService
             return XiReflection.setSessionService(minecraftServer, originalSessionService);
@@ -81,4 +105,53 @@ public class XiInjector {
             return false;
         }
     }
+
+    /**
+     * 预置注入路径缓存
+     * 当前服务器版本和实现已有持久化路径且校验通过时直接使用，否则扫描一次并写回磁盘
+     * 
+     * @param minecraftServer MinecraftServer 实例
+     */
+    private void primeHolderPath(Object minecraftServer) {
+        if (pathCacheChecked || XiReflection.getCachedHolderPath() != null) {
+            return;
+        }
+        pathCacheChecked = true;
+
+        Class<?> sessionType;
+        try {
+            sessionType = Class.forName("com.mojang.authlib.minecraft.MinecraftSessionService");
+        } catch (ClassNotFoundException e) {
+            return;
+        }
+
+        String key = Bukkit.getName() + " " + Bukkit.getVersion();
+        Properties cache = new Properties();
+        if (pathCacheFile.exists()) {
+            try (InputStream in = new FileInputStream(pathCacheFile)) {
+                cache.load(in);
+            } catch (IOException e) {
+                LOGGER.warning("XiInjector: Failed to read " + PATH_CACHE_FILE + ": " + e.getMessage());
+            }
+        }
+
+        HolderPath path = HolderPath.decode(cache.getProperty(key), minecraftServer, sessionType);
+        if (path != null) {
+            XiReflection.primeHolderPath(path);
+            LOGGER.info("XiInjector: Using cached injection path for " + key);
+            return;
+        }
+
+        path = XiReflection.resolveHolderPath(minecraftServer, sessionType);
+        if (path == null) {
+            return;
+        }
+        cache.setProperty(key, path.encode());
+        try (OutputStream out = new FileOutputStream(pathCacheFile)) {
+            cache.store(out, "XiMultiLogin injection path cache (server version -> holder field chain)");
+            LOGGER.info("XiInjector: Cached injection path for " + key);
+        } catch (IOException e) {
+            LOGGER.warning("XiInjector: Failed to write " + PATH_CACHE_FILE + ": " + e.getMessage());
+        }
+    }
 }
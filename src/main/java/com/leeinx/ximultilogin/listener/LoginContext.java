@@ -0,0 +1,100 @@
+package com.Leeinx.ximultilogin.listener;
+
+/**
+ * 登录上下文
+ * 一次登录尝试的认证结果：成功或失败、失败原因、认证提供者，以及认证耗时和记录时间。
+ * 不可变，每次认证结果产生时整体替换。
+ */
+public final class LoginContext {
+
+    /**
+     * 认证结果
+     */
+    public enum Outcome {
+        SUCCEEDED,
+        FAILED
+    }
+
+    private final String username;
+    private final Outcome outcome;
+    private final String reason;
+    private final String provider;
+    private final long authMillis;
+    private final long recordedAt;
+
+    private LoginContext(String username, Outcome outcome, String reason, String provider, long authMillis) {
+        this.username = username;
+        this.outcome = outcome;
+        this.reason = reason;
+        this.provider = provider;
+        this.authMillis = authMillis;
+        this.recordedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * 创建认证失败的上下文
+     *
+     * @param username   玩家名称
+     * @param reason     失败原因
+     * @param provider   认证提供者（可为 null）
+     * @param authMillis 认证耗时（毫秒）
+     * @return 登录上下文
+     */
+    public static LoginContext failed(String username, String reason, String provider, long authMillis) {
+        return new LoginContext(username, Outcome.FAILED, reason, provider, authMillis);
+    }
+
+    /**
+     * 创建认证成功的上下文
+     *
+     * @param username   玩家名称
+     * @param provider   认证提供者
+     * @param authMillis 认证耗时（毫秒）
+     * @return 登录上下文
+     */
+    public static LoginContext succeeded(String username, String provider, long authMillis) {
+        return new LoginContext(username, Outcome.SUCCEEDED, null, provider, authMillis);
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    public boolean isFailed() {
+        return outcome == Outcome.FAILED;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public String getProvider() {
+        return provider;
+    }
+
+    /**
+     * 获取认证耗时（从 hasJoinedServer 开始到得出结果）
+     *
+     * @return 耗时（毫秒）
+     */
+    public long getAuthMillis() {
+        return authMillis;
+    }
+
+    public long getRecordedAt() {
+        return recordedAt;
+    }
+
+    /**
+     * 获取从记录到现在经过的时间
+     *
+     * @return 经过的时间（毫秒）
+     */
+    public long getAgeMillis() {
+        return System.currentTimeMillis() - recordedAt;
+    }
+}
@@ -0,0 +1,200 @@
+package com.Leeinx.ximultilogin.listener;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 登录上下文存储
+ * 按玩家名保存最近一次登录上下文，数量和存活时间都有上限。
+ * 过期使用时间轮：写入时把名称放入到期刻度对应的槽位，advance() 每个刻度只处理到期的那个槽位，
+ * 不扫描整个表。
+ * 超过数量上限时只淘汰最早写入的成功上下文：失败上下文决定玩家是否被踢出，只能被读取、替换或到期，
+ * 否则大量失败的登录可以把受害者的失败记录挤掉，让临时身份直接进入服务器。
+ * 失败上下文的数量由存活时间和洪泛防护限制的登录速率约束。
+ */
+public class LoginContextStore {
+
+    private final Map<String, Entry> contexts = new ConcurrentHashMap<>();
+    private final Queue<String>[] wheel;
+    private final Queue<Entry> evictable = new ConcurrentLinkedQueue<>(); // 成功的上下文，写入顺序即到期顺序
+    private final long tickMillis;
+    private final int ttlTicks;
+    private final int maxEntries;
+    private long lastAdvancedTick;
+
+    /**
+     * 带到期刻度的上下文
+     */
+    private static final class Entry {
+        final LoginContext context;
+        final long expiryTick;
+
+        Entry(LoginContext context, long expiryTick) {
+            this.context = context;
+            this.expiryTick = expiryTick;
+        }
+    }
+
+    /**
+     * 构造 LoginContextStore
+     *
+     * @param maxEntries 最大条目数
+     * @param ttlMillis  上下文存活时间（毫秒）
+     * @param tickMillis 时间轮刻度（毫秒）
+     */
+    @SuppressWarnings("unchecked")
+    public LoginContextStore(int maxEntries, long ttlMillis, long tickMillis) {
+        this.maxEntries = maxEntries;
+        this.tickMillis = tickMillis;
+        this.ttlTicks = (int) Math.max(1, ttlMillis / tickMillis);
+        this.wheel = (Queue<String>[]) new Queue<?>[ttlTicks + 2];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.lastAdvancedTick = currentTick();
+    }
+
+    private long currentTick() {
+        return System.currentTimeMillis() / tickMillis;
+    }
+
+    private Queue<String> slot(long tick) {
+        return wheel[(int) (tick % wheel.length)];
+    }
+
+    /**
+     * 保存上下文，替换该玩家之前的上下文
+     *
+     * @param context 登录上下文
+     */
+    public void put(LoginContext context) {
+        long expiryTick = currentTick() + ttlTicks;
+        String name = context.getUsername();
+        Entry entry = new Entry(context, expiryTick);
+        contexts.put(name, entry);
+        slot(expiryTick).add(name);
+        if (!context.isFailed()) {
+            evictable.add(entry);
+        }
+        if (contexts.size() > maxEntries) {
+            evictSucceeded();
+        }
+    }
+
+    /**
+     * 获取未过期的上下文
+     *
+     * @param name 玩家名称
+     * @return 登录上下文，不存在或已过期返回 null
+     */
+    public LoginContext get(String name) {
+        Entry entry = contexts.get(name);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiryTick < currentTick()) {
+            contexts.remove(name, entry);
+            return null;
+        }
+        return entry.context;
+    }
+
+    /**
+     * 移除指定的上下文（仅当它仍是该玩家的当前上下文时）
+     *
+     * @param context 登录上下文
+     * @return 是否移除
+     */
+    public boolean remove(LoginContext context) {
+        Entry entry = contexts.get(context.getUsername());
+        return entry != null && entry.context == context && contexts.remove(context.getUsername(), entry);
+    }
+
+    /**
+     * 移除指定结果的上下文
+     *
+     * @param name    玩家名称
+     * @param outcome 认证结果
+     * @return 被移除的上下文，不存在或结果不符返回 null
+     */
+    public LoginContext remove(String name, LoginContext.Outcome outcome) {
+        Entry entry = contexts.get(name);
+        if (entry != null && entry.context.getOutcome() == outcome && contexts.remove(name, entry)) {
+            return entry.context;
+        }
+        return null;
+    }
+
+    /**
+     * 移除玩家的上下文
+     *
+     * @param name 玩家名称
+     * @return 被移除的上下文，不存在返回 null
+     */
+    public LoginContext remove(String name) {
+        Entry entry = contexts.remove(name);
+        return entry != null ? entry.context : null;
+    }
+
+    /**
+     * 推进时间轮，移除已到期的上下文
+     * 由定时任务周期性调用
+     *
+     * @return 移除的条目数
+     */
+    public synchronized int advance() {
+        long now = currentTick();
+        long from = Math.max(lastAdvancedTick + 1, now - wheel.length + 1);
+        int expired = 0;
+        for (long tick = from; tick <= now; tick++) {
+            expired += drain(tick);
+        }
+        lastAdvancedTick = now;
+        // 丢弃队首已到期或已被替换的成功上下文
+        Entry head;
+        while ((head = evictable.peek()) != null
+                && (head.expiryTick <= now || contexts.get(head.context.getUsername()) != head)) {
+            evictable.remove(head);
+        }
+        return expired;
+    }
+
+    /**
+     * 超过数量上限时，从最早写入的成功上下文开始淘汰，失败上下文不会被淘汰
+     * 每个成功上下文最多被取出一次，淘汰的总开销与写入次数成正比
+     */
+    private void evictSucceeded() {
+        Entry entry;
+        while (contexts.size() > maxEntries && (entry = evictable.poll()) != null) {
+            contexts.remove(entry.context.getUsername(), entry);
+        }
+    }
+
+    /**
+     * 清空一个槽位，移除到期刻度不晚于该槽位的上下文
+     * 槽位中的名称如果之后被重新写入（到期刻度更晚），则保留
+     */
+    private int drain(long tick) {
+        Queue<String> queue = slot(tick);
+        int removed = 0;
+        String name;
+        while ((name = queue.poll()) != null) {
+            Entry entry = contexts.get(name);
+            if (entry != null && entry.expiryTick <= tick && contexts.remove(name, entry)) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * 获取当前条目数
+     *
+     * @return 条目数
+     */
+    public int size() {
+        return contexts.size();
+    }
+}
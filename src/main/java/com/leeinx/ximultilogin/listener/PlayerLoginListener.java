@@ -9,9 +9,7 @@ import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerLoginEvent;
 
-import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
 /**
@@ -24,9 +22,11 @@ public class PlayerLoginListener implements Listener {
     private final XiMultiLogin plugin;
     private final MessageManager messageManager;
 
-    private final Map<String, String> failedAuthReasons = new ConcurrentHashMap<>();
-    private final Map<String, String> failedAuthProviders = new ConcurrentHashMap<>();
-    private final Map<String, String> successfulAuthProviders = new ConcurrentHashMap<>();
+    private static final int MAX_CONTEXTS = 10000;
+    private static final long CONTEXT_TTL_MILLIS = 60000;
+    private static final long CONTEXT_TICK_MILLIS = 1000;
+
+    private final LoginContextStore contexts = new LoginContextStore(MAX_CONTEXTS, CONTEXT_TTL_MILLIS, CONTEXT_TICK_MILLIS);
 
     /**
      * 构造 PlayerLoginListener
@@ -52,31 +52,17 @@ public class PlayerLoginListener implements Listener {
         LOGGER.info("PlayerLoginListener: AsyncPlayerPreLoginEvent for " + username);
 
         // 无条件检查是否有失败记录
-        String reason = failedAuthReasons.get(username);
-        String provider = failedAuthProviders.get(username);
-
-        if (reason != null) {
-            LOGGER.info("PlayerLoginListener: Found failed auth reason for " + username + ": " + reason);
-
-            String kickMessage;
-            if ("strict_auth_failed".equals(reason)) {
-                kickMessage = messageManager.getMessage("login.strict_auth_failed", "provider", provider);
-            } else if ("mojang_failed".equals(reason)) {
-                kickMessage = messageManager.getMessage("login.mojang_failed");
-            } else if ("yggdrasil_failed".equals(reason)) {
-                kickMessage = messageManager.getMessage("login.yggdrasil_failed", "provider", provider);
-            } else if ("all_providers_failed".equals(reason)) {
-                kickMessage = messageManager.getMessage("login.all_providers_failed");
-            } else {
-                kickMessage = messageManager.getMessage("login.failed", "reason", reason);
-            }
-
-            event.disallow(AsyncPlayerPreLoginEvent.Result.KICK_OTHER, kickMessage);
+        LoginContext context = contexts.get(username);
+
+        if (context != null && context.isFailed()) {
+            LOGGER.info("PlayerLoginListener: Found failed auth reason for " + username + ": " + context.getReason()
+                    + " (auth " + context.getAuthMillis() + "ms, recorded " + context.getAgeMillis() + "ms ago)");
+
+            event.disallow(AsyncPlayerPreLoginEvent.Result.KICK_OTHER, buildKickMessage(context));
             LOGGER.info("PlayerLoginListener: Kicked player " + username + " with custom message");
             
             // 在disallow之后再移除记录
-            failedAuthReasons.remove(username);
-            failedAuthProviders.remove(username);
+            contexts.remove(context);
         }
     }
 
@@ -93,36 +79,42 @@ public class PlayerLoginListener implements Listener {
         LOGGER.info("PlayerLoginListener: PlayerLoginEvent for " + username);
 
         // 检查是否有失败记录（安全网）
-        String reason = failedAuthReasons.get(username);
-        String provider = failedAuthProviders.get(username);
+        LoginContext context = contexts.get(username);
 
-        if (reason != null) {
+        if (context != null && context.isFailed()) {
             // 严重安全警告：玩家绕过了异步检查
             LOGGER.severe("PlayerLoginListener: CRITICAL SECURITY BREACH - Player " + username + " bypassed AsyncPlayerPreLoginEvent check!");
-            LOGGER.severe("PlayerLoginListener: Authentication failure reason: " + reason);
-
-            String kickMessage;
-            if ("strict_auth_failed".equals(reason)) {
-                kickMessage = messageManager.getMessage("login.strict_auth_failed", "provider", provider);
-            } else if ("mojang_failed".equals(reason)) {
-                kickMessage = messageManager.getMessage("login.mojang_failed");
-            } else if ("yggdrasil_failed".equals(reason)) {
-                kickMessage = messageManager.getMessage("login.yggdrasil_failed", "provider", provider);
-            } else if ("all_providers_failed".equals(reason)) {
-                kickMessage = messageManager.getMessage("login.all_providers_failed");
-            } else {
-                kickMessage = messageManager.getMessage("login.failed", "reason", reason);
-            }
-
-            event.disallow(PlayerLoginEvent.Result.KICK_OTHER, kickMessage);
+            LOGGER.severe("PlayerLoginListener: Authentication failure reason: " + context.getReason());
+
+            event.disallow(PlayerLoginEvent.Result.KICK_OTHER, buildKickMessage(context));
             LOGGER.info("PlayerLoginListener: Kicked player " + username + " with custom message (safety net)");
             
             // 清理记录
-            failedAuthReasons.remove(username);
-            failedAuthProviders.remove(username);
+            contexts.remove(context);
         }
     }
 
+    /**
+     * 根据失败原因构建踢出消息
+     *
+     * @param context 失败的登录上下文
+     * @return 踢出消息
+     */
+    private String buildKickMessage(LoginContext context) {
+        String reason = context.getReason();
+        String provider = context.getProvider();
+        if ("strict_auth_failed".equals(reason)) {
+            return messageManager.getMessage("login.strict_auth_failed", "provider", provider);
+        } else if ("mojang_failed".equals(reason)) {
+            return messageManager.getMessage("login.mojang_failed");
+        } else if ("yggdrasil_failed".equals(reason)) {
+            return messageManager.getMessage("login.yggdrasil_failed", "provider", provider);
+        } else if ("all_providers_failed".equals(reason)) {
+            return messageManager.getMessage("login.all_providers_failed");
+        }
+        return messageManager.getMessage("login.failed", "reason", reason);
+    }
+
     /**
      * 监听玩家加入事件
      * 发送认证成功的消息给玩家
@@ -135,15 +127,14 @@ public class PlayerLoginListener implements Listener {
         String username = player.getName();
         
         // 检查是否有认证成功记录
-        String provider = successfulAuthProviders.get(username);
-        if (provider != null) {
+        LoginContext context = contexts.remove(username, LoginContext.Outcome.SUCCEEDED);
+        if (context != null) {
+            String provider = context.getProvider();
             // 发送认证成功的消息
             String joinMessage = messageManager.getMessage("login.success", "provider", provider);
             player.sendMessage(joinMessage);
-            LOGGER.info("PlayerLoginListener: Sent auth success message to " + username + " (provider: " + provider + ")");
-            
-            // 清理成功记录
-            successfulAuthProviders.remove(username);
+            LOGGER.info("PlayerLoginListener: Sent auth success message to " + username + " (provider: " + provider
+                    + ", auth " + context.getAuthMillis() + "ms, joined " + context.getAgeMillis() + "ms after auth)");
         }
     }
 
@@ -157,14 +148,9 @@ public class PlayerLoginListener implements Listener {
     public void onPlayerQuit(org.bukkit.event.player.PlayerQuitEvent event) {
         String username = event.getPlayer().getName();
         
-        // 清理失败记录
-        if (failedAuthReasons.remove(username) != null || failedAuthProviders.remove(username) != null) {
-            LOGGER.info("PlayerLoginListener: Cleaned up auth failure records for " + username + " on quit");
-        }
-        
-        // 清理成功记录
-        if (successfulAuthProviders.remove(username) != null) {
-            LOGGER.info("PlayerLoginListener: Cleaned up auth success records for " + username + " on quit");
+        LoginContext context = contexts.remove(username);
+        if (context != null) {
+            LOGGER.info("PlayerLoginListener: Cleaned up auth " + (context.isFailed() ? "failure" : "success") + " records for " + username + " on quit");
         }
     }
 
@@ -175,15 +161,12 @@ public class PlayerLoginListener implements Listener {
      * @param username 玩家名称
      * @param reason 失败原因
      * @param provider 认证提供者（可选）
+     * @param authMillis 认证耗时（毫秒）
      */
-    public void recordAuthFailure(String username, String reason, String provider) {
+    public void recordAuthFailure(String username, String reason, String provider, long authMillis) {
         LOGGER.info("PlayerLoginListener: Recording auth failure for " + username + ": " + reason + " (provider: " + provider + ")");
-        failedAuthReasons.put(username, reason);
-        if (provider != null) {
-            failedAuthProviders.put(username, provider);
-        }
-        // 清理可能存在的成功记录
-        successfulAuthProviders.remove(username);
+        // 替换可能存在的成功记录
+        contexts.put(LoginContext.failed(username, reason, provider, authMillis));
     }
 
     /**
@@ -192,25 +175,23 @@ public class PlayerLoginListener implements Listener {
      *
      * @param username 玩家名称
      * @param provider 认证提供者
+     * @param authMillis 认证耗时（毫秒）
      */
-    public void recordAuthSuccess(String username, String provider) {
+    public void recordAuthSuccess(String username, String provider, long authMillis) {
         LOGGER.info("PlayerLoginListener: Recording auth success for " + username + " (provider: " + provider + ")");
-        successfulAuthProviders.put(username, provider);
-        // 清理可能存在的失败记录
-        failedAuthReasons.remove(username);
-        failedAuthProviders.remove(username);
+        // 替换可能存在的失败记录
+        contexts.put(LoginContext.succeeded(username, provider, authMillis));
     }
 
     /**
      * 清理过期的认证记录
-     * 定期调用以防止内存泄漏
+     * 定期调用以防止内存泄漏，只处理已到期的记录
      */
     public void cleanupOldRecords() {
-        long currentTime = System.currentTimeMillis();
-        failedAuthReasons.clear();
-        failedAuthProviders.clear();
-        successfulAuthProviders.clear();
-        LOGGER.info("PlayerLoginListener: Cleaned up old auth records");
+        int expired = contexts.advance();
+        if (expired > 0) {
+            LOGGER.fine("PlayerLoginListener: Cleaned up " + expired + " expired auth records");
+        }
     }
     
     /**
@@ -220,7 +201,7 @@ public class PlayerLoginListener implements Listener {
      * @param username 玩家名称
      */
     public void clearAuthFailure(String username) {
-        if (failedAuthReasons.remove(username) != null || failedAuthProviders.remove(username) != null) {
+        if (contexts.remove(username, LoginContext.Outcome.FAILED) != null) {
             LOGGER.info("PlayerLoginListener: Cleared auth failure record for " + username);
         }
     }
@@ -231,7 +212,7 @@ public class PlayerLoginListener implements Listener {
      * @param username 玩家名称
      */
     public void clearAuthSuccess(String username) {
-        if (successfulAuthProviders.remove(username) != null) {
+        if (contexts.remove(username, LoginContext.Outcome.SUCCEEDED) != null) {
             LOGGER.info("PlayerLoginListener: Cleared auth success record for " + username);
         }
     }
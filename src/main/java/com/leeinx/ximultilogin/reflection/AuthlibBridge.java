@@ -0,0 +1,217 @@
+package com.Leeinx.ximultilogin.reflection;
+
+import org.bukkit.Bukkit;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * authlib 桥接
+ * 首次使用时把 GameProfile / Property 的构造器、访问器和属性表 put 方法解析为 MethodHandle 并缓存，
+ * 之后所有档案的创建和读取都不再进行反射查找。
+ * 兼容旧版 authlib（getName/getId/getProperties）和 record 形式的新版 authlib（name/id/properties）。
+ */
+public final class AuthlibBridge {
+
+    private static final Logger LOGGER = Bukkit.getLogger();
+    private static final String GAME_PROFILE_CLASS = "com.mojang.authlib.GameProfile";
+    private static final String PROPERTY_CLASS = "com.mojang.authlib.properties.Property";
+
+    private AuthlibBridge() {
+    }
+
+    /**
+     * 延迟初始化的 MethodHandle 持有类
+     * 第一次访问时由 JVM 保证线程安全地初始化一次
+     */
+    private static final class Handles {
+        static final Class<?> GAME_PROFILE;
+        /** (UUID, String)Object */
+        static final MethodHandle NEW_PROFILE;
+        /** (Object)String */
+        static final MethodHandle GET_NAME;
+        /** (Object)UUID */
+        static final MethodHandle GET_ID;
+        /** (String, String, String)Object */
+        static final MethodHandle NEW_PROPERTY;
+        /** (Object profile, Object key, Object property)boolean */
+        static final MethodHandle PUT_PROPERTY;
+
+        static {
+            Class<?> gameProfile = null;
+            MethodHandle newProfile = null;
+            MethodHandle getName = null;
+            MethodHandle getId = null;
+            MethodHandle newProperty = null;
+            MethodHandle putProperty = null;
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+                gameProfile = Class.forName(GAME_PROFILE_CLASS);
+                Class<?> property = Class.forName(PROPERTY_CLASS);
+
+                newProfile = lookup.findConstructor(gameProfile, MethodType.methodType(void.class, UUID.class, String.class))
+                        .asType(MethodType.methodType(Object.class, UUID.class, String.class));
+                getName = findAccessor(lookup, gameProfile, "getName", "name")
+                        .asType(MethodType.methodType(String.class, Object.class));
+                getId = findAccessor(lookup, gameProfile, "getId", "id")
+                        .asType(MethodType.methodType(UUID.class, Object.class));
+                newProperty = lookup.findConstructor(property, MethodType.methodType(void.class, String.class, String.class, String.class))
+                        .asType(MethodType.methodType(Object.class, String.class, String.class, String.class));
+
+                // profile.getProperties().put(key, property)
+                MethodHandle getProperties = findAccessor(lookup, gameProfile, "getProperties", "properties");
+                MethodHandle put = lookup.findVirtual(getProperties.type().returnType(), "put",
+                        MethodType.methodType(boolean.class, Object.class, Object.class));
+                putProperty = MethodHandles.filterArguments(put, 0, getProperties)
+                        .asType(MethodType.methodType(boolean.class, Object.class, Object.class, Object.class));
+
+                LOGGER.info("AuthlibBridge: authlib handles resolved");
+            } catch (Throwable e) {
+                LOGGER.severe("AuthlibBridge: Failed to resolve authlib handles: " + e);
+            }
+            GAME_PROFILE = gameProfile;
+            NEW_PROFILE = newProfile;
+            GET_NAME = getName;
+            GET_ID = getId;
+            NEW_PROPERTY = newProperty;
+            PUT_PROPERTY = putProperty;
+        }
+    }
+
+    /**
+     * 按候选名称依次查找无参访问器
+     *
+     * @param lookup 查找上下文
+     * @param owner  所属类
+     * @param names  候选方法名
+     * @return 访问器 MethodHandle
+     * @throws NoSuchMethodException  所有候选名称都不存在
+     * @throws IllegalAccessException 无法访问
+     */
+    private static MethodHandle findAccessor(MethodHandles.Lookup lookup, Class<?> owner, String... names)
+            throws NoSuchMethodException, IllegalAccessException {
+        for (String name : names) {
+            try {
+                return lookup.unreflect(owner.getMethod(name));
+            } catch (NoSuchMethodException ignored) {
+            }
+        }
+        throw new NoSuchMethodException(owner.getName() + "." + String.join("/", names));
+    }
+
+    /**
+     * 检查 authlib 是否可用
+     *
+     * @return 所有 MethodHandle 是否都已解析
+     */
+    public static boolean isAvailable() {
+        return Handles.PUT_PROPERTY != null;
+    }
+
+    /**
+     * 获取服务器加载的 GameProfile 类
+     *
+     * @return GameProfile 类，authlib 不可用时返回 null
+     */
+    public static Class<?> getGameProfileClass() {
+        return Handles.GAME_PROFILE;
+    }
+
+    /**
+     * 创建 GameProfile
+     *
+     * @param uuid UUID（可为 null）
+     * @param name 玩家名称
+     * @return GameProfile 对象，创建失败返回 null
+     */
+    public static Object createProfile(UUID uuid, String name) {
+        if (Handles.NEW_PROFILE == null) {
+            return null;
+        }
+        try {
+            return (Object) Handles.NEW_PROFILE.invokeExact(uuid, name);
+        } catch (Throwable e) {
+            LOGGER.warning("AuthlibBridge: Failed to create GameProfile: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 获取 GameProfile 的名称
+     *
+     * @param profile GameProfile 对象
+     * @return 玩家名称，失败返回 null
+     */
+    public static String getName(Object profile) {
+        if (Handles.GET_NAME == null || profile == null) {
+            return null;
+        }
+        try {
+            return (String) Handles.GET_NAME.invokeExact(profile);
+        } catch (Throwable e) {
+            LOGGER.warning("AuthlibBridge: Failed to read profile name: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 获取 GameProfile 的 UUID
+     *
+     * @param profile GameProfile 对象
+     * @return UUID，失败返回 null
+     */
+    public static UUID getId(Object profile) {
+        if (Handles.GET_ID == null || profile == null) {
+            return null;
+        }
+        try {
+            return (UUID) Handles.GET_ID.invokeExact(profile);
+        } catch (Throwable e) {
+            LOGGER.warning("AuthlibBridge: Failed to read profile id: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 创建 Property
+     *
+     * @param name      属性名
+     * @param value     属性值
+     * @param signature 签名（可为 null）
+     * @return Property 对象，创建失败返回 null
+     */
+    public static Object createProperty(String name, String value, String signature) {
+        if (Handles.NEW_PROPERTY == null) {
+            return null;
+        }
+        try {
+            return (Object) Handles.NEW_PROPERTY.invokeExact(name, value, signature);
+        } catch (Throwable e) {
+            LOGGER.warning("AuthlibBridge: Failed to create Property: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 向 GameProfile 的属性表添加属性
+     *
+     * @param profile  GameProfile 对象
+     * @param name     属性名
+     * @param property Property 对象
+     * @return 是否添加成功
+     */
+    public static boolean putProperty(Object profile, String name, Object property) {
+        if (Handles.PUT_PROPERTY == null || profile == null || property == null) {
+            return false;
+        }
+        try {
+            return (boolean) Handles.PUT_PROPERTY.invokeExact(profile, (Object) name, property);
+        } catch (Throwable e) {
+            LOGGER.warning("AuthlibBridge: Failed to add property: " + e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.Leeinx.ximultilogin.reflection;
+
+import java.lang.reflect.Field;
+
+/**
+ * SessionService 注入路径
+ * 记录从 MinecraftServer 到 SessionService 字段的字段链，以及容器是否为 Record。
+ * 路径解析一次后缓存，可编码为字符串持久化，下次启动时只需按名称取回字段并做类型校验，无需重新扫描。
+ */
+public final class HolderPath {
+
+    private final Field holderField;
+    private final Field innerField;
+    private final boolean record;
+
+    /**
+     * 构造 HolderPath
+     *
+     * @param holderField MinecraftServer 上的字段（直接持有 SessionService，或持有其容器）
+     * @param innerField  容器内的 SessionService 字段，直接持有时为 null
+     * @param record      容器是否为 Record
+     */
+    HolderPath(Field holderField, Field innerField, boolean record) {
+        this.holderField = holderField;
+        this.innerField = innerField;
+        this.record = record;
+        holderField.setAccessible(true);
+        if (innerField != null) {
+            innerField.setAccessible(true);
+        }
+    }
+
+    public Field getHolderField() {
+        return holderField;
+    }
+
+    public Field getInnerField() {
+        return innerField;
+    }
+
+    public boolean isRecord() {
+        return record;
+    }
+
+    /**
+     * SessionService 是否直接由 MinecraftServer 的字段持有
+     *
+     * @return 是否直接持有
+     */
+    public boolean isDirect() {
+        return innerField == null;
+    }
+
+    /**
+     * 沿路径读取当前的 SessionService
+     *
+     * @param minecraftServer MinecraftServer 实例
+     * @return 当前的 SessionService，路径不可用时返回 null
+     */
+    public Object readService(Object minecraftServer) {
+        try {
+            Object holder = holderField.get(minecraftServer);
+            if (isDirect() || holder == null) {
+                return holder;
+            }
+            return innerField.getDeclaringClass().isInstance(holder) ? innerField.get(holder) : null;
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 编码为字符串，格式：holderClass#holderField|innerClass#innerField|record
+     *
+     * @return 编码后的路径
+     */
+    public String encode() {
+        return describe(holderField) + "|" + (innerField == null ? "" : describe(innerField)) + "|" + record;
+    }
+
+    private static String describe(Field field) {
+        return field.getDeclaringClass().getName() + "#" + field.getName();
+    }
+
+    /**
+     * 解码并校验持久化的路径
+     * 只做字段查找和类型比较，不扫描任何字段
+     *
+     * @param encoded         编码后的路径
+     * @param minecraftServer MinecraftServer 实例
+     * @param sessionType     MinecraftSessionService 接口
+     * @return 校验通过的路径，失败返回 null
+     */
+    public static HolderPath decode(String encoded, Object minecraftServer, Class<?> sessionType) {
+        if (encoded == null) {
+            return null;
+        }
+        String[] parts = encoded.split("\\|", -1);
+        if (parts.length != 3) {
+            return null;
+        }
+        try {
+            ClassLoader loader = minecraftServer.getClass().getClassLoader();
+            Field holderField = resolve(parts[0], loader);
+            if (holderField == null || !holderField.getDeclaringClass().isInstance(minecraftServer)) {
+                return null;
+            }
+            Field innerField = null;
+            if (!parts[1].isEmpty()) {
+                innerField = resolve(parts[1], loader);
+                if (innerField == null) {
+                    return null;
+                }
+            }
+            if (!isSessionField(innerField != null ? innerField : holderField, sessionType)) {
+                return null;
+            }
+            HolderPath path = new HolderPath(holderField, innerField, Boolean.parseBoolean(parts[2]));
+            return path.readService(minecraftServer) != null ? path : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static Field resolve(String descriptor, ClassLoader loader) throws ClassNotFoundException {
+        int separator = descriptor.indexOf('#');
+        if (separator <= 0) {
+            return null;
+        }
+        Class<?> owner = Class.forName(descriptor.substring(0, separator), false, loader);
+        try {
+            return owner.getDeclaredField(descriptor.substring(separator + 1));
+        } catch (NoSuchFieldException e) {
+            return null;
+        }
+    }
+
+    private static boolean isSessionField(Field field, Class<?> sessionType) {
+        return sessionType.isAssignableFrom(field.getType()) || field.getType().getName().equals(sessionType.getName());
+    }
+}
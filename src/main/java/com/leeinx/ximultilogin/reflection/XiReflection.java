@@ -2,8 +2,15 @@ package com.Leeinx.ximultilogin.reflection;
 
 import org.bukkit.Bukkit;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.*;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.logging.Logger;
 
 /**
@@ -14,7 +21,10 @@ import java.util.logging.Logger;
 public class XiReflection {
 
     private static final Logger LOGGER = Bukkit.getLogger();
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final Object[] NO_ARGS = new Object[0];
     private static Object unsafeInstance;
+    private static volatile HolderPath holderPath;
 
     public static void init() {
         try {
@@ -56,12 +66,55 @@ public class XiReflection {
         return field.getType().getName().equals(targetType.getName());
     }
 
-    public static Object[] findSessionServiceHolder(Object minecraftServer, Class<?> sessionType) {
+    /**
+     * 获取 SessionService 的注入路径
+     * 优先使用缓存的路径，缓存不存在或已失效时重新扫描
+     * 
+     * @param minecraftServer MinecraftServer 实例
+     * @param sessionType     MinecraftSessionService 接口
+     * @return 注入路径，找不到返回 null
+     */
+    public static HolderPath resolveHolderPath(Object minecraftServer, Class<?> sessionType) {
+        HolderPath path = holderPath;
+        if (path != null && path.readService(minecraftServer) != null) {
+            return path;
+        }
+        path = findSessionServiceHolder(minecraftServer, sessionType);
+        holderPath = path;
+        return path;
+    }
+
+    /**
+     * 获取缓存的注入路径
+     * 
+     * @return 缓存的注入路径，尚未解析时返回 null
+     */
+    public static HolderPath getCachedHolderPath() {
+        return holderPath;
+    }
+
+    /**
+     * 使用已校验的路径（例如从磁盘恢复的路径）预置缓存
+     * 
+     * @param path 注入路径
+     */
+    public static void primeHolderPath(HolderPath path) {
+        holderPath = path;
+    }
+
+    /**
+     * 扫描 MinecraftServer 的字段，查找 SessionService 的注入路径
+     * 
+     * @param minecraftServer MinecraftServer 实例
+     * @param sessionType     MinecraftSessionService 接口
+     * @return 注入路径，找不到返回 null
+     */
+    public static HolderPath findSessionServiceHolder(Object minecraftServer, Class<?> sessionType) {
         Class<?> clazz = minecraftServer.getClass();
         
         // 1. Direct
         Field directField = getFieldByType(clazz, sessionType);
-        if (directField != null) return new Object[]{ minecraftServer, directField, false };
+        if (directField != null) return new HolderPath(directField, null, false);
 
         // 2. Wrapper Scan
         LOGGER.info("XiReflection: Scanning wrappers...");
@@ -77,7 +130,7 @@ public class XiReflection {
                     if (innerField != null) {
                         boolean isRecord = isRecordClass(wrapperObj.getClass());
                         LOGGER.info("XiReflection: Found container: " + wrapperField.getName() + " (IsRecord: " + isRecord + ")");
-                        return new Object[]{ minecraftServer, wrapperField, isRecord };
+                        return new HolderPath(wrapperField, innerField, isRecord);
                     }
                 } catch (Exception ignored) {}
             }
@@ -111,12 +164,9 @@ public class XiReflection {
     public static Object getSessionService(Object minecraftServer) {
         try {
             Class<?> sessionType = Class.forName("com.mojang.authlib.minecraft.MinecraftSessionService");
-            Object[] info = findSessionServiceHolder(minecraftServer, sessionType);
-            if (info != null) {
-                Field wrapperField = (Field) info[1];
-                Object wrapper = wrapperField.get(info[0]);
-                Field inner = getFieldByType(wrapper.getClass(), sessionType);
-                return inner.get(wrapper);
+            HolderPath path = resolveHolderPath(minecraftServer, sessionType);
+            if (path != null) {
+                return path.readService(minecraftServer);
             }
         } catch (Exception e) { e.printStackTrace(); }
         return null;
@@ -125,27 +175,27 @@ public class XiReflection {
     public static boolean setSessionService(Object minecraftServer, Object newService) {
         try {
             Class<?> sessionType = Class.forName("com.mojang.authlib.minecraft.MinecraftSessionService");
-            Object[] info = findSessionServiceHolder(minecraftServer, sessionType);
+            HolderPath path = resolveHolderPath(minecraftServer, sessionType);
             
-            if (info == null) {
+            if (path == null) {
                 LOGGER.severe("XiReflection: Holder not found.");
                 return false;
             }
 
-            Object serverInstance = info[0];
-            Field wrapperField = (Field) info[1];
-            boolean isRecord = (boolean) info[2];
+            Field wrapperField = path.getHolderField();
 
-            wrapperField.setAccessible(true);
-            Object oldWrapper = wrapperField.get(serverInstance);
+            if (path.isDirect()) {
+                LOGGER.info("XiReflection: Injecting direct field...");
+                return injectField(minecraftServer, wrapperField, newService);
+            }
 
-            if (isRecord) {
+            Object oldWrapper = wrapperField.get(minecraftServer);
+            if (path.isRecord()) {
                 LOGGER.info("XiReflection: Reconstructing Record with Proxy...");
-                return reconstructAndSwapRecord(serverInstance, wrapperField, oldWrapper, newService, sessionType);
+                return reconstructAndSwapRecord(minecraftServer, wrapperField, oldWrapper, newService, sessionType);
             } else {
                 LOGGER.info("XiReflection: Injecting normal field...");
-                Field inner = getFieldByType(oldWrapper.getClass(), sessionType);
-                return injectField(oldWrapper, inner, newService);
+                return injectField(oldWrapper, path.getInnerField(), newService);
             }
         } catch (Exception e) {
             LOGGER.severe("XiReflection: Error: " + e.getMessage());
@@ -186,68 +236,7 @@ public class XiReflection {
                     LOGGER.info("XiReflection: Swapping " + componentName + " with Loose Proxy.");
                     
                     // ★★★ 核心修复：智能参数适配代理 (Smart Parameter Adapter Proxy) ★★★
-                    // 使用 Record 组件期待的 ClassLoader 和 接口类型
-                    Object proxy = Proxy.newProxyInstance(
-                        componentType.getClassLoader(),
-                        new Class<?>[]{ componentType }, // 强制使用 Record 要求的接口
-                        (proxyObj, method, args) -> {
-                            try {
-                                // 尝试直接调用，使用松散匹配
-                                Method targetMethod = findMethodLoose(newSessionService.getClass(), method.getName(), args == null ? 0 : args.length);
-                                
-                                if (targetMethod != null) {
-                                    targetMethod.setAccessible(true);
-                                    try {
-                                        // 尝试直接调用
-                                        return targetMethod.invoke(newSessionService, args);
-                                    } catch (IllegalArgumentException e) {
-                                        // 参数类型不匹配，尝试智能适配
-                                        LOGGER.info("XiReflection: Parameter type mismatch, trying smart adaptation...");
-                                        
-                                        // 检查是否是 hasJoinedServer 方法，且第一个参数是 GameProfile
-                                        if (method.getName().equals("hasJoinedServer") && args != null && args.length == 3) {
-                                            // 尝试从第一个参数(GameProfile)中提取用户名
-                                            try {
-                                                Object firstArg = args[0];
-                                                // 检查是否有 getName 方法
-                                                Method getNameMethod = firstArg.getClass().getMethod("getName");
-                                                String username = (String) getNameMethod.invoke(firstArg);
-                                                
-                                                // 创建新的参数数组，使用用户名代替 GameProfile
-                                                Object[] adaptedArgs = new Object[]{username, args[1], args[2]};
-                                                
-                                                // 查找并调用接受 String 的版本
-                                                Method stringVersionMethod = findMethodLoose(
-                                                    newSessionService.getClass(), 
-                                                    "hasJoinedServer", 
-                                                    3
-                                                );
-                                                
-                                                if (stringVersionMethod != null) {
-                                                    stringVersionMethod.setAccessible(true);
-                                                    return stringVersionMethod.invoke(newSessionService, adaptedArgs);
-                                                }
-                                            } catch (Exception ex) {
-                                                LOGGER.warning("XiReflection: Smart adaptation failed: " + ex.getMessage());
-                                            }
-                                        }
-                                        
-                                        // 如果智能适配失败，重新抛出原异常
-                                        throw e;
-                                    }
-                                } else {
-                                    LOGGER.severe("XiReflection: Method not found in XiSessionService: " + method.getName());
-                                    throw new NoSuchMethodException(method.getName());
-                                }
-                            } catch (Exception e) {
-                                LOGGER.severe("XiReflection: Proxy invocation failed: " + e.getMessage());
-                                e.printStackTrace();
-                                throw e;
-                            }
-                        }
-                    );
-                    
-                    newArgs[i] = proxy; // 塞入代理对象
+                    newArgs[i] = createDispatchProxy(componentType, newSessionService); // 塞入代理对象
                 } else {
                     newArgs[i] = value;
                 }
@@ -329,6 +318,145 @@ public class XiReflection {
         }
     }
 
+    /**
+     * 创建把接口调用转发给目标对象的代理
+     * 创建时为每个接口方法解析好目标 MethodHandle（含 GameProfile -> 用户名的适配），
+     * 调用时只做一次查表和一次 invokeExact。包级可见，供 src/jmh 中的基准测试使用
+     * 
+     * @param interfaceType 代理实现的接口（使用它的 ClassLoader）
+     * @param target        实际处理调用的对象
+     * @return 代理对象
+     */
+    static Object createDispatchProxy(Class<?> interfaceType, Object target) {
+        Map<Method, MethodHandle> dispatch = buildDispatchTable(interfaceType, target);
+        return Proxy.newProxyInstance(
+            interfaceType.getClassLoader(),
+            new Class<?>[]{ interfaceType }, // 强制使用 Record 要求的接口
+            (proxyObj, method, args) -> {
+                MethodHandle handle = dispatch.get(method);
+                if (handle == null) {
+                    LOGGER.severe("XiReflection: Method not found in XiSessionService: " + method.getName());
+                    throw new NoSuchMethodException(method.getName());
+                }
+                return (Object) handle.invokeExact(args == null ? NO_ARGS : args);
+            }
+        );
+    }
+
+    /**
+     * 为代理接口的每个方法预先解析目标 MethodHandle
+     * 每个 MethodHandle 都已绑定目标对象并适配为 (Object[])Object，可直接 invokeExact
+     * 
+     * @param interfaceType 代理实现的接口
+     * @param target        实际处理调用的对象
+     * @return 接口方法到 MethodHandle 的映射，无法解析的方法不在其中
+     */
+    private static Map<Method, MethodHandle> buildDispatchTable(Class<?> interfaceType, Object target) {
+        Map<Method, MethodHandle> dispatch = new HashMap<>();
+        List<Method> methods = new ArrayList<>(Arrays.asList(interfaceType.getMethods()));
+        // Proxy 同样会转发 equals/hashCode/toString
+        for (String name : new String[]{ "equals", "hashCode", "toString" }) {
+            for (Method m : Object.class.getMethods()) {
+                if (m.getName().equals(name)) {
+                    methods.add(m);
+                }
+            }
+        }
+        for (Method method : methods) {
+            try {
+                MethodHandle handle = resolveHandle(method, target);
+                if (handle != null) {
+                    dispatch.put(method, handle);
+                } else {
+                    LOGGER.warning("XiReflection: No target for proxied method " + method.getName() + "/" + method.getParameterCount());
+                }
+            } catch (Exception e) {
+                LOGGER.warning("XiReflection: Failed to resolve " + method.getName() + ": " + e.getMessage());
+            }
+        }
+        LOGGER.info("XiReflection: Proxy dispatch table built (" + dispatch.size() + "/" + methods.size() + " methods)");
+        return dispatch;
+    }
+
+    /**
+     * 为单个接口方法解析目标 MethodHandle
+     * 依次尝试：参数类型完全一致的方法、hasJoinedServer 的 GameProfile -> 用户名适配、参数类型兼容的方法、只按名称和参数个数的松散匹配
+     * 
+     * @param method 接口方法
+     * @param target 实际处理调用的对象
+     * @return 适配为 (Object[])Object 的 MethodHandle，找不到返回 null
+     * @throws IllegalAccessException 无法访问目标方法
+     */
+    private static MethodHandle resolveHandle(Method method, Object target) throws IllegalAccessException {
+        Class<?> targetClass = target.getClass();
+        Class<?>[] params = method.getParameterTypes();
+
+        // 1. 参数类型完全一致
+        try {
+            Method exact = targetClass.getMethod(method.getName(), params);
+            return toSpreader(LOOKUP.unreflect(exact).bindTo(target), params.length);
+        } catch (NoSuchMethodException ignored) {
+        }
+
+        // 2. hasJoinedServer(GameProfile, String, InetAddress) -> hasJoinedServer(String, String, InetAddress)
+        if (method.getName().equals("hasJoinedServer") && params.length == 3 && params[0] != String.class) {
+            try {
+                Method stringVersion = targetClass.getMethod("hasJoinedServer", String.class, String.class, params[2]);
+                MethodHandle getName = LOOKUP.findVirtual(params[0], "getName", MethodType.methodType(String.class));
+                MethodHandle handle = LOOKUP.unreflect(stringVersion).bindTo(target);
+                return toSpreader(MethodHandles.filterArguments(handle, 0, getName), params.length);
+            } catch (NoSuchMethodException ignored) {
+            }
+        }
+
+        // 3. 参数类型兼容
+        for (Method candidate : targetClass.getMethods()) {
+            if (candidate.getName().equals(method.getName()) && isCallableWith(candidate.getParameterTypes(), params)) {
+                return toSpreader(LOOKUP.unreflect(candidate).bindTo(target), params.length);
+            }
+        }
+
+        // 4. 松散匹配（跨 ClassLoader 时类型无法比较）
+        Method loose = findMethodLoose(targetClass, method.getName(), params.length);
+        if (loose != null) {
+            loose.setAccessible(true);
+            return toSpreader(LOOKUP.unreflect(loose).bindTo(target), params.length);
+        }
+        return null;
+    }
+
+    /**
+     * 检查方法参数是否可以接受给定类型的实参
+     * 
+     * @param declared 方法声明的参数类型
+     * @param actual   实参类型
+     * @return 是否兼容
+     */
+    private static boolean isCallableWith(Class<?>[] declared, Class<?>[] actual) {
+        if (declared.length != actual.length) {
+            return false;
+        }
+        for (int i = 0; i < declared.length; i++) {
+            if (declared[i].isPrimitive() || actual[i].isPrimitive()
+                    ? declared[i] != actual[i]
+                    : !declared[i].isAssignableFrom(actual[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 将 MethodHandle 适配为接收 Object[] 参数、返回 Object 的形式
+     * 
+     * @param handle     已绑定目标对象的 MethodHandle
+     * @param paramCount 参数个数
+     * @return (Object[])Object 类型的 MethodHandle
+     */
+    private static MethodHandle toSpreader(MethodHandle handle, int paramCount) {
+        return handle.asType(MethodType.genericMethodType(paramCount)).asSpreader(Object[].class, paramCount);
+    }
+
     /**
      * ★ 新增辅助方法：松散查找方法
      * 忽略参数的具体 Class 类型，只匹配方法名和参数个数
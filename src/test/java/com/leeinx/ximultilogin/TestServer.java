@@ -0,0 +1,29 @@
+package com.Leeinx.ximultilogin;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.mockito.Mockito;
+
+import java.util.logging.Logger;
+
+/**
+ * 测试用的 Bukkit 服务器
+ * 插件的多个类在静态初始化时调用 Bukkit.getLogger()，测试这些类之前需要先安装服务器
+ */
+public final class TestServer {
+
+    private TestServer() {
+    }
+
+    /**
+     * 安装只提供日志的模拟服务器，已安装时不做任何事
+     */
+    public static synchronized void install() {
+        if (Bukkit.getServer() != null) {
+            return;
+        }
+        Server server = Mockito.mock(Server.class);
+        Mockito.when(server.getLogger()).thenReturn(Logger.getLogger("XiMultiLogin-Test"));
+        Bukkit.setServer(server);
+    }
+}
@@ -0,0 +1,75 @@
+package com.Leeinx.ximultilogin.auth;
+
+import com.Leeinx.ximultilogin.TestServer;
+import com.Leeinx.ximultilogin.config.ConfigManager;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AuthPipelineTest {
+
+    @BeforeClass
+    public static void installServer() {
+        TestServer.install();
+    }
+
+    private static AuthPipeline pipeline(ExecutorService executor) {
+        return new AuthPipeline(Collections.<AuthProvider>emptyList(), Collections.<String, ConfigManager.ProviderConfig>emptyMap(),
+                executor, 10);
+    }
+
+    @Test
+    public void retiredPipelineRejectsNewLogins() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        AuthPipeline pipeline = pipeline(executor);
+        pipeline.retire();
+
+        assertFalse(pipeline.tryAcquire());
+        assertTrue(executor.isShutdown());
+    }
+
+    @Test
+    public void retiredPipelineDrainsInFlightLoginsBeforeShutdown() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        AuthPipeline pipeline = pipeline(executor);
+        assertTrue(pipeline.tryAcquire());
+        assertTrue(pipeline.tryAcquire());
+
+        pipeline.retire();
+        assertFalse(executor.isShutdown());
+        pipeline.release();
+        assertFalse(executor.isShutdown());
+        pipeline.release();
+        assertTrue(executor.isShutdown());
+    }
+
+    @Test
+    public void releaseWithoutRetireKeepsExecutor() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        AuthPipeline pipeline = pipeline(executor);
+        assertTrue(pipeline.tryAcquire());
+        pipeline.release();
+
+        assertFalse(executor.isShutdown());
+        executor.shutdown();
+    }
+
+    @Test
+    public void laterPipelineSupersedesEarlierOne() {
+        AuthPipeline earlier = pipeline(Executors.newSingleThreadExecutor());
+        AuthPipeline later = pipeline(Executors.newSingleThreadExecutor());
+
+        // 重载完成顺序颠倒时，较早构建的快照不能覆盖较晚的快照
+        assertTrue(later.supersedes(earlier));
+        assertFalse(earlier.supersedes(later));
+        assertFalse(later.supersedes(later));
+        earlier.retire();
+        later.retire();
+    }
+}
@@ -0,0 +1,133 @@
+package com.Leeinx.ximultilogin.auth.providers;
+
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ProviderLimiterTest {
+
+    private static final long FAR = Long.MAX_VALUE;
+
+    @Test
+    public void grantsUpToLimitThenQueues() {
+        ProviderLimiter limiter = new ProviderLimiter(2, false, 60);
+
+        assertTrue(limiter.acquire(FAR).getNow(false));
+        assertTrue(limiter.acquire(FAR).getNow(false));
+        CompletableFuture<Boolean> queued = limiter.acquire(FAR);
+
+        assertFalse(queued.isDone());
+        assertEquals(1, limiter.getQueued());
+        assertFalse(limiter.tryAcquire());
+    }
+
+    @Test
+    public void releaseHandsPermitToFirstWaiter() {
+        ProviderLimiter limiter = new ProviderLimiter(1, false, 60);
+        assertTrue(limiter.tryAcquire());
+        CompletableFuture<Boolean> first = limiter.acquire(FAR);
+        CompletableFuture<Boolean> second = limiter.acquire(FAR);
+
+        limiter.release(ProviderLimiter.Outcome.SUCCESS);
+
+        assertTrue(first.getNow(false));
+        assertFalse(second.isDone());
+        assertEquals(1, limiter.getInFlight());
+    }
+
+    @Test
+    public void waiterPastDeadlineFailsInsteadOfTakingPermit() throws Exception {
+        ProviderLimiter limiter = new ProviderLimiter(1, false, 60);
+        assertTrue(limiter.tryAcquire());
+        CompletableFuture<Boolean> expiring = limiter.acquire(System.currentTimeMillis() + 20);
+        CompletableFuture<Boolean> patient = limiter.acquire(FAR);
+        Thread.sleep(40);
+
+        limiter.release(ProviderLimiter.Outcome.SUCCESS);
+
+        assertFalse(expiring.getNow(true));
+        assertTrue(patient.getNow(false));
+        assertEquals(1, limiter.getInFlight());
+        assertEquals(1, limiter.getRejected());
+    }
+
+    @Test
+    public void queueIsBounded() {
+        ProviderLimiter limiter = new ProviderLimiter(1, false, 60);
+        assertTrue(limiter.tryAcquire());
+        for (int i = 0; i < 4; i++) {
+            limiter.acquire(FAR);
+        }
+
+        assertFalse(limiter.acquire(FAR).getNow(true));
+        assertEquals(4, limiter.getQueued());
+    }
+
+    @Test
+    public void throttleFailsQueuedRequestsAndRejectsNewOnes() {
+        ProviderLimiter limiter = new ProviderLimiter(1, false, 60);
+        assertTrue(limiter.tryAcquire());
+        CompletableFuture<Boolean> queued = limiter.acquire(FAR);
+
+        limiter.throttle("30");
+
+        assertFalse(queued.getNow(true));
+        assertEquals(0, limiter.getQueued());
+        assertFalse(limiter.acquire(FAR).getNow(true));
+        assertEquals(1, limiter.getThrottled());
+        assertTrue(limiter.getBackoffRemainingMillis() > 25000);
+    }
+
+    @Test
+    public void backoffIsCappedAtMaximum() {
+        ProviderLimiter limiter = new ProviderLimiter(1, false, 5);
+
+        limiter.throttle("3600");
+
+        assertTrue(limiter.getBackoffRemainingMillis() <= 5000);
+    }
+
+    @Test
+    public void overloadHalvesLimitAndSuccessGrowsItBack() {
+        ProviderLimiter limiter = new ProviderLimiter(8, true, 60);
+        assertTrue(limiter.tryAcquire());
+        limiter.release(ProviderLimiter.Outcome.OVERLOAD);
+        assertEquals(4, limiter.getLimit());
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(ProviderLimiter.Outcome.SUCCESS);
+        }
+        assertEquals(8, limiter.getLimit());
+    }
+
+    @Test
+    public void fixedLimitIgnoresOutcomes() {
+        ProviderLimiter limiter = new ProviderLimiter(8, false, 60);
+        assertTrue(limiter.tryAcquire());
+        limiter.release(ProviderLimiter.Outcome.OVERLOAD);
+
+        assertEquals(8, limiter.getLimit());
+    }
+
+    @Test
+    public void configureKeepsAdaptiveStateAndBackoff() {
+        ProviderLimiter limiter = new ProviderLimiter(8, true, 60);
+        assertTrue(limiter.tryAcquire());
+        limiter.release(ProviderLimiter.Outcome.OVERLOAD);
+        limiter.throttle("30");
+
+        limiter.configure(16, true, 60);
+
+        assertEquals(4, limiter.getLimit());
+        assertEquals(16, limiter.getMaxLimit());
+        assertTrue(limiter.getBackoffRemainingMillis() > 25000);
+
+        limiter.configure(2, true, 60);
+        assertEquals(2, limiter.getLimit());
+    }
+}
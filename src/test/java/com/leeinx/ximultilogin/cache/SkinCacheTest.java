@@ -0,0 +1,141 @@
+package com.Leeinx.ximultilogin.cache;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SkinCacheTest {
+
+    private static final UUID PROFILE = UUID.fromString("069a79f4-44e9-4726-a5be-fca90e38aaf5");
+
+    /**
+     * 生成约 1KB 的皮肤属性，接近 TYPICAL_ENTRY_WEIGHT
+     */
+    private static List<SkinProperty> properties(String seed) {
+        StringBuilder value = new StringBuilder();
+        while (value.length() < 800) {
+            value.append(seed).append('-');
+        }
+        return Collections.singletonList(new SkinProperty("textures", value.toString(), "sig-" + seed));
+    }
+
+    @Test
+    public void putThenGetReturnsProperties() {
+        SkinCache cache = new SkinCache(100, 60, 1);
+        cache.put("Steve:test", PROFILE, properties("steve"));
+
+        List<SkinProperty> cached = cache.get("Steve:test");
+        assertNotNull(cached);
+        assertEquals(properties("steve").get(0).getValue(), cached.get(0).getValue());
+        assertEquals("sig-steve", cached.get(0).getSignature());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void entryOfAnotherProfileIsAMiss() {
+        SkinCache cache = new SkinCache(100, 60, 1);
+        cache.put("Steve:test", PROFILE, properties("steve"));
+
+        assertNull(cache.get("Steve:test", UUID.randomUUID(), null));
+        assertNotNull(cache.get("Steve:test", PROFILE, null));
+    }
+
+    @Test
+    public void evictionKeepsWeightWithinMaximum() {
+        SkinCache cache = new SkinCache(100, 60, 1);
+        for (int i = 0; i < 1000; i++) {
+            cache.put("player" + i + ":test", PROFILE, properties("player" + i));
+            assertTrue(cache.getWeight() <= cache.getMaximumWeight());
+        }
+        assertTrue(cache.getEvictions() > 0);
+        assertTrue(cache.size() < 1000);
+        assertEquals(1000, cache.size() + cache.getEvictions());
+    }
+
+    @Test
+    public void admissionKeepsFrequentEntriesDuringScan() {
+        SkinCache cache = new SkinCache(100, 60, 1);
+        for (int i = 0; i < 20; i++) {
+            cache.put("hot" + i + ":test", PROFILE, properties("hot" + i));
+        }
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 20; i++) {
+                cache.get("hot" + i + ":test");
+            }
+        }
+        // 一次性访问的条目不应挤掉经常访问的条目
+        for (int i = 0; i < 2000; i++) {
+            cache.put("scan" + i + ":test", PROFILE, properties("scan" + i));
+        }
+        for (int i = 0; i < 20; i++) {
+            assertNotNull("hot" + i + " was evicted", cache.get("hot" + i + ":test"));
+        }
+    }
+
+    @Test
+    public void oversizedEntryIsNotCached() {
+        SkinCache cache = new SkinCache(100, 60, 1);
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < 200 * 1024; i++) {
+            value.append((char) ('a' + i % 26));
+        }
+        cache.put("Huge:test", PROFILE, Collections.singletonList(new SkinProperty("textures", value.toString(), null)));
+
+        assertNull(cache.get("Huge:test"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void shrinkingCapacityEvictsImmediately() {
+        SkinCache cache = new SkinCache(100, 60, 1);
+        for (int i = 0; i < 80; i++) {
+            cache.put("player" + i + ":test", PROFILE, properties("player" + i));
+        }
+        cache.configure(10, 60, 1);
+        assertTrue(cache.getWeight() <= cache.getMaximumWeight());
+        assertTrue(cache.size() <= 10);
+    }
+
+    @Test
+    public void refreshAheadOnlyRunsForVerifiedLookups() {
+        // refreshAhead = 0：任何读取都在提前刷新窗口内
+        SkinCache cache = new SkinCache(100, 60, 0);
+        cache.put("Steve:test", PROFILE, properties("old"));
+        AtomicInteger calls = new AtomicInteger();
+        SkinCache.Refresher refresher = (key, profileId, current) -> {
+            calls.incrementAndGet();
+            assertEquals(PROFILE, profileId);
+            return CompletableFuture.completedFuture(properties("new"));
+        };
+
+        cache.get("Steve:test");
+        assertEquals(0, calls.get());
+        assertNull(cache.get("Steve:test", UUID.randomUUID(), refresher));
+        assertEquals(0, calls.get());
+
+        cache.get("Steve:test", PROFILE, refresher);
+        assertEquals(1, calls.get());
+        assertEquals(1, cache.getRefreshes());
+        assertEquals(properties("new").get(0).getValue(), cache.get("Steve:test").get(0).getValue());
+    }
+
+    @Test
+    public void invalidateRemovesEntry() {
+        SkinCache cache = new SkinCache(100, 60, 1);
+        cache.put("Steve:test", PROFILE, properties("steve"));
+        cache.invalidate("Steve:test");
+
+        assertNull(cache.get("Steve:test"));
+        assertFalse(cache.size() > 0);
+    }
+}
@@ -0,0 +1,185 @@
+package com.Leeinx.ximultilogin.cache;
+
+import com.Leeinx.ximultilogin.TestServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SkinDiskCacheTest {
+
+    private static final long MAX_BYTES = 4 * 1024 * 1024;
+    private static final UUID PROFILE = UUID.fromString("069a79f4-44e9-4726-a5be-fca90e38aaf5");
+
+    private File directory;
+
+    @BeforeClass
+    public static void installServer() {
+        TestServer.install();
+    }
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("skin-disk-cache").toFile();
+    }
+
+    @After
+    public void deleteDirectory() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    private static List<SkinProperty> properties(String value) {
+        return Collections.singletonList(new SkinProperty("textures", value, "sig-" + value));
+    }
+
+    private static long expiresAt() {
+        return System.currentTimeMillis() + 60000;
+    }
+
+    private SkinDiskCache open() throws InterruptedException {
+        SkinDiskCache cache = new SkinDiskCache(directory, MAX_BYTES);
+        cache.load();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!cache.isLoaded()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("disk cache did not load");
+            }
+            Thread.sleep(5);
+        }
+        return cache;
+    }
+
+    private File segment() {
+        File[] segments = directory.listFiles((dir, name) -> name.startsWith("skins-") && name.endsWith(".dat"));
+        assertNotNull(segments);
+        assertEquals(1, segments.length);
+        return segments[0];
+    }
+
+    private static String value(SkinCache.Entry entry) {
+        return entry.properties.get(0).getValue();
+    }
+
+    @Test
+    public void entriesSurviveReload() throws Exception {
+        SkinDiskCache cache = open();
+        cache.put("Steve:test", PROFILE, properties("steve"), expiresAt());
+        cache.put("Alex:test", PROFILE, properties("alex"), expiresAt());
+        cache.remove("Alex:test");
+        cache.close();
+
+        SkinDiskCache reopened = open();
+        try {
+            SkinCache.Entry entry = reopened.get("Steve:test", System.currentTimeMillis());
+            assertNotNull(entry);
+            assertEquals("steve", value(entry));
+            assertEquals("sig-steve", entry.properties.get(0).getSignature());
+            assertEquals(PROFILE, entry.profileId);
+            assertNull(reopened.get("Alex:test", System.currentTimeMillis()));
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    public void truncatedTailIsDiscardedWithoutIndex() throws Exception {
+        SkinDiskCache cache = open();
+        cache.put("Steve:test", PROFILE, properties("steve"), expiresAt());
+        cache.close();
+        long intact = segment().length();
+
+        cache = open();
+        cache.put("Alex:test", PROFILE, properties("alex"), expiresAt());
+        cache.close();
+
+        // 模拟写入第二条记录时崩溃：没有索引，最后一条记录只写了一半
+        assertTrue(new File(directory, "skins.idx").delete());
+        try (RandomAccessFile file = new RandomAccessFile(segment(), "rw")) {
+            file.setLength(file.length() - 5);
+        }
+
+        SkinDiskCache recovered = open();
+        try {
+            assertEquals(1, recovered.size());
+            assertEquals(intact, segment().length());
+            assertEquals("steve", value(recovered.get("Steve:test", System.currentTimeMillis())));
+            assertNull(recovered.get("Alex:test", System.currentTimeMillis()));
+
+            // 截断后可以继续追加
+            recovered.put("Alex:test", PROFILE, properties("alex2"), expiresAt());
+        } finally {
+            recovered.close();
+        }
+
+        SkinDiskCache reopened = open();
+        try {
+            assertEquals(2, reopened.size());
+            assertEquals("alex2", value(reopened.get("Alex:test", System.currentTimeMillis())));
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    public void garbageAfterIndexedRecordsIsDiscarded() throws Exception {
+        SkinDiskCache cache = open();
+        cache.put("Steve:test", PROFILE, properties("steve"), expiresAt());
+        cache.put("Alex:test", PROFILE, properties("alex"), expiresAt());
+        cache.close();
+        long intact = segment().length();
+
+        try (RandomAccessFile file = new RandomAccessFile(segment(), "rw")) {
+            file.seek(file.length());
+            file.writeInt(64);
+            file.writeInt(0x12345678);
+            file.write(new byte[16]);
+        }
+
+        SkinDiskCache recovered = open();
+        try {
+            assertEquals(2, recovered.size());
+            assertEquals(intact, segment().length());
+            assertEquals("steve", value(recovered.get("Steve:test", System.currentTimeMillis())));
+            assertEquals("alex", value(recovered.get("Alex:test", System.currentTimeMillis())));
+        } finally {
+            recovered.close();
+        }
+    }
+
+    @Test
+    public void expiredEntriesAreNotReturned() throws Exception {
+        SkinDiskCache cache = open();
+        try {
+            long expiresAt = System.currentTimeMillis() + 1000;
+            cache.put("Steve:test", PROFILE, properties("steve"), expiresAt);
+            long deadline = System.currentTimeMillis() + 5000;
+            while (cache.size() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertNotNull(cache.get("Steve:test", expiresAt - 1));
+            assertNull(cache.get("Steve:test", expiresAt));
+        } finally {
+            cache.close();
+        }
+    }
+}
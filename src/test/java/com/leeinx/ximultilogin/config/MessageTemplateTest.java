@@ -0,0 +1,58 @@
+package com.Leeinx.ximultilogin.config;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class MessageTemplateTest {
+
+    private static final String PREFIX = "§6[XiMultiLogin] §r";
+
+    private static String render(String raw, boolean withPrefix, Object... replacements) {
+        return MessageManager.MessageTemplate.compile(raw, PREFIX).render(withPrefix, replacements);
+    }
+
+    @Test
+    public void plainMessageIsTranslatedAndPrefixed() {
+        assertEquals(PREFIX + "§cNo permission", render("&cNo permission", true));
+        assertEquals("§cNo permission", render("&cNo permission", false));
+    }
+
+    @Test
+    public void placeholdersAreSubstitutedInOrder() {
+        assertEquals(PREFIX + "§aSet §eSteve§a to §elittleskin",
+                render("&aSet &e{player}&a to &e{auth}", true, "auth", "littleskin", "player", "Steve"));
+    }
+
+    @Test
+    public void placeholderAtStartFollowsPrefix() {
+        assertEquals(PREFIX + "Steve joined", render("{player} joined", true, "player", "Steve"));
+        assertEquals("Steve joined", render("{player} joined", false, "player", "Steve"));
+    }
+
+    @Test
+    public void repeatedPlaceholderUsesFirstValue() {
+        assertEquals("a-a", render("{x}-{x}", false, "x", "a", "x", "b"));
+    }
+
+    @Test
+    public void missingPlaceholderIsKept() {
+        assertEquals("§cFailed: {reason}", render("&cFailed: {reason}", false));
+        assertEquals("§cFailed: {reason}", render("&cFailed: {reason}", false, "other", "value"));
+    }
+
+    @Test
+    public void colourCodesInValuesAreNotTranslated() {
+        assertEquals("Hi &cSteve", render("Hi {player}", false, "player", "&cSteve"));
+    }
+
+    @Test
+    public void nonStringValuesAreRendered() {
+        assertEquals("42% (null)", render("{percent}% ({value})", false, "percent", 42, "value", null));
+    }
+
+    @Test
+    public void unclosedBraceIsLiteral() {
+        assertEquals("§a{open", render("&a{open", false));
+    }
+}
@@ -0,0 +1,139 @@
+package com.Leeinx.ximultilogin.guard;
+
+import com.Leeinx.ximultilogin.TestServer;
+import com.Leeinx.ximultilogin.database.AsyncDatabaseManager;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BatchMigrationTest {
+
+    @BeforeClass
+    public static void installServer() {
+        TestServer.install();
+    }
+
+    /**
+     * 只实现迁移用到的两个方法的数据库：每个 id 区间更新 10 行，从 failFrom 起的区间失败
+     */
+    private static final class FakeDatabase {
+        final List<Long> attempted = new ArrayList<>();
+        long[] range = {1, 3500};
+        long failFrom = Long.MAX_VALUE;
+        boolean throwOnFailure;
+
+        AsyncDatabaseManager proxy() {
+            return (AsyncDatabaseManager) Proxy.newProxyInstance(AsyncDatabaseManager.class.getClassLoader(),
+                    new Class<?>[]{ AsyncDatabaseManager.class }, (p, method, args) -> {
+                        switch (method.getName()) {
+                            case "getIdRangeAsync":
+                                return CompletableFuture.completedFuture(range);
+                            case "updateAuthProviderRangeAsync":
+                                long start = (Long) args[3];
+                                attempted.add(start);
+                                if (start < failFrom) {
+                                    return CompletableFuture.completedFuture(10);
+                                }
+                                if (throwOnFailure) {
+                                    CompletableFuture<Integer> failed = new CompletableFuture<>();
+                                    failed.completeExceptionally(new RejectedExecutionException("pool shut down"));
+                                    return failed;
+                                }
+                                return CompletableFuture.completedFuture(-1);
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                    });
+        }
+    }
+
+    private static IdentityGuard.MigrationResult migrate(FakeDatabase database) {
+        return new IdentityGuard(database.proxy()).migrateAuthProviderAsync("mojang", null, "littleskin", null).join();
+    }
+
+    @Test
+    public void allRangesSucceed() {
+        FakeDatabase database = new FakeDatabase();
+
+        IdentityGuard.MigrationResult result = migrate(database);
+
+        assertTrue(result.isComplete());
+        assertFalse(result.hasFailedRange());
+        assertEquals(40, result.getUpdated());
+        assertEquals(4, database.attempted.size());
+    }
+
+    @Test
+    public void failedRangeReportsCommittedRowsAndStops() {
+        FakeDatabase database = new FakeDatabase();
+        database.failFrom = 2001;
+
+        IdentityGuard.MigrationResult result = migrate(database);
+
+        assertFalse(result.isComplete());
+        assertTrue(result.hasFailedRange());
+        assertEquals(20, result.getUpdated());
+        assertEquals(2001, result.getFailedStartId());
+        assertEquals(3000, result.getFailedEndId());
+        // 失败区间之后的区间不再执行
+        assertEquals(3, database.attempted.size());
+    }
+
+    @Test
+    public void failedLastRangeEndsAtMaxId() {
+        FakeDatabase database = new FakeDatabase();
+        database.failFrom = 3001;
+
+        IdentityGuard.MigrationResult result = migrate(database);
+
+        assertEquals(30, result.getUpdated());
+        assertEquals(3001, result.getFailedStartId());
+        assertEquals(3500, result.getFailedEndId());
+    }
+
+    @Test
+    public void exceptionalRangeIsReportedLikeAFailedRange() {
+        FakeDatabase database = new FakeDatabase();
+        database.failFrom = 1001;
+        database.throwOnFailure = true;
+
+        IdentityGuard.MigrationResult result = migrate(database);
+
+        assertEquals(10, result.getUpdated());
+        assertEquals(1001, result.getFailedStartId());
+        assertEquals(2000, result.getFailedEndId());
+    }
+
+    @Test
+    public void unreadableIdRangeMeansNotStarted() {
+        FakeDatabase database = new FakeDatabase();
+        database.range = null;
+
+        IdentityGuard.MigrationResult result = migrate(database);
+
+        assertFalse(result.isComplete());
+        assertFalse(result.hasFailedRange());
+        assertEquals(0, result.getUpdated());
+        assertTrue(database.attempted.isEmpty());
+    }
+
+    @Test
+    public void emptyTableCompletesWithoutUpdates() {
+        FakeDatabase database = new FakeDatabase();
+        database.range = new long[]{0, -1};
+
+        IdentityGuard.MigrationResult result = migrate(database);
+
+        assertTrue(result.isComplete());
+        assertEquals(0, result.getUpdated());
+    }
+}
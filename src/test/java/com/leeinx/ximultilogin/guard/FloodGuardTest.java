@@ -0,0 +1,138 @@
+package com.Leeinx.ximultilogin.guard;
+
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FloodGuardTest {
+
+    private static InetAddress address(String literal) throws UnknownHostException {
+        return InetAddress.getByName(literal);
+    }
+
+    private static FloodGuard guard() {
+        return new FloodGuard(600, 100, 600, 100, 3, 60);
+    }
+
+    @Test
+    public void failuresDenyOnlyTheSameNameAndAddress() throws Exception {
+        FloodGuard guard = guard();
+        InetAddress attacker = address("198.51.100.7");
+        for (int i = 0; i < 3; i++) {
+            guard.recordFailure("Steve", attacker);
+        }
+
+        assertFalse(guard.admitSession("Steve", attacker));
+        assertFalse(guard.admitSession("steve", attacker));
+        // 别人用同一个名字从其它地址登录，或者同一地址上的其它玩家，都不受影响
+        assertTrue(guard.admitSession("Steve", address("203.0.113.9")));
+        assertTrue(guard.admitSession("Alex", attacker));
+        assertEquals(2, guard.getRejected());
+    }
+
+    @Test
+    public void denialNeedsConfiguredNumberOfFailures() throws Exception {
+        FloodGuard guard = guard();
+        InetAddress address = address("198.51.100.7");
+        guard.recordFailure("Steve", address);
+        guard.recordFailure("Steve", address);
+
+        assertTrue(guard.admitSession("Steve", address));
+    }
+
+    @Test
+    public void successClearsFailures() throws Exception {
+        FloodGuard guard = guard();
+        InetAddress address = address("198.51.100.7");
+        for (int i = 0; i < 3; i++) {
+            guard.recordFailure("Steve", address);
+        }
+        guard.clearFailures("Steve", address);
+
+        assertTrue(guard.admitSession("Steve", address));
+    }
+
+    @Test
+    public void failuresWithoutAddressAreNotCounted() {
+        FloodGuard guard = guard();
+        for (int i = 0; i < 10; i++) {
+            guard.recordFailure("Steve", null);
+        }
+
+        assertTrue(guard.admitSession("Steve", null));
+    }
+
+    @Test
+    public void addressRateLimitAllowsBurstThenRejects() throws Exception {
+        FloodGuard guard = new FloodGuard(1, 2, 600, 100, 3, 60);
+        InetAddress address = address("198.51.100.7");
+
+        assertTrue(guard.admitConnection(address, "a"));
+        assertTrue(guard.admitConnection(address, "b"));
+        assertFalse(guard.admitConnection(address, "c"));
+        assertTrue(guard.admitConnection(address("203.0.113.9"), "d"));
+        assertEquals(1, guard.getRejected());
+    }
+
+    @Test
+    public void nameRateLimitAppliesAcrossAddresses() throws Exception {
+        FloodGuard guard = new FloodGuard(600, 100, 1, 1, 3, 60);
+
+        assertTrue(guard.admitConnection(address("198.51.100.7"), "Steve"));
+        assertFalse(guard.admitConnection(address("203.0.113.9"), "steve"));
+    }
+
+    @Test
+    public void sessionLayerSkipsRateLimitWhenConnectionLayerIsActive() throws Exception {
+        FloodGuard guard = new FloodGuard(1, 1, 600, 100, 3, 60);
+        InetAddress address = address("198.51.100.7");
+        guard.setConnectionLayerActive(true);
+
+        assertTrue(guard.admitConnection(address, "Steve"));
+        // 同一次登录在会话层不再计数
+        assertTrue(guard.admitSession("Steve", address));
+        assertFalse(guard.admitConnection(address, "Alex"));
+    }
+
+    @Test
+    public void floodOfRandomNamesDoesNotLockOthersOut() throws Exception {
+        // 每个名称只允许一次，攻击者可用的 IP 不受限
+        FloodGuard guard = new FloodGuard(600, 100000, 1, 1, 1, 60);
+        InetAddress attacker = address("198.51.100.7");
+        java.util.Random random = new java.util.Random(42);
+        for (int i = 0; i < 20000; i++) {
+            String name = Long.toString(random.nextLong() & Long.MAX_VALUE, 36);
+            guard.admitConnection(attacker, name);
+            guard.recordFailure(name, attacker);
+        }
+
+        // 名称不共享限速桶和失败记录，旧实现中大量名称必然与这些玩家的槽位冲突
+        String[] victims = {"Steve", "Alex", "Notch", "jeb_", "Dinnerbone"};
+        for (String victim : victims) {
+            assertTrue(victim, guard.admitConnection(address("203.0.113.9"), victim));
+        }
+        guard.setConnectionLayerActive(true);
+        for (String victim : victims) {
+            assertTrue(victim, guard.admitSession(victim, attacker));
+        }
+    }
+
+    @Test
+    public void evictedKeysStartOverInsteadOfBlockingNewOnes() throws Exception {
+        FloodGuard guard = new FloodGuard(600, 100, 1, 1, 3, 60, 8);
+        InetAddress address = address("198.51.100.7");
+        assertTrue(guard.admitConnection(address, "Steve"));
+        assertFalse(guard.admitConnection(address, "Steve"));
+        for (int i = 0; i < 8; i++) {
+            assertTrue(guard.admitConnection(address, "player" + i));
+        }
+
+        // 表满后最久未使用的名称被挤出，再次出现时重新计数
+        assertTrue(guard.admitConnection(address, "Steve"));
+    }
+}
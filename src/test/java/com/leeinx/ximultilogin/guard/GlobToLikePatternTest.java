@@ -0,0 +1,42 @@
+package com.Leeinx.ximultilogin.guard;
+
+import com.Leeinx.ximultilogin.TestServer;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class GlobToLikePatternTest {
+
+    @BeforeClass
+    public static void installServer() {
+        TestServer.install();
+    }
+
+    @Test
+    public void wildcardsBecomeLikeWildcards() {
+        assertEquals("%", IdentityGuard.globToLikePattern("*"));
+        assertEquals("Steve_", IdentityGuard.globToLikePattern("Steve?"));
+        assertEquals("bot%_x%", IdentityGuard.globToLikePattern("bot*?x*"));
+    }
+
+    @Test
+    public void likeMetacharactersAreEscaped() {
+        assertEquals("100\\%", IdentityGuard.globToLikePattern("100%"));
+        assertEquals("Steve\\_01", IdentityGuard.globToLikePattern("Steve_01"));
+        assertEquals("a\\\\b", IdentityGuard.globToLikePattern("a\\b"));
+        assertEquals("\\_%\\%_", IdentityGuard.globToLikePattern("_*%?"));
+    }
+
+    @Test
+    public void plainNamesAreUnchanged() {
+        assertEquals("Notch", IdentityGuard.globToLikePattern("Notch"));
+        assertEquals("", IdentityGuard.globToLikePattern(""));
+    }
+
+    @Test
+    public void nullMeansNoFilter() {
+        assertNull(IdentityGuard.globToLikePattern(null));
+    }
+}
@@ -0,0 +1,80 @@
+package com.Leeinx.ximultilogin.guard;
+
+import com.Leeinx.ximultilogin.TestServer;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class NameIndexTest {
+
+    @BeforeClass
+    public static void installServer() {
+        TestServer.install();
+    }
+
+    private static NameIndex index(String... names) {
+        NameIndex index = new NameIndex();
+        for (String name : names) {
+            index.add(name);
+        }
+        return index;
+    }
+
+    @Test
+    public void completesByPrefixIgnoringCase() {
+        NameIndex index = index("Steve", "steph", "Alex", "STAN");
+
+        assertEquals(Arrays.asList("STAN", "steph", "Steve"), index.complete("st", 10));
+        assertEquals(Arrays.asList("Steve"), index.complete("STEV", 10));
+        assertEquals(Collections.emptyList(), index.complete("notch", 10));
+    }
+
+    @Test
+    public void emptyOrNullPrefixListsAllNames() {
+        NameIndex index = index("b", "a", "c");
+
+        assertEquals(Arrays.asList("a", "b", "c"), index.complete("", 10));
+        assertEquals(Arrays.asList("a", "b", "c"), index.complete(null, 10));
+    }
+
+    @Test
+    public void limitCapsResults() {
+        NameIndex index = index("bot1", "bot2", "bot3", "bot4");
+
+        assertEquals(Arrays.asList("bot1", "bot2"), index.complete("bot", 2));
+        assertEquals(Collections.emptyList(), index.complete("bot", 0));
+    }
+
+    @Test
+    public void sameNameInDifferentCaseIsIndexedOnce() {
+        NameIndex index = index("steve", "Steve");
+
+        // 后写入的大小写覆盖先前的
+        assertEquals(Arrays.asList("Steve"), index.complete("s", 10));
+    }
+
+    @Test
+    public void emptyAndNullNamesAreIgnored() {
+        NameIndex index = index("", null, "Alex");
+
+        assertEquals(Arrays.asList("Alex"), index.complete("", 10));
+    }
+
+    @Test
+    public void loadRunsOnceAndRetriesAfterFailure() {
+        NameIndex index = new NameIndex();
+
+        assertTrue(index.beginLoad());
+        assertFalse(index.beginLoad());
+        index.finishLoad(false);
+        assertTrue(index.beginLoad());
+        index.finishLoad(true);
+        assertFalse(index.beginLoad());
+    }
+}
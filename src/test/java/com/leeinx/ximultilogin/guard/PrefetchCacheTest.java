@@ -0,0 +1,97 @@
+package com.Leeinx.ximultilogin.guard;
+
+import org.junit.Test;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class PrefetchCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private PrefetchCache.Entry load(long expiresAt) {
+        loads.incrementAndGet();
+        return new PrefetchCache.Entry(CompletableFuture.completedFuture("mojang"),
+                CompletableFuture.completedFuture(UUID.randomUUID()), expiresAt);
+    }
+
+    @Test
+    public void validEntryIsReusedAndNotReloaded() {
+        PrefetchCache cache = new PrefetchCache(10, 60000);
+        cache.prefetch("Steve", this::load);
+        PrefetchCache.Entry entry = cache.get("Steve");
+        cache.prefetch("Steve", this::load);
+
+        assertNotNull(entry);
+        assertSame(entry, cache.get("Steve"));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void expiredEntryIsNotReturned() throws Exception {
+        PrefetchCache cache = new PrefetchCache(10, 1);
+        cache.prefetch("Steve", this::load);
+        Thread.sleep(5);
+
+        assertNull(cache.get("Steve"));
+    }
+
+    @Test
+    public void fullCacheSkipsPrefetch() {
+        PrefetchCache cache = new PrefetchCache(2, 60000);
+        cache.prefetch("a", this::load);
+        cache.prefetch("b", this::load);
+        cache.prefetch("c", this::load);
+
+        assertNull(cache.get("c"));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void noPrefetchWhileWriteIsPending() {
+        PrefetchCache cache = new PrefetchCache(10, 60000);
+        cache.beginWrite("Steve");
+        cache.prefetch("Steve", this::load);
+
+        assertNull(cache.get("Steve"));
+        assertEquals(0, loads.get());
+
+        cache.endWrite("Steve");
+        cache.prefetch("Steve", this::load);
+        assertNotNull(cache.get("Steve"));
+    }
+
+    @Test
+    public void prefetchRacingAWriteIsDiscardedWhenTheWriteCompletes() {
+        PrefetchCache cache = new PrefetchCache(10, 60000);
+        // 预取在写操作登记之前通过检查，条目在写入期间才放入缓存，可能是旧记录
+        cache.prefetch("Steve", expiresAt -> {
+            cache.beginWrite("Steve");
+            return load(expiresAt);
+        });
+        assertNotNull(cache.get("Steve"));
+
+        cache.endWrite("Steve");
+        assertNull(cache.get("Steve"));
+    }
+
+    @Test
+    public void overlappingWritesKeepPrefetchDisabledUntilTheLastCompletes() {
+        PrefetchCache cache = new PrefetchCache(10, 60000);
+        cache.beginWrite("Steve");
+        cache.beginWrite("Steve");
+        cache.endWrite("Steve");
+        cache.prefetch("Steve", this::load);
+        assertNull(cache.get("Steve"));
+
+        cache.endWrite("Steve");
+        cache.prefetch("Steve", this::load);
+        assertNotNull(cache.get("Steve"));
+    }
+}
@@ -0,0 +1,245 @@
+package com.Leeinx.ximultilogin.http;
+
+import com.Leeinx.ximultilogin.TestServer;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 非阻塞请求（HostConnectionPool.getAsync），使用本地套接字上的最小 HTTP 服务器
+ */
+public class AsyncHttpTest {
+
+    private static final String CLOSE = "\u0000";
+    private static final long MAX_BODY = 1024;
+    private static final Executor DIRECT = Runnable::run;
+
+    private ServerSocket server;
+    private Thread acceptor;
+    private final BlockingQueue<String> responses = new LinkedBlockingQueue<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private HostConnectionPool pool;
+
+    @BeforeClass
+    public static void installServer() {
+        TestServer.install();
+    }
+
+    @AfterClass
+    public static void shutdownPools() {
+        HttpClients.shutdown();
+    }
+
+    @Before
+    public void startServer() throws IOException {
+        HttpClients.configure(8, 2000, 2000, 30, 0);
+        server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        acceptor = new Thread(() -> {
+            while (!server.isClosed()) {
+                try {
+                    Socket socket = server.accept();
+                    connections.incrementAndGet();
+                    Thread handler = new Thread(() -> serve(socket));
+                    handler.setDaemon(true);
+                    handler.start();
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        });
+        acceptor.setDaemon(true);
+        acceptor.start();
+        pool = HttpClients.forUrl(new URL("http://127.0.0.1:" + server.getLocalPort() + "/"));
+    }
+
+    @After
+    public void stopServer() throws Exception {
+        server.close();
+        acceptor.join(1000);
+        HttpClients.configure(8, 5000, 5000, 30, 0);
+    }
+
+    /**
+     * 每读到一个请求头就写出队列中的下一个响应，以 CLOSE 结尾的响应写出后关闭连接
+     */
+    private void serve(Socket socket) {
+        try (Socket s = socket) {
+            InputStream in = s.getInputStream();
+            OutputStream out = s.getOutputStream();
+            while (readRequest(in)) {
+                String response = responses.take();
+                boolean close = response.endsWith(CLOSE);
+                out.write((close ? response.substring(0, response.length() - 1) : response).getBytes(StandardCharsets.ISO_8859_1));
+                out.flush();
+                if (close) {
+                    return;
+                }
+            }
+        } catch (IOException | InterruptedException ignored) {
+        }
+    }
+
+    private static boolean readRequest(InputStream in) throws IOException {
+        int matched = 0;
+        int b;
+        while ((b = in.read()) != -1) {
+            matched = (b == '\r' && matched % 2 == 0) || (b == '\n' && matched % 2 == 1) ? matched + 1 : 0;
+            if (matched == 4) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private HttpResponse get(String target) throws Exception {
+        return await(pool.getAsync(target, System.currentTimeMillis() + 5000, MAX_BODY, DIRECT));
+    }
+
+    private static HttpResponse await(CompletableFuture<HttpResponse> future) throws Exception {
+        try {
+            return future.get(10, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            throw (Exception) e.getCause();
+        }
+    }
+
+    private static String read(HttpResponse response) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[64];
+        InputStream in = response.getBody();
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            body.write(buffer, 0, read);
+        }
+        return new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void keepAliveConnectionIsReused() throws Exception {
+        responses.add("HTTP/1.1 200 OK\r\nContent-Length: 5\r\n\r\nfirst");
+        responses.add("HTTP/1.1 204 No Content\r\n\r\n");
+
+        try (HttpResponse response = get("/first")) {
+            assertEquals(200, response.getStatusCode());
+            assertEquals("first", read(response));
+        }
+        try (HttpResponse response = get("/second")) {
+            assertEquals(204, response.getStatusCode());
+            assertEquals("", read(response));
+        }
+        assertEquals(1, connections.get());
+        assertEquals(1, pool.getIdle());
+    }
+
+    @Test
+    public void chunkedBodyIsReassembled() throws Exception {
+        responses.add("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n"
+                + "5\r\nhello\r\n1;name=value\r\n,\r\n6\r\n world\r\n0\r\nX-Checksum: abc\r\n\r\n");
+
+        try (HttpResponse response = get("/chunked")) {
+            assertEquals("hello, world", read(response));
+        }
+    }
+
+    @Test
+    public void missingCrlfAfterChunkFailsAndClosesConnection() throws Exception {
+        responses.add("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n5\r\nhelloXX\r\n0\r\n\r\n");
+        responses.add("HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\nok");
+
+        try {
+            get("/malformed").close();
+            fail("chunk without CRLF was accepted");
+        } catch (IOException e) {
+            assertEquals("Missing CRLF after chunk", e.getMessage());
+        }
+        try (HttpResponse response = get("/next")) {
+            assertEquals("ok", read(response));
+        }
+        assertEquals(2, connections.get());
+    }
+
+    @Test
+    public void bodyUntilCloseIsNotReused() throws Exception {
+        responses.add("HTTP/1.1 200 OK\r\n\r\nuntil close" + CLOSE);
+        responses.add("HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\nok");
+
+        try (HttpResponse response = get("/stream")) {
+            assertEquals("until close", read(response));
+        }
+        try (HttpResponse response = get("/next")) {
+            assertEquals("ok", read(response));
+        }
+        assertEquals(2, connections.get());
+    }
+
+    @Test
+    public void oversizedBodyIsRejected() throws Exception {
+        responses.add("HTTP/1.1 200 OK\r\nContent-Length: " + (MAX_BODY + 1) + "\r\n\r\n");
+
+        try {
+            get("/large").close();
+            fail("oversized body was accepted");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Response too large"));
+        }
+    }
+
+    @Test
+    public void silentServerTimesOutAtDeadline() throws Exception {
+        long start = System.currentTimeMillis();
+        try {
+            await(pool.getAsync("/silent", start + 300, MAX_BODY, DIRECT)).close();
+            fail("request without response completed");
+        } catch (SocketTimeoutException expected) {
+            // I/O 线程在截止时间关闭连接
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        assertTrue("timed out after " + elapsed + "ms", elapsed >= 250 && elapsed < 2000);
+        assertEquals(0, pool.getLeased());
+    }
+
+    @Test
+    public void requestsQueueForTheConnectionLimit() throws Exception {
+        HttpClients.configure(1, 2000, 2000, 30, 0);
+        for (int i = 0; i < 3; i++) {
+            responses.add("HTTP/1.1 200 OK\r\nContent-Length: 1\r\n\r\n" + i);
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        CompletableFuture<HttpResponse> first = pool.getAsync("/a", deadline, MAX_BODY, DIRECT);
+        CompletableFuture<HttpResponse> second = pool.getAsync("/b", deadline, MAX_BODY, DIRECT);
+        CompletableFuture<HttpResponse> third = pool.getAsync("/c", deadline, MAX_BODY, DIRECT);
+
+        StringBuilder bodies = new StringBuilder();
+        for (CompletableFuture<HttpResponse> future : java.util.Arrays.asList(first, second, third)) {
+            try (HttpResponse response = await(future)) {
+                bodies.append(read(response));
+            }
+        }
+        assertEquals("012", bodies.toString());
+        assertEquals(1, connections.get());
+    }
+}
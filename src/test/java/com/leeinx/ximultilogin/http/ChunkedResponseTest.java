@@ -0,0 +1,216 @@
+package com.Leeinx.ximultilogin.http;
+
+import com.Leeinx.ximultilogin.TestServer;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * 分块传输响应体的解析，使用本地套接字上的最小 HTTP 服务器
+ */
+public class ChunkedResponseTest {
+
+    private static final String CLOSE = "\u0000";
+
+    private ServerSocket server;
+    private Thread acceptor;
+    private final BlockingQueue<String> responses = new LinkedBlockingQueue<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private HostConnectionPool pool;
+
+    @BeforeClass
+    public static void installServer() {
+        TestServer.install();
+    }
+
+    @AfterClass
+    public static void shutdownPools() {
+        HttpClients.shutdown();
+    }
+
+    @Before
+    public void startServer() throws IOException {
+        server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        acceptor = new Thread(() -> {
+            while (!server.isClosed()) {
+                try {
+                    Socket socket = server.accept();
+                    connections.incrementAndGet();
+                    Thread handler = new Thread(() -> serve(socket));
+                    handler.setDaemon(true);
+                    handler.start();
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        });
+        acceptor.setDaemon(true);
+        acceptor.start();
+        pool = HttpClients.forUrl(new URL("http://127.0.0.1:" + server.getLocalPort() + "/"));
+    }
+
+    @After
+    public void stopServer() throws Exception {
+        server.close();
+        acceptor.join(1000);
+    }
+
+    /**
+     * 每读到一个请求头就写出队列中的下一个响应，以 CLOSE 结尾的响应写出后关闭连接
+     */
+    private void serve(Socket socket) {
+        try (Socket s = socket) {
+            InputStream in = s.getInputStream();
+            OutputStream out = s.getOutputStream();
+            while (readRequest(in)) {
+                String response = responses.take();
+                out.write(response.getBytes(StandardCharsets.ISO_8859_1));
+                out.flush();
+                if (response.endsWith(CLOSE)) {
+                    return;
+                }
+            }
+        } catch (IOException | InterruptedException ignored) {
+        }
+    }
+
+    private static boolean readRequest(InputStream in) throws IOException {
+        int matched = 0;
+        int b;
+        while ((b = in.read()) != -1) {
+            matched = (b == '\r' && matched % 2 == 0) || (b == '\n' && matched % 2 == 1) ? matched + 1 : 0;
+            if (matched == 4) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String chunked(String... chunks) {
+        StringBuilder response = new StringBuilder("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n");
+        for (String chunk : chunks) {
+            response.append(chunk);
+        }
+        return response.toString();
+    }
+
+    private static String read(HttpResponse response) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[3];
+        InputStream in = response.getBody();
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            body.write(buffer, 0, read);
+        }
+        return new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void chunksAreReassembled() throws IOException {
+        responses.add(chunked("5\r\nhello\r\n", "1;name=value\r\n,\r\n", "6\r\n world\r\n", "0\r\n\r\n"));
+
+        try (HttpResponse response = pool.get("/profile")) {
+            assertEquals(200, response.getStatusCode());
+            assertEquals("hello, world", read(response));
+        }
+    }
+
+    @Test
+    public void trailerIsSkippedAndConnectionIsReused() throws IOException {
+        responses.add(chunked("A\r\n0123456789\r\n", "0\r\nX-Checksum: abc\r\nX-Other: 1\r\n\r\n"));
+        responses.add("HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\nok");
+
+        try (HttpResponse response = pool.get("/first")) {
+            assertEquals("0123456789", read(response));
+        }
+        try (HttpResponse response = pool.get("/second")) {
+            assertEquals("ok", read(response));
+        }
+        assertEquals(1, connections.get());
+    }
+
+    @Test
+    public void uppercaseHexSizeIsAccepted() throws IOException {
+        StringBuilder data = new StringBuilder();
+        for (int i = 0; i < 0x1F; i++) {
+            data.append((char) ('a' + i % 26));
+        }
+        responses.add(chunked("1F\r\n" + data + "\r\n", "0\r\n\r\n"));
+
+        try (HttpResponse response = pool.get("/hex")) {
+            assertEquals(data.toString(), read(response));
+        }
+    }
+
+    @Test
+    public void invalidChunkSizeFails() throws IOException {
+        responses.add(chunked("zz\r\nhello\r\n", "0\r\n\r\n"));
+
+        try (HttpResponse response = pool.get("/invalid")) {
+            read(response);
+            fail("invalid chunk size was accepted");
+        } catch (IOException e) {
+            assertEquals("Invalid chunk size: zz", e.getMessage());
+        }
+    }
+
+    @Test
+    public void missingCrlfAfterChunkFailsAndClosesConnection() throws IOException {
+        responses.add(chunked("5\r\nhelloXX\r\n", "0\r\n\r\n"));
+        responses.add("HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\nok");
+
+        try (HttpResponse response = pool.get("/malformed")) {
+            read(response);
+            fail("chunk without CRLF was accepted");
+        } catch (IOException e) {
+            assertEquals("Missing CRLF after chunk", e.getMessage());
+        }
+        // 格式错误的连接不回到连接池
+        try (HttpResponse response = pool.get("/next")) {
+            assertEquals("ok", read(response));
+        }
+        assertEquals(2, connections.get());
+    }
+
+    @Test
+    public void negativeChunkSizeFails() throws IOException {
+        responses.add(chunked("-5\r\nhello\r\n", "0\r\n\r\n"));
+
+        try (HttpResponse response = pool.get("/negative")) {
+            read(response);
+            fail("negative chunk size was accepted");
+        } catch (IOException e) {
+            assertEquals("Invalid chunk size: -5", e.getMessage());
+        }
+    }
+
+    @Test
+    public void connectionClosedInsideChunkFails() throws IOException {
+        responses.add(chunked("10\r\nshort" + CLOSE));
+
+        try (HttpResponse response = pool.get("/truncated")) {
+            read(response);
+            fail("truncated chunk was accepted");
+        } catch (IOException expected) {
+            // 分块没有读完连接就关闭了
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.Leeinx.ximultilogin.listener;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class LoginContextStoreTest {
+
+    @Test
+    public void laterContextReplacesEarlierOne() {
+        LoginContextStore store = new LoginContextStore(100, 60000, 1000);
+        store.put(LoginContext.succeeded("Steve", "mojang", 12));
+        LoginContext failed = LoginContext.failed("Steve", "strict_auth_failed", "mojang", 30);
+        store.put(failed);
+
+        assertSame(failed, store.get("Steve"));
+        assertEquals(30, store.get("Steve").getAuthMillis());
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    public void floodOfFailuresNeverEvictsAFailedContext() {
+        LoginContextStore store = new LoginContextStore(10, 60000, 1000);
+        LoginContext victim = LoginContext.failed("Victim", "strict_auth_failed", "mojang", 5);
+        store.put(victim);
+        for (int i = 0; i < 1000; i++) {
+            store.put(LoginContext.failed("bot" + i, "all_providers_failed", null, 5));
+        }
+
+        // 失败记录决定玩家会不会被踢出，超过上限也不能被淘汰
+        assertSame(victim, store.get("Victim"));
+        assertEquals(1001, store.size());
+    }
+
+    @Test
+    public void overCapacityEvictsOldestSuccessfulContexts() {
+        LoginContextStore store = new LoginContextStore(3, 60000, 1000);
+        store.put(LoginContext.failed("Victim", "strict_auth_failed", "mojang", 5));
+        for (int i = 0; i < 5; i++) {
+            store.put(LoginContext.succeeded("player" + i, "mojang", 5));
+        }
+
+        assertEquals(3, store.size());
+        assertNotNull(store.get("Victim"));
+        assertNull(store.get("player0"));
+        assertNull(store.get("player2"));
+        assertNotNull(store.get("player3"));
+        assertNotNull(store.get("player4"));
+    }
+
+    @Test
+    public void replacedSuccessIsNotEvictedInPlaceOfFailure() {
+        LoginContextStore store = new LoginContextStore(2, 60000, 1000);
+        store.put(LoginContext.succeeded("Steve", "mojang", 5));
+        store.put(LoginContext.failed("Steve", "strict_auth_failed", "mojang", 5));
+        store.put(LoginContext.succeeded("Alex", "mojang", 5));
+        store.put(LoginContext.succeeded("Notch", "mojang", 5));
+
+        // Steve 的成功记录已被失败记录替换，淘汰只能移除 Alex
+        assertTrue(store.get("Steve").isFailed());
+        assertNull(store.get("Alex"));
+        assertNotNull(store.get("Notch"));
+    }
+
+    @Test
+    public void advanceExpiresContexts() throws Exception {
+        LoginContextStore store = new LoginContextStore(100, 20, 10);
+        store.put(LoginContext.failed("Steve", "all_providers_failed", null, 5));
+        store.put(LoginContext.succeeded("Alex", "mojang", 5));
+        Thread.sleep(60);
+
+        assertEquals(2, store.advance());
+        assertEquals(0, store.size());
+        assertNull(store.get("Steve"));
+    }
+
+    @Test
+    public void getIgnoresExpiredContextBeforeAdvance() throws Exception {
+        LoginContextStore store = new LoginContextStore(100, 20, 10);
+        store.put(LoginContext.failed("Steve", "all_providers_failed", null, 5));
+        Thread.sleep(60);
+
+        assertNull(store.get("Steve"));
+    }
+
+    @Test
+    public void removeByOutcomeOnlyRemovesMatchingContext() {
+        LoginContextStore store = new LoginContextStore(100, 60000, 1000);
+        store.put(LoginContext.failed("Steve", "all_providers_failed", null, 5));
+
+        assertNull(store.remove("Steve", LoginContext.Outcome.SUCCEEDED));
+        assertNotNull(store.remove("Steve", LoginContext.Outcome.FAILED));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    public void removeContextIgnoresReplacedContext() {
+        LoginContextStore store = new LoginContextStore(100, 60000, 1000);
+        LoginContext first = LoginContext.failed("Steve", "all_providers_failed", null, 5);
+        store.put(first);
+        LoginContext second = LoginContext.failed("Steve", "strict_auth_failed", "mojang", 5);
+        store.put(second);
+
+        assertFalse(store.remove(first));
+        assertSame(second, store.get("Steve"));
+    }
+}